@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Persistence;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * Name of the persistence unit of the benchmark entities.
+     */
+    public static final String UNIT = "benchmarks";
+
+    private static final int POPULATE_BATCH = 1000;
+    private static final AtomicInteger _databases = new AtomicInteger();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Return a new name for an in-memory database.
+     */
+    public static String newDatabaseName() {
+        return "openjpa-bench-" + _databases.incrementAndGet();
+    }
+
+    /**
+     * Create a factory of the benchmark unit connected to a new in-memory
+     * database. The given property name and value pairs are added to, and
+     * may override, the connection properties.
+     */
+    public static OpenJPAEntityManagerFactorySPI createFactory(Database db,
+        Object... props) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("openjpa.ConnectionDriverName", db.getDriverName());
+        map.put("openjpa.ConnectionURL", db.getURL(newDatabaseName()));
+        for (int i = 0; i + 1 < props.length; i += 2)
+            map.put((String) props[i], props[i + 1]);
+        OpenJPAEntityManagerFactorySPI emf = (OpenJPAEntityManagerFactorySPI)
+            Persistence.createEntityManagerFactory(UNIT, map);
+
+        // create the schema before the first measurement
+        emf.createEntityManager().close();
+        return emf;
+    }
+
+    /**
+     * Persist items with ids <code>1</code> to <code>count</code>.
+     */
+    public static void populate(OpenJPAEntityManagerFactorySPI emf,
+        long count) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (long id = 1; id <= count;) {
+                em.getTransaction().begin();
+                for (int i = 0; i < POPULATE_BATCH && id <= count; i++)
+                    em.persist(new Item(id++));
+                em.getTransaction().commit();
+                em.clear();
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.datacache.DataCache;
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.util.LongId;
+import org.apache.openjpa.util.ObjectCodec;
+import org.apache.openjpa.util.Serialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding cached instance data and remote commit
+ * events with Java serialization and with the compact codec. Run with
+ * <code>-prof gc</code> to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    private static final int EVENT_IDS = 100;
+
+    @Param({ "java", "compact" })
+    public String codec;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private ObjectCodec _codec;
+    private Object _data;
+    private byte[] _dataBytes;
+    private RemoteCommitEvent _event;
+    private byte[] _eventBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.DataCache", "true",
+            "openjpa.RemoteCommitProvider", "sjvm");
+        BenchmarkSupport.populate(_emf, 1);
+        DataCache cache = _emf.getConfiguration().getDataCacheManagerInstance()
+            .getSystemDataCache();
+        _data = cache.get(new LongId(Item.class, 1L));
+        if (_data == null)
+            throw new IllegalStateException("Item 1 is not cached");
+
+        List<Object> added = new ArrayList<>();
+        List<Object> updated = new ArrayList<>();
+        for (int i = 0; i < EVENT_IDS; i++) {
+            added.add(new LongId(Item.class, i));
+            updated.add(new LongId(Item.class, EVENT_IDS + i));
+        }
+        _event = new RemoteCommitEvent(RemoteCommitEvent.PAYLOAD_OIDS_WITH_ADDS,
+            added, Collections.singletonList(Item.class.getName()), updated,
+            Collections.emptyList());
+
+        _codec = Serialization.newCodec(codec, _emf.getConfiguration());
+        _dataBytes = _codec.encode(_data);
+        _eventBytes = _codec.encode(_event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    @Benchmark
+    public byte[] encodeData() throws Exception {
+        return _codec.encode(_data);
+    }
+
+    @Benchmark
+    public Object decodeData() throws Exception {
+        return _codec.decode(_dataBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeEvent() throws Exception {
+        return _codec.encode(_event);
+    }
+
+    @Benchmark
+    public Object decodeEvent() throws Exception {
+        return _codec.decode(_eventBytes);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.datacache.DataCache;
+import org.apache.openjpa.datacache.DataCachePCData;
+import org.apache.openjpa.datacache.DataCachePCDataImpl;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.util.LongId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the ConcurrentDataCache under contention. With a single segment
+ * the cache is backed by one CacheMap, otherwise by a StripedCacheMap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class DataCacheBenchmark {
+
+    private static final int ENTRIES = 50000;
+
+    @Param({ "1", "32" })
+    public int segments;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private DataCache _cache;
+    private ClassMetaData _meta;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.DataCache", "true(CacheSize=" + (2 * ENTRIES)
+                + ",Segments=" + segments + ")",
+            "openjpa.RemoteCommitProvider", "sjvm");
+        _cache = _emf.getConfiguration().getDataCacheManagerInstance()
+            .getSystemDataCache();
+        _meta = _emf.getConfiguration().getMetaDataRepositoryInstance()
+            .getMetaData(Item.class, null, true);
+        for (int i = 0; i < ENTRIES; i++)
+            _cache.put(newData(i));
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    private DataCachePCData newData(long id) {
+        return new DataCachePCDataImpl(new LongId(Item.class, id), _meta);
+    }
+
+    @Benchmark
+    public DataCachePCData get() {
+        long id = ThreadLocalRandom.current().nextInt(ENTRIES);
+        return _cache.get(new LongId(Item.class, id));
+    }
+
+    /**
+     * Nine reads for every write.
+     */
+    @Benchmark
+    public DataCachePCData readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextInt(ENTRIES);
+        if (random.nextInt(10) == 0)
+            return _cache.put(newData(id));
+        return _cache.get(new LongId(Item.class, id));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+/**
+ * Embedded databases the benchmarks run against. Each factory created by
+ * {@link BenchmarkSupport} uses its own in-memory database.
+ */
+public enum Database {
+
+    DERBY("org.apache.derby.jdbc.EmbeddedDriver",
+        "jdbc:derby:memory:%s;create=true"),
+    H2("org.h2.Driver", "jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1"),
+    HSQLDB("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:%s");
+
+    private final String _driver;
+    private final String _url;
+
+    Database(String driver, String url) {
+        _driver = driver;
+        _url = url;
+    }
+
+    /**
+     * The JDBC driver class name.
+     */
+    public String getDriverName() {
+        return _driver;
+    }
+
+    /**
+     * The connection URL of the in-memory database with the given name.
+     */
+    public String getURL(String name) {
+        return String.format(_url, name);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.enhance.PersistenceCapable;
+import org.apache.openjpa.kernel.OpenJPAStateManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures access to the fields of a class enhanced by the PCEnhancer:
+ * reads and writes through the enhanced accessors of a managed instance,
+ * reads of an unmanaged instance, and reads through the state manager.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FieldAccessBenchmark {
+
+    @Param({ "DERBY" })
+    public Database database;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private EntityManager _em;
+    private Item _managed;
+    private Item _unmanaged;
+    private OpenJPAStateManager _sm;
+    private int _quantity;
+    private int _counter;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(database);
+        BenchmarkSupport.populate(_emf, 1);
+        _em = _emf.createEntityManager();
+        _em.getTransaction().begin();
+        _managed = _em.find(Item.class, 1L);
+        _unmanaged = new Item(1);
+        _sm = (OpenJPAStateManager) ((PersistenceCapable) _managed)
+            .pcGetStateManager();
+        _quantity = _sm.getMetaData().getField("quantity").getIndex();
+    }
+
+    @TearDown
+    public void tearDown() {
+        _em.getTransaction().rollback();
+        _em.close();
+        _emf.close();
+    }
+
+    @Benchmark
+    public double readManaged() {
+        return _managed.getQuantity() + _managed.getPrice()
+            + _managed.getCategory();
+    }
+
+    @Benchmark
+    public double readUnmanaged() {
+        return _unmanaged.getQuantity() + _unmanaged.getPrice()
+            + _unmanaged.getCategory();
+    }
+
+    @Benchmark
+    public void writeManaged() {
+        _managed.setQuantity(++_counter);
+    }
+
+    @Benchmark
+    public Object fetchFromStateManager() {
+        return _sm.fetch(_quantity);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures <code>em.find</code> of an instance that is not in the
+ * persistence context, loaded from the database or from the data cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    @Param({ "DERBY", "H2", "HSQLDB" })
+    public Database database;
+
+    @Param({ "false", "true" })
+    public boolean dataCache;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(database,
+            "openjpa.DataCache", String.valueOf(dataCache),
+            "openjpa.RemoteCommitProvider", "sjvm");
+        BenchmarkSupport.populate(_emf, ITEMS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    /**
+     * Entity manager of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Context {
+
+        private EntityManager _em;
+        private long _id;
+
+        @Setup
+        public void setUp(FindBenchmark benchmark) {
+            _em = benchmark._emf.createEntityManager();
+        }
+
+        @TearDown
+        public void tearDown() {
+            _em.close();
+        }
+
+        long nextId() {
+            _id = _id % ITEMS + 1;
+            return _id;
+        }
+    }
+
+    @Benchmark
+    public Item find(Context ctx) {
+        Item item = ctx._em.find(Item.class, ctx.nextId());
+        ctx._em.clear();
+        return item;
+    }
+}
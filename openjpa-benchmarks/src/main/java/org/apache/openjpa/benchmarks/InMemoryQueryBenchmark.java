@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a query evaluated in memory over a candidate collection of
+ * managed instances, with the expression tree or with expressions compiled
+ * to bytecode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class InMemoryQueryBenchmark {
+
+    private static final String JPQL = "select i from Item i "
+        + "where i.quantity > :quantity and i.price < 30.0 "
+        + "or i.category = 3";
+
+    @Param({ "false", "true" })
+    public boolean compile;
+
+    @Param({ "1000000" })
+    public int candidates;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private OpenJPAEntityManager _em;
+    private List<Item> _candidates;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.CompileInMemoryQueries", String.valueOf(compile),
+            "openjpa.jdbc.QuerySQLCache", "false",
+            "openjpa.FlushBeforeQueries", "false");
+
+        // the candidates are new managed instances that are never flushed
+        _em = _emf.createEntityManager();
+        _em.getTransaction().begin();
+        _candidates = new ArrayList<>(candidates);
+        for (int i = 1; i <= candidates; i++) {
+            Item item = new Item(i);
+            _em.persist(item);
+            _candidates.add(item);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        _em.getTransaction().rollback();
+        _em.close();
+        _emf.close();
+    }
+
+    @Benchmark
+    public List<?> evaluate() {
+        OpenJPAQuery<?> q = _em.createQuery(JPQL);
+        q.setCandidateCollection(_candidates);
+        q.setParameter("quantity", 50);
+        return q.getResultList();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading 10k instances by primary key with
+ * <code>findAll</code>, one select per instance or in chunked primary key
+ * IN selects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadAllBenchmark {
+
+    @Param({ "DERBY", "H2", "HSQLDB" })
+    public Database database;
+
+    @Param({ "1", "1000" })
+    public int batchLoadLimit;
+
+    @Param({ "10000" })
+    public int ids;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private OpenJPAEntityManager _em;
+    private List<Long> _ids;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(database,
+            "openjpa.jdbc.DBDictionary", "batchLoadLimit=" + batchLoadLimit);
+        BenchmarkSupport.populate(_emf, ids);
+        _em = _emf.createEntityManager();
+        _ids = new ArrayList<>(ids);
+        for (long id = 1; id <= ids; id++)
+            _ids.add(id);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _em.close();
+        _emf.close();
+    }
+
+    @Benchmark
+    public Collection<Item> findAll() {
+        Collection<Item> items = _em.findAll(Item.class, _ids);
+        _em.clear();
+        return items;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.util.LongId;
+import org.apache.openjpa.util.PrimitiveIdMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the map of the managed instance cache keyed by numeric ids as a
+ * HashMap and as a PrimitiveIdMap, for a large persistence context. Run
+ * with <code>-prof gc</code> to compare the allocation of filling the map.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ManagedCacheBenchmark {
+
+    @Param({ "hash", "primitive" })
+    public String map;
+
+    @Param({ "1000000" })
+    public int size;
+
+    private Map<Object, Object> _map;
+
+    @Setup
+    public void setUp() {
+        _map = fill();
+    }
+
+    private Map<Object, Object> fill() {
+        Map<Object, Object> map = "primitive".equals(this.map)
+            ? new PrimitiveIdMap<>() : new HashMap<>();
+        for (int i = 0; i < size; i++)
+            map.put(new LongId(Item.class, i), new Object());
+        return map;
+    }
+
+    /**
+     * Look up an instance by a new id, as a find does.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object get() {
+        long id = ThreadLocalRandom.current().nextInt(size);
+        return _map.get(new LongId(Item.class, id));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Map<Object, Object> fillMap() {
+        return fill();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.benchmarks.model.StreamedRow;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.meta.MetaDataRepository;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures concurrent metadata lookups of resolved classes, with and
+ * without the lock-free read mode of the MetaDataRepository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MetaDataBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean lockFreeReads;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private MetaDataRepository _repos;
+    private ClassLoader _loader;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.MetaDataRepository", "LockFreeReads=" + lockFreeReads);
+        _repos = _emf.getConfiguration().getMetaDataRepositoryInstance();
+        _loader = Item.class.getClassLoader();
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    @Benchmark
+    public ClassMetaData getMetaData() {
+        return _repos.getMetaData(Item.class, _loader, true);
+    }
+
+    @Benchmark
+    public ClassMetaData[] getMetaDataOfTwoClasses() {
+        return new ClassMetaData[]{
+            _repos.getMetaData(Item.class, _loader, true),
+            _repos.getMetaData(StreamedRow.class, _loader, true),
+        };
+    }
+}
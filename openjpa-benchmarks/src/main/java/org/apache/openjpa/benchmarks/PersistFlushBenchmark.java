@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures persisting new instances and flushing them in a commit. Inserts
+ * go through the batching update manager with the given batch limit, and
+ * are optionally rewritten into multi-row inserts. The score is in
+ * inserted rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistFlushBenchmark {
+
+    private static final int ROWS = 100;
+
+    @Param({ "DERBY", "H2", "HSQLDB" })
+    public Database database;
+
+    @Param({ "1", "100" })
+    public int batchLimit;
+
+    @Param({ "false", "true" })
+    public boolean multiRowInsert;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private final AtomicLong _ids = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(database,
+            "openjpa.jdbc.DBDictionary", "batchLimit=" + batchLimit,
+            "openjpa.jdbc.UpdateManager",
+            "batching-constraint(MultiRowInsert=" + multiRowInsert + ")");
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    /**
+     * Entity manager of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Context {
+
+        private EntityManager _em;
+
+        @Setup
+        public void setUp(PersistFlushBenchmark benchmark) {
+            _em = benchmark._emf.createEntityManager();
+        }
+
+        @TearDown
+        public void tearDown() {
+            _em.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void persistAndCommit(Context ctx) {
+        EntityManager em = ctx._em;
+        long id = _ids.getAndAdd(ROWS);
+        em.getTransaction().begin();
+        for (int i = 0; i < ROWS; i++)
+            em.persist(new Item(++id));
+        em.getTransaction().commit();
+        em.clear();
+    }
+}
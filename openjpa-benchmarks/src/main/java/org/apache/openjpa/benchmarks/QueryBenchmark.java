@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures executing a JPQL query that is compiled on every execution
+ * against the same query served from the compilation and prepared query
+ * caches.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final String JPQL = "select i from Item i "
+        + "where i.category = :category and i.quantity > :quantity";
+
+    @Param({ "DERBY" })
+    public Database database;
+
+    @Param({ "false", "true" })
+    public boolean cached;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(database,
+            "openjpa.QueryCompilationCache", String.valueOf(cached),
+            "openjpa.jdbc.QuerySQLCache", String.valueOf(cached));
+        BenchmarkSupport.populate(_emf, ITEMS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    /**
+     * Entity manager of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Context {
+
+        private EntityManager _em;
+        private int _category;
+
+        @Setup
+        public void setUp(QueryBenchmark benchmark) {
+            _em = benchmark._emf.createEntityManager();
+        }
+
+        @TearDown
+        public void tearDown() {
+            _em.close();
+        }
+    }
+
+    @Benchmark
+    public List<Item> execute(Context ctx) {
+        ctx._category = (ctx._category + 1) % 10;
+        List<Item> items = ctx._em.createQuery(JPQL, Item.class)
+            .setParameter("category", ctx._category)
+            .setParameter("quantity", 90)
+            .getResultList();
+        ctx._em.clear();
+        return items;
+    }
+}
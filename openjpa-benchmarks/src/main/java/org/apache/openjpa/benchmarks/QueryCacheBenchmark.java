@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.datacache.QueryCache;
+import org.apache.openjpa.datacache.QueryKey;
+import org.apache.openjpa.datacache.QueryResult;
+import org.apache.openjpa.kernel.Broker;
+import org.apache.openjpa.kernel.Query;
+import org.apache.openjpa.kernel.jpql.JPQLParser;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.util.LongId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the ConcurrentQueryCache under contention, with keys of the same
+ * query differing by parameter value.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class QueryCacheBenchmark {
+
+    private static final int KEYS = 1000;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+    private OpenJPAEntityManager _em;
+    private QueryCache _cache;
+    private QueryKey[] _keys;
+    private QueryResult[] _results;
+
+    @Setup
+    public void setUp() {
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.DataCache", "true",
+            "openjpa.QueryCache", "true(CacheSize=" + (2 * KEYS) + ")",
+            "openjpa.RemoteCommitProvider", "sjvm");
+        _cache = _emf.getConfiguration().getDataCacheManagerInstance()
+            .getSystemQueryCache();
+
+        _em = _emf.createEntityManager();
+        Broker broker = JPAFacadeHelper.toBroker(_em);
+        _keys = new QueryKey[KEYS];
+        _results = new QueryResult[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            Query q = broker.newQuery(JPQLParser.LANG_JPQL,
+                "select i from Item i where i.category = :category");
+            Map<Object, Object> params =
+                Collections.<Object, Object> singletonMap("category", i);
+            _keys[i] = QueryKey.newInstance(q, params);
+            List<Object> oids = new ArrayList<>();
+            for (int j = 0; j < 10; j++)
+                oids.add(new LongId(Item.class, i * 10L + j));
+            _results[i] = new QueryResult(_keys[i], oids);
+            _cache.put(_keys[i], _results[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        _em.close();
+        _emf.close();
+    }
+
+    @Benchmark
+    public QueryResult get() {
+        return _cache.get(_keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    /**
+     * Nine reads for every write.
+     */
+    @Benchmark
+    public QueryResult readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(KEYS);
+        if (random.nextInt(10) == 0)
+            return _cache.put(_keys[i], _results[i]);
+        return _cache.get(_keys[i]);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.StreamedRow;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures streaming every row of a large table with
+ * <code>getResultStream</code>. The rows are kept in a Derby database on
+ * disk, which is reused by later runs with the same row count, and the
+ * heap is limited so that the benchmark fails if the streamed instances
+ * are retained. Stream 50M rows with <code>-p rows=50000000</code>.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class ResultStreamBenchmark {
+
+    private static final int INSERT_BATCH = 10000;
+
+    @Param({ "1000000" })
+    public long rows;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:derby:target/benchmark-db/stream-" + rows
+            + ";create=true";
+        _emf = BenchmarkSupport.createFactory(Database.DERBY,
+            "openjpa.ConnectionURL", url);
+        try (Connection conn = DriverManager.getConnection(url)) {
+            if (count(conn) != rows)
+                insertRows(conn);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    private static long count(Connection conn) throws SQLException {
+        try (Statement stmnt = conn.createStatement();
+            ResultSet rs = stmnt.executeQuery(
+                "SELECT COUNT(*) FROM STREAMED_ROW")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void insertRows(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmnt = conn.createStatement()) {
+            stmnt.executeUpdate("DELETE FROM STREAMED_ROW");
+        }
+        try (PreparedStatement stmnt = conn.prepareStatement(
+            "INSERT INTO STREAMED_ROW (ID, VAL) VALUES (?, ?)")) {
+            for (long id = 1; id <= rows; id++) {
+                stmnt.setLong(1, id);
+                stmnt.setLong(2, id % 1000);
+                stmnt.addBatch();
+                if (id % INSERT_BATCH == 0 || id == rows) {
+                    stmnt.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public long stream() {
+        EntityManager em = _emf.createEntityManager();
+        try (Stream<StreamedRow> stream = em.createQuery(
+            "select r from StreamedRow r", StreamedRow.class)
+            .getResultStream()) {
+            return stream.mapToLong(StreamedRow::getValue).sum();
+        } finally {
+            em.close();
+        }
+    }
+}
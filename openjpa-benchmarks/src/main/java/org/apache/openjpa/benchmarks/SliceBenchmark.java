@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.benchmarks.model.Item;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures queries and finds that fan out to every slice of a distributed
+ * unit whose slices are separate in-memory databases. Instances are
+ * distributed randomly over the slices.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SliceBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    @Param({ "DERBY" })
+    public Database database;
+
+    @Param({ "2", "4" })
+    public int slices;
+
+    @Param({ "cached" })
+    public String threadingPolicy;
+
+    private OpenJPAEntityManagerFactorySPI _emf;
+
+    @Setup
+    public void setUp() {
+        List<Object> props = new ArrayList<>();
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < slices; i++) {
+            String name = "S" + i;
+            if (i > 0)
+                names.append(",");
+            names.append(name);
+            props.add("openjpa.slice." + name + ".ConnectionURL");
+            props.add(database.getURL(BenchmarkSupport.newDatabaseName()));
+        }
+        props.add("openjpa.BrokerFactory");
+        props.add("slice");
+        props.add("openjpa.slice.Names");
+        props.add(names.toString());
+        props.add("openjpa.slice.Master");
+        props.add("S0");
+        props.add("openjpa.slice.ThreadingPolicy");
+        props.add(threadingPolicy);
+        _emf = BenchmarkSupport.createFactory(database, props.toArray());
+        BenchmarkSupport.populate(_emf, ITEMS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _emf.close();
+    }
+
+    /**
+     * Entity manager of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Context {
+
+        private EntityManager _em;
+        private int _next;
+
+        @Setup
+        public void setUp(SliceBenchmark benchmark) {
+            _em = benchmark._emf.createEntityManager();
+        }
+
+        @TearDown
+        public void tearDown() {
+            _em.close();
+        }
+
+        int next() {
+            _next = _next % ITEMS + 1;
+            return _next;
+        }
+    }
+
+    @Benchmark
+    public List<Item> queryAllSlices(Context ctx) {
+        List<Item> items = ctx._em.createQuery(
+            "select i from Item i where i.category = :category", Item.class)
+            .setParameter("category", ctx.next() % 10)
+            .getResultList();
+        ctx._em.clear();
+        return items;
+    }
+
+    @Benchmark
+    public List<Item> orderedTopResults(Context ctx) {
+        List<Item> items = ctx._em.createQuery(
+            "select i from Item i where i.quantity > :quantity "
+            + "order by i.price desc", Item.class)
+            .setParameter("quantity", ctx.next() % 50)
+            .setMaxResults(20)
+            .getResultList();
+        ctx._em.clear();
+        return items;
+    }
+
+    @Benchmark
+    public Item find(Context ctx) {
+        Item item = ctx._em.find(Item.class, (long) ctx.next());
+        ctx._em.clear();
+        return item;
+    }
+}
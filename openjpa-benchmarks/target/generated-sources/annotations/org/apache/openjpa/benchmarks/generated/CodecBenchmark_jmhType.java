@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class CodecBenchmark_jmhType extends CodecBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class DataCacheBenchmark_jmhType extends DataCacheBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class FieldAccessBenchmark_jmhType extends FieldAccessBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class FindBenchmark_jmhType extends FindBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class InMemoryQueryBenchmark_jmhType extends InMemoryQueryBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class LoadAllBenchmark_jmhType extends LoadAllBenchmark_jmhType_B3 {
+}
+
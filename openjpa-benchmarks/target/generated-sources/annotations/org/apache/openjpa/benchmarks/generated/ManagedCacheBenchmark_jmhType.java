@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class ManagedCacheBenchmark_jmhType extends ManagedCacheBenchmark_jmhType_B3 {
+}
+
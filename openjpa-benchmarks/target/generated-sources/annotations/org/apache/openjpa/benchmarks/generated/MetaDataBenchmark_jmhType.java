@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class MetaDataBenchmark_jmhType extends MetaDataBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class PersistFlushBenchmark_jmhType extends PersistFlushBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class PreloadBenchmark_jmhType extends PreloadBenchmark_jmhType_B3 {
+}
+
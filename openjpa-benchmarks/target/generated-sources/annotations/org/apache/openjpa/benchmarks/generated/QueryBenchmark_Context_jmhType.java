@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class QueryBenchmark_Context_jmhType extends QueryBenchmark_Context_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class QueryBenchmark_jmhType extends QueryBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class QueryCacheBenchmark_jmhType extends QueryCacheBenchmark_jmhType_B3 {
+}
+
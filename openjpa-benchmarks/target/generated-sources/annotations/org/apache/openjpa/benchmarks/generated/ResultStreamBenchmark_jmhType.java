@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class ResultStreamBenchmark_jmhType extends ResultStreamBenchmark_jmhType_B3 {
+}
+
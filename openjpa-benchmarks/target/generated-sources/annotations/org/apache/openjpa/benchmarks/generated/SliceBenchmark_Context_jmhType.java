@@ -0,0 +1,4 @@
+package org.apache.openjpa.benchmarks.generated;
+public class SliceBenchmark_Context_jmhType extends SliceBenchmark_Context_jmhType_B3 {
+}
+
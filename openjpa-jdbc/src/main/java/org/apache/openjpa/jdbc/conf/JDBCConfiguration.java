@@ -18,6 +18,8 @@
  */
 package org.apache.openjpa.jdbc.conf;
 
+import java.util.concurrent.ExecutorService;
+
 import javax.sql.DataSource;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
@@ -280,6 +282,25 @@ public interface JDBCConfiguration
      */
     void setEagerFetchMode(int eagerFetchMode);
 
+    /**
+     * The maximum number of parallel eager selects of a single query that
+     * are executed concurrently, each on its own connection. Concurrent
+     * execution is only used outside of transactions. Values of 1 or less
+     * execute the selects one after another on the connection of the
+     * context. Defaults to 1.
+     *
+     * @since 3.1.3
+     */
+    int getEagerFetchParallelism();
+
+    /**
+     * The maximum number of parallel eager selects of a single query that
+     * are executed concurrently, each on its own connection.
+     *
+     * @since 3.1.3
+     */
+    void setEagerFetchParallelism(int parallelism);
+
     /**
      * Specifies the default subclass fetch mode to use. Defaults to
      * <code>join</code> unless the query is by-oid. Possible values are:
@@ -629,4 +650,14 @@ public interface JDBCConfiguration
      */
     void setIdentifierUtil(DBIdentifierUtil util);
 
+    /**
+     * The executor that runs background JDBC work of this configuration,
+     * such as pipelined batches and concurrent eager selects. The executor
+     * is created on first use and shut down when the configuration is
+     * closed.
+     *
+     * @since 3.1.3
+     */
+    ExecutorService getExecutorService();
+
 }
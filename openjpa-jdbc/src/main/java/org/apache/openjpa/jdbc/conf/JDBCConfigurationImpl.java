@@ -21,6 +21,10 @@ package org.apache.openjpa.jdbc.conf;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -75,6 +79,7 @@ public class JDBCConfigurationImpl
     public IntValue resultSetType;
     public IntValue fetchDirection;
     public FetchModeValue eagerFetchMode;
+    public IntValue eagerFetchParallelism;
     public FetchModeValue subclassFetchMode;
     public IntValue lrsSize;
     public StringValue synchronizeMappings;
@@ -94,6 +99,7 @@ public class JDBCConfigurationImpl
     private String firstPass = null;
     private DecoratingDataSource dataSource = null;
     private DecoratingDataSource dataSource2 = null;
+    private ExecutorService executor = null;
 
     private static final Localizer _loc = Localizer.forPackage(JDBCConfigurationImpl.class);
 
@@ -172,6 +178,10 @@ public class JDBCConfigurationImpl
         eagerFetchMode.set(EagerFetchModes.EAGER_PARALLEL);
         addValue(eagerFetchMode);
 
+        eagerFetchParallelism = addInt("jdbc.EagerFetchParallelism");
+        eagerFetchParallelism.setDefault("1");
+        eagerFetchParallelism.set(1);
+
         subclassFetchMode = new FetchModeValue("jdbc.SubclassFetchMode");
         subclassFetchMode.setDefault(FetchModeValue.EAGER_JOIN);
         subclassFetchMode.set(EagerFetchModes.EAGER_JOIN);
@@ -249,7 +259,8 @@ public class JDBCConfigurationImpl
         aliases = new String[]{
             "auto", "org.apache.openjpa.jdbc.schema.AutoDriverDataSource",
             "simple", "org.apache.openjpa.jdbc.schema.SimpleDriverDataSource",
-            "dbcp", "org.apache.openjpa.jdbc.schema.DBCPDriverDataSource"
+            "dbcp", "org.apache.openjpa.jdbc.schema.DBCPDriverDataSource",
+            "pooled", "org.apache.openjpa.jdbc.schema.PooledDriverDataSource"
         };
         driverDataSourcePlugin.setAliases(aliases);
         driverDataSourcePlugin.setDefault(aliases[0]);
@@ -496,6 +507,16 @@ public class JDBCConfigurationImpl
         return eagerFetchMode.get();
     }
 
+    @Override
+    public int getEagerFetchParallelism() {
+        return eagerFetchParallelism.get();
+    }
+
+    @Override
+    public void setEagerFetchParallelism(int parallelism) {
+        eagerFetchParallelism.set(parallelism);
+    }
+
     @Override
     public void setSubclassFetchMode(String subclassFetchMode) {
         this.subclassFetchMode.setString(subclassFetchMode);
@@ -1039,11 +1060,34 @@ public class JDBCConfigurationImpl
         return DataSourceFactory.defaultsDataSource(ds, user, pass);
     }
 
+    @Override
+    public synchronized ExecutorService getExecutorService() {
+        if (executor == null) {
+            final AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "openjpa-jdbc-"
+                        + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return executor;
+    }
+
     /**
-     * Free the data sources.
+     * Free the data sources and stop the executor.
      */
     @Override
     protected void preClose() {
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
         if (dataSource != null) {
             getDBDictionaryInstance().closeDataSource(dataSource);
             connectionFactory.set(null, true); // so super doesn't close it
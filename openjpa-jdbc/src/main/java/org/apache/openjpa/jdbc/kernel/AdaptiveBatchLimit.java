@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch limit that adapts to the observed latency of batch executions.
+ * The limit doubles while full batches execute in less than half of the
+ * target time, and is halved whenever a batch takes longer than the target.
+ * Instances are thread safe and shared by all flushes of an update manager.
+ *
+ * @since 3.1.3
+ */
+public class AdaptiveBatchLimit {
+
+    private final int _min;
+    private final int _max;
+    private final long _targetNanos;
+    private final AtomicInteger _limit;
+
+    /**
+     * Constructor.
+     *
+     * @param min the smallest limit to use
+     * @param max the largest limit to use
+     * @param targetMillis the desired execution time of a single batch
+     */
+    public AdaptiveBatchLimit(int min, int max, long targetMillis) {
+        _min = Math.max(1, min);
+        _max = Math.max(_min, max);
+        _targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetMillis));
+        _limit = new AtomicInteger(_min);
+    }
+
+    /**
+     * The smallest limit to use.
+     */
+    public int getMinBatchLimit() {
+        return _min;
+    }
+
+    /**
+     * The largest limit to use.
+     */
+    public int getMaxBatchLimit() {
+        return _max;
+    }
+
+    /**
+     * The desired execution time of a single batch in milliseconds.
+     */
+    public long getTargetBatchMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(_targetNanos);
+    }
+
+    /**
+     * The current limit.
+     */
+    public int getBatchLimit() {
+        return _limit.get();
+    }
+
+    /**
+     * The current limit, capped by the given limit when it is positive.
+     */
+    public int getBatchLimit(int cap) {
+        int limit = _limit.get();
+        return (cap > 0) ? Math.min(cap, limit) : limit;
+    }
+
+    /**
+     * Record the execution of a batch of <code>size</code> statements that
+     * took <code>nanos</code> nanoseconds.
+     */
+    public void record(int size, long nanos) {
+        int limit = _limit.get();
+        int next;
+        if (nanos > _targetNanos)
+            next = Math.max(_min, limit / 2);
+        else if (nanos * 2 < _targetNanos && size >= limit)
+            next = (int) Math.min(_max, limit * 2L);
+        else
+            return;
+        // a lost race means another batch already adjusted the limit
+        if (next != limit)
+            _limit.compareAndSet(limit, next);
+    }
+}
@@ -24,6 +24,8 @@ import java.util.Collection;
 
 import org.apache.openjpa.jdbc.sql.RowManager;
 import org.apache.openjpa.jdbc.sql.SQLExceptions;
+import org.apache.openjpa.lib.conf.GenericConfigurable;
+import org.apache.openjpa.lib.util.Options;
 import org.apache.openjpa.util.OpenJPAException;
 
 /**
@@ -41,14 +43,38 @@ import org.apache.openjpa.util.OpenJPAException;
  * @author Teresa Kan
  */
 
-public class BatchingConstraintUpdateManager extends ConstraintUpdateManager {
+public class BatchingConstraintUpdateManager extends ConstraintUpdateManager
+    implements GenericConfigurable {
+
+    private final BatchingOptions _options = new BatchingOptions();
+
+    /**
+     * The batching options, set from the <code>Pipelined</code>,
+     * <code>AdaptiveBatchLimit</code>, <code>MinBatchLimit</code>,
+     * <code>MaxBatchLimit</code>, <code>TargetBatchMillis</code> and
+     * <code>MultiRowInsert</code> properties of this plugin.
+     *
+     * @since 3.1.3
+     */
+    public BatchingOptions getBatchingOptions() {
+        return _options;
+    }
+
+    @Override
+    public void setInto(Options opts) {
+        opts.keySet().retainAll(opts.setInto(_options).keySet());
+    }
+
+    @Override
+    public void endConfiguration() {
+        super.endConfiguration();
+        _options.endConfiguration(conf, dict);
+    }
 
     @Override
     protected PreparedStatementManager newPreparedStatementManager(
         JDBCStore store, Connection conn) {
-        int batchLimit = dict.getBatchLimit();
-        return new BatchingPreparedStatementManagerImpl(store, conn,
-            batchLimit);
+        return _options.newPreparedStatementManager(store, conn, dict);
     }
 
     /*
@@ -58,9 +84,15 @@ public class BatchingConstraintUpdateManager extends ConstraintUpdateManager {
     @Override
     protected Collection flush(RowManager rowMgr,
         PreparedStatementManager psMgr, Collection exceps) {
-        exceps = super.flush(rowMgr, psMgr, exceps);
         BatchingPreparedStatementManagerImpl bPsMgr =
             (BatchingPreparedStatementManagerImpl) psMgr;
+        try {
+            exceps = super.flush(rowMgr, psMgr, exceps);
+        } catch (RuntimeException re) {
+            // do not leave a pipelined batch running on the connection
+            bPsMgr.abortBatch();
+            throw re;
+        }
         try {
             bPsMgr.flushBatch();
         } catch (SQLException se) {
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.sql.Connection;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.lib.util.Localizer;
+
+/**
+ * Options of the batching update managers. The managers extend different
+ * update managers, so they hand the batching properties of their plugin
+ * string to a shared instance of this class and create their prepared
+ * statement managers through it.
+ *
+ * @see BatchingConstraintUpdateManager
+ * @see BatchingOperationOrderUpdateManager
+ * @since 3.1.3
+ */
+public class BatchingOptions {
+
+    private static final Localizer _loc =
+        Localizer.forPackage(BatchingOptions.class);
+
+    private boolean _pipelined = false;
+    private boolean _adaptive = false;
+    private int _minBatchLimit = 10;
+    private int _maxBatchLimit = 1000;
+    private int _targetBatchMillis = 50;
+    private boolean _multiRowInsert = false;
+    private AdaptiveBatchLimit _adaptiveLimit = null;
+
+    /**
+     * Whether batches execute in the background while the next batch is
+     * bound. Defaults to false. Pipelining is turned off for dictionaries
+     * that do not support concurrent use of a connection.
+     */
+    public boolean getPipelined() {
+        return _pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        _pipelined = pipelined;
+    }
+
+    /**
+     * Whether the batch limit adapts to the observed batch latency.
+     * Defaults to false.
+     */
+    public boolean getAdaptiveBatchLimit() {
+        return _adaptive;
+    }
+
+    public void setAdaptiveBatchLimit(boolean adaptive) {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * The smallest adaptive batch limit. Defaults to 10.
+     */
+    public int getMinBatchLimit() {
+        return _minBatchLimit;
+    }
+
+    public void setMinBatchLimit(int limit) {
+        _minBatchLimit = limit;
+    }
+
+    /**
+     * The largest adaptive batch limit. Defaults to 1000.
+     */
+    public int getMaxBatchLimit() {
+        return _maxBatchLimit;
+    }
+
+    public void setMaxBatchLimit(int limit) {
+        _maxBatchLimit = limit;
+    }
+
+    /**
+     * The execution time in milliseconds the adaptive batch limit aims for.
+     * Defaults to 50.
+     */
+    public int getTargetBatchMillis() {
+        return _targetBatchMillis;
+    }
+
+    public void setTargetBatchMillis(int millis) {
+        _targetBatchMillis = millis;
+    }
+
+    /**
+     * Whether batched inserts are combined into multi-row
+     * <code>INSERT ... VALUES (...), (...)</code> statements when the
+     * dictionary supports them. Defaults to false.
+     */
+    public boolean getMultiRowInsert() {
+        return _multiRowInsert;
+    }
+
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        _multiRowInsert = multiRowInsert;
+    }
+
+    /**
+     * The adaptive batch limit shared by all flushes, or null.
+     */
+    public AdaptiveBatchLimit getAdaptiveBatchLimitInstance() {
+        return _adaptiveLimit;
+    }
+
+    /**
+     * Create the shared state once all options are set.
+     */
+    public void endConfiguration(JDBCConfiguration conf, DBDictionary dict) {
+        if (_pipelined && !dict.supportsConcurrentConnectionUse) {
+            conf.getLog(JDBCConfiguration.LOG_JDBC).warn(_loc.get(
+                "pipelined-unsupported", dict.getClass().getName()));
+            _pipelined = false;
+        }
+        if (_adaptive)
+            _adaptiveLimit = new AdaptiveBatchLimit(_minBatchLimit,
+                _maxBatchLimit, _targetBatchMillis);
+    }
+
+    /**
+     * Create a prepared statement manager applying these options.
+     */
+    public BatchingPreparedStatementManagerImpl newPreparedStatementManager(
+        JDBCStore store, Connection conn, DBDictionary dict) {
+        BatchingPreparedStatementManagerImpl psMgr =
+            new BatchingPreparedStatementManagerImpl(store, conn,
+                dict.getBatchLimit());
+        psMgr.setPipelined(_pipelined);
+        psMgr.setAdaptiveBatchLimit(_adaptiveLimit);
+        psMgr.setMultiRowInsert(_multiRowInsert);
+        return psMgr;
+    }
+}
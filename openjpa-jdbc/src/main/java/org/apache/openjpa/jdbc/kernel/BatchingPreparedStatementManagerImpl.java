@@ -25,15 +25,20 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.openjpa.jdbc.meta.ClassMapping;
 import org.apache.openjpa.jdbc.schema.Column;
+import org.apache.openjpa.jdbc.schema.ForeignKey;
+import org.apache.openjpa.jdbc.schema.Table;
 import org.apache.openjpa.jdbc.sql.Row;
 import org.apache.openjpa.jdbc.sql.RowImpl;
 import org.apache.openjpa.jdbc.sql.SQLExceptions;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.lib.jdbc.ReportingSQLException;
 import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.util.OpenJPAException;
 import org.apache.openjpa.util.OptimisticException;
 
 /**
@@ -41,6 +46,15 @@ import org.apache.openjpa.util.OptimisticException;
  * manager will utilize the JDBC addBatch() and exceuteBatch() to batch the SQL
  * statements together to improve the execution performance.
  *
+ * <p>In pipelined mode, each batch is executed on a background thread while
+ * the rows of the next batch are bound on the flushing thread. At most one
+ * batch executes at a time and batches execute in the order they are
+ * flushed, so the ordering produced by the update manager is preserved.
+ * The batches run on the executor of the configuration. Pipelining is only
+ * enabled for dictionaries that declare
+ * {@link org.apache.openjpa.jdbc.sql.DBDictionary#supportsConcurrentConnectionUse},
+ * as the connection is used from two threads at once.</p>
+ *
  * @author Teresa Kan
  */
 
@@ -54,6 +68,10 @@ public class BatchingPreparedStatementManagerImpl extends
     private List<RowImpl> _batchedRows = new ArrayList<>();
     private int _batchLimit;
     private boolean _disableBatch = false;
+    private boolean _pipelined = false;
+    private boolean _multiRowInsert = false;
+    private AdaptiveBatchLimit _adaptiveLimit = null;
+    private PendingBatch _pending = null;
 
     /**
      * Constructor. Supply connection.
@@ -86,6 +104,15 @@ public class BatchingPreparedStatementManagerImpl extends
     }
 
     protected void batchOrExecuteRow(RowImpl row) throws SQLException {
+        // foreign keys are resolved when the SQL is generated, so keys
+        // generated by batched multi-row inserts of another table must be
+        // known first
+        if (_multiRowInsert && !_batchedRows.isEmpty()
+            && _batchedRows.get(0).getTable() != row.getTable()
+            && isMultiRowGeneratedKeys(_batchedRows.get(0))
+            && getAutoAssignColNames(getAutoAssignColumns(_batchedRows.get(0)),
+                _batchedRows.get(0)) != null)
+            flushBatch();
         String sql = row.getSQL(_dict);
         if (_batchedSql == null) {
             // brand new SQL
@@ -98,6 +125,7 @@ public class BatchingPreparedStatementManagerImpl extends
             case 1:
                 // single entry in cache, direct SQL execution.
                 try {
+                    awaitPendingBatch();
                     super.flushAndUpdate((RowImpl) _batchedRows.get(0));
                 } finally {
                     _batchedSql = null;
@@ -105,8 +133,12 @@ public class BatchingPreparedStatementManagerImpl extends
                 }
                 break;
             default:
-                // flush all entries in cache in batch.
-                flushBatch();
+                // flush all entries in cache in batch. When pipelined, the
+                // rows of this statement are bound while the batch executes.
+                if (_pipelined)
+                    pipelineBatch();
+                else
+                    flushBatch();
             }
             _batchedSql = sql;
         }
@@ -128,6 +160,9 @@ public class BatchingPreparedStatementManagerImpl extends
             Column[] autoAssign = null;
             if (row.getAction() == Row.ACTION_INSERT)
                 autoAssign = row.getTable().getAutoAssignedColumns();
+            // generated keys of a multi-row insert are read back per row
+            if (autoAssign != null && isMultiRowGeneratedKeys(row))
+                autoAssign = null;
             // validate batch capability
             rtnVal = _dict
                 .validateBatchProcess(row, autoAssign, sm, cmd);
@@ -141,10 +176,31 @@ public class BatchingPreparedStatementManagerImpl extends
      * prepared statements.
      */
     protected void flushBatch() throws SQLException {
+        if (!_pipelined) {
+            executeBatchedRows();
+            return;
+        }
+        try {
+            pipelineBatch();
+        } catch (SQLException | RuntimeException e) {
+            abortBatch();
+            throw e;
+        }
+        awaitPendingBatch();
+    }
+
+    /*
+     * Execute the cached up statements on the flushing thread.
+     */
+    private void executeBatchedRows() throws SQLException {
         List<RowImpl> batchedRows = getBatchedRows();
         String batchedSql = getBatchedSql();
         if (batchedRows == null)
             return;
+        if (batchedSql != null && isMultiRowInsert(batchedRows)) {
+            executeMultiRowInsert(batchedRows);
+            return;
+        }
 
         int batchSize = batchedRows.size();
         if (batchedSql != null &&  batchSize > 0) {
@@ -160,23 +216,26 @@ public class BatchingPreparedStatementManagerImpl extends
                     // cache has more than one rows, execute as batch.
                     int count = 0;
                     int batchedRowsBaseIndex = 0;
+                    int limit = getEffectiveBatchLimit();
                     Iterator<RowImpl> itr = batchedRows.iterator();
                     while (itr.hasNext()) {
                         onerow = itr.next();
                         if (_batchLimit == 1) {
                             flushSingleRow(onerow, ps);
                         } else {
-                            if (count < _batchLimit || _batchLimit == -1) {
+                            if (count < limit || limit == -1) {
                                 if (ps != null)
                                     onerow.flush(ps, _dict, _store);
                                 addBatch(ps, onerow, count);
                                 count++;
                             } else {
                                 // reach the batchLimit, execute the batch
-                                int[] rtn = executeBatch(ps);
-                                checkUpdateCount(rtn, batchedRowsBaseIndex, ps);
+                                int[] rtn = executeTimedBatch(ps, count);
+                                checkUpdateCount(rtn, batchedRows,
+                                    batchedRowsBaseIndex, ps);
 
-                                batchedRowsBaseIndex += _batchLimit;
+                                batchedRowsBaseIndex += count;
+                                limit = getEffectiveBatchLimit();
 
                                 if (ps != null)
                                     onerow.flush(ps, _dict, _store);
@@ -187,49 +246,12 @@ public class BatchingPreparedStatementManagerImpl extends
                         }
                     }
                     // end of the loop, execute the batch
-                    int[] rtn = executeBatch(ps);
-                    checkUpdateCount(rtn, batchedRowsBaseIndex, ps);
+                    int[] rtn = executeTimedBatch(ps, count);
+                    checkUpdateCount(rtn, batchedRows, batchedRowsBaseIndex,
+                        ps);
                 }
             } catch (SQLException se) {
-                //If we look at PreparedStatementManagerImpl.flushAndUpdate (which is the 'non-batch' code path
-                //similar to this path, or I should say, the path which is taken instead of this path when
-                //we aren't using batching), we see that the catch block doesn't do a 'se.getNextException'.
-                //When we do a 'getNextException', the 'next exception' doesn't contain the same message as se.
-                //That is, 'next exception' contains a subset msg which is contained in se.
-                SQLException sqex = se.getNextException();
-                if (sqex == null){
-                    sqex = se;
-                }
-
-                if (se instanceof ReportingSQLException){
-                  int index = ((ReportingSQLException) se).getIndexOfFirstFailedObject();
-
-                  //if we have only batched one statement, the index should be 0.  As can be seen above,
-                  //if 'batchSize == 1' a different path is taken (the 'single row' path), and if that row
-                  //fails, we know that the index is 0 since there is only one row.
-                  if (batchSize == 1){
-                      index = 0;
-                  }
-
-                  //index should not be less than 0 in this path, but if for some reason it is, lets
-                  //resort to the 'old way' and simply pass the 'ps' as the failed object.
-                  if (index < 0){
-                      throw SQLExceptions.getStore(se, ps, _dict);
-                  }
-                  else{
-                      if(_batchedRows.size() == 0) {
-                          if(_log.isTraceEnabled()) {
-                              _log.trace("No batched rows found. The failed object may not be reliable");
-                          }
-                          throw SQLExceptions.getStore(se, ps, _dict);
-                      }
-                      throw SQLExceptions.getStore(se, (_batchedRows.get(index)).getFailedObject(), _dict);
-                  }
-                }
-                else{
-                	//per comments above, use 'sqex' rather than 'se'.
-                    throw SQLExceptions.getStore(sqex, ps, _dict);
-                }
+                throw newStoreException(se, ps, _batchedRows, batchSize);
             } finally {
                 _batchedSql = null;
                 batchedRows.clear();
@@ -245,6 +267,306 @@ public class BatchingPreparedStatementManagerImpl extends
         }
     }
 
+    /*
+     * Whether the given batched rows are inserted with multi-row
+     * statements. Rows with generated keys always are, even alone, since
+     * the other batch paths do not read keys back.
+     */
+    private boolean isMultiRowInsert(List<RowImpl> rows) {
+        if (!_multiRowInsert || !_dict.supportsMultiRowInsert
+            || _batchLimit == 1 || rows.isEmpty())
+            return false;
+        RowImpl row = rows.get(0);
+        if (row.getAction() != Row.ACTION_INSERT)
+            return false;
+        Column[] autoAssign = getAutoAssignColumns(row);
+        if (autoAssign == null || autoAssign.length == 0)
+            return rows.size() > 1;
+        return isMultiRowGeneratedKeys(row);
+    }
+
+    /*
+     * Whether generated keys of the given insert row can be read back from
+     * a multi-row insert. Rows of a table that references itself are
+     * excluded, since a row could depend on a key generated by the same
+     * statement.
+     */
+    private boolean isMultiRowGeneratedKeys(RowImpl row) {
+        if (!_multiRowInsert || !_dict.supportsMultiRowInsert
+            || !_dict.supportsMultiRowGeneratedKeys
+            || !Boolean.TRUE.equals(_dict.supportsGetGeneratedKeys)
+            || row.getAction() != Row.ACTION_INSERT
+            || row.getPrimaryKey() == null)
+            return false;
+        Table table = row.getTable();
+        for (ForeignKey fk : table.getForeignKeys())
+            if (fk.getPrimaryKeyTable() == table)
+                return false;
+        return true;
+    }
+
+    /*
+     * Insert the batched rows with as few multi-row statements as the
+     * dictionary's limits allow. Statements of the full row count share a
+     * prepared statement.
+     */
+    private void executeMultiRowInsert(List<RowImpl> batchedRows)
+        throws SQLException {
+        RowImpl first = batchedRows.get(0);
+        Column[] autoAssign = getAutoAssignColumns(first);
+        String[] autoAssignColNames = getAutoAssignColNames(autoAssign, first);
+        int params = first.getFlushParameterCount();
+        int limit = _dict.getMultiRowInsertLimit(params);
+        if (_batchLimit > 1)
+            limit = Math.min(limit, _batchLimit);
+
+        PreparedStatement full = null;
+        PreparedStatement ps = null;
+        List<RowImpl> rows = null;
+        try {
+            for (int start = 0; start < batchedRows.size(); start += limit) {
+                int end = Math.min(batchedRows.size(), start + limit);
+                rows = batchedRows.subList(start, end);
+                String sql = _dict.getMultiRowInsertSQL(first, rows.size());
+                if (rows.size() == limit && full != null)
+                    ps = full;
+                else {
+                    ps = prepareStatement(sql, autoAssignColNames);
+                    if (rows.size() == limit)
+                        full = ps;
+                }
+
+                if (ps != null)
+                    for (int i = 0; i < rows.size(); i++)
+                        rows.get(i).flush(ps, 1 + i * params, _dict, _store);
+                int count = executeUpdate(ps, sql, first);
+                if (count != rows.size()) {
+                    logSQLWarnings(ps);
+                    throw new SQLException(_loc.get(
+                        "update-failed-no-failed-obj", String.valueOf(count),
+                        sql).getMessage());
+                }
+                if (autoAssignColNames != null)
+                    setMultiRowObjectIds(ps, rows, autoAssign,
+                        autoAssignColNames);
+
+                if (ps != full)
+                    closeStatement(ps);
+                ps = null;
+            }
+        } catch (SQLException se) {
+            throw newStoreException(se, ps, rows, rows.size());
+        } finally {
+            _batchedSql = null;
+            batchedRows.clear();
+            if (ps != null && ps != full) {
+                try {
+                    ps.close();
+                } catch (SQLException sqex) {
+                }
+            }
+            closeStatement(full);
+        }
+    }
+
+    /*
+     * Assign the keys generated by a multi-row insert to its rows, in
+     * insertion order.
+     */
+    private void setMultiRowObjectIds(PreparedStatement ps, List<RowImpl> rows,
+        Column[] autoAssign, String[] autoAssignColNames)
+        throws SQLException {
+        List<Object> vals = getGeneratedKeys(ps, autoAssignColNames);
+        int cols = autoAssignColNames.length;
+        if (vals.size() != rows.size() * cols)
+            throw new SQLException(_loc.get("multi-row-keys",
+                String.valueOf(vals.size() / cols), String.valueOf(rows.size()),
+                rows.get(0).getSQL(_dict)).getMessage());
+        for (int i = 0; i < rows.size(); i++)
+            setObjectId(vals.subList(i * cols, (i + 1) * cols), autoAssign,
+                autoAssignColNames, rows.get(i));
+    }
+
+    /*
+     * Bind the cached up statements into batches of the current limit and
+     * hand each batch to the background executor. Binding of a batch
+     * overlaps the execution of the previous one, but a batch is not
+     * submitted until its predecessor has completed.
+     */
+    private void pipelineBatch() throws SQLException {
+        List<RowImpl> batchedRows = getBatchedRows();
+        String batchedSql = getBatchedSql();
+        if (batchedRows == null)
+            return;
+        if (batchedSql == null || batchedRows.size() < 2 || _batchLimit == 1
+            || isMultiRowInsert(batchedRows)) {
+            // statements that are not batched execute on this thread, as
+            // do multi-row inserts whose generated keys later rows may need
+            awaitPendingBatch();
+            executeBatchedRows();
+            return;
+        }
+
+        try {
+            int start = 0;
+            while (start < batchedRows.size()) {
+                int limit = getEffectiveBatchLimit();
+                int end = (limit <= 0) ? batchedRows.size()
+                    : Math.min(batchedRows.size(), start + limit);
+                List<RowImpl> rows = new ArrayList<>(batchedRows.subList(start,
+                    end));
+                PreparedStatement ps = prepareStatement(batchedSql);
+                try {
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (ps != null)
+                            rows.get(i).flush(ps, _dict, _store);
+                        addBatch(ps, rows.get(i), i);
+                    }
+                } catch (SQLException se) {
+                    closeStatement(ps);
+                    throw newStoreException(se, ps, rows, rows.size());
+                }
+                awaitPendingBatch();
+                _pending = new PendingBatch(ps, rows);
+                _pending.future = _store.getConfiguration().
+                    getExecutorService().submit(
+                    () -> executeTimedBatch(ps, rows.size()));
+                start = end;
+            }
+        } finally {
+            _batchedSql = null;
+            batchedRows.clear();
+        }
+    }
+
+    /**
+     * Wait for the batch executing in the background, if any, and process
+     * its update counts.
+     *
+     * @since 3.1.3
+     */
+    protected void awaitPendingBatch() throws SQLException {
+        PendingBatch batch = _pending;
+        if (batch == null)
+            return;
+        _pending = null;
+        try {
+            int[] rtn = batch.get();
+            checkUpdateCount(rtn, batch.rows, 0, batch.ps);
+        } catch (SQLException se) {
+            throw newStoreException(se, batch.ps, batch.rows,
+                batch.rows.size());
+        } finally {
+            closeStatement(batch.ps);
+        }
+    }
+
+    /**
+     * Discard all cached up statements. Waits for the batch executing in the
+     * background, if any, without reporting its outcome, so that the
+     * connection is no longer in use when this method returns.
+     *
+     * @since 3.1.3
+     */
+    public void abortBatch() {
+        _batchedSql = null;
+        _batchedRows.clear();
+        PendingBatch batch = _pending;
+        if (batch == null)
+            return;
+        _pending = null;
+        try {
+            batch.get();
+        } catch (Exception e) {
+            if (_log.isTraceEnabled())
+                _log.trace(e);
+        } finally {
+            try {
+                closeStatement(batch.ps);
+            } catch (RuntimeException re) {
+            }
+        }
+    }
+
+    private void closeStatement(PreparedStatement ps) {
+        if (ps == null)
+            return;
+        try {
+            ps.close();
+        } catch (SQLException sqex) {
+            throw SQLExceptions.getStore(sqex, ps, _dict);
+        }
+    }
+
+    /*
+     * Execute the batch, recording its latency when the batch limit adapts.
+     */
+    private int[] executeTimedBatch(PreparedStatement ps, int size)
+        throws SQLException {
+        if (_adaptiveLimit == null || size == 0)
+            return executeBatch(ps);
+        long start = System.nanoTime();
+        int[] rtn = executeBatch(ps);
+        _adaptiveLimit.record(size, System.nanoTime() - start);
+        return rtn;
+    }
+
+    /*
+     * The limit of the next batch.
+     */
+    private int getEffectiveBatchLimit() {
+        if (_adaptiveLimit == null)
+            return _batchLimit;
+        return _adaptiveLimit.getBatchLimit(_batchLimit);
+    }
+
+    /*
+     * Translate the failure of a batch to a store exception, naming the
+     * failed object when the driver reports it.
+     */
+    private OpenJPAException newStoreException(SQLException se,
+        PreparedStatement ps, List<RowImpl> batchedRows, int batchSize) {
+        //If we look at PreparedStatementManagerImpl.flushAndUpdate (which is the 'non-batch' code path
+        //similar to this path, or I should say, the path which is taken instead of this path when
+        //we aren't using batching), we see that the catch block doesn't do a 'se.getNextException'.
+        //When we do a 'getNextException', the 'next exception' doesn't contain the same message as se.
+        //That is, 'next exception' contains a subset msg which is contained in se.
+        SQLException sqex = se.getNextException();
+        if (sqex == null){
+            sqex = se;
+        }
+
+        if (se instanceof ReportingSQLException){
+          int index = ((ReportingSQLException) se).getIndexOfFirstFailedObject();
+
+          //if we have only batched one statement, the index should be 0.  As can be seen above,
+          //if 'batchSize == 1' a different path is taken (the 'single row' path), and if that row
+          //fails, we know that the index is 0 since there is only one row.
+          if (batchSize == 1){
+              index = 0;
+          }
+
+          //index should not be less than 0 in this path, but if for some reason it is, lets
+          //resort to the 'old way' and simply pass the 'ps' as the failed object.
+          if (index < 0){
+              return SQLExceptions.getStore(se, ps, _dict);
+          }
+          else{
+              if(batchedRows.size() <= index) {
+                  if(_log.isTraceEnabled()) {
+                      _log.trace("No batched rows found. The failed object may not be reliable");
+                  }
+                  return SQLExceptions.getStore(se, ps, _dict);
+              }
+              return SQLExceptions.getStore(se, (batchedRows.get(index)).getFailedObject(), _dict);
+          }
+        }
+        else{
+        	//per comments above, use 'sqex' rather than 'se'.
+            return SQLExceptions.getStore(sqex, ps, _dict);
+        }
+    }
+
     /*
      * Execute an update of a single row.
      */
@@ -267,8 +589,8 @@ public class BatchingPreparedStatementManagerImpl extends
     /*
      * Process executeBatch function array of return counts.
      */
-    private void checkUpdateCount(int[] count, int batchedRowsBaseIndex,
-        PreparedStatement ps)
+    private void checkUpdateCount(int[] count, List<RowImpl> batchedRows,
+        int batchedRowsBaseIndex, PreparedStatement ps)
         throws SQLException {
         // value in int[] count  returned from executeBatch:
         //               Update          Delete        Insert
@@ -280,7 +602,6 @@ public class BatchingPreparedStatementManagerImpl extends
         int cnt = 0;
         int updateSuccessCnt = _dict.getBatchUpdateCount(ps);
         Object failed = null;
-        List<RowImpl> batchedRows = getBatchedRows();
         for (int i = 0; i < count.length; i++) {
             cnt = count[i];
             RowImpl row = (RowImpl) batchedRows.get(batchedRowsBaseIndex + i);
@@ -347,6 +668,66 @@ public class BatchingPreparedStatementManagerImpl extends
         _batchLimit = batchLimit;
     }
 
+    /**
+     * Whether batches execute in the background while the next batch is
+     * bound.
+     *
+     * @since 3.1.3
+     */
+    public boolean isPipelined() {
+        return _pipelined;
+    }
+
+    /**
+     * Whether batches execute in the background while the next batch is
+     * bound.
+     *
+     * @since 3.1.3
+     */
+    public void setPipelined(boolean pipelined) {
+        _pipelined = pipelined;
+    }
+
+    /**
+     * Whether batched inserts are combined into multi-row
+     * <code>INSERT ... VALUES (...), (...)</code> statements when the
+     * dictionary supports them.
+     *
+     * @since 3.1.3
+     */
+    public boolean isMultiRowInsert() {
+        return _multiRowInsert;
+    }
+
+    /**
+     * Whether batched inserts are combined into multi-row statements when
+     * the dictionary supports them.
+     *
+     * @since 3.1.3
+     */
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        _multiRowInsert = multiRowInsert;
+    }
+
+    /**
+     * The adaptive limit that replaces the fixed batch limit, or null.
+     * A positive batch limit still caps the size of each batch.
+     *
+     * @since 3.1.3
+     */
+    public AdaptiveBatchLimit getAdaptiveBatchLimit() {
+        return _adaptiveLimit;
+    }
+
+    /**
+     * The adaptive limit that replaces the fixed batch limit, or null.
+     *
+     * @since 3.1.3
+     */
+    public void setAdaptiveBatchLimit(AdaptiveBatchLimit limit) {
+        _adaptiveLimit = limit;
+    }
+
     public List<RowImpl> getBatchedRows() {
         return _batchedRows;
     }
@@ -364,4 +745,48 @@ public class BatchingPreparedStatementManagerImpl extends
     throws SQLException {
         return ps.executeBatch();
     }
+
+    /*
+     * A batch executing in the background.
+     */
+    private static class PendingBatch {
+
+        final PreparedStatement ps;
+        final List<RowImpl> rows;
+        Future<int[]> future;
+
+        PendingBatch(PreparedStatement ps, List<RowImpl> rows) {
+            this.ps = ps;
+            this.rows = rows;
+        }
+
+        /*
+         * Wait for the batch without giving up on interruption, since the
+         * connection is in use until the batch completes.
+         */
+        int[] get() throws SQLException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return future.get();
+                    } catch (InterruptedException ie) {
+                        interrupted = true;
+                    } catch (ExecutionException ee) {
+                        Throwable cause = ee.getCause();
+                        if (cause instanceof SQLException)
+                            throw (SQLException) cause;
+                        if (cause instanceof RuntimeException)
+                            throw (RuntimeException) cause;
+                        if (cause instanceof Error)
+                            throw (Error) cause;
+                        throw new SQLException(cause);
+                    }
+                }
+            } finally {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
@@ -22,12 +22,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.jdbc.meta.ClassMapping;
 import org.apache.openjpa.jdbc.sql.Result;
 import org.apache.openjpa.jdbc.sql.SelectExecutor;
@@ -42,6 +50,18 @@ import org.apache.openjpa.lib.util.StringUtil;
 /**
  * Implementation of FinderCache for JDBC.
  *
+ * A mapping may have several cached finders, one for each fetch plan and
+ * lock level it is found with. Unlike earlier releases, finds under a
+ * non-default fetch group configuration are cached too, each under its own
+ * variant. The <code>CacheNonDefaultFetchPlanQueries</code> compatibility
+ * option still disables the cache as it did before.
+ *
+ * The variants are kept in a concurrent map, so looking up a finder takes no
+ * lock. The map is bounded by the <code>MaxSize</code> plugin property; when
+ * it overflows, the variant that has not been used for the longest time is
+ * evicted. Recency is only tracked between insertions, so the eviction order
+ * is an approximation of LRU.
+ *
  * @author Pinaki Poddar
  *
  * @since 2.0.0
@@ -51,39 +71,41 @@ public class FinderCacheImpl
     implements FinderCache<ClassMapping, SelectExecutor, Result> {
     private static final String PATTERN_SEPARATOR = "\\;";
     private static final String EXLUDED_BY_USER = "Excluded by user";
+    private static final int DEFAULT_MAX_SIZE = 1000;
 
-    private final Map<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>> _delegate;
+    private final ConcurrentMap<FinderKey, Entry> _delegate;
     // Key: class name Value: Reason why excluded
     private final Map<String, String> _uncachables;
     private List<String> _exclusionPatterns;
     private QueryStatistics<ClassMapping> _stats;
+    private QueryStatistics<String> _variantStats;
     private ReentrantLock _lock = new ReentrantLock();
     private boolean _enableStats = false;
+    private boolean _disabled = false;
+    private int _maxSize = DEFAULT_MAX_SIZE;
+    // advanced on every insertion, stamps the entries used since
+    private volatile long _clock;
 
     public FinderCacheImpl() {
-        _delegate = new HashMap<>();
+        _delegate = new ConcurrentHashMap<>();
         _uncachables = new HashMap<>();
         _stats = new QueryStatistics.None<>();
+        _variantStats = new QueryStatistics.None<>();
     }
 
     /**
      * Get a map-oriented view of the cache.
      *
-     * @return a map of the query string with class names as key.
+     * @return a map of the query string with class names as key. Finders
+     * cached for a non-default fetch plan or lock level have the plan
+     * appended to the class name.
      */
     @Override
     public Map<String, String> getMapView() {
-        lock();
-        try {
-            Map<String, String> view = new TreeMap<>();
-            for (ClassMapping mapping : _delegate.keySet()) {
-                view.put(mapping.getDescribedType().getName(),
-                    _delegate.get(mapping).getQueryString());
-            }
-            return view;
-        } finally {
-            unlock();
-        }
+        Map<String, String> view = new TreeMap<>();
+        for (Entry entry : _delegate.values())
+            view.put(entry.key.toString(), entry.finder.getQueryString());
+        return view;
     }
 
     /**
@@ -95,7 +117,46 @@ public class FinderCacheImpl
     }
 
     /**
-     * Gets the finder query for the given mapping. The get operation can be
+     * Gets statistics of execution, hit and eviction count of each fetch plan
+     * variant. The statistics are keyed by the same strings as the
+     * {@link #getMapView() map view}.
+     *
+     * @since 3.1.3
+     */
+    public QueryStatistics<String> getVariantStatistics() {
+        return _variantStats;
+    }
+
+    /**
+     * Gets the maximum number of finders, counting each fetch plan variant
+     * of a mapping, held by this cache.
+     *
+     * @since 3.1.3
+     */
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    /**
+     * Sets the maximum number of finders, counting each fetch plan variant
+     * of a mapping, held by this cache. The least recently used finders are
+     * evicted first.
+     *
+     * @since 3.1.3
+     */
+    public void setMaxSize(int max) {
+        lock();
+        try {
+            _maxSize = max;
+            evict();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Gets the finder query for the given mapping under the fetch plan and
+     * lock level of the given configuration. The get operation can be
      * controlled by FetchConfiguration hints.
      * {@link QueryHints#HINT_IGNORE_FINDER HINT_IGNORE_FINDER} will ignore
      * any cached finder that may exist in this cache and will return null.
@@ -107,11 +168,8 @@ public class FinderCacheImpl
     @Override
     public FinderQuery<ClassMapping,SelectExecutor,Result>
         get(ClassMapping mapping, FetchConfiguration fetch) {
-        if (fetch.getReadLockLevel() != 0) {
-            return null;
-        }
-
-        if (!fetch.isFetchConfigurationSQLCacheAdmissible()) {
+        FinderKey key = newKey(mapping, fetch);
+        if (key == null) {
             return null;
         }
 
@@ -123,71 +181,145 @@ public class FinderCacheImpl
         if (ignore) {
             return null;
         }
-        FinderQuery<ClassMapping, SelectExecutor, Result> result = _delegate.get(mapping);
+        Entry entry = lookup(key);
         _stats.recordExecution(mapping);
-        return result;
+        if (_enableStats) {
+            _variantStats.recordExecution(entry == null ? key.toString() : entry.key.toString());
+        }
+        return entry == null ? null : entry.finder;
     }
 
     /**
-     * Cache a Finder Query for the given mapping and select. The put operation
+     * Cache a Finder Query for the given mapping and select under the fetch
+     * plan and lock level of the given configuration. The put operation
      * can be controlled by FetchConfiguration hints.
-     * If no entry exists for the given mapping then an attempt is made to
-     * create a new FinderQuery. The attempt, however, may not be successful
-     * because all Selects can not be cached.
+     * If no entry exists for the given mapping and fetch plan then an attempt
+     * is made to create a new FinderQuery. The attempt, however, may not be
+     * successful because all Selects can not be cached.
      * @see FinderQueryImpl#newFinder(ClassMapping, Select).
      *
-     * If a entry for the given mapping exists then the value of
+     * If a entry for the given mapping and fetch plan exists then the value of
      * {@link QueryHints#HINT_RECACHE_FINDER HINT_RECACHE_FINDER} hint
      * determines whether the existing entry is returned or a new FinderQuery
      * with the given argument overwrites the existing one.
      *
      * @param mapping the class for which the finder is to be cached
      * @param select the finder query
-     * @param fetch may contain hints to control cache operation
+     * @param fetch the fetch plan of the select, may also contain hints to
+     * control cache operation
      */
     @Override
     public FinderQuery<ClassMapping, SelectExecutor, Result> cache
        (ClassMapping mapping, SelectExecutor select, FetchConfiguration fetch) {
-        lock();
-        try {
-            if (fetch.getReadLockLevel() != 0) {
-                return null;
-            }
+        FinderKey key = newKey(mapping, fetch);
+        if (key == null) {
+            return null;
+        }
 
-            if (!fetch.isFetchConfigurationSQLCacheAdmissible()) {
-                return null;
+        boolean recache = isHinted(fetch, QueryHints.HINT_RECACHE_FINDER);
+        if (!recache) {
+            Entry entry = lookup(key);
+            if (entry != null) {
+                return entry.finder;
             }
-
-            boolean recache = isHinted(fetch, QueryHints.HINT_RECACHE_FINDER);
+        }
+        lock();
+        try {
             if (isExcluded(mapping)) {
-                return recache ? put(mapping, select) : null;
+                return recache ? put(key, select) : null;
             }
-            if (_delegate.containsKey(mapping)) {
-                return recache ? put(mapping, select) : _delegate.get(mapping);
+            Entry entry = _delegate.get(key);
+            if (entry != null) {
+                return recache ? put(key, select) : entry.finder;
             }
-            return put(mapping, select);
+            return put(key, select);
         } finally {
             unlock();
         }
     }
 
+    /**
+     * Return the key of the given mapping under the given fetch
+     * configuration, or null if the cache is disabled or finds under the
+     * configuration are not cachable.
+     */
+    private FinderKey newKey(ClassMapping mapping, FetchConfiguration fetch) {
+        // the SQL cache admissibility of the fetch configuration no longer
+        // decides by itself, because non-default fetch groups are part of
+        // the key; the compatibility option that made it refuse everything
+        // is honored here instead
+        if (_disabled || mapping == null
+            || !(fetch instanceof JDBCFetchConfiguration)) {
+            return null;
+        }
+        // root instances are compared by identity
+        if (!fetch.getRootInstances().isEmpty()) {
+            return null;
+        }
+        return new FinderKey(mapping, (JDBCFetchConfiguration) fetch);
+    }
+
+    /**
+     * Gets the entry cached under the given key without locking and marks
+     * it as used.
+     */
+    private Entry lookup(FinderKey key) {
+        Entry entry = _delegate.get(key);
+        if (entry != null) {
+            long clock = _clock;
+            if (entry.used != clock) {
+                entry.used = clock;
+            }
+        }
+        return entry;
+    }
+
     /**
      * Creates and puts a FinderQuery in the internal map indexed by the
-     * given ClassMapping.
+     * given key.
      * If a new FinderQuery can not be created for the given Select (because
      * some Select are not cached), then the mapping is marked invalid.
      *
     */
-    private FinderQuery<ClassMapping, SelectExecutor, Result> put(ClassMapping mapping, SelectExecutor select) {
-        FinderQuery<ClassMapping, SelectExecutor, Result> finder = FinderQueryImpl.newFinder(mapping, select);
+    private FinderQuery<ClassMapping, SelectExecutor, Result> put(FinderKey key, SelectExecutor select) {
+        FinderQuery<ClassMapping, SelectExecutor, Result> finder = FinderQueryImpl.newFinder(key.mapping, select);
         if (finder != null) {
-            _delegate.put(mapping, finder);
+            FinderKey copy = key.copy();
+            Entry entry = new Entry(copy, finder);
+            entry.used = ++_clock;
+            _delegate.put(copy, entry);
+            evict();
         } else {
-            invalidate(mapping);
+            invalidate(key.mapping);
         }
         return finder;
     }
 
+    /**
+     * Evicts the least recently used entries until the cache fits its
+     * maximum size. Must be called under lock.
+     */
+    private void evict() {
+        if (_maxSize < 0) {
+            return;
+        }
+        while (_delegate.size() > _maxSize) {
+            Entry eldest = null;
+            for (Entry entry : _delegate.values()) {
+                if (eldest == null || entry.used < eldest.used) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null || !_delegate.remove(eldest.key, eldest)) {
+                return;
+            }
+            _stats.recordEviction(eldest.key.mapping);
+            if (_enableStats) {
+                _variantStats.recordEviction(eldest.key.toString());
+            }
+        }
+    }
+
     /**
      * Affirms if the given mapping is excluded from being cached.
      */
@@ -218,7 +350,7 @@ public class FinderCacheImpl
                 _exclusionPatterns = new ArrayList<>();
             _exclusionPatterns.add(pattern);
             Collection<ClassMapping> invalidMappings = getMatchedKeys(pattern,
-                    _delegate.keySet());
+                    getMappings());
             for (ClassMapping invalidMapping : invalidMappings)
                 markUncachable(invalidMapping, pattern);
         } finally {
@@ -293,16 +425,45 @@ public class FinderCacheImpl
           || target.matches(pattern));
     }
 
+    /**
+     * Removes the finders of all fetch plan variants of the given mapping.
+     */
     @Override
     public boolean invalidate(ClassMapping mapping) {
         lock();
         try {
-            return _delegate.remove(mapping) != null;
+            return remove(mapping) != null;
         } finally {
             unlock();
         }
     }
 
+    /**
+     * Removes the finders of all fetch plan variants of the given mapping and
+     * returns one of them, or null if none was cached.
+     */
+    private FinderQuery<ClassMapping, SelectExecutor, Result> remove(ClassMapping mapping) {
+        FinderQuery<ClassMapping, SelectExecutor, Result> removed = null;
+        if (mapping == null)
+            return null;
+        for (Entry entry : _delegate.values()) {
+            if (entry.key.mapping == mapping && _delegate.remove(entry.key, entry)) {
+                removed = entry.finder;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the mappings that have at least one cached finder.
+     */
+    private Set<ClassMapping> getMappings() {
+        Set<ClassMapping> mappings = new LinkedHashSet<>();
+        for (FinderKey key : _delegate.keySet())
+            mappings.add(key.mapping);
+        return mappings;
+    }
+
     @Override
     public FinderQuery<ClassMapping, SelectExecutor, Result> markUncachable(ClassMapping mapping) {
         return markUncachable(mapping.getDescribedType().getName());
@@ -318,7 +479,7 @@ public class FinderCacheImpl
             boolean excludedByUser = _uncachables.get(cls) == EXLUDED_BY_USER;
             if (!excludedByUser)
                 _uncachables.put(cls, reason);
-            return _delegate.remove(searchMappingByName(cls));
+            return remove(searchMappingByName(cls));
         } finally {
             unlock();
         }
@@ -331,14 +492,14 @@ public class FinderCacheImpl
             boolean excludedByUser = _uncachables.get(cls) == EXLUDED_BY_USER;
             if (!excludedByUser)
                 _uncachables.put(cls, reason);
-            return _delegate.remove(mapping);
+            return remove(mapping);
         } finally {
             unlock();
         }
     }
 
     ClassMapping searchMappingByName(String cls) {
-        for (ClassMapping mapping : _delegate.keySet())
+        for (ClassMapping mapping : getMappings())
             if (matches(cls, mapping))
                 return mapping;
         return null;
@@ -389,6 +550,7 @@ public class FinderCacheImpl
         _enableStats = b;
         if (_enableStats) {
             _stats = new QueryStatistics.Default<>();
+            _variantStats = new QueryStatistics.Default<>();
         }
     }
 
@@ -404,9 +566,263 @@ public class FinderCacheImpl
 
     @Override
     public void setConfiguration(Configuration conf) {
+        if (conf instanceof OpenJPAConfiguration) {
+            _disabled = ((OpenJPAConfiguration) conf).getCompatibilityInstance()
+                .getCacheNonDefaultFetchPlanQueries();
+        }
     }
 
     @Override
     public void endConfiguration() {
     }
+
+    /**
+     * A cached finder with the insertion count at which it was last used.
+     */
+    private static final class Entry {
+
+        final FinderKey key;
+        final FinderQuery<ClassMapping, SelectExecutor, Result> finder;
+        volatile long used;
+
+        Entry(FinderKey key, FinderQuery<ClassMapping, SelectExecutor, Result> finder) {
+            this.key = key;
+            this.finder = finder;
+        }
+    }
+
+    /**
+     * Identifies a finder by its mapping, the parts of the fetch plan that
+     * shape the select, and the lock level.
+     *
+     * A key built for a lookup refers to the collections of the fetch
+     * configuration instead of copying them. Only the {@link #copy} of a key
+     * is stored in the cache.
+     */
+    private static final class FinderKey {
+
+        final ClassMapping mapping;
+        private final Set<String> _groups;
+        private final Set<String> _fields;
+        private final int _lockLevel;
+        private final int _lockScope;
+        private final int _depth;
+        private final int _eager;
+        private final int _subclass;
+        private final int _syntax;
+        private final int _isolation;
+        private final boolean _ignoreDfg;
+        private final Set<String> _joins;
+        private final Set<String> _innerJoins;
+        private final Set<Class<?>> _roots;
+        private final Map<String, Object> _hints;
+        private final int _hash;
+        private String _name;
+
+        FinderKey(ClassMapping mapping, JDBCFetchConfiguration fetch) {
+            this.mapping = mapping;
+            _groups = fetch.isDefaultPUFetchGroupConfigurationOnly() ? null
+                : fetch.getFetchGroups();
+            _fields = fetch.getFields();
+            _lockLevel = fetch.getReadLockLevel();
+            _lockScope = fetch.getLockScope();
+            _depth = fetch.getMaxFetchDepth();
+            _eager = fetch.getEagerFetchMode();
+            _subclass = fetch.getSubclassFetchMode(mapping);
+            _syntax = fetch.getJoinSyntax();
+            _isolation = fetch.getIsolation();
+            _ignoreDfg = fetch.getIgnoreDfgForFkSelect();
+            _joins = fetch.getJoins();
+            _innerJoins = fetch.getFetchInnerJoins();
+            _roots = fetch.getRootClasses();
+            _hints = fetch.getHints();
+            _hash = hash();
+        }
+
+        private FinderKey(FinderKey key) {
+            mapping = key.mapping;
+            _groups = key._groups == null ? null : copy(key._groups);
+            _fields = copy(key._fields);
+            _lockLevel = key._lockLevel;
+            _lockScope = key._lockScope;
+            _depth = key._depth;
+            _eager = key._eager;
+            _subclass = key._subclass;
+            _syntax = key._syntax;
+            _isolation = key._isolation;
+            _ignoreDfg = key._ignoreDfg;
+            _joins = copy(key._joins);
+            _innerJoins = copy(key._innerJoins);
+            _roots = copy(key._roots);
+            Map<String, Object> hints = null;
+            for (Map.Entry<String, Object> hint : key._hints.entrySet()) {
+                if (isPlanHint(hint.getKey())) {
+                    if (hints == null)
+                        hints = new HashMap<>();
+                    hints.put(hint.getKey(), hint.getValue());
+                }
+            }
+            _hints = hints == null ? Collections.<String, Object> emptyMap() : hints;
+            _hash = key._hash;
+        }
+
+        /**
+         * Return a key equal to this one that does not refer to the
+         * collections of the fetch configuration it was built from.
+         */
+        FinderKey copy() {
+            return new FinderKey(this);
+        }
+
+        private static <T> Set<T> copy(Set<T> values) {
+            if (values == null || values.isEmpty())
+                return Collections.emptySet();
+            return new HashSet<>(values);
+        }
+
+        private int hash() {
+            int hash = mapping.hashCode();
+            hash = 31 * hash + (_groups == null ? 0 : _groups.hashCode());
+            hash = 31 * hash + _fields.hashCode();
+            hash = 31 * hash + _lockLevel;
+            hash = 31 * hash + _lockScope;
+            hash = 31 * hash + _depth;
+            hash = 31 * hash + _eager;
+            hash = 31 * hash + _subclass;
+            hash = 31 * hash + _syntax;
+            hash = 31 * hash + _isolation;
+            hash = 31 * hash + (_ignoreDfg ? 1 : 0);
+            hash = 31 * hash + _joins.hashCode();
+            hash = 31 * hash + _innerJoins.hashCode();
+            hash = 31 * hash + _roots.hashCode();
+            if (!_hints.isEmpty()) {
+                for (Map.Entry<String, Object> hint : _hints.entrySet())
+                    if (isPlanHint(hint.getKey()))
+                        hash += hint.getKey().hashCode() ^ Objects.hashCode(hint.getValue());
+            }
+            return hash;
+        }
+
+        /**
+         * Affirms if the given hint may change the generated SQL, such as
+         * database select hints. Hints that control this cache and the
+         * standard JPA hints, which are applied when the finder executes,
+         * are not.
+         */
+        private static boolean isPlanHint(String key) {
+            return key != null && !key.startsWith("javax.persistence.")
+                && !QueryHints.HINT_IGNORE_FINDER.equals(key)
+                && !QueryHints.HINT_INVALIDATE_FINDER.equals(key)
+                && !QueryHints.HINT_RECACHE_FINDER.equals(key);
+        }
+
+        /**
+         * Affirms if the plan hints of the given maps are equal. Either map
+         * may also hold hints that are not plan hints.
+         */
+        private static boolean equalHints(Map<String, Object> a, Map<String, Object> b) {
+            if (a.isEmpty() && b.isEmpty())
+                return true;
+            int count = 0;
+            for (Map.Entry<String, Object> hint : a.entrySet()) {
+                String key = hint.getKey();
+                if (!isPlanHint(key))
+                    continue;
+                if (!b.containsKey(key) || !Objects.equals(hint.getValue(), b.get(key)))
+                    return false;
+                count++;
+            }
+            for (String key : b.keySet())
+                if (isPlanHint(key))
+                    count--;
+            return count == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof FinderKey))
+                return false;
+            FinderKey key = (FinderKey) other;
+            return _hash == key._hash
+                && mapping == key.mapping
+                && _lockLevel == key._lockLevel
+                && _lockScope == key._lockScope
+                && _depth == key._depth
+                && _eager == key._eager
+                && _subclass == key._subclass
+                && _syntax == key._syntax
+                && _isolation == key._isolation
+                && _ignoreDfg == key._ignoreDfg
+                && (_groups == null ? key._groups == null
+                    : _groups.equals(key._groups))
+                && _fields.equals(key._fields)
+                && _joins.equals(key._joins)
+                && _innerJoins.equals(key._innerJoins)
+                && _roots.equals(key._roots)
+                && equalHints(_hints, key._hints);
+        }
+
+        /**
+         * The class name, followed by the parts of the fetch plan that differ
+         * from the configured defaults.
+         */
+        @Override
+        public String toString() {
+            if (_name != null)
+                return _name;
+
+            JDBCConfiguration conf = (JDBCConfiguration) mapping
+                .getRepository().getConfiguration();
+            List<String> plan = new ArrayList<>();
+            if (_groups != null)
+                plan.add("groups=" + new TreeSet<>(_groups));
+            if (!_fields.isEmpty())
+                plan.add("fields=" + new TreeSet<>(_fields));
+            if (_lockLevel != 0)
+                plan.add("lock=" + _lockLevel);
+            if (_lockScope != 0)
+                plan.add("lockScope=" + _lockScope);
+            if (_depth != conf.getMaxFetchDepth())
+                plan.add("depth=" + _depth);
+            if (_eager != conf.getEagerFetchModeConstant())
+                plan.add("eager=" + _eager);
+            if (_subclass != conf.getSubclassFetchModeConstant())
+                plan.add("subclass=" + _subclass);
+            if (_syntax != conf.getDBDictionaryInstance().joinSyntax)
+                plan.add("syntax=" + _syntax);
+            if (_isolation != -1)
+                plan.add("isolation=" + _isolation);
+            if (_ignoreDfg)
+                plan.add("ignoreDfgForFkSelect");
+            if (!_joins.isEmpty())
+                plan.add("joins=" + new TreeSet<>(_joins));
+            if (!_innerJoins.isEmpty())
+                plan.add("innerJoins=" + new TreeSet<>(_innerJoins));
+            if (!_roots.isEmpty()) {
+                Set<String> roots = new TreeSet<>();
+                for (Class<?> root : _roots)
+                    roots.add(root.getName());
+                plan.add("roots=" + roots);
+            }
+            Map<String, String> hints = new TreeMap<>();
+            for (Map.Entry<String, Object> hint : _hints.entrySet())
+                if (isPlanHint(hint.getKey()))
+                    hints.put(hint.getKey(), String.valueOf(hint.getValue()));
+            if (!hints.isEmpty())
+                plan.add("hints=" + hints);
+
+            String name = mapping.getDescribedType().getName();
+            if (!plan.isEmpty())
+                name += " " + plan;
+            _name = name;
+            return name;
+        }
+    }
 }
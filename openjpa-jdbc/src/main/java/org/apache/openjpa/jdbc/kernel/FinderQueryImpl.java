@@ -149,8 +149,13 @@ public class FinderQueryImpl
     @Override
     public Result execute(OpenJPAStateManager sm, StoreManager store,
         FetchConfiguration fetch) {
-        boolean forUpdate = false;
         JDBCStore jstore = (JDBCStore)store;
+        // finders are cached per lock level, so the lock manager makes the
+        // same decision it made when the cached SQL was generated
+        boolean forUpdate = false;
+        JDBCLockManager lm = jstore.getLockManager();
+        if (lm != null)
+            forUpdate = lm.selectForUpdate(_select, fetch.getReadLockLevel());
         Connection conn = jstore.getConnection();
         DBDictionary dict = jstore.getDBDictionary();
         PreparedStatement stmnt = null;
@@ -24,10 +24,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,12 +44,18 @@ import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.jdbc.meta.ClassMapping;
 import org.apache.openjpa.jdbc.meta.Discriminator;
 import org.apache.openjpa.jdbc.meta.FieldMapping;
+import org.apache.openjpa.jdbc.meta.Joinable;
 import org.apache.openjpa.jdbc.meta.ValueMapping;
+import org.apache.openjpa.jdbc.meta.strats.FlatClassStrategy;
+import org.apache.openjpa.jdbc.meta.strats.FullClassStrategy;
 import org.apache.openjpa.jdbc.meta.strats.SuperclassDiscriminatorStrategy;
+import org.apache.openjpa.jdbc.meta.strats.VerticalClassStrategy;
+import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.sql.DBDictionary;
 import org.apache.openjpa.jdbc.sql.JoinSyntaxes;
 import org.apache.openjpa.jdbc.sql.Joins;
 import org.apache.openjpa.jdbc.sql.Result;
+import org.apache.openjpa.jdbc.sql.SQLBuffer;
 import org.apache.openjpa.jdbc.sql.SQLExceptions;
 import org.apache.openjpa.jdbc.sql.SQLFactory;
 import org.apache.openjpa.jdbc.sql.Select;
@@ -739,7 +748,269 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
     @Override
     public Collection loadAll(Collection sms, PCState state, int load,
         FetchConfiguration fetch, Object context) {
-        return ImplHelper.loadAll(sms, this, state, load, fetch, context);
+        if (context != null || _dict.getBatchLoadLimit(1) < 2
+            || sms.size() < 2)
+            return ImplHelper.loadAll(sms, this, state, load, fetch, context);
+
+        // group the instances that can be selected together by primary key;
+        // everything else is loaded one by one
+        JDBCFetchConfiguration jfetch = (JDBCFetchConfiguration) fetch;
+        Map<List<Object>, LoadBatch> batches = new LinkedHashMap<>();
+        List<OpenJPAStateManager> single = new ArrayList<>();
+        OpenJPAStateManager sm;
+        LoadBatch batch;
+        for (Object o : sms) {
+            sm = (OpenJPAStateManager) o;
+            batch = newLoadBatch(sm);
+            if (batch == null) {
+                single.add(sm);
+                continue;
+            }
+            Object[] vals = getPrimaryKeyValues(sm.getObjectId(),
+                batch.mapping, batch.mapping.getPrimaryKeyColumns());
+            if (vals == null) {
+                single.add(sm);
+                continue;
+            }
+            LoadBatch existing = batches.putIfAbsent(batch.key, batch);
+            if (existing != null)
+                batch = existing;
+            batch.sms.add(sm);
+            batch.vals.add(vals);
+        }
+
+        Collection failed = null;
+        try {
+            for (LoadBatch b : batches.values()) {
+                if (b.sms.size() == 1) {
+                    single.add(b.sms.get(0));
+                    continue;
+                }
+                int limit = _dict.getBatchLoadLimit(
+                    b.mapping.getPrimaryKeyColumns().length);
+                if (limit < 2) {
+                    single.addAll(b.sms);
+                    continue;
+                }
+                for (int i = 0; i < b.sms.size(); i += limit) {
+                    int end = Math.min(b.sms.size(), i + limit);
+                    failed = loadBatch(b, b.sms.subList(i, end),
+                        b.vals.subList(i, end), state, jfetch, failed);
+                }
+            }
+        } catch (ClassNotFoundException cnfe) {
+            throw new UserException(cnfe);
+        } catch (SQLException se) {
+            throw SQLExceptions.getStore(se, _dict, fetch.getReadLockLevel());
+        }
+
+        if (!single.isEmpty()) {
+            Collection f = ImplHelper.loadAll(single, this, state, load,
+                fetch, context);
+            if (!f.isEmpty()) {
+                if (failed == null)
+                    failed = new ArrayList();
+                failed.addAll(f);
+            }
+        }
+        return (failed == null) ? Collections.EMPTY_LIST : failed;
+    }
+
+    /**
+     * Return the batch the given instance can be loaded with, or null if it
+     * must be loaded on its own. Mirrors the selects made by
+     * {@link #initializeState} and {@link #load(OpenJPAStateManager, BitSet,
+     * FetchConfiguration, int, Object)}.
+     */
+    private LoadBatch newLoadBatch(OpenJPAStateManager sm) {
+        ClassMapping mapping = (ClassMapping) sm.getMetaData();
+        Object oid = sm.getObjectId();
+        int subs = Select.SUBS_EXACT;
+        Integer lockLevel = null;
+        if (sm.getManagedInstance() == null) {
+            if (!(oid instanceof OpenJPAId)
+                || ((OpenJPAId) oid).hasSubclasses()) {
+                ClassMapping[] mappings = mapping.
+                    getIndependentAssignableMappings();
+                if (mappings.length != 1)
+                    return null;
+                mapping = mappings[0];
+                subs = Select.SUBS_ANY_JOINABLE;
+            }
+        } else if (sm.getPCState() == PCState.HOLLOW)
+            lockLevel = sm.getContext().getLockManager().getLockLevel(sm);
+        else
+            return null;
+
+        if (oid == null || mapping.getEmbeddingMapping() != null
+            || !mapping.isPrimaryKeyObjectId(false)
+            || (mapping.getIdentityType() != ClassMetaData.ID_APPLICATION
+            && !(oid instanceof Id)))
+            return null;
+
+        // custom strategies may load instances their own way
+        for (ClassMapping m = mapping; m != null;
+            m = m.getJoinablePCSuperclassMapping()) {
+            Class<?> strat = m.getStrategy().getClass();
+            if (strat != FullClassStrategy.class
+                && strat != FlatClassStrategy.class
+                && strat != VerticalClassStrategy.class)
+                return null;
+        }
+        return new LoadBatch(mapping, subs, lockLevel);
+    }
+
+    /**
+     * Return the values of the given primary key columns for the given oid,
+     * or null if any of them is null.
+     */
+    private Object[] getPrimaryKeyValues(Object oid, ClassMapping mapping,
+        Column[] cols) {
+        Object[] pks = null;
+        if (mapping.getIdentityType() == ClassMetaData.ID_APPLICATION)
+            pks = ApplicationIds.toPKValues(oid, mapping);
+
+        Object[] vals = new Object[cols.length];
+        Joinable join;
+        for (int i = 0; i < cols.length; i++) {
+            if (pks == null)
+                vals[i] = ((Id) oid).getId();
+            else {
+                join = mapping.assertJoinable(cols[i]);
+                vals[i] = join.getJoinValue(pks[mapping.getField(join.
+                    getFieldIndex()).getPrimaryKeyIndex()], cols[i], this);
+            }
+            if (vals[i] == null)
+                return null;
+        }
+        return vals;
+    }
+
+    /**
+     * Load the given instances with a single select by primary key.
+     */
+    private Collection loadBatch(LoadBatch batch,
+        List<OpenJPAStateManager> sms, List<Object[]> vals, PCState state,
+        JDBCFetchConfiguration fetch, Collection failed)
+        throws ClassNotFoundException, SQLException {
+        ClassMapping mapping = batch.mapping;
+        Map<Object, OpenJPAStateManager> unloaded = new HashMap<>(
+            (int) (sms.size() * 1.34));
+        for (OpenJPAStateManager sm : sms)
+            unloaded.put(sm.getObjectId(), sm);
+
+        Select sel = _sql.newSelect();
+        sel.where(getPrimaryKeyIn(sel, mapping.getPrimaryKeyColumns(), vals));
+        sel.select(mapping, batch.subs, this, fetch,
+            fetch.getEagerFetchMode());
+        sel.setExpectedResultCount(sms.size(), false);
+        if (_log.isTraceEnabled())
+            _log.trace(_loc.get("load-all-batch", String.valueOf(sms.size()),
+                mapping));
+
+        ClassMapping base = mapping;
+        while (base.getJoinablePCSuperclassMapping() != null)
+            base = base.getJoinablePCSuperclassMapping();
+
+        List<OpenJPAStateManager> loaded = null;
+        Result res = (batch.lockLevel == null) ? sel.execute(this, fetch)
+            : sel.execute(this, fetch, batch.lockLevel);
+        try {
+            ConnectionInfo info = new ConnectionInfo();
+            Object oid;
+            OpenJPAStateManager sm;
+            while (res.next()) {
+                oid = base.getObjectId(this, res, null, true, null);
+                sm = (oid == null) ? null : unloaded.remove(oid);
+                if (sm == null)
+                    continue;
+                if (sm.getManagedInstance() == null) {
+                    info.result = res;
+                    info.mapping = mapping;
+                    if (!initializeState(sm, state, fetch, info))
+                        unloaded.put(sm.getObjectId(), sm);
+                } else {
+                    load((ClassMapping) sm.getMetaData(), sm, fetch, res);
+                    if (loaded == null)
+                        loaded = new ArrayList<>();
+                    loaded.add(sm);
+                }
+            }
+        } finally {
+            res.close();
+        }
+
+        // let hollow instances load anything the select did not cover
+        if (loaded != null) {
+            for (OpenJPAStateManager sm : loaded) {
+                BitSet fields = sm.getUnloaded(fetch);
+                if (fields.isEmpty())
+                    ((ClassMapping) sm.getMetaData()).getVersion().
+                        afterLoad(sm, this);
+                else if (!load(sm, fields, fetch, batch.lockLevel, null))
+                    unloaded.put(sm.getObjectId(), sm);
+            }
+        }
+
+        if (!unloaded.isEmpty()) {
+            if (failed == null)
+                failed = new ArrayList();
+            for (OpenJPAStateManager sm : unloaded.values())
+                failed.add(sm.getId());
+        }
+        return failed;
+    }
+
+    /**
+     * Return a condition matching any of the given primary key values,
+     * using a tuple <code>IN</code> list for compound keys when the
+     * dictionary supports it.
+     */
+    private SQLBuffer getPrimaryKeyIn(Select sel, Column[] cols,
+        List<Object[]> vals) {
+        SQLBuffer buf = new SQLBuffer(_dict);
+        boolean tuple = cols.length > 1;
+        if (tuple && !_dict.supportsTupleIn) {
+            buf.append("(");
+            for (int i = 0; i < vals.size(); i++) {
+                if (i > 0)
+                    buf.append(" OR ");
+                buf.append("(");
+                for (int j = 0; j < cols.length; j++) {
+                    if (j > 0)
+                        buf.append(" AND ");
+                    buf.append(sel.getColumnAlias(cols[j])).append(" = ");
+                    buf.appendValue(vals.get(i)[j], cols[j]);
+                }
+                buf.append(")");
+            }
+            return buf.append(")");
+        }
+
+        if (tuple)
+            buf.append("(");
+        for (int j = 0; j < cols.length; j++) {
+            if (j > 0)
+                buf.append(", ");
+            buf.append(sel.getColumnAlias(cols[j]));
+        }
+        if (tuple)
+            buf.append(")");
+        buf.append(" IN (");
+        for (int i = 0; i < vals.size(); i++) {
+            if (i > 0)
+                buf.append(", ");
+            if (tuple)
+                buf.append("(");
+            for (int j = 0; j < cols.length; j++) {
+                if (j > 0)
+                    buf.append(", ");
+                buf.appendValue(vals.get(i)[j], cols[j]);
+            }
+            if (tuple)
+                buf.append(")");
+        }
+        return buf.append(")");
     }
 
     @Override
@@ -1589,6 +1860,27 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
              ? getConfiguration().getFinderCacheInstance() : null;
     }
 
+    /**
+     * Instances of one mapping that are loaded together by
+     * {@link #loadAll}.
+     */
+    private static class LoadBatch {
+
+        public final ClassMapping mapping;
+        public final int subs;
+        public final Integer lockLevel;
+        public final List<Object> key;
+        public final List<OpenJPAStateManager> sms = new ArrayList<>();
+        public final List<Object[]> vals = new ArrayList<>();
+
+        public LoadBatch(ClassMapping mapping, int subs, Integer lockLevel) {
+            this.mapping = mapping;
+            this.subs = subs;
+            this.lockLevel = lockLevel;
+            this.key = Arrays.asList(mapping, subs, lockLevel);
+        }
+    }
+
     /**
      * Connection returned to client code. Makes sure its wrapped connection ref count is decremented on finalize.
      */
@@ -25,6 +25,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.NotSupportedException;
 
@@ -86,6 +88,9 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
     private transient JDBCConfiguration _conf = null;
     private transient Log _log = null;
     private int _alloc = 50;
+    private boolean _adaptive = false;
+    private int _maxAlloc = 10000;
+    private long _allocMillis = 1000;
     private int _intValue = 1;
     private final ConcurrentHashMap<ClassMapping, Status> _stat = new ConcurrentHashMap<>();
 
@@ -190,6 +195,69 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
         _alloc = alloc;
     }
 
+    /**
+     * Whether to grow the number of sequence values allocated for each
+     * update of the sequence table while values are consumed quickly, and to
+     * shrink it back towards {@link #getAllocate} when consumption slows.
+     * Defaults to false.
+     *
+     * @since 3.1.3
+     */
+    public boolean isAdaptiveAllocate() {
+        return _adaptive;
+    }
+
+    /**
+     * Whether to grow the number of sequence values allocated for each
+     * update of the sequence table while values are consumed quickly.
+     *
+     * @since 3.1.3
+     */
+    public void setAdaptiveAllocate(boolean adaptive) {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * The largest number of sequence values to allocate for each update of
+     * the sequence table in adaptive mode. Defaults to 10000.
+     *
+     * @since 3.1.3
+     */
+    public int getMaxAllocate() {
+        return _maxAlloc;
+    }
+
+    /**
+     * The largest number of sequence values to allocate for each update of
+     * the sequence table in adaptive mode.
+     *
+     * @since 3.1.3
+     */
+    public void setMaxAllocate(int maxAlloc) {
+        _maxAlloc = maxAlloc;
+    }
+
+    /**
+     * In adaptive mode, the allocation size doubles when a block of values
+     * is used up in less than this many milliseconds, and halves when a
+     * block lasts more than four times as long. Defaults to 1000.
+     *
+     * @since 3.1.3
+     */
+    public long getAllocateMillis() {
+        return _allocMillis;
+    }
+
+    /**
+     * In adaptive mode, the allocation size doubles when a block of values
+     * is used up in less than this many milliseconds.
+     *
+     * @since 3.1.3
+     */
+    public void setAllocateMillis(long millis) {
+        _allocMillis = millis;
+    }
+
     /**
      * Return the number as the initial number for the
      * GeneratedValue.TABLE strategy to start with.
@@ -299,18 +367,44 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
             throw new InvalidStateException(_loc.get("bad-seq-type",
                 getClass(), mapping));
 
+        // values of the current block are handed out without locking; only
+        // threads finding the block used up contend for the refill
         while (true) {
+            long next = stat.next();
+            if (next != -1)
+                return next;
             synchronized (stat) {
-                // make sure seq is at least 1, since autoassigned ids of 0 can
-                // conflict with uninitialized values
-                stat.seq = Math.max(stat.seq, 1);
-                if (stat.seq < stat.max)
-                    return stat.seq++;
-                allocateSequence(store, mapping, stat, _alloc, true);
+                // another thread may have refilled the block while we waited
+                if (stat.available() == 0)
+                    allocateSequence(store, mapping, stat,
+                        getAllocate(stat), true);
             }
         }
     }
 
+    /**
+     * Return the number of values to allocate for the next block of the
+     * given status. Call while holding the status lock.
+     */
+    private int getAllocate(Status stat) {
+        if (!_adaptive)
+            return _alloc;
+
+        long now = System.nanoTime();
+        int alloc = (stat.alloc == 0) ? _alloc : stat.alloc;
+        if (stat.allocated != 0) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(now - stat.allocated);
+            if (millis < _allocMillis)
+                alloc = (int) Math.min((long) alloc * 2,
+                    Math.max(_maxAlloc, _alloc));
+            else if (millis > _allocMillis * 4)
+                alloc = Math.max(alloc / 2, _alloc);
+        }
+        stat.alloc = alloc;
+        stat.allocated = now;
+        return alloc;
+    }
+
     @Override
     protected Object currentInternal(JDBCStore store, ClassMapping mapping)
         throws Exception {
@@ -342,12 +436,9 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
             return;
 
         while (true) {
-            int available;
-            synchronized (stat) {
-                available = (int) (stat.max - stat.seq);
-                if (available >= count)
-                    return;
-            }
+            int available = (int) Math.min(stat.available(), count);
+            if (available >= count)
+                return;
             allocateSequence(store, mapping, stat, count - available, false);
         }
     }
@@ -630,6 +721,7 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
                 stat.seq = cur;
             if (stat.max < cur + inc)
                 stat.max = cur + inc;
+            stat.extend(cur, cur + inc);
         }
         return true;
     }
@@ -814,12 +906,78 @@ public class TableJDBCSeq extends AbstractJDBCSeq implements Configurable {
     }
 
     /**
-     * Helper struct to hold status information.
+     * Helper struct to hold status information. The <code>seq</code> and
+     * <code>max</code> fields record the last range allocated from the
+     * database; values are handed out of the current block with an atomic
+     * counter.
      */
     protected static class Status implements Serializable {
         private static final long serialVersionUID = 1L;
         public long seq = 1L;
         public long max = 0L;
+
+        private transient volatile Block _block = null;
+        // adaptive allocation state; guarded by this
+        private transient int alloc = 0;
+        private transient long allocated = 0;
+
+        /**
+         * Return the next value of the current block, or -1 if the block
+         * is used up.
+         */
+        long next() {
+            Block block = _block;
+            return (block == null) ? -1 : block.next();
+        }
+
+        /**
+         * Return the number of values left in the current block.
+         */
+        long available() {
+            Block block = _block;
+            return (block == null) ? 0 : block.available();
+        }
+
+        /**
+         * Make the given range of values available. A range that continues
+         * the current block extends it; otherwise it replaces it. Call while
+         * holding the status lock.
+         */
+        void extend(long start, long end) {
+            // make sure values are at least 1, since autoassigned ids of 0
+            // can conflict with uninitialized values
+            start = Math.max(start, 1);
+            if (end <= start)
+                return;
+            Block block = _block;
+            if (block != null && block._max == start
+                && block._next.get() < start)
+                block._max = end;
+            else
+                _block = new Block(start, end);
+        }
+    }
+
+    /**
+     * A block of allocated sequence values.
+     */
+    private static class Block {
+        private final AtomicLong _next;
+        private volatile long _max;
+
+        Block(long start, long end) {
+            _next = new AtomicLong(start);
+            _max = end;
+        }
+
+        long next() {
+            long next = _next.getAndIncrement();
+            return (next < _max) ? next : -1;
+        }
+
+        long available() {
+            return Math.max(0, _max - _next.get());
+        }
     }
 
     /**
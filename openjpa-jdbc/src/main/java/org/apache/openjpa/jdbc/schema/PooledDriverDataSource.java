@@ -0,0 +1,788 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.lib.jdbc.ConnectionPoolStatistics;
+import org.apache.openjpa.lib.jdbc.DelegatingConnection;
+import org.apache.openjpa.lib.jdbc.DelegatingPreparedStatement;
+import org.apache.openjpa.lib.util.Closeable;
+
+/**
+ * Pooling driver data source that needs no library besides the JDBC driver.
+ * Idle connections are kept in a lock-free deque and handed out most
+ * recently used first; the number of connections handed out at the same
+ * time is bounded by a semaphore, which only blocks when the pool is
+ * exhausted. A connection that has been idle for longer than the
+ * validation interval is validated before it is handed out again.
+ * Each connection caches its prepared statements in an LRU cache keyed
+ * on the SQL, the result set type and the result set concurrency, and
+ * closing a cached statement returns it to the cache.
+ * The statistics of the pool are available through
+ * <code>unwrap(ConnectionPoolStatistics.class)</code> and the
+ * <code>ConnectionPool</code> instrument.
+ * Connections for credentials other than the configured ones are not
+ * pooled.
+ *
+ * @since 3.1.3
+ */
+public class PooledDriverDataSource
+    extends SimpleDriverDataSource implements Closeable {
+
+    private int _maxActive = 10;
+    private int _maxIdle = -1;
+    private long _maxWait = 30000;
+    private long _validationInterval = 30000;
+    private String _validationQuery = null;
+    private int _validationTimeout = 5;
+    private int _maxStatements = 50;
+
+    private final Deque<PooledResource> _idle = new ConcurrentLinkedDeque<>();
+    private final ConnectionPoolStatistics _stats =
+        new ConnectionPoolStatistics();
+    private volatile Semaphore _permits = null;
+    private volatile int _generation = 0;
+
+    /**
+     * The maximum number of connections handed out at the same time.
+     * Defaults to 10. Must be set before the first connection is obtained.
+     */
+    public int getMaxActive() {
+        return _maxActive;
+    }
+
+    public void setMaxActive(int maxActive) {
+        _maxActive = maxActive;
+    }
+
+    /**
+     * The maximum number of idle connections kept in the pool. Defaults to
+     * the maximum number of active connections.
+     */
+    public int getMaxIdle() {
+        return (_maxIdle < 0) ? _maxActive : _maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        _maxIdle = maxIdle;
+    }
+
+    /**
+     * The milliseconds to wait for a connection when the pool is exhausted,
+     * or -1 to wait indefinitely. Defaults to 30000.
+     */
+    public long getMaxWait() {
+        return _maxWait;
+    }
+
+    public void setMaxWait(long maxWait) {
+        _maxWait = maxWait;
+    }
+
+    /**
+     * The milliseconds a connection may be idle before it is validated
+     * when handed out again, or -1 to never validate. Defaults to 30000.
+     */
+    public long getValidationInterval() {
+        return _validationInterval;
+    }
+
+    public void setValidationInterval(long validationInterval) {
+        _validationInterval = validationInterval;
+    }
+
+    /**
+     * The SQL executed to validate a connection. If not set, the
+     * connection is validated with {@link Connection#isValid}.
+     */
+    public String getValidationQuery() {
+        return _validationQuery;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        _validationQuery = validationQuery;
+    }
+
+    /**
+     * The seconds to wait for a connection to validate. Defaults to 5.
+     */
+    public int getValidationTimeout() {
+        return _validationTimeout;
+    }
+
+    public void setValidationTimeout(int validationTimeout) {
+        _validationTimeout = validationTimeout;
+    }
+
+    /**
+     * The maximum number of prepared statements cached by each connection,
+     * or 0 to disable the cache. Defaults to 50.
+     */
+    public int getMaxStatements() {
+        return _maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        _maxStatements = maxStatements;
+    }
+
+    /**
+     * The statistics of the pool.
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        return _stats;
+    }
+
+    @Override
+    public Connection getConnection(Properties props) throws SQLException {
+        if (!isPooled(props))
+            return getSimpleConnection(props);
+
+        Semaphore permits = getPermits();
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            _stats.connectionWaited();
+            acquire(permits);
+        }
+        try {
+            PooledResource res = pollIdle();
+            if (res == null)
+                res = newResource(props);
+            _stats.connectionBorrowed(System.nanoTime() - start);
+            return new PooledConnection(res);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether connections for the given properties are pooled, which is
+     * the case when they use the configured credentials.
+     */
+    protected boolean isPooled(Properties props) {
+        if (props == null)
+            return true;
+        return Objects.equals(props.getProperty("user"),
+            getConnectionUserName())
+            && Objects.equals(props.getProperty("password"),
+            getConnectionPassword());
+    }
+
+    private Semaphore getPermits() {
+        Semaphore permits = _permits;
+        if (permits == null) {
+            synchronized (this) {
+                if (_permits == null) {
+                    _permits = new Semaphore(_maxActive);
+                    _stats.setMaxActive(_maxActive);
+                }
+                permits = _permits;
+            }
+        }
+        return permits;
+    }
+
+    private void acquire(Semaphore permits) throws SQLException {
+        try {
+            if (_maxWait < 0)
+                permits.acquire();
+            else if (!permits.tryAcquire(_maxWait, TimeUnit.MILLISECONDS)) {
+                _stats.connectionTimeout();
+                throw new SQLException(_loc.get("pool-exhausted",
+                    String.valueOf(_maxActive), String.valueOf(_maxWait))
+                    .getMessage());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(_loc.get("pool-interrupted").getMessage(),
+                ie);
+        }
+    }
+
+    /**
+     * Return the most recently used valid idle connection, or null if none.
+     */
+    private PooledResource pollIdle() {
+        PooledResource res;
+        while ((res = _idle.pollFirst()) != null) {
+            _stats.addIdle(-1);
+            if (isValid(res))
+                return res;
+            _stats.connectionInvalid();
+            destroy(res);
+        }
+        return null;
+    }
+
+    private PooledResource newResource(Properties props) throws SQLException {
+        Connection conn = getSimpleConnection(props);
+        try {
+            PooledResource res = new PooledResource(conn);
+            _stats.connectionCreated();
+            return res;
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Validate a connection that was idle for longer than the validation
+     * interval.
+     */
+    private boolean isValid(PooledResource res) {
+        if (_validationInterval < 0 || System.currentTimeMillis()
+            - res.lastUsed < _validationInterval)
+            return true;
+        try {
+            if (_validationQuery == null)
+                return res.conn.isValid(_validationTimeout);
+            try (Statement stmnt = res.conn.createStatement()) {
+                stmnt.setQueryTimeout(_validationTimeout);
+                stmnt.execute(_validationQuery);
+            }
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Give back a borrowed connection.
+     */
+    private void release(PooledResource res) {
+        _stats.connectionReturned();
+        try {
+            if (res.generation != _generation
+                || _stats.getIdleCount() >= getMaxIdle()
+                || !res.reset()) {
+                destroy(res);
+                return;
+            }
+            res.lastUsed = System.currentTimeMillis();
+            _idle.offerFirst(res);
+            _stats.addIdle(1);
+            // the pool may have been closed while returning
+            if (res.generation != _generation)
+                closeIdle();
+        } finally {
+            getPermits().release();
+        }
+    }
+
+    private void destroy(PooledResource res) {
+        if (res.statements != null) {
+            synchronized (res.statements) {
+                for (CachedStatement cached : res.statements.values())
+                    closeQuietly(cached.stmnt);
+                res.statements.clear();
+            }
+        }
+        try {
+            res.conn.close();
+        } catch (SQLException se) {
+            // ignore
+        }
+        _stats.connectionDestroyed();
+    }
+
+    private void closeIdle() {
+        PooledResource res;
+        while ((res = _idle.pollFirst()) != null) {
+            _stats.addIdle(-1);
+            destroy(res);
+        }
+    }
+
+    private static void closeQuietly(Statement stmnt) {
+        try {
+            stmnt.close();
+        } catch (SQLException se) {
+            // ignore
+        }
+    }
+
+    /**
+     * Close the idle connections. Connections handed out are closed when
+     * they are given back. Like the DBCP data source, the pool remains
+     * usable and opens new connections on demand.
+     */
+    @Override
+    public synchronized void close() throws Exception {
+        _generation++;
+        closeIdle();
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface == ConnectionPoolStatistics.class
+            || iface.isAssignableFrom(PooledDriverDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object unwrap(Class iface) {
+        if (iface == ConnectionPoolStatistics.class)
+            return _stats;
+        if (isWrapperFor(iface))
+            return this;
+        return null;
+    }
+
+    /**
+     * A physical connection of the pool together with its statement cache.
+     */
+    private final class PooledResource {
+        final Connection conn;
+        final Map<StatementKey, CachedStatement> statements;
+        final boolean autoCommit;
+        final int isolation;
+        final boolean readOnly;
+        final int generation = _generation;
+        long lastUsed = System.currentTimeMillis();
+        boolean dirty = false;
+
+        PooledResource(Connection conn) throws SQLException {
+            this.conn = conn;
+            autoCommit = conn.getAutoCommit();
+            isolation = conn.getTransactionIsolation();
+            readOnly = conn.isReadOnly();
+            statements = (_maxStatements <= 0) ? null : new StatementCache();
+        }
+
+        /**
+         * Restore the state of the connection before it becomes idle,
+         * returning false if the connection is unusable.
+         */
+        boolean reset() {
+            try {
+                if (conn.isClosed())
+                    return false;
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    if (autoCommit)
+                        conn.setAutoCommit(true);
+                } else if (!autoCommit)
+                    conn.setAutoCommit(false);
+                if (dirty) {
+                    conn.setTransactionIsolation(isolation);
+                    conn.setReadOnly(readOnly);
+                    dirty = false;
+                }
+                return true;
+            } catch (SQLException se) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * LRU cache of the prepared statements of a connection. Statements of a
+     * connection may be closed on another thread than the one preparing
+     * them, so all access to the cache and to the state of its entries
+     * synchronizes on the cache.
+     */
+    private final class StatementCache
+        extends LinkedHashMap<StatementKey, CachedStatement> {
+
+        private static final long serialVersionUID = 1L;
+
+        StatementCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry
+            (Map.Entry<StatementKey, CachedStatement> eldest) {
+            if (size() <= _maxStatements)
+                return false;
+            CachedStatement cached = eldest.getValue();
+            cached.evicted = true;
+            if (!cached.inUse)
+                closeQuietly(cached.stmnt);
+            _stats.statementEvicted();
+            return true;
+        }
+    }
+
+    /**
+     * Key of a cached statement.
+     */
+    private static final class StatementKey {
+        private final String _sql;
+        private final int _type;
+        private final int _concur;
+
+        StatementKey(String sql, int type, int concur) {
+            _sql = sql;
+            _type = type;
+            _concur = concur;
+        }
+
+        @Override
+        public int hashCode() {
+            return (_sql.hashCode() * 31 + _type) * 31 + _concur;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof StatementKey))
+                return false;
+            StatementKey key = (StatementKey) other;
+            return _type == key._type && _concur == key._concur
+                && _sql.equals(key._sql);
+        }
+    }
+
+    /**
+     * A cached physical statement.
+     */
+    private static final class CachedStatement {
+        final PreparedStatement stmnt;
+        final int fetchSize;
+        boolean inUse = true;
+        boolean evicted = false;
+
+        CachedStatement(PreparedStatement stmnt) throws SQLException {
+            this.stmnt = stmnt;
+            fetchSize = stmnt.getFetchSize();
+        }
+    }
+
+    /**
+     * Connection handed out by the pool. Closing it gives the physical
+     * connection back to the pool.
+     */
+    protected class PooledConnection extends DelegatingConnection {
+
+        private final PooledResource _res;
+        private final List<PooledStatement> _stmnts = new ArrayList<>();
+        private boolean _closed = false;
+
+        PooledConnection(PooledResource res) {
+            super(res.conn);
+            _res = res;
+        }
+
+        private void checkOpen() throws SQLException {
+            if (_closed)
+                throw new SQLException(_loc.get("pooled-conn-closed")
+                    .getMessage());
+        }
+
+        @Override
+        protected Statement createStatement(boolean wrap) throws SQLException {
+            checkOpen();
+            return super.createStatement(wrap);
+        }
+
+        @Override
+        protected Statement createStatement(int type, int concur,
+            boolean wrap) throws SQLException {
+            checkOpen();
+            return super.createStatement(type, concur, wrap);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, boolean wrap)
+            throws SQLException {
+            return prepare(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, int type,
+            int concur, boolean wrap) throws SQLException {
+            return prepare(sql, type, concur);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, int type,
+            int concur, int holdability, boolean wrap) throws SQLException {
+            checkOpen();
+            return track(new PooledStatement(super.prepareStatement
+                (sql, type, concur, holdability, false), null));
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            int autoGeneratedKeys, boolean wrap) throws SQLException {
+            checkOpen();
+            return track(new PooledStatement(super.prepareStatement
+                (sql, autoGeneratedKeys, false), null));
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            int[] columnIndexes, boolean wrap) throws SQLException {
+            checkOpen();
+            return track(new PooledStatement(super.prepareStatement
+                (sql, columnIndexes, false), null));
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            String[] columnNames, boolean wrap) throws SQLException {
+            checkOpen();
+            return track(new PooledStatement(super.prepareStatement
+                (sql, columnNames, false), null));
+        }
+
+        /**
+         * Return a cached statement for the given SQL if one is available,
+         * else prepare and cache a new one.
+         */
+        private PreparedStatement prepare(String sql, int type, int concur)
+            throws SQLException {
+            checkOpen();
+            if (_res.statements == null)
+                return track(new PooledStatement(_res.conn.prepareStatement
+                    (sql, type, concur), null));
+
+            StatementKey key = new StatementKey(sql, type, concur);
+            CachedStatement cached;
+            synchronized (_res.statements) {
+                cached = _res.statements.get(key);
+                if (cached != null && !cached.inUse)
+                    cached.inUse = true;
+                else
+                    cached = null;
+            }
+            if (cached != null) {
+                _stats.statementHit();
+                return track(new PooledStatement(cached.stmnt, cached));
+            }
+
+            _stats.statementMiss();
+            PreparedStatement stmnt = _res.conn.prepareStatement(sql, type,
+                concur);
+            try {
+                cached = new CachedStatement(stmnt);
+            } catch (SQLException se) {
+                closeQuietly(stmnt);
+                throw se;
+            }
+            synchronized (_res.statements) {
+                // a cached statement of the same SQL is in use by an open
+                // statement, so this one is not cached
+                if (_res.statements.containsKey(key))
+                    return track(new PooledStatement(stmnt, null));
+                _res.statements.put(key, cached);
+            }
+            return track(new PooledStatement(stmnt, cached));
+        }
+
+        private PooledStatement track(PooledStatement stmnt) {
+            synchronized (_stmnts) {
+                _stmnts.add(stmnt);
+            }
+            return stmnt;
+        }
+
+        private void untrack(PooledStatement stmnt) {
+            synchronized (_stmnts) {
+                for (int i = _stmnts.size() - 1; i >= 0; i--) {
+                    if (_stmnts.get(i) == stmnt) {
+                        _stmnts.remove(i);
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void setTransactionIsolation(int level) throws SQLException {
+            checkOpen();
+            _res.dirty = true;
+            super.setTransactionIsolation(level);
+        }
+
+        @Override
+        public void setReadOnly(boolean readOnly) throws SQLException {
+            checkOpen();
+            _res.dirty = true;
+            super.setReadOnly(readOnly);
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return _closed || super.isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (_closed)
+                return;
+            _closed = true;
+            // close the statements left open, giving the cached ones back
+            List<PooledStatement> stmnts;
+            synchronized (_stmnts) {
+                stmnts = new ArrayList<>(_stmnts);
+            }
+            for (PooledStatement stmnt : stmnts)
+                stmnt.close();
+            release(_res);
+        }
+
+        /**
+         * Statement handed out by a pooled connection. Closing a cached
+         * statement closes its result sets and gives it back to the
+         * statement cache.
+         */
+        protected class PooledStatement extends DelegatingPreparedStatement {
+
+            private final CachedStatement _cached;
+            // the current results; executing the statement again closes them
+            private ResultSet _result = null;
+            private ResultSet _keys = null;
+            private boolean _closed = false;
+            private boolean _batched = false;
+            private boolean _dirty = false;
+
+            PooledStatement(PreparedStatement stmnt, CachedStatement cached) {
+                super(stmnt, PooledConnection.this);
+                _cached = cached;
+            }
+
+            @Override
+            protected ResultSet wrapResult(ResultSet rs, boolean wrap) {
+                if (rs != null)
+                    _result = rs;
+                return super.wrapResult(rs, wrap);
+            }
+
+            @Override
+            public ResultSet getGeneratedKeys() throws SQLException {
+                ResultSet rs = super.getGeneratedKeys();
+                if (rs != null)
+                    _keys = rs;
+                return rs;
+            }
+
+            @Override
+            public void addBatch() throws SQLException {
+                _batched = true;
+                super.addBatch();
+            }
+
+            @Override
+            public void setMaxRows(int max) throws SQLException {
+                _dirty = true;
+                super.setMaxRows(max);
+            }
+
+            @Override
+            public void setQueryTimeout(int seconds) throws SQLException {
+                _dirty = true;
+                super.setQueryTimeout(seconds);
+            }
+
+            @Override
+            public void setFetchSize(int rows) throws SQLException {
+                _dirty = true;
+                super.setFetchSize(rows);
+            }
+
+            @Override
+            public void setFetchDirection(int direction) throws SQLException {
+                _dirty = true;
+                super.setFetchDirection(direction);
+            }
+
+            @Override
+            public void setMaxFieldSize(int max) throws SQLException {
+                _dirty = true;
+                super.setMaxFieldSize(max);
+            }
+
+            @Override
+            public boolean isClosed() throws SQLException {
+                return _closed || super.isClosed();
+            }
+
+            @Override
+            public void close() throws SQLException {
+                if (_closed)
+                    return;
+                _closed = true;
+                untrack(this);
+                if (_cached == null) {
+                    super.close();
+                    return;
+                }
+
+                boolean reusable = reset();
+                synchronized (_res.statements) {
+                    _cached.inUse = false;
+                    if (!_cached.evicted && reusable)
+                        return;
+                    if (!_cached.evicted)
+                        _res.statements.values().remove(_cached);
+                }
+                closeQuietly(_cached.stmnt);
+            }
+
+            /**
+             * Restore the state of the cached statement for its next use.
+             */
+            private boolean reset() {
+                PreparedStatement stmnt = _cached.stmnt;
+                try {
+                    // result sets left open would hold cursors and locks
+                    // until the statement is used again
+                    if (_result != null)
+                        _result.close();
+                    if (_keys != null)
+                        _keys.close();
+                    stmnt.clearParameters();
+                    if (_batched)
+                        stmnt.clearBatch();
+                    if (_dirty) {
+                        stmnt.setMaxRows(0);
+                        stmnt.setQueryTimeout(0);
+                        stmnt.setMaxFieldSize(0);
+                        stmnt.setFetchDirection(ResultSet.FETCH_FORWARD);
+                        stmnt.setFetchSize(_cached.fetchSize);
+                    }
+                    return true;
+                } catch (SQLException se) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.sql;
+
+import org.apache.openjpa.jdbc.schema.Column;
+
+/**
+ * Open addressing table from the keys used to read result columns to their
+ * 1-based result set index. {@link Column} keys are matched by identity,
+ * other keys such as column names and aliases by equality.
+ * Indexes are added in place. Lookups do not lock, so that a table can be
+ * shared by the results of concurrent executions of the same select; a
+ * lookup that races with an addition may miss it and resolve the index
+ * again.
+ *
+ * @since 3.1.3
+ */
+final class ColumnIndexCache {
+
+    /**
+     * Returned by {@link #get} for keys that have not been resolved.
+     */
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final Entry[] EMPTY = new Entry[1];
+
+    private volatile Entry[] _table = EMPTY;
+    private int _size = 0;
+
+    /**
+     * Return the index of the given key, or {@link #UNKNOWN}.
+     */
+    int get(Object key) {
+        Entry[] table = _table;
+        int mask = table.length - 1;
+        Entry e;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            e = table[i];
+            if (e == null)
+                return UNKNOWN;
+            if (matches(e.key, key))
+                return e.index;
+        }
+    }
+
+    /**
+     * Map the given key to the given index.
+     */
+    synchronized void put(Object key, int index) {
+        Entry[] table = _table;
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        for (Entry e; (e = table[i]) != null; i = (i + 1) & mask) {
+            if (matches(e.key, key)) {
+                table[i] = new Entry(key, index);
+                return;
+            }
+        }
+
+        if ((_size + 1) * 2 > table.length) {
+            table = rehash(table);
+            i = insertionSlot(table, key);
+            table[i] = new Entry(key, index);
+            _table = table;
+        } else
+            table[i] = new Entry(key, index);
+        _size++;
+    }
+
+    /**
+     * Remove all indexes.
+     */
+    synchronized void clear() {
+        _table = EMPTY;
+        _size = 0;
+    }
+
+    /**
+     * Return the number of keys in this table.
+     */
+    synchronized int size() {
+        return _size;
+    }
+
+    /**
+     * Return a table of twice the length holding the entries of the given
+     * one.
+     */
+    private static Entry[] rehash(Entry[] table) {
+        Entry[] rehashed = new Entry[Math.max(8, table.length * 2)];
+        for (Entry e : table)
+            if (e != null)
+                rehashed[insertionSlot(rehashed, e.key)] = e;
+        return rehashed;
+    }
+
+    private static int insertionSlot(Entry[] table, Object key) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != null)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    private static boolean matches(Object k, Object key) {
+        return k == key || (!(key instanceof Column) && key.equals(k));
+    }
+
+    private static int hash(Object key) {
+        int h = (key instanceof Column) ? System.identityHashCode(key)
+            : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Key and index, published together to unlocked readers.
+     */
+    private static final class Entry {
+
+        final Object key;
+        final int index;
+
+        Entry(Object key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
@@ -312,6 +312,8 @@ public class DBDictionary
     public int maxEmbeddedBlobSize = -1;
     public int maxEmbeddedClobSize = -1;
     public int inClauseLimit = -1;
+    public int batchLoadLimit = 0;
+    public boolean supportsTupleIn = false;
     public int datePrecision = MILLI;
 
     /**
@@ -493,6 +495,19 @@ public class DBDictionary
     // any positive number = batch limit
     public int batchLimit = NO_BATCH;
 
+    // whether the driver allows statements of one connection to execute
+    // on several threads at once; required for pipelined batching
+    public boolean supportsConcurrentConnectionUse = false;
+
+    // multi-row INSERT ... VALUES (...), (...) support; rows per statement
+    // are bounded by maxMultiRowInsertRows and maxStatementParameters
+    public boolean supportsMultiRowInsert = false;
+    public boolean supportsMultiRowGeneratedKeys = false;
+    public int maxMultiRowInsertRows = 1000;
+
+    // the maximum number of parameters of a statement; 0 for no limit
+    public int maxStatementParameters = 0;
+
     public final Map<Integer,Set<String>> sqlStateCodes =
         new HashMap<>();
 
@@ -5523,6 +5538,52 @@ public class DBDictionary
         batchLimit = limit;
     }
 
+    /**
+     * Return the number of rows of a multi-row insert of rows with
+     * <code>params</code> parameters each, or 1 if inserts cannot be
+     * combined.
+     *
+     * @since 3.1.3
+     */
+    public int getMultiRowInsertLimit(int params) {
+        if (!supportsMultiRowInsert)
+            return 1;
+        int rows = maxMultiRowInsertRows;
+        if (params > 0 && maxStatementParameters > 0)
+            rows = Math.min(rows, maxStatementParameters / params);
+        return Math.max(1, rows);
+    }
+
+    /**
+     * Return the maximum number of instances to load with a single select
+     * by a primary key of <code>keyColumns</code> columns, bounded by
+     * {@link #batchLoadLimit}, {@link #inClauseLimit} and
+     * {@link #maxStatementParameters}. A value below 2 disables batched
+     * loading.
+     *
+     * @since 3.1.3
+     */
+    public int getBatchLoadLimit(int keyColumns) {
+        int limit = batchLoadLimit;
+        if (inClauseLimit > 0)
+            limit = Math.min(limit, inClauseLimit);
+        if (maxStatementParameters > 0 && keyColumns > 0)
+            limit = Math.min(limit, maxStatementParameters / keyColumns);
+        return limit;
+    }
+
+    /**
+     * Return the SQL inserting <code>rows</code> rows with the columns of
+     * the given insert row in a single <code>INSERT ... VALUES (...), (...)
+     * </code> statement. The parameters of row <code>n</code> follow those
+     * of row <code>n - 1</code>.
+     *
+     * @since 3.1.3
+     */
+    public String getMultiRowInsertSQL(RowImpl row, int rows) {
+        return row.getInsertSQL(this, rows);
+    }
+
     /**
      * Validate the batch process. In some cases, we can't batch the statements
      * due to some restrictions. For example, if the GeneratedType=IDENTITY,
@@ -68,6 +68,12 @@ public class DerbyDictionary
         supportsSimpleCaseExpression = false;
         supportsNullUniqueColumn = false;
 
+        // each statement compiles to a class; keep multi-row inserts small
+        supportsMultiRowInsert = true;
+        maxMultiRowInsertRows = 100;
+        // Derby synchronizes its JDBC objects on the connection
+        supportsConcurrentConnectionUse = true;
+
         supportsComments = true;
 
         // Derby does still not support 'WITH TIMEZONE' from the SQL92 standard
@@ -64,6 +64,8 @@ public class H2Dictionary extends DBDictionary {
         trimTrailingFunction = "RTRIM({0})";
         trimBothFunction = "TRIM({0})";
 
+        supportsMultiRowInsert = true;
+        supportsTupleIn = true;
         supportsSelectStartIndex = true;
         supportsSelectEndIndex = true;
         rangePosition = RANGE_POST_LOCK;
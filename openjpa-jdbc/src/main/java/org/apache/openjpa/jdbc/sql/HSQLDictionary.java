@@ -76,6 +76,8 @@ public class HSQLDictionary extends DBDictionary {
         trimBothFunction = "LTRIM(RTRIM({0}))";
 
         supportsSelectForUpdate = false;
+        supportsMultiRowInsert = true;
+        supportsTupleIn = true;
         supportsSelectStartIndex = true;
         supportsSelectEndIndex = true;
         supportsDeferredConstraints = false;
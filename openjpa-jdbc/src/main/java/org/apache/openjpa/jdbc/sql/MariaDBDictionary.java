@@ -95,6 +95,9 @@ public class MariaDBDictionary extends DBDictionary {
         supportsMultipleNontransactionalResultSets = false;
         requiresAliasForSubselect = true; // new versions
         requiresTargetForDelete = true;
+        supportsMultiRowInsert = true;
+        supportsTupleIn = true;
+        maxStatementParameters = 65535;
         supportsSelectStartIndex = true;
         supportsSelectEndIndex = true;
 
@@ -96,6 +96,9 @@ public class MySQLDictionary
         supportsMultipleNontransactionalResultSets = false;
         requiresAliasForSubselect = true; // new versions
         requiresTargetForDelete = true;
+        supportsMultiRowInsert = true;
+        supportsTupleIn = true;
+        maxStatementParameters = 65535;
         supportsSelectStartIndex = true;
         supportsSelectEndIndex = true;
 
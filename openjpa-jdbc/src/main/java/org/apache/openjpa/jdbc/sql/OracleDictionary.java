@@ -172,6 +172,7 @@ public class OracleDictionary
         maxEmbeddedBlobSize = 4000;
         maxEmbeddedClobSize = 4000;
         inClauseLimit = 1000;
+        supportsTupleIn = true;
 
         supportsDeferredConstraints = true;
         supportsLockingWithDistinctClause = false;
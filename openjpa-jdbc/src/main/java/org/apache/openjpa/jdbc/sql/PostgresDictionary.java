@@ -131,6 +131,10 @@ public class PostgresDictionary extends DBDictionary {
         datePrecision = MICRO;
         supportsAlterTableWithDropColumn = false;
         supportsDeferredConstraints = true;
+        supportsMultiRowInsert = true;
+        supportsTupleIn = true;
+        // the wire protocol counts parameters in a 16 bit integer
+        maxStatementParameters = 32767;
         supportsSelectStartIndex = true;
         supportsSelectEndIndex = true;
 
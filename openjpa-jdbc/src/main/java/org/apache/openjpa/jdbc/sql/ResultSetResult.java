@@ -69,6 +69,9 @@ public class ResultSetResult
     private int _row = -1;
     private int _size = -1;
 
+    // result set indexes of the columns read by name so far
+    private final ColumnIndexCache _indexes = new ColumnIndexCache();
+
     // optional; used to deserialize blobs containing refs to persistent objs
     private JDBCStore _store = null;
 
@@ -589,14 +592,19 @@ public class ResultSetResult
      */
     protected int findObject(Object obj, Joins joins)
         throws SQLException {
+        // resolve each column by name once per result set
+        int idx = _indexes.get(obj);
+        if (idx != ColumnIndexCache.UNKNOWN)
+            return idx;
         try {
-          String s1 = obj.toString();
-          DBIdentifier sName = DBIdentifier.newColumn(obj.toString());
-          return getResultSet().findColumn(_dict.convertSchemaCase(sName));
+            DBIdentifier sName = DBIdentifier.newColumn(obj.toString());
+            idx = getResultSet().findColumn(_dict.convertSchemaCase(sName));
         } catch (SQLException se) {
             _dict.log.trace(se.getMessage());
-            return 0;
+            idx = 0;
         }
+        _indexes.put(obj, idx);
+        return idx;
     }
 
     @Override
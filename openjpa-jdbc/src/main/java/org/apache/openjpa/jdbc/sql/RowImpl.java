@@ -839,7 +839,7 @@ public class RowImpl
             case ACTION_UPDATE:
                 return getUpdateSQL(dict);
             case ACTION_INSERT:
-                return getInsertSQL(dict);
+                return getInsertSQL(dict, 1);
             default:
                 return getDeleteSQL(dict);
         }
@@ -875,9 +875,14 @@ public class RowImpl
     }
 
     /**
-     * Return the SQL for a prepared statement insert on this row.
+     * Return the SQL for a prepared statement insert of <code>rows</code>
+     * rows with the columns of this row. Each row repeats the values of
+     * this row, so the parameters of row <code>n</code> follow those of
+     * row <code>n - 1</code>.
+     *
+     * @since 3.1.3
      */
-    private String getInsertSQL(DBDictionary dict) {
+    public String getInsertSQL(DBDictionary dict, int rows) {
         StringBuilder buf = new StringBuilder();
         StringBuilder vals = new StringBuilder();
         buf.append("INSERT INTO ").
@@ -901,6 +906,8 @@ public class RowImpl
         }
 
         buf.append(") VALUES (").append(vals.toString()).append(")");
+        for (int i = 1; i < rows; i++)
+            buf.append(", (").append(vals.toString()).append(")");
         return buf.toString();
     }
 
@@ -1005,6 +1012,27 @@ public class RowImpl
         setFlushed(true);
     }
 
+    /**
+     * The number of parameters {@link #flush} sets for this row, which
+     * unlike {@link #getParameterCount} excludes unset and raw values.
+     *
+     * @since 3.1.3
+     */
+    public int getFlushParameterCount() {
+        int i = (getAction() == ACTION_DELETE) ? _cols.length: 0;
+        int half = _vals.length / 2;
+        int count = 0;
+        for (; i < _vals.length; i++) {
+            if (_vals[i] == null)
+                continue;
+            if (_vals[i] == NULL && getAction() != ACTION_INSERT && i >= half)
+                continue;
+            if (_vals[i] == NULL || _types[i] != RAW)
+                count++;
+        }
+        return count;
+    }
+
     /**
      * The array value array index for the given column's value.
      */
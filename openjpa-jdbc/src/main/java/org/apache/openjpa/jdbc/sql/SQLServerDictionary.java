@@ -77,6 +77,9 @@ public class SQLServerDictionary extends AbstractSQLServerDictionary {
         supportsNullTableForGetColumns = false;
         requiresAliasForSubselect = true;
         stringLengthFunction = "LEN({0})";
+        // the server accepts 2100 parameters, some of which the driver
+        // uses itself
+        maxStatementParameters = 2000;
 
         timeWithZoneTypeName = "TIME";
         timestampWithZoneTypeName = "DATETIMEOFFSET";
@@ -111,6 +114,12 @@ public class SQLServerDictionary extends AbstractSQLServerDictionary {
                 supportsSelectStartIndex = true;
                 supportsSelectEndIndex = true;
             }
+            if (meta.getDatabaseMajorVersion() >= 10) {
+                // MSSQL 2008 row constructors: at most 1000 rows per
+                // statement
+                supportsMultiRowInsert = true;
+                maxMultiRowInsertRows = 1000;
+            }
             if (driverName != null) {
                 if (driverName.startsWith("Microsoft SQL Server")) {
                     // v1.1, 1.2, 2.0 or 3.0 driver
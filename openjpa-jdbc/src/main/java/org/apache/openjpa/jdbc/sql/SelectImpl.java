@@ -37,6 +37,11 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections4.iterators.EmptyIterator;
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
@@ -53,6 +58,7 @@ import org.apache.openjpa.jdbc.meta.strats.RelationStrategies;
 import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.schema.ForeignKey;
 import org.apache.openjpa.jdbc.schema.Table;
+import org.apache.openjpa.kernel.LockLevels;
 import org.apache.openjpa.kernel.StoreContext;
 import org.apache.openjpa.kernel.exps.Context;
 import org.apache.openjpa.kernel.exps.Value;
@@ -463,6 +469,49 @@ public class SelectImpl
         return getEagerResult(conn, stmnt, rs, store, fetch, forUpdate, sql);
     }
 
+    /**
+     * Execute this select on its own connection, which is closed with the
+     * result. Eager selects of this select are executed on their own
+     * connections as well.
+     */
+    private Result executeOn(Connection conn, JDBCStore store,
+        JDBCFetchConfiguration fetch)
+        throws SQLException {
+        logEagerRelations();
+        SQLBuffer sql = toSelect(false, fetch);
+        boolean isLRS = isLRS();
+        int rsType = (isLRS && supportsRandomAccess(false))
+            ? -1 : ResultSet.TYPE_FORWARD_ONLY;
+        PreparedStatement stmnt = null;
+        ResultSet rs = null;
+        try {
+            if (isLRS)
+                stmnt = prepareStatement(conn, sql, fetch, rsType, -1, true);
+            else
+                stmnt = prepareStatement(conn, sql, null, rsType, -1, false);
+
+            _dict.setTimeouts(stmnt, fetch, false);
+
+            rs = executeQuery(conn, stmnt, sql, isLRS, store);
+        } catch (SQLException se) {
+            if (stmnt != null)
+                try { stmnt.close(); } catch (SQLException se2) {}
+            try { conn.close(); } catch (SQLException se2) {}
+            throw se;
+        }
+
+        SelectResult res = new SelectResult(conn, stmnt, rs, _dict);
+        res.setSelect(this);
+        res.setStore(store);
+        try {
+            addEagerResults(res, this, store, fetch, true);
+        } catch (SQLException se) {
+            res.close();
+            throw se;
+        }
+        return res;
+    }
+
     /**
      * Execute our eager selects, adding the results under the same keys
      * to the given result.
@@ -470,34 +519,174 @@ public class SelectImpl
     private static void addEagerResults(SelectResult res, SelectImpl sel,
         JDBCStore store, JDBCFetchConfiguration fetch)
         throws SQLException {
+        addEagerResults(res, sel, store, fetch, false);
+    }
+
+    /**
+     * Execute our eager selects, adding the results under the same keys
+     * to the given result. If <code>detached</code> is true, each select is
+     * executed on a new connection rather than the connection of the store.
+     */
+    private static void addEagerResults(SelectResult res, SelectImpl sel,
+        JDBCStore store, JDBCFetchConfiguration fetch, boolean detached)
+        throws SQLException {
         if (sel._eager == null)
             return;
 
+        Map eager = res.getEagerMap(false);
+        if (eager == null) {
+            eager = new HashMap();
+            res.setEagerMap(eager);
+        }
+
+        // collect the parallel selects we can execute concurrently
+        int parallelism = (detached) ? 1 : getEagerParallelism(sel, store,
+            fetch);
+        List<Map.Entry> concurrent = null;
+        if (parallelism > 1) {
+            Map.Entry entry;
+            for (Iterator itr = sel._eager.entrySet().iterator();
+                itr.hasNext();) {
+                entry = (Map.Entry) itr.next();
+                if (entry.getValue() != sel
+                    && isDetachable(entry.getValue())) {
+                    if (concurrent == null)
+                        concurrent = new ArrayList<>();
+                    concurrent.add(entry);
+                }
+            }
+            if (concurrent != null && concurrent.size() < 2)
+                concurrent = null;
+        }
+
         // execute eager selects
         Map.Entry entry;
         Result eres;
-        Map eager;
         for (Iterator itr = sel._eager.entrySet().iterator(); itr.hasNext();) {
             entry = (Map.Entry) itr.next();
+            if (concurrent != null && concurrent.contains(entry))
+                continue;
 
             // simulated batched selects for inner/outer joins; for separate
             // selects, don't pass on lock level, because they're probably
             // for relations and therefore should use default level
             if (entry.getValue() == sel)
                 eres = res;
+            else if (detached)
+                eres = ((SelectImpl) entry.getValue()).executeOn(
+                    store.getNewConnection(), store, fetch);
             else
                 eres = ((SelectExecutor) entry.getValue()).execute(store,
                     fetch);
-
-            eager = res.getEagerMap(false);
-            if (eager == null) {
-                eager = new HashMap();
-                res.setEagerMap(eager);
-            }
             eager.put(entry.getKey(), eres);
         }
+        if (concurrent != null)
+            executeConcurrently(concurrent, eager, store, fetch, parallelism);
     }
 
+    /**
+     * The number of parallel eager selects of the given select to execute
+     * concurrently. Selects for update or within a transaction have to see
+     * the state of the connection of the store, so they are never executed
+     * concurrently.
+     */
+    private static int getEagerParallelism(SelectImpl sel, JDBCStore store,
+        JDBCFetchConfiguration fetch) {
+        int parallelism = sel._conf.getEagerFetchParallelism();
+        if (parallelism < 2 || store.getContext() == null
+            || store.getContext().isActive()
+            || fetch.getReadLockLevel() != LockLevels.LOCK_NONE)
+            return 1;
+        return parallelism;
+    }
+
+    /**
+     * Whether the given eager select and its own eager selects can all be
+     * executed on connections other than the connection of the store.
+     */
+    private static boolean isDetachable(Object exec) {
+        if (!(exec instanceof SelectImpl))
+            return false;
+        SelectImpl sel = (SelectImpl) exec;
+        if (sel._eager == null)
+            return true;
+        for (Object nested : sel._eager.values())
+            if (nested != sel && !isDetachable(nested))
+                return false;
+        return true;
+    }
+
+    /**
+     * Execute the given parallel eager selects concurrently on new
+     * connections, using at most <code>parallelism</code> threads, and add
+     * their results under the same keys to the given eager map.
+     */
+    private static void executeConcurrently(final List<Map.Entry> entries,
+        Map eager, final JDBCStore store, final JDBCFetchConfiguration fetch,
+        int parallelism)
+        throws SQLException {
+        final Result[] results = new Result[entries.size()];
+        final AtomicInteger next = new AtomicInteger();
+        Callable<Void> task = new Callable<Void>() {
+            @Override
+            public Void call() throws SQLException {
+                for (int i = next.getAndIncrement(); i < results.length;
+                    i = next.getAndIncrement()) {
+                    SelectImpl sel = (SelectImpl) entries.get(i).getValue();
+                    results[i] = sel.executeOn(store.getNewConnection(),
+                        store, fetch);
+                }
+                return null;
+            }
+        };
+
+        int threads = Math.min(parallelism, results.length) - 1;
+        List<Future<Void>> futures = new ArrayList<>(threads);
+        ExecutorService executor = store.getConfiguration().getExecutorService();
+        for (int i = 0; i < threads; i++)
+            futures.add(executor.submit(task));
+
+        // the calling thread takes its share of the selects as well
+        Throwable failure = null;
+        try {
+            task.call();
+        } catch (Throwable t) {
+            failure = t;
+            next.set(results.length);
+        }
+        boolean interrupted = false;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                } catch (ExecutionException ee) {
+                    if (failure == null)
+                        failure = ee.getCause();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (failure != null) {
+            for (Result result : results)
+                if (result != null)
+                    result.close();
+            if (failure instanceof SQLException)
+                throw (SQLException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            throw new SQLException(failure);
+        }
+        for (int i = 0; i < results.length; i++)
+            eager.put(entries.get(i).getKey(), results[i]);
+    }
 
     /**
      * This method is to provide override for non-JDBC or JDBC-like
@@ -2609,7 +2798,6 @@ public class SelectImpl
         @Override
         protected int findObject(Object obj, Joins joins)
             throws SQLException {
-            Object orig = obj;
             if (_pos == _sel._selects.size())
                 _pos = 0;
 
@@ -2633,6 +2821,22 @@ public class SelectImpl
                         + pj.path() + " (" + _sel._aliases + ")");
             }
 
+            // use the index resolved by an earlier row or an earlier
+            // execution of the same select
+            int idx = _sel._selects.getIndex(obj);
+            if (idx != ColumnIndexCache.UNKNOWN)
+                return idx;
+            idx = findSelectIndex(obj, pk);
+            _sel._selects.setIndex(obj, idx);
+            return idx;
+        }
+
+        /**
+         * Return the 1-based index of the given select id, searching from
+         * the position of the last load.
+         */
+        private int findSelectIndex(Object obj, Boolean pk)
+            throws SQLException {
             // we load in the same order we select, more or less...
             if (_sel._selects.get(_pos).equals(obj))
                 return ++_pos;
@@ -3365,10 +3569,29 @@ public class SelectImpl
         protected Map _selectAs = null;
         protected DBDictionary _dict = null;
 
+        // result set indexes of the ids, shared by all results of the select
+        private final ColumnIndexCache _indexes = new ColumnIndexCache();
+
+        /**
+         * Return the 1-based result set index resolved for the given id, or
+         * {@link ColumnIndexCache#UNKNOWN}.
+         */
+        int getIndex(Object id) {
+            return _indexes.get(id);
+        }
+
+        /**
+         * Record the 1-based result set index of the given id.
+         */
+        void setIndex(Object id, int idx) {
+            _indexes.put(id, idx);
+        }
+
         /**
          * Add all aliases from another instance.
          */
         public void addAll(Selects sels) {
+            _indexes.clear();
             if (_ids == null && sels._ids != null)
                 _ids = new ArrayList(sels._ids);
             else if (sels._ids != null)
@@ -3401,6 +3624,7 @@ public class SelectImpl
          * Set an alias for a given id.
          */
         public int setAlias(Object id, Object alias, boolean ident) {
+            _indexes.clear();
             if (_ids == null) {
                 _ids = new ArrayList();
                 _aliases = new HashMap();
@@ -3435,6 +3659,7 @@ public class SelectImpl
          * to count backwards.
          */
         public void insertAlias(int idx, Object id, Object alias) {
+            _indexes.clear();
             _aliases.put(id, alias);
             if (idx >= 0)
                 _ids.add(idx, id);
@@ -3513,6 +3738,7 @@ public class SelectImpl
          * Clear all placeholders and select AS clauses.
          */
         public void clearPlaceholders() {
+            _indexes.clear();
             if (_ids == null)
                 return;
 
@@ -3545,6 +3771,7 @@ public class SelectImpl
 
         @Override
         public void clear() {
+            _indexes.clear();
             _ids = null;
             _aliases = null;
             _selectAs = null;
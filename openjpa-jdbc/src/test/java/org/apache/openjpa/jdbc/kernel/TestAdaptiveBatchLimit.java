@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestAdaptiveBatchLimit {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void testGrowsWhileFullBatchesAreFast() {
+        AdaptiveBatchLimit limit = new AdaptiveBatchLimit(10, 50, 20);
+        assertEquals(10, limit.getBatchLimit());
+        limit.record(10, FAST);
+        assertEquals(20, limit.getBatchLimit());
+        // a partial batch says nothing about a larger one
+        limit.record(5, FAST);
+        assertEquals(20, limit.getBatchLimit());
+        limit.record(20, FAST);
+        limit.record(40, FAST);
+        assertEquals(50, limit.getBatchLimit());
+    }
+
+    @Test
+    public void testShrinksWhenBatchesAreSlow() {
+        AdaptiveBatchLimit limit = new AdaptiveBatchLimit(4, 64, 20);
+        for (int i = 0; i < 5; i++)
+            limit.record(limit.getBatchLimit(), FAST);
+        assertEquals(64, limit.getBatchLimit());
+        limit.record(64, SLOW);
+        assertEquals(32, limit.getBatchLimit());
+        for (int i = 0; i < 10; i++)
+            limit.record(1, SLOW);
+        assertEquals(4, limit.getBatchLimit());
+        // latency between half and all of the target keeps the limit
+        limit.record(4, TimeUnit.MILLISECONDS.toNanos(15));
+        assertEquals(4, limit.getBatchLimit());
+    }
+
+    @Test
+    public void testCap() {
+        AdaptiveBatchLimit limit = new AdaptiveBatchLimit(10, 100, 20);
+        assertEquals(5, limit.getBatchLimit(5));
+        assertEquals(10, limit.getBatchLimit(-1));
+        assertEquals(10, limit.getBatchLimit(0));
+    }
+}
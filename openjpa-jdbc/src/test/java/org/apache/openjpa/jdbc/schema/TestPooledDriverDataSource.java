@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.jdbc.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openjpa.lib.jdbc.ConnectionPoolStatistics;
+import org.apache.openjpa.lib.jdbc.DelegatingConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPooledDriverDataSource {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private PooledDriverDataSource _ds;
+
+    @Before
+    public void setUp() {
+        _ds = new PooledDriverDataSource();
+        _ds.setConnectionDriverName("org.hsqldb.jdbcDriver");
+        _ds.setConnectionURL("jdbc:hsqldb:mem:pool" + DATABASES.incrementAndGet());
+        _ds.setConnectionUserName("sa");
+        _ds.setConnectionPassword("");
+        _ds.setClassLoader(getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        _ds.close();
+    }
+
+    private static Connection physical(Connection conn) {
+        return ((DelegatingConnection) conn).getInnermostDelegate();
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws SQLException {
+        Connection conn = _ds.getConnection();
+        Connection physical = physical(conn);
+        conn.close();
+        assertTrue(conn.isClosed());
+        conn.close();
+
+        conn = _ds.getConnection("sa", "");
+        assertSame(physical, physical(conn));
+        assertFalse(conn.isClosed());
+        conn.close();
+
+        ConnectionPoolStatistics stats = _ds.getStatistics();
+        assertSame(stats, _ds.unwrap(ConnectionPoolStatistics.class));
+        assertEquals(1, stats.getCreatedCount());
+        assertEquals(2, stats.getBorrowCount());
+        assertEquals(0, stats.getActiveCount());
+        assertEquals(1, stats.getIdleCount());
+    }
+
+    @Test
+    public void testClosedConnectionCanNotBeUsed() throws SQLException {
+        Connection conn = _ds.getConnection();
+        conn.close();
+        try {
+            conn.prepareStatement("VALUES 1");
+            fail("Expected SQLException");
+        } catch (SQLException se) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStatementsAreCached() throws SQLException {
+        String sql = "SELECT * FROM (VALUES (1), (2), (3)) AS T(X)";
+        Connection conn = _ds.getConnection();
+        PreparedStatement stmnt = conn.prepareStatement(sql);
+        stmnt.setMaxRows(1);
+        assertEquals(1, count(stmnt.executeQuery()));
+        stmnt.close();
+        conn.close();
+
+        conn = _ds.getConnection();
+        stmnt = conn.prepareStatement(sql);
+        // the statement is reset when given back to the cache
+        assertEquals(3, count(stmnt.executeQuery()));
+        // the cached statement is in use, so this one is not cached
+        PreparedStatement other = conn.prepareStatement(sql);
+        assertNotSame(stmnt, other);
+        assertEquals(3, count(other.executeQuery()));
+        conn.close();
+        assertTrue(stmnt.isClosed());
+
+        ConnectionPoolStatistics stats = _ds.getStatistics();
+        assertEquals(1, stats.getStatementHitCount());
+        assertEquals(2, stats.getStatementMissCount());
+    }
+
+    @Test
+    public void testOpenResultSetIsClosedOnReturn() throws SQLException {
+        String sql = "SELECT * FROM (VALUES (1), (2), (3)) AS T(X)";
+        Connection conn = _ds.getConnection();
+        PreparedStatement stmnt = conn.prepareStatement(sql);
+        ResultSet rs = stmnt.executeQuery();
+        assertTrue(rs.next());
+        stmnt.close();
+        assertTrue(rs.isClosed());
+
+        stmnt = conn.prepareStatement(sql);
+        assertEquals(3, count(stmnt.executeQuery()));
+        stmnt.close();
+        conn.close();
+        assertEquals(1, _ds.getStatistics().getStatementHitCount());
+    }
+
+    @Test
+    public void testStatementCacheIsBounded() throws SQLException {
+        _ds.setMaxStatements(2);
+        Connection conn = _ds.getConnection();
+        for (int i = 0; i < 4; i++)
+            conn.prepareStatement("VALUES " + i).close();
+        conn.prepareStatement("VALUES 3").close();
+        conn.close();
+
+        ConnectionPoolStatistics stats = _ds.getStatistics();
+        assertEquals(2, stats.getStatementEvictionCount());
+        assertEquals(1, stats.getStatementHitCount());
+    }
+
+    @Test
+    public void testExhaustedPoolTimesOut() throws SQLException {
+        _ds.setMaxActive(1);
+        _ds.setMaxWait(50);
+        Connection conn = _ds.getConnection();
+        try {
+            _ds.getConnection();
+            fail("Expected SQLException");
+        } catch (SQLException se) {
+            // expected
+        }
+        conn.close();
+        _ds.getConnection().close();
+
+        ConnectionPoolStatistics stats = _ds.getStatistics();
+        assertEquals(1, stats.getTimeoutCount());
+        assertEquals(1, stats.getWaitCount());
+        assertEquals(1, stats.getCreatedCount());
+    }
+
+    @Test
+    public void testCloseDiscardsConnections() throws Exception {
+        Connection idle = _ds.getConnection();
+        Connection active = _ds.getConnection();
+        Connection physical = physical(active);
+        idle.close();
+        _ds.close();
+        assertEquals(0, _ds.getStatistics().getIdleCount());
+
+        // connections handed out before the close are not pooled again
+        active.close();
+        assertTrue(physical.isClosed());
+        assertEquals(0, _ds.getStatistics().getIdleCount());
+
+        // the pool opens new connections on demand
+        Connection conn = _ds.getConnection();
+        assertNotSame(physical, physical(conn));
+        conn.close();
+        assertEquals(1, _ds.getStatistics().getIdleCount());
+        assertEquals(3, _ds.getStatistics().getCreatedCount());
+        assertEquals(2, _ds.getStatistics().getDestroyedCount());
+    }
+
+    @Test
+    public void testInvalidIdleConnectionIsReplaced() throws SQLException {
+        _ds.setValidationInterval(0);
+        Connection conn = _ds.getConnection();
+        Connection physical = physical(conn);
+        conn.close();
+        physical.close();
+
+        conn = _ds.getConnection();
+        assertNotSame(physical, physical(conn));
+        conn.close();
+        assertEquals(1, _ds.getStatistics().getInvalidCount());
+        assertEquals(2, _ds.getStatistics().getCreatedCount());
+    }
+
+    @Test
+    public void testTransactionIsRolledBackOnReturn() throws SQLException {
+        Connection conn = _ds.getConnection();
+        conn.createStatement().execute("CREATE TABLE T (X INT)");
+        conn.setAutoCommit(false);
+        conn.createStatement().execute("INSERT INTO T VALUES (1)");
+        conn.close();
+
+        conn = _ds.getConnection();
+        assertTrue(conn.getAutoCommit());
+        assertEquals(0, count(conn.prepareStatement("SELECT X FROM T").executeQuery()));
+        conn.close();
+    }
+
+    @Test
+    public void testConcurrentBorrowAndReturn() throws Exception {
+        _ds.setMaxActive(4);
+        _ds.setMaxWait(-1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        try (Connection conn = _ds.getConnection()) {
+                            PreparedStatement stmnt = conn.prepareStatement("VALUES 1");
+                            assertEquals(1, count(stmnt.executeQuery()));
+                            stmnt.close();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        ConnectionPoolStatistics stats = _ds.getStatistics();
+        assertEquals(1600, stats.getBorrowCount());
+        assertEquals(0, stats.getActiveCount());
+        assertTrue(stats.getCreatedCount() <= 4);
+        assertEquals(stats.getCreatedCount(), stats.getIdleCount());
+    }
+
+    private static int count(ResultSet rs) throws SQLException {
+        int count = 0;
+        while (rs.next())
+            count++;
+        rs.close();
+        return count;
+    }
+}
@@ -18,6 +18,12 @@
  */
 package org.apache.openjpa.jdbc.sql;
 
+import java.sql.SQLException;
+
+import org.apache.openjpa.jdbc.identifier.DBIdentifier;
+import org.apache.openjpa.jdbc.schema.Column;
+import org.apache.openjpa.jdbc.schema.Table;
+import org.apache.openjpa.meta.JavaTypes;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -32,4 +38,35 @@ public class TestDBDictionary {
         assertEquals("o_f_o_ob", dictionary.toSnakeCase("oFOOb"));
         assertEquals("\"foo_bar\"", dictionary.toSnakeCase("\"fooBar\""));
     }
+
+    @Test
+    public void multiRowInsertSQL() throws SQLException {
+        final DBDictionary dictionary = new DBDictionary();
+        final Table table = new Table(DBIdentifier.newTable("T"), null);
+        final Column a = table.addColumn(DBIdentifier.newColumn("A"));
+        a.setJavaType(JavaTypes.INT);
+        final Column b = table.addColumn(DBIdentifier.newColumn("B"));
+        b.setJavaType(JavaTypes.STRING);
+        final RowImpl row = new RowImpl(table, Row.ACTION_INSERT);
+        row.setInt(a, 1);
+        row.setString(b, ") VALUES (");
+        final String sql = "INSERT INTO T (A, B) VALUES (?, ?)";
+        assertEquals(sql, row.getSQL(dictionary));
+        assertEquals(sql, dictionary.getMultiRowInsertSQL(row, 1));
+        assertEquals("INSERT INTO T (A, B) VALUES (?, ?), (?, ?), (?, ?)",
+            dictionary.getMultiRowInsertSQL(row, 3));
+    }
+
+    @Test
+    public void multiRowInsertLimit() {
+        final DBDictionary dictionary = new DBDictionary();
+        assertEquals(1, dictionary.getMultiRowInsertLimit(2));
+        dictionary.supportsMultiRowInsert = true;
+        dictionary.maxMultiRowInsertRows = 100;
+        dictionary.maxStatementParameters = 90;
+        assertEquals(45, dictionary.getMultiRowInsertLimit(2));
+        assertEquals(1, dictionary.getMultiRowInsertLimit(200));
+        dictionary.maxStatementParameters = 0;
+        assertEquals(100, dictionary.getMultiRowInsertLimit(2));
+    }
 }
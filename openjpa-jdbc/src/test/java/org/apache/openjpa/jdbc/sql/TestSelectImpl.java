@@ -89,4 +89,73 @@ public class TestSelectImpl {
         String res = result.getColumnAlias(column, pj);
         assertEquals(expected, res);
     }
+
+    @Test
+    public void testSelectResultIndexesAreSharedByResults() throws Exception {
+        DBDictionary dict = new DBDictionary();
+        JDBCConfiguration conf = new JDBCConfigurationImpl();
+        dict.setConfiguration(conf);
+        conf.setDBDictionary(dict);
+        SelectImpl sel = new SelectImpl(conf) {
+            @Override
+            int getTableIndex(Table table, PathJoins pj, boolean create) {
+                return 0;
+            }
+        };
+        Table table = new Table("T", null);
+        Column[] cols = new Column[3];
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = table.addColumn("C" + i);
+            sel.select(cols[i]);
+        }
+
+        SelectImpl.SelectResult res1 = new SelectImpl.SelectResult(null, null,
+            null, dict);
+        res1.setSelect(sel);
+        assertEquals(3, res1.findObject(cols[2], null));
+        assertEquals(1, res1.findObject(cols[0], null));
+        assertEquals(2, res1.findObject(cols[1], null));
+
+        // a later result of the same select starts with the resolved indexes
+        SelectImpl.SelectResult res2 = new SelectImpl.SelectResult(null, null,
+            null, dict);
+        res2.setSelect(sel);
+        assertEquals(3, sel._selects.getIndex(cols[2]));
+        assertEquals(2, res2.findObject(cols[1], null));
+
+        // changing the select discards them
+        Column col = table.addColumn("C3");
+        sel.select(col);
+        assertEquals(ColumnIndexCache.UNKNOWN, sel._selects.getIndex(cols[2]));
+        assertEquals(4, res2.findObject(col, null));
+        assertEquals(3, res2.findObject(cols[2], null));
+    }
+
+    @Test
+    public void testColumnIndexCache() {
+        Table table = new Table("T", null);
+        ColumnIndexCache cache = new ColumnIndexCache();
+        Column[] cols = new Column[40];
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = table.addColumn("C" + i);
+            cache.put(cols[i], i + 1);
+            cache.put("c" + i, -i);
+        }
+        assertEquals(80, cache.size());
+        for (int i = 0; i < cols.length; i++) {
+            assertEquals(i + 1, cache.get(cols[i]));
+            assertEquals(-i, cache.get(new String("c" + i)));
+        }
+
+        // columns are matched by identity
+        assertEquals(ColumnIndexCache.UNKNOWN,
+            cache.get(new Column(cols[0].getIdentifier(), table)));
+        cache.put(cols[0], 7);
+        assertEquals(7, cache.get(cols[0]));
+        assertEquals(80, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(ColumnIndexCache.UNKNOWN, cache.get(cols[1]));
+    }
 }
@@ -18,13 +18,11 @@
  */
 package org.apache.openjpa.conf;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
@@ -37,6 +35,8 @@ import org.apache.openjpa.lib.conf.Configurations;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.util.InternalException;
+import org.apache.openjpa.util.ObjectCodec;
+import org.apache.openjpa.util.Serialization;
 
 /**
  * Default {@link CacheMarshaller} implementation that writes data
@@ -62,6 +62,8 @@ public class CacheMarshallerImpl
 
     private boolean _consumeErrors = true;
 
+    private String _codec = "java";
+
     @Override
     public Object load() {
         if (_inputURL == null) {
@@ -70,12 +72,15 @@ public class CacheMarshallerImpl
         }
 
         Object o = null;
-        ObjectInputStream in = null;
+        InputStream in = null;
         try {
-            in = new ObjectInputStream(new BufferedInputStream(
-                _inputURL.openStream()));
+            in = _inputURL.openStream();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            for (int r; (r = in.read(buf)) != -1;)
+                bytes.write(buf, 0, r);
 
-            o = in.readObject();
+            o = newCodec().decode(bytes.toByteArray());
             o = _validationPolicy.getValidData(o);
 
             if (o != null && o.getClass().isArray()) {
@@ -124,12 +129,10 @@ public class CacheMarshallerImpl
         }
         OutputStream out = null;
         try {
-            out = new FileOutputStream(_outputFile);
-            ObjectOutputStream oos =
-                new ObjectOutputStream(new BufferedOutputStream(out));
             Object toStore = _validationPolicy.getCacheableData(o);
-            oos.writeObject(toStore);
-            oos.flush();
+            byte[] bytes = newCodec().encode(toStore);
+            out = new FileOutputStream(_outputFile);
+            out.write(bytes);
             out.flush();
             if (_log.isTraceEnabled())
                 _log.trace(_loc.get("cache-marshaller-stored",
@@ -172,6 +175,26 @@ public class CacheMarshallerImpl
         _consumeErrors = consume;
     }
 
+    /**
+     * The codec used to write and read the cached data, as accepted by
+     * {@link Serialization#newCodec}. Defaults to <code>java</code>.
+     * The <code>compact</code> codec also reads data written with Java
+     * serialization.
+     *
+     * @since 3.1.3
+     */
+    public void setCodec(String codec) {
+        _codec = codec;
+    }
+
+    public String getCodec() {
+        return _codec;
+    }
+
+    private ObjectCodec newCodec() {
+        return Serialization.newCodec(_codec, _conf);
+    }
+
     @Override
     public String getId() {
         return _id;
@@ -19,6 +19,7 @@
 package org.apache.openjpa.conf;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -119,6 +120,7 @@ public class MetaDataCacheMaintenance {
     public void store() {
         MetaDataRepository repos = conf.getMetaDataRepositoryInstance();
         repos.setSourceMode(MetaDataModes.MODE_ALL);
+        repos.recordPersistentTypeNames(devpath, null);
         Collection types = repos.loadPersistentTypes(devpath, null);
         for (Iterator iter = types.iterator(); iter.hasNext(); )
             repos.getMetaData((Class) iter.next(), null, true);
@@ -128,10 +130,12 @@ public class MetaDataCacheMaintenance {
         log.info("The following data will be stored: ");
         log(repos, conf.getQueryCompilationCacheInstance());
 
+        // copy the compilations, the default cache map is not serializable
+        Map qcc = conf.getQueryCompilationCacheInstance();
+        if (qcc != null)
+            qcc = new HashMap(qcc);
         CacheMarshallersValue.getMarshallerById(conf, getClass().getName())
-            .store(new Object[] {
-                repos, conf.getQueryCompilationCacheInstance()
-            });
+            .store(new Object[] { repos, qcc });
     }
 
     private void loadQueries() {
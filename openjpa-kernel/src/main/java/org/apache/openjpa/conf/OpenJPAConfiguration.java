@@ -1924,6 +1924,22 @@ public interface OpenJPAConfiguration
       */
      void setPostLoadOnMerge(Boolean postLoadOnMerge);
 
+     /**
+      * Whether queries that execute in memory compile their filter,
+      * projections and ordering to bytecode rather than walk the expression
+      * tree for each candidate.
+      * @since 3.1.3
+      */
+     boolean getCompileInMemoryQueries();
+
+     /**
+      * Whether queries that execute in memory compile their filter,
+      * projections and ordering to bytecode rather than walk the expression
+      * tree for each candidate.
+      * @since 3.1.3
+      */
+     void setCompileInMemoryQueries(boolean compile);
+
      /**
       * Whether to attempt to optimize id class copy operations during the
       * enhancement process.  Optimization is only applicable for simple id classes
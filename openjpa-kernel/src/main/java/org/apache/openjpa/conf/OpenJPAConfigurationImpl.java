@@ -31,6 +31,7 @@ import org.apache.openjpa.datacache.ConcurrentDataCache;
 import org.apache.openjpa.datacache.ConcurrentQueryCache;
 import org.apache.openjpa.datacache.DataCacheManager;
 import org.apache.openjpa.datacache.DataCacheManagerImpl;
+import org.apache.openjpa.datacache.OffHeapDataCache;
 import org.apache.openjpa.datacache.PartitionedDataCache;
 import org.apache.openjpa.ee.ManagedRuntime;
 import org.apache.openjpa.enhance.RuntimeUnenhancedClassesModes;
@@ -179,6 +180,7 @@ public class OpenJPAConfigurationImpl
     public ObjectValue instrumentationManager;
     public PluginListValue instrumentationProviders;
     public BooleanValue postLoadOnMerge;
+    public BooleanValue compileInMemoryQueries;
     public BooleanValue optimizeIdCopy;
     public BooleanValue useTcclForSelectNew;
     public ClassListValue typesWithoutEnhancement;
@@ -269,6 +271,7 @@ public class OpenJPAConfigurationImpl
             "true", ConcurrentDataCache.class.getName(),
             "concurrent", ConcurrentDataCache.class.getName(),
             "partitioned", PartitionedDataCache.class.getName(),
+            "offheap", OffHeapDataCache.class.getName(),
         };
         dataCachePlugin.setAliases(aliases);
         dataCachePlugin.setDefault(aliases[0]);
@@ -418,6 +421,10 @@ public class OpenJPAConfigurationImpl
         postLoadOnMerge.setDefault("false");
         postLoadOnMerge.set(false);
 
+        compileInMemoryQueries = addBoolean("CompileInMemoryQueries");
+        compileInMemoryQueries.setDefault("false");
+        compileInMemoryQueries.set(false);
+
         optimizeIdCopy = addBoolean("OptimizeIdCopy");
         optimizeIdCopy.setDefault("false");
         optimizeIdCopy.set(false);
@@ -2186,6 +2193,16 @@ public class OpenJPAConfigurationImpl
             setPostLoadOnMerge(postLoadOnMerge.booleanValue());
     }
 
+    @Override
+    public boolean getCompileInMemoryQueries() {
+        return compileInMemoryQueries.get();
+    }
+
+    @Override
+    public void setCompileInMemoryQueries(boolean compile) {
+        compileInMemoryQueries.set(compile);
+    }
+
     @Override
     public boolean getOptimizeIdCopy() {
         return optimizeIdCopy.get();
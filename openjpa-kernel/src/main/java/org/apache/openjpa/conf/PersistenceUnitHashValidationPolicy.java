@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.conf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.openjpa.conf.CacheMarshaller.ValidationPolicy;
+import org.apache.openjpa.lib.conf.Configurable;
+import org.apache.openjpa.lib.conf.Configuration;
+import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.lib.conf.ObjectValue;
+import org.apache.openjpa.lib.conf.Value;
+import org.apache.openjpa.lib.log.Log;
+import org.apache.openjpa.lib.util.Base16Encoder;
+import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.lib.util.Options;
+import org.apache.openjpa.lib.util.StringUtil;
+import org.apache.openjpa.meta.MetaDataRepository;
+import org.apache.openjpa.util.InternalException;
+
+/**
+ * Compute validity based on a hash of the persistence unit. The hash covers
+ * the OpenJPA version, the configuration properties that shape the metadata
+ * and mappings, the class of the database dictionary in use, the persistent
+ * type and mapping file lists, the class files of the persistent types and
+ * the mapping files. Cached data is ignored as soon as any of these change.
+ * The connection settings are not part of the hash, so data stored at build
+ * time against one database remains valid for a deployment that maps to the
+ * same platform. A dictionary that is detected from the database is resolved,
+ * so computing the hash may connect to the database.
+ * The persistent types are scanned each time the hash is computed, so that
+ * a type added to the application invalidates the data even though the
+ * restored repository does not scan for types itself.
+ *
+ * @since 3.1.3
+ */
+public class PersistenceUnitHashValidationPolicy
+    implements ValidationPolicy, Configurable {
+
+    private static final Localizer _loc = Localizer.forPackage
+        (PersistenceUnitHashValidationPolicy.class);
+
+    /**
+     * The configuration properties included in the hash, in addition to
+     * the types and resources of the metadata factory.
+     */
+    private static final String[] PROPERTIES = {
+        "Compatibility", "Mapping", "jdbc.MappingDefaults",
+        "jdbc.MappingFactory", "jdbc.DBDictionary", "jdbc.Schema",
+    };
+
+    /**
+     * The plugin whose resolved class is included in the hash, because it
+     * may be detected from the database rather than configured.
+     */
+    private static final String DICTIONARY = "jdbc.DBDictionary";
+
+    private static final String DEFAULT_RESOURCE = "META-INF/orm.xml";
+
+    private OpenJPAConfiguration _conf;
+
+    @Override
+    public Object getCacheableData(Object o) {
+        return new Object[] {
+            OpenJPAVersion.VERSION_ID,
+            _conf.getClass().getName(),
+            hash(getPersistentTypeNames()),
+            o,
+        };
+    }
+
+    @Override
+    public Object getValidData(Object o) {
+        if (!(o instanceof Object[]))
+            return null;
+        Object[] array = (Object[]) o;
+        if (array.length != 4)
+            return null;
+
+        if (OpenJPAVersion.VERSION_ID.equals(array[0])
+            && _conf.getClass().getName().equals(array[1])
+            && hash(getPersistentTypeNames()).equals(array[2]))
+            return array[3];
+
+        Log log = _conf.getConfigurationLog();
+        if (log.isInfoEnabled())
+            log.info(_loc.get("cache-marshaller-stale", _conf.getId()));
+        return null;
+    }
+
+    /**
+     * Return the names of the persistent types of the unit, scanned by a new
+     * instance of the metadata factory. The repository of the configuration
+     * cannot be used, because it is the repository being restored.
+     */
+    protected Collection<String> getPersistentTypeNames() {
+        MetaDataRepository repos = new MetaDataRepository();
+        repos.setConfiguration(_conf);
+        repos.setMetaDataFactory(_conf.newMetaDataFactoryInstance());
+        Set<String> names = repos.getPersistentTypeNames(false, null);
+        return (names == null) ? new TreeSet<String>()
+            : new TreeSet<>(names);
+    }
+
+    /**
+     * Return the hex-encoded hash of the persistence unit with the given
+     * persistent types.
+     */
+    protected String hash(Collection<String> types) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new InternalException(nsae);
+        }
+
+        update(digest, OpenJPAVersion.VERSION_ID);
+        for (String prop : PROPERTIES) {
+            Value val = _conf.getValue(prop);
+            update(digest, prop);
+            update(digest, (val == null) ? null : val.getString());
+        }
+        update(digest, getInstanceClassName(DICTIONARY));
+
+        // only the parts of the metadata factory that name the persistent
+        // types and mapping files; the locations that are scanned differ
+        // between the build and the deployed application
+        String factory = _conf.getMetaDataFactory();
+        Options opts = Configurations.parseProperties
+            (Configurations.getProperties(factory));
+        update(digest, Configurations.getClassName(factory));
+        update(digest, opts.getProperty("Types"));
+        update(digest, opts.getProperty("Resources"));
+
+        ClassLoader loader = _conf.getClassResolverInstance().
+            getClassLoader(getClass(), null);
+        for (String type : types) {
+            update(digest, type);
+            update(digest, loader, type.replace('.', '/') + ".class");
+        }
+        List<String> rsrcs = new ArrayList<>();
+        rsrcs.add(DEFAULT_RESOURCE);
+        String resources = opts.getProperty("Resources");
+        if (!StringUtil.isEmpty(resources))
+            Collections.addAll(rsrcs, StringUtil.split(resources, ";", 0));
+        for (String rsrc : rsrcs)
+            update(digest, loader, rsrc.trim());
+        return Base16Encoder.encode(digest.digest());
+    }
+
+    /**
+     * Return the class name of the instance of the given plugin property,
+     * instantiating it through the configuration if needed. Return null if
+     * the configuration has no such property.
+     */
+    private String getInstanceClassName(String prop) {
+        Value val = _conf.getValue(prop);
+        if (!(val instanceof ObjectValue))
+            return null;
+        Object instance = ((ObjectValue) val).get();
+        String getter = val.getInstantiatingGetter();
+        if (instance == null && getter != null && !getter.startsWith("this.")) {
+            try {
+                instance = _conf.getClass().getMethod(getter).invoke(_conf);
+            } catch (InvocationTargetException ite) {
+                Throwable cause = ite.getTargetException();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new InternalException(cause);
+            } catch (ReflectiveOperationException roe) {
+                throw new InternalException(roe);
+            }
+        }
+        return (instance == null) ? null : instance.getClass().getName();
+    }
+
+    private static void update(MessageDigest digest, String str) {
+        if (str != null) {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                digest.update((byte) (c >>> 8));
+                digest.update((byte) c);
+            }
+        }
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, ClassLoader loader,
+        String rsrc) {
+        try {
+            Enumeration<URL> urls = loader.getResources(rsrc);
+            while (urls.hasMoreElements()) {
+                try (InputStream in = urls.nextElement().openStream()) {
+                    byte[] buf = new byte[8192];
+                    for (int r; (r = in.read(buf)) != -1;)
+                        digest.update(buf, 0, r);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new InternalException(ioe);
+        }
+        digest.update((byte) 0);
+    }
+
+    @Override
+    public void setConfiguration(Configuration conf) {
+        _conf = (OpenJPAConfiguration) conf;
+    }
+
+    @Override
+    public void startConfiguration() {
+    }
+
+    @Override
+    public void endConfiguration() {
+    }
+}
@@ -33,6 +33,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections4.map.AbstractReferenceMap.ReferenceStrength;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.enhance.PCRegistry;
 import org.apache.openjpa.event.RemoteCommitEvent;
 import org.apache.openjpa.event.RemoteCommitListener;
 import org.apache.openjpa.kernel.QueryStatistics;
@@ -82,6 +83,10 @@ public abstract class AbstractQueryCache
     protected ConcurrentHashMap<String,Long> entityTimestampMap = null;
     private boolean _closed = false;
 
+    // access path class name -> keys of cached queries that depend on it
+    private final ConcurrentHashMap<String,Set<QueryKey>> _typeIndex =
+        new ConcurrentHashMap<>();
+
     private String _name = null;
 
     // default evict policy
@@ -132,7 +137,8 @@ public abstract class AbstractQueryCache
             try {
                 if (hasListeners())
                     fireEvent(ev);
-                keys = keySet();
+                keys = (isTypeIndexed()) ? getIndexedKeys(ev.getTypes())
+                    : keySet();
             } finally {
                 writeUnlock();
             }
@@ -331,6 +337,76 @@ public abstract class AbstractQueryCache
         return classes;
     }
 
+    /**
+     * Whether this cache reports every key added to or removed from its
+     * internal storage through {@link #keyAdded} and {@link #keyRemoved}.
+     * If so, {@link #onTypesChanged} only visits the keys whose access path
+     * includes one of the changed types instead of every cached key.
+     * Returns false by default.
+     *
+     * @since 3.1.3
+     */
+    protected boolean isTypeIndexed() {
+        return false;
+    }
+
+    /**
+     * Invoked by type-indexed caches when a result is added to the cache
+     * under the given key. May be invoked more than once for a key.
+     *
+     * @since 3.1.3
+     */
+    protected void keyAdded(QueryKey qk) {
+        Set<String> names = qk.getAcessPathClassNames();
+        if (names == null || evictPolicy != EvictPolicy.DEFAULT)
+            return;
+        for (String name : names) {
+            _typeIndex.compute(name, (k, keys) -> {
+                if (keys == null)
+                    keys = ConcurrentHashMap.newKeySet();
+                keys.add(qk);
+                return keys;
+            });
+        }
+    }
+
+    /**
+     * Invoked by type-indexed caches when the result under the given key is
+     * removed from the cache, whether explicitly or through eviction. May be
+     * invoked more than once for a key.
+     *
+     * @since 3.1.3
+     */
+    protected void keyRemoved(QueryKey qk) {
+        Set<String> names = qk.getAcessPathClassNames();
+        if (names == null)
+            return;
+        for (String name : names) {
+            _typeIndex.computeIfPresent(name, (k, keys) -> {
+                keys.remove(qk);
+                return (keys.isEmpty()) ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Return the indexed keys whose access path includes the least-derived
+     * persistent type of any of the given classes.
+     */
+    private Collection getIndexedKeys(Collection<Class<?>> changed) {
+        Set<QueryKey> keys = new HashSet<>();
+        Set<QueryKey> dependents;
+        Class<?> sup;
+        for (Class<?> cls : changed) {
+            while ((sup = PCRegistry.getPersistentSuperclass(cls)) != null)
+                cls = sup;
+            dependents = _typeIndex.get(cls.getName());
+            if (dependents != null)
+                keys.addAll(dependents);
+        }
+        return keys;
+    }
+
     /**
      * Return a threadsafe view of the keys in this cache. This collection
      * must be iterable without risk of concurrent modification exceptions.
@@ -21,6 +21,7 @@ package org.apache.openjpa.datacache;
 import org.apache.openjpa.event.RemoteCommitListener;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.util.CacheMap;
+import org.apache.openjpa.util.StripedCacheMap;
 
 /**
  * A {@link DataCache} implementation that is optimized for concurrent
@@ -45,6 +46,7 @@ public class ConcurrentDataCache
     private int _cacheSize = Integer.MIN_VALUE;
     private int _softRefs = Integer.MIN_VALUE;
     protected boolean _lru = false;
+    protected int _segments = 1;
 
     /**
      * Returns the underlying {@link CacheMap} that this cache is using.
@@ -129,6 +131,15 @@ public class ConcurrentDataCache
      * invoke {@link AbstractDataCache#keyRemoved}.
      */
     protected CacheMap newCacheMap() {
+        if (_segments > 1) {
+            return new StripedCacheMap(_lru, 1000, _segments) {
+                @Override
+                protected void entryRemoved(Object key, Object value, boolean expired) {
+                    keyRemoved(key, expired);
+                }
+            };
+        }
+
         CacheMap res = new CacheMap(_lru) {
             @Override
             protected void entryRemoved(Object key, Object value, boolean expired) {
@@ -190,4 +201,25 @@ public class ConcurrentDataCache
     public boolean getLru() {
         return _lru;
     }
+
+    /**
+     * Sets the number of independently locked segments the cache is
+     * partitioned into. Values greater than 1 use a {@link StripedCacheMap}
+     * so that concurrent readers and writers of different keys do not
+     * contend for a single lock. Defaults to <code>1</code>.
+     *
+     * @since 3.1.3
+     */
+    public void setSegments(int segments) {
+        _segments = segments;
+    }
+
+    /**
+     * Returns the number of segments the cache is partitioned into.
+     *
+     * @since 3.1.3
+     */
+    public int getSegments() {
+        return _segments;
+    }
 }
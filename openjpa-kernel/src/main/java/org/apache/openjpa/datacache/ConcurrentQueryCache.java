@@ -122,11 +122,30 @@ public class ConcurrentQueryCache
      * Return the map to use as an internal cache.
      */
     protected CacheMap newCacheMap() {
-        CacheMap res = new CacheMap(_lru);
+        CacheMap res = new CacheMap(_lru) {
+            @Override
+            protected void entryAdded(Object key, Object value) {
+                keyAdded((QueryKey) key);
+            }
+
+            @Override
+            protected void entryRemoved(Object key, Object value, boolean expired) {
+                keyRemoved((QueryKey) key);
+            }
+        };
 
         return res;
     }
 
+    /**
+     * Returns true; the map returned by {@link #newCacheMap} reports its
+     * additions and removals, including evictions, to the type index.
+     */
+    @Override
+    protected boolean isTypeIndexed() {
+        return true;
+    }
+
     @Override
     protected QueryResult getInternal(QueryKey qk) {
         return (QueryResult) _cache.get(qk);
@@ -61,6 +61,19 @@ public class DataCachePCDataImpl
             _exp = -1;
     }
 
+    /**
+     * Constructor for data restored from an external form, which keeps
+     * the expiration time computed when the data was first cached.
+     *
+     * @param timeout the expiration time in milliseconds, or -1 for none
+     * @since 3.1.3
+     */
+    public DataCachePCDataImpl(Object oid, ClassMetaData meta, String name,
+        long timeout) {
+        super(oid, meta, name);
+        _exp = timeout;
+    }
+
     @Override
     public boolean isTimedOut() {
         return _exp != -1 && _exp < System.currentTimeMillis();
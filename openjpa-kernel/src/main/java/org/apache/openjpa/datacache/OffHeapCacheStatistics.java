@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.datacache;
+
+/**
+ * Statistics of an {@link OffHeapDataCache}. In addition to the read, hit
+ * and write counts of {@link CacheStatisticsImpl}, reports the off-heap
+ * memory held by the cache. Memory figures are read from the cache when
+ * requested and are not affected by {@link #reset}.
+ *
+ * @since 3.1.3
+ */
+public class OffHeapCacheStatistics extends CacheStatisticsImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient OffHeapDataCache _cache;
+
+    public OffHeapCacheStatistics(OffHeapDataCache cache) {
+        _cache = cache;
+    }
+
+    /**
+     * The configured maximum number of off-heap bytes.
+     */
+    public long getMaxBytes() {
+        return (_cache == null) ? 0 : _cache.getMaxBytes();
+    }
+
+    /**
+     * The number of off-heap bytes reserved in slabs.
+     */
+    public long getReservedBytes() {
+        return (_cache == null) ? 0 : _cache.getReservedBytes();
+    }
+
+    /**
+     * The number of bytes of serialized data held in the cache.
+     */
+    public long getUsedBytes() {
+        return (_cache == null) ? 0 : _cache.getUsedBytes();
+    }
+
+    /**
+     * The number of entries in the cache.
+     */
+    public int getEntryCount() {
+        return (_cache == null) ? 0 : _cache.getEntryCount();
+    }
+
+    /**
+     * The number of entries evicted to make room for new data.
+     */
+    public long getEvictionCount() {
+        return (_cache == null) ? 0 : _cache.getEvictionCount();
+    }
+
+    /**
+     * The number of puts that could not be cached.
+     */
+    public long getRejectionCount() {
+        return (_cache == null) ? 0 : _cache.getRejectionCount();
+    }
+}
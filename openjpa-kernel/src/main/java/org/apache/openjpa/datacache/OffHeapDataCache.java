@@ -0,0 +1,598 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.datacache;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.openjpa.event.RemoteCommitListener;
+import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.util.ObjectCodec;
+import org.apache.openjpa.util.Serialization;
+
+/**
+ * A {@link DataCache} implementation that keeps cached data outside of the
+ * Java heap. Each {@link DataCachePCData} is encoded into a chunk of a
+ * {@link SlabAllocator} on <code>put</code> and decoded again on
+ * <code>get</code> using the {@link ObjectCodec} named by the
+ * <code>Codec</code> property, so only the keys and a small index entry per key
+ * remain on the heap. Memory is bounded by the <code>MaxBytes</code>
+ * property. When a size class is full, entries of that class are evicted
+ * in approximate LRU order using a clock algorithm; when a size class has
+ * nothing to evict, a slab is reclaimed from another class. Pinned entries
+ * are never evicted. Statistics, including off-heap memory use, are
+ * available through {@link OffHeapCacheStatistics}.
+ *
+ * @since 3.1.3
+ */
+public class OffHeapDataCache
+    extends AbstractDataCache
+    implements RemoteCommitListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Localizer _loc = Localizer.forPackage
+        (OffHeapDataCache.class);
+
+    private long _maxBytes = 64L * 1024 * 1024;
+    private int _slabSize = 1024 * 1024;
+    private int _minChunkSize = 64;
+    private double _growthFactor = 1.25;
+    private String _codecName = "compact";
+    private ObjectCodec _codec;
+
+    private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock();
+    private final Map<Object, Entry> _entries = new HashMap<>();
+    private final Set<Object> _pinned = new HashSet<>();
+    private SlabAllocator _slabs;
+    private ArrayDeque<Entry>[] _clocks;
+    private int[] _counts;
+    private int _victimClass = 0;
+
+    private long _usedBytes = 0;
+    private long _evictions = 0;
+    private long _rejections = 0;
+
+    public OffHeapDataCache() {
+        _stats = new OffHeapCacheStatistics(this);
+    }
+
+    /**
+     * The maximum number of bytes of off-heap memory to use.
+     * Defaults to 64MB.
+     */
+    public void setMaxBytes(long bytes) {
+        _maxBytes = bytes;
+    }
+
+    /**
+     * The maximum number of bytes of off-heap memory to use.
+     */
+    public long getMaxBytes() {
+        return _maxBytes;
+    }
+
+    /**
+     * The size in bytes of each slab of off-heap memory. Serialized
+     * data larger than a slab is never cached. Defaults to 1MB.
+     */
+    public void setSlabSize(int bytes) {
+        _slabSize = bytes;
+    }
+
+    /**
+     * The size in bytes of each slab of off-heap memory.
+     */
+    public int getSlabSize() {
+        return _slabSize;
+    }
+
+    /**
+     * The chunk size in bytes of the smallest size class. Defaults to 64.
+     */
+    public void setMinChunkSize(int bytes) {
+        _minChunkSize = bytes;
+    }
+
+    /**
+     * The chunk size in bytes of the smallest size class.
+     */
+    public int getMinChunkSize() {
+        return _minChunkSize;
+    }
+
+    /**
+     * The ratio between the chunk sizes of consecutive size classes.
+     * Defaults to 1.25.
+     */
+    public void setGrowthFactor(double factor) {
+        _growthFactor = factor;
+    }
+
+    /**
+     * The ratio between the chunk sizes of consecutive size classes.
+     */
+    public double getGrowthFactor() {
+        return _growthFactor;
+    }
+
+    /**
+     * The codec used to encode cached data, as accepted by
+     * {@link Serialization#newCodec}. Defaults to <code>compact</code>.
+     */
+    public void setCodec(String codec) {
+        _codecName = codec;
+    }
+
+    /**
+     * The codec used to encode cached data.
+     */
+    public String getCodec() {
+        return _codecName;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void initialize(DataCacheManager mgr) {
+        super.initialize(mgr);
+        conf.getRemoteCommitEventManager().addInternalListener(this);
+        _codec = Serialization.newCodec(_codecName, conf);
+        _slabs = new SlabAllocator(_maxBytes, _slabSize, _minChunkSize,
+            _growthFactor);
+        _clocks = new ArrayDeque[_slabs.getSizeClassCount()];
+        for (int i = 0; i < _clocks.length; i++)
+            _clocks[i] = new ArrayDeque<>();
+        _counts = new int[_clocks.length];
+    }
+
+    /**
+     * The number of entries in the cache.
+     */
+    public int getEntryCount() {
+        _lock.readLock().lock();
+        try {
+            return _entries.size();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of off-heap memory reserved in slabs.
+     */
+    public long getReservedBytes() {
+        _lock.readLock().lock();
+        try {
+            return (_slabs == null) ? 0 : _slabs.getReservedBytes();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of serialized data held in the cache. This is
+     * less than the memory occupied by the allocated chunks.
+     */
+    public long getUsedBytes() {
+        _lock.readLock().lock();
+        try {
+            return _usedBytes;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of entries evicted to make room for new data.
+     */
+    public long getEvictionCount() {
+        _lock.readLock().lock();
+        try {
+            return _evictions;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of puts that could not be cached because the data could
+     * not be serialized or no memory could be made available.
+     */
+    public long getRejectionCount() {
+        _lock.readLock().lock();
+        try {
+            return _rejections;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void writeLock() {
+        _lock.writeLock().lock();
+    }
+
+    @Override
+    public void writeUnlock() {
+        _lock.writeLock().unlock();
+    }
+
+    @Override
+    public void unpinAll(Class<?> cls, boolean subs) {
+        if (log.isWarnEnabled())
+            log.warn(_loc.get("cache-class-unpin-all", getName()));
+        List<Object> pinned;
+        _lock.readLock().lock();
+        try {
+            pinned = new ArrayList<>(_pinned);
+        } finally {
+            _lock.readLock().unlock();
+        }
+        unpinAll(pinned);
+    }
+
+    @Override
+    protected DataCachePCData getInternal(Object key) {
+        Entry entry;
+        byte[] bytes;
+        _lock.readLock().lock();
+        try {
+            entry = _entries.get(key);
+            if (entry == null)
+                return null;
+            entry.referenced = true;
+            bytes = _slabs.read(entry.handle, entry.length);
+        } finally {
+            _lock.readLock().unlock();
+        }
+
+        try {
+            return deserialize(bytes);
+        } catch (Exception e) {
+            if (log.isWarnEnabled())
+                log.warn(_loc.get("offheap-deserialize-failed", key, e));
+            _lock.writeLock().lock();
+            try {
+                if (_entries.get(key) == entry)
+                    removeEntry(entry, false);
+            } finally {
+                _lock.writeLock().unlock();
+            }
+            return null;
+        }
+    }
+
+    @Override
+    protected DataCachePCData putInternal(Object key, DataCachePCData pc) {
+        byte[] bytes = serialize(key, pc);
+        _lock.writeLock().lock();
+        try {
+            Entry old = _entries.get(key);
+            DataCachePCData prev = null;
+            if (old != null) {
+                try {
+                    prev = deserialize(_slabs.read(old.handle, old.length));
+                } catch (Exception e) {
+                    // the old value is being replaced anyway
+                }
+            }
+            store(key, pc, bytes);
+            return prev;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void putAllInternal(Collection<DataCachePCData> pcs) {
+        List<byte[]> serialized = new ArrayList<>(pcs.size());
+        for (DataCachePCData pc : pcs)
+            serialized.add(serialize(pc.getId(), pc));
+
+        _lock.writeLock().lock();
+        try {
+            int i = 0;
+            for (DataCachePCData pc : pcs)
+                store(pc.getId(), pc, serialized.get(i++));
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected DataCachePCData removeInternal(Object key) {
+        _lock.writeLock().lock();
+        try {
+            Entry entry = _entries.get(key);
+            if (entry == null)
+                return null;
+            DataCachePCData prev = null;
+            try {
+                prev = deserialize(_slabs.read(entry.handle, entry.length));
+            } catch (Exception e) {
+                // the entry is being removed anyway
+            }
+            removeEntry(entry, false);
+            return prev;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void removeAllInternal(Collection<Object> oids) {
+        if (oids.isEmpty())
+            return;
+        _lock.writeLock().lock();
+        try {
+            Entry entry;
+            for (Object oid : oids) {
+                entry = _entries.get(oid);
+                if (entry != null)
+                    removeEntry(entry, false);
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void removeAllInternal(Class<?> cls, boolean subs) {
+        _lock.writeLock().lock();
+        try {
+            List<Entry> removes = new ArrayList<>();
+            for (Entry entry : _entries.values()) {
+                if (entry.type == cls
+                    || (subs && cls.isAssignableFrom(entry.type)))
+                    removes.add(entry);
+            }
+            for (Entry entry : removes)
+                removeEntry(entry, false);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void clearInternal() {
+        _lock.writeLock().lock();
+        try {
+            List<Object> keys = new ArrayList<>(_entries.keySet());
+            _entries.clear();
+            _slabs.clear();
+            for (ArrayDeque<Entry> clock : _clocks)
+                clock.clear();
+            _counts = new int[_clocks.length];
+            _usedBytes = 0;
+            for (Object key : keys)
+                keyRemoved(key, false);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean pinInternal(Object key) {
+        _lock.writeLock().lock();
+        try {
+            _pinned.add(key);
+            return _entries.containsKey(key);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean unpinInternal(Object key) {
+        _lock.writeLock().lock();
+        try {
+            return _pinned.remove(key) && _entries.containsKey(key);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean recacheUpdates() {
+        return true;
+    }
+
+    @Override
+    protected void close(boolean clear) {
+        super.close(clear);
+        _lock.writeLock().lock();
+        try {
+            // release the direct buffers to the garbage collector
+            _entries.clear();
+            if (_slabs != null)
+                _slabs.clear();
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Serialize the given data, returning null if it cannot be serialized.
+     */
+    protected byte[] serialize(Object key, DataCachePCData pc) {
+        try {
+            return _codec.encode(pc);
+        } catch (IOException ioe) {
+            if (log.isTraceEnabled())
+                log.trace(_loc.get("offheap-serialize-failed", key, ioe));
+            return null;
+        }
+    }
+
+    /**
+     * Deserialize data written by {@link #serialize}.
+     */
+    protected DataCachePCData deserialize(byte[] bytes) throws Exception {
+        return (DataCachePCData) _codec.decode(bytes);
+    }
+
+    /**
+     * Replace any entry for the given key with the given serialized data.
+     * Must be called with the write lock held.
+     */
+    private void store(Object key, DataCachePCData pc, byte[] bytes) {
+        Entry old = _entries.get(key);
+        if (old != null)
+            removeEntry(old, false);
+        if (bytes == null) {
+            _rejections++;
+            return;
+        }
+
+        int sizeClass = _slabs.getSizeClass(bytes.length);
+        Entry entry = new Entry(key, pc.getType(), bytes.length);
+        long handle = (sizeClass == -1) ? SlabAllocator.NONE
+            : allocate(sizeClass, entry);
+        if (handle == SlabAllocator.NONE) {
+            _rejections++;
+            if (log.isTraceEnabled())
+                log.trace(_loc.get("offheap-reject", key, bytes.length));
+            return;
+        }
+
+        entry.handle = handle;
+        _slabs.write(handle, bytes);
+        _entries.put(key, entry);
+        _clocks[sizeClass].add(entry);
+        _counts[sizeClass]++;
+        _usedBytes += bytes.length;
+    }
+
+    /**
+     * Allocate a chunk of the given size class, evicting entries as needed.
+     */
+    private long allocate(int sizeClass, Entry entry) {
+        long handle = _slabs.allocate(sizeClass, entry);
+        while (handle == SlabAllocator.NONE) {
+            if (!evict(sizeClass) && !reclaimSlab(sizeClass))
+                return SlabAllocator.NONE;
+            handle = _slabs.allocate(sizeClass, entry);
+        }
+        return handle;
+    }
+
+    /**
+     * Evict one unpinned entry of the given size class, giving entries
+     * that were read since they were last considered a second chance.
+     */
+    private boolean evict(int sizeClass) {
+        ArrayDeque<Entry> clock = _clocks[sizeClass];
+        for (int i = clock.size() * 2; i > 0; i--) {
+            Entry entry = clock.poll();
+            if (entry == null)
+                return false;
+            if (entry.removed)
+                continue;
+            if (entry.referenced || _pinned.contains(entry.key)) {
+                entry.referenced = false;
+                clock.add(entry);
+                continue;
+            }
+            removeEntry(entry, true);
+            _evictions++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Empty a slab of another size class that holds no pinned entries and
+     * release it so that the given size class can use it.
+     */
+    private boolean reclaimSlab(int sizeClass) {
+        int classes = _slabs.getSizeClassCount();
+        for (int c = 0; c < classes; c++) {
+            int victim = (_victimClass + c) % classes;
+            if (victim == sizeClass)
+                continue;
+            for (int slab = 0; slab < _slabs.getSlabCount(victim); slab++) {
+                Object[] owners = _slabs.getSlabOwners(victim, slab);
+                if (owners == null || isPinned(owners))
+                    continue;
+                for (Object owner : owners) {
+                    if (owner != null) {
+                        removeEntry((Entry) owner, true);
+                        _evictions++;
+                    }
+                }
+                _slabs.releaseSlab(victim, slab);
+                _victimClass = victim + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPinned(Object[] owners) {
+        for (Object owner : owners)
+            if (owner != null && _pinned.contains(((Entry) owner).key))
+                return true;
+        return false;
+    }
+
+    /**
+     * Remove the given entry and free its memory. Must be called with the
+     * write lock held.
+     */
+    private void removeEntry(Entry entry, boolean expired) {
+        _entries.remove(entry.key);
+        entry.removed = true;
+        int sizeClass = SlabAllocator.sizeClass(entry.handle);
+        _slabs.free(entry.handle);
+        _usedBytes -= entry.length;
+
+        // drop entries removed since their last visit by the clock hand
+        ArrayDeque<Entry> clock = _clocks[sizeClass];
+        if (--_counts[sizeClass] * 2 + 64 < clock.size())
+            clock.removeIf(e -> e.removed);
+        keyRemoved(entry.key, expired);
+    }
+
+    /**
+     * Heap-resident index entry for off-heap data.
+     */
+    private static class Entry {
+
+        final Object key;
+        final Class<?> type;
+        final int length;
+        long handle = SlabAllocator.NONE;
+        volatile boolean referenced = false;
+        boolean removed = false;
+
+        Entry(Object key, Class<?> type, int length) {
+            this.key = key;
+            this.type = type;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.datacache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocator of off-heap memory chunks. Memory is reserved in direct buffer
+ * slabs of a fixed size, up to a maximum number of bytes. Each slab is
+ * assigned to a size class and carved into equally sized chunks, so that
+ * freeing a chunk never fragments the slab. Slabs can be released from one
+ * size class and reassigned to another once all their chunks are free.
+ * Chunks are identified by <code>long</code> handles, and each chunk may
+ * record an owner object so that callers can find what occupies a slab.
+ * This class is not thread safe; callers must synchronize access.
+ *
+ * @since 3.1.3
+ */
+public class SlabAllocator {
+
+    /**
+     * Handle returned when a chunk cannot be allocated.
+     */
+    public static final long NONE = -1L;
+
+    private static final int ALIGN = 8;
+
+    private final int _slabSize;
+    private final long _maxBytes;
+    private final SizeClass[] _classes;
+    private final List<ByteBuffer> _spare = new ArrayList<>();
+    private long _reserved = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes the maximum number of bytes to reserve
+     * @param slabSize the size of each slab in bytes
+     * @param minChunkSize the chunk size of the smallest size class
+     * @param growthFactor the ratio between consecutive chunk sizes
+     */
+    public SlabAllocator(long maxBytes, int slabSize, int minChunkSize,
+        double growthFactor) {
+        if (slabSize < minChunkSize || minChunkSize < ALIGN
+            || growthFactor <= 1)
+            throw new IllegalArgumentException(slabSize + "/" + minChunkSize
+                + "/" + growthFactor);
+        _maxBytes = maxBytes;
+        _slabSize = slabSize;
+
+        List<SizeClass> classes = new ArrayList<>();
+        int size = align(minChunkSize);
+        while (size < slabSize) {
+            classes.add(new SizeClass(size, slabSize / size));
+            size = Math.min(slabSize, align(Math.max(size + ALIGN,
+                (int) (size * growthFactor))));
+        }
+        classes.add(new SizeClass(slabSize, 1));
+        _classes = classes.toArray(new SizeClass[classes.size()]);
+    }
+
+    private static int align(int size) {
+        return (size + ALIGN - 1) & ~(ALIGN - 1);
+    }
+
+    /**
+     * The size of each slab in bytes.
+     */
+    public int getSlabSize() {
+        return _slabSize;
+    }
+
+    /**
+     * The maximum number of bytes this allocator reserves.
+     */
+    public long getMaxBytes() {
+        return _maxBytes;
+    }
+
+    /**
+     * The number of bytes currently reserved in slabs.
+     */
+    public long getReservedBytes() {
+        return _reserved;
+    }
+
+    /**
+     * The number of bytes in chunks currently allocated.
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (SizeClass sc : _classes)
+            bytes += (long) sc.used * sc.chunkSize;
+        return bytes;
+    }
+
+    /**
+     * The number of size classes.
+     */
+    public int getSizeClassCount() {
+        return _classes.length;
+    }
+
+    /**
+     * The chunk size of the given size class.
+     */
+    public int getChunkSize(int sizeClass) {
+        return _classes[sizeClass].chunkSize;
+    }
+
+    /**
+     * Return the smallest size class whose chunks hold the given number of
+     * bytes, or -1 if the length exceeds the slab size.
+     */
+    public int getSizeClass(int length) {
+        if (length > _slabSize)
+            return -1;
+        int lo = 0;
+        int hi = _classes.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_classes[mid].chunkSize < length)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Allocate a chunk of the given size class, reserving a new slab if
+     * the class has no free chunk and the memory limit allows it.
+     *
+     * @return the chunk handle, or {@link #NONE} if no memory is available
+     */
+    public long allocate(int sizeClass, Object owner) {
+        SizeClass sc = _classes[sizeClass];
+        if (sc.freeCount == 0 && !addSlab(sc))
+            return NONE;
+
+        int chunk = sc.free[--sc.freeCount];
+        sc.owners.get(chunk / sc.chunksPerSlab)[chunk % sc.chunksPerSlab]
+            = owner;
+        sc.used++;
+        return ((long) sizeClass << 32) | chunk;
+    }
+
+    /**
+     * Free the chunk with the given handle.
+     */
+    public void free(long handle) {
+        SizeClass sc = _classes[sizeClass(handle)];
+        int chunk = chunk(handle);
+        sc.owners.get(chunk / sc.chunksPerSlab)[chunk % sc.chunksPerSlab]
+            = null;
+        sc.pushFree(chunk);
+        sc.used--;
+    }
+
+    /**
+     * Copy the given bytes into the chunk with the given handle.
+     */
+    public void write(long handle, byte[] bytes) {
+        ByteBuffer buf = buffer(handle);
+        buf.put(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Copy the given number of bytes out of the chunk with the given handle.
+     */
+    public byte[] read(long handle, int length) {
+        byte[] bytes = new byte[length];
+        buffer(handle).get(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Return the owner recorded for the chunk with the given handle.
+     */
+    public Object getOwner(long handle) {
+        SizeClass sc = _classes[sizeClass(handle)];
+        int chunk = chunk(handle);
+        return sc.owners.get(chunk / sc.chunksPerSlab)
+            [chunk % sc.chunksPerSlab];
+    }
+
+    /**
+     * The number of slab slots of the given size class. Some slots may
+     * be empty after slabs have been released.
+     */
+    public int getSlabCount(int sizeClass) {
+        return _classes[sizeClass].slabs.size();
+    }
+
+    /**
+     * Return the owners of the chunks in the given slab, or null if the
+     * slab slot is empty. Free chunks have a null owner.
+     */
+    public Object[] getSlabOwners(int sizeClass, int slab) {
+        Object[] owners = _classes[sizeClass].owners.get(slab);
+        return (owners == null) ? null : owners.clone();
+    }
+
+    /**
+     * Release a slab whose chunks are all free from its size class, making
+     * it available to any size class.
+     */
+    public void releaseSlab(int sizeClass, int slab) {
+        SizeClass sc = _classes[sizeClass];
+        ByteBuffer buf = sc.slabs.get(slab);
+        if (buf == null)
+            return;
+        for (Object owner : sc.owners.get(slab))
+            if (owner != null)
+                throw new IllegalStateException();
+
+        int first = slab * sc.chunksPerSlab;
+        int last = first + sc.chunksPerSlab;
+        int count = 0;
+        for (int i = 0; i < sc.freeCount; i++)
+            if (sc.free[i] < first || sc.free[i] >= last)
+                sc.free[count++] = sc.free[i];
+        sc.freeCount = count;
+        sc.slabs.set(slab, null);
+        sc.owners.set(slab, null);
+        _spare.add(buf);
+    }
+
+    /**
+     * Drop all slabs. Outstanding handles become invalid.
+     */
+    public void clear() {
+        for (SizeClass sc : _classes)
+            sc.clear();
+        _spare.clear();
+        _reserved = 0;
+    }
+
+    private boolean addSlab(SizeClass sc) {
+        ByteBuffer buf;
+        if (!_spare.isEmpty())
+            buf = _spare.remove(_spare.size() - 1);
+        else if (_reserved + _slabSize <= _maxBytes) {
+            buf = ByteBuffer.allocateDirect(_slabSize);
+            _reserved += _slabSize;
+        } else
+            return false;
+
+        int slab = sc.slabs.indexOf(null);
+        if (slab == -1) {
+            slab = sc.slabs.size();
+            sc.slabs.add(buf);
+            sc.owners.add(new Object[sc.chunksPerSlab]);
+        } else {
+            sc.slabs.set(slab, buf);
+            sc.owners.set(slab, new Object[sc.chunksPerSlab]);
+        }
+        int first = slab * sc.chunksPerSlab;
+        for (int i = sc.chunksPerSlab - 1; i >= 0; i--)
+            sc.pushFree(first + i);
+        return true;
+    }
+
+    private ByteBuffer buffer(long handle) {
+        SizeClass sc = _classes[sizeClass(handle)];
+        int chunk = chunk(handle);
+        ByteBuffer buf = sc.slabs.get(chunk / sc.chunksPerSlab).duplicate();
+        buf.position((chunk % sc.chunksPerSlab) * sc.chunkSize);
+        return buf;
+    }
+
+    /**
+     * The size class of the given handle.
+     */
+    public static int sizeClass(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private static int chunk(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Slabs, chunk owners and free list of a single chunk size.
+     */
+    private static class SizeClass {
+
+        final int chunkSize;
+        final int chunksPerSlab;
+        final List<ByteBuffer> slabs = new ArrayList<>();
+        final List<Object[]> owners = new ArrayList<>();
+        int[] free = new int[16];
+        int freeCount = 0;
+        int used = 0;
+
+        SizeClass(int chunkSize, int chunksPerSlab) {
+            this.chunkSize = chunkSize;
+            this.chunksPerSlab = chunksPerSlab;
+        }
+
+        void pushFree(int chunk) {
+            if (freeCount == free.length)
+                free = Arrays.copyOf(free, free.length * 2);
+            free[freeCount++] = chunk;
+        }
+
+        void clear() {
+            slabs.clear();
+            owners.clear();
+            free = new int[16];
+            freeCount = 0;
+            used = 0;
+        }
+    }
+}
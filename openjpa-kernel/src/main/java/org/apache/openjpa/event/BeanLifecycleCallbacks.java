@@ -21,6 +21,8 @@ package org.apache.openjpa.event;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
@@ -41,6 +43,7 @@ public class BeanLifecycleCallbacks
         (BeanLifecycleCallbacks.class);
 
     private transient Object _listener;
+    private transient MethodHandle _handle;
 
     /**
      * Constructor. Make the callback on an instance of the given type.
@@ -59,6 +62,7 @@ public class BeanLifecycleCallbacks
     public BeanLifecycleCallbacks(Class<?> cls, Method method, boolean arg) {
         super(method, arg);
         _listener = newListener(cls);
+        _handle = getHandle(method, _listener, arg ? 2 : 1);
     }
 
     private Object newListener(Class<?> cls) {
@@ -76,6 +80,18 @@ public class BeanLifecycleCallbacks
     @Override
     public void makeCallback(Object obj, Object rel, int eventType)
         throws Exception {
+        if (_handle != null) {
+            try {
+                if (requiresArgument())
+                    _handle.invokeExact(obj, rel);
+                else
+                    _handle.invokeExact(obj);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+            return;
+        }
+
         Method callback = getCallbackMethod();
         if (!callback.isAccessible())
             AccessController.doPrivileged(J2DoPrivHelper.setAccessibleAction(
@@ -92,6 +108,8 @@ public class BeanLifecycleCallbacks
         super.readExternal(in);
         Class<?> cls = (Class<?>) in.readObject();
         _listener = newListener(cls);
+        _handle = getHandle(getCallbackMethod(), _listener,
+            requiresArgument() ? 2 : 1);
     }
 
     @Override
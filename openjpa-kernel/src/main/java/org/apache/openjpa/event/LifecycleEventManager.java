@@ -20,12 +20,10 @@ package org.apache.openjpa.event;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.meta.ClassMetaData;
@@ -35,7 +33,8 @@ import org.apache.openjpa.util.InvalidStateException;
 /**
  * Manager that can be used to track and notify listeners on lifecycle events.
  *  This class is optimized for event firing rather than for adding and
- * removing listeners, which are O(n) operations. This class also does not
+ * removing listeners, which are O(n) operations that copy the listener
+ * lists, so that events can be fired without locking. This class also does not
  * maintain perfect set semantics for listeners; it is possible to wind up
  * having the same listener invoked multiple times for a single event if it
  * is added to this manager multiple times with different classes, or with
@@ -55,16 +54,16 @@ public class LifecycleEventManager
     private static final Localizer _loc = Localizer.forPackage(
         LifecycleEventManager.class);
 
-    private Map<Class<?>, ListenerList> _classListeners = null;
-    private ListenerList _listeners = null;
-    // odd-element: Listener even-element: Class[]
-    private List<Object> _addListeners = new LinkedList<>();
-    private List<Object> _remListeners = new LinkedList<>();
-    private List<Exception> _exceps = new LinkedList<>();
-    private boolean _firing = false;
-    private boolean _fail = false;
-    private boolean _failFast = false;
-    private boolean _activated = false;  // set to true once modified
+    private static final ListenerList[] EMPTY_LISTENERS = new ListenerList[0];
+
+    // listener lists are copied on write so that events can be fired
+    // without holding a lock
+    private volatile Map<Class<?>, ListenerList> _classListeners = null;
+    private volatile ListenerList _listeners = null;
+    // the listener lists for each source class, in firing order
+    private transient volatile Map<Class<?>, ListenerList[]> _dispatch = null;
+    private volatile boolean _failFast = false;
+    private volatile boolean _activated = false;  // set to true once modified
 
     /**
      * Whether this LifeCycleEventManager has had at least one listener or callback
@@ -93,7 +92,8 @@ public class LifecycleEventManager
 
     /**
      * Register a lifecycle listener for the given classes. If the classes
-     * array is null, register for all classes.
+     * array is null, register for all classes. A listener added while an
+     * event is being fired receives the events fired after it was added.
      */
     public synchronized void addListener(Object listener, Class<?>[] classes) {
         if (listener == null)
@@ -101,50 +101,54 @@ public class LifecycleEventManager
         if (classes != null && classes.length == 0)
             return;
         _activated = true;
-        if (_firing) {
-            _addListeners.add(listener);
-            _addListeners.add(classes);
-            return;
-        }
 
         if (classes == null) {
-            if (_listeners == null)
-                _listeners = new ListenerList(5);
-            _listeners.add(listener);
-            return;
-        }
-
-        if (_classListeners == null)
-            _classListeners = new HashMap<>();
-        ListenerList listeners;
-        for (int i = 0; i < classes.length; i++) {
-            listeners = _classListeners.get(classes[i]);
-            if (listeners == null) {
-                listeners = new ListenerList(3);
-                _classListeners.put(classes[i], listeners);
-            }
+            ListenerList listeners = (_listeners == null)
+                ? new ListenerList(5) : new ListenerList(_listeners);
             listeners.add(listener);
+            _listeners = listeners;
+        } else {
+            Map<Class<?>, ListenerList> classListeners =
+                (_classListeners == null) ? new HashMap<>()
+                : new HashMap<>(_classListeners);
+            ListenerList listeners;
+            for (int i = 0; i < classes.length; i++) {
+                listeners = classListeners.get(classes[i]);
+                listeners = (listeners == null) ? new ListenerList(3)
+                    : new ListenerList(listeners);
+                listeners.add(listener);
+                classListeners.put(classes[i], listeners);
+            }
+            _classListeners = classListeners;
         }
+        _dispatch = null;
     }
 
     /**
      * Remove the given listener.
      */
     public synchronized void removeListener(Object listener) {
-        if (_firing) {
-            _remListeners.add(listener);
+        if (_listeners != null && _listeners.contains(listener)) {
+            ListenerList listeners = new ListenerList(_listeners);
+            listeners.remove(listener);
+            _listeners = listeners;
+            _dispatch = null;
             return;
         }
-
-        if (_listeners != null && _listeners.remove(listener))
-            return;
         if (_classListeners != null) {
+            Map<Class<?>, ListenerList> classListeners =
+                new HashMap<>(_classListeners);
             ListenerList listeners;
-            for (Iterator<ListenerList> itr = _classListeners.values().iterator();
-                itr.hasNext();) {
-                listeners = itr.next();
-                listeners.remove(listener);
+            for (Map.Entry<Class<?>, ListenerList> entry
+                : classListeners.entrySet()) {
+                if (entry.getValue().contains(listener)) {
+                    listeners = new ListenerList(entry.getValue());
+                    listeners.remove(listener);
+                    entry.setValue(listeners);
+                }
             }
+            _classListeners = classListeners;
+            _dispatch = null;
         }
     }
 
@@ -250,21 +254,50 @@ public class LifecycleEventManager
         ClassMetaData meta, int type) {
         if (meta.getLifecycleMetaData().getIgnoreSystemListeners())
             return false;
-        if (fireEvent(null, source, null, type, _listeners, true, null) == Boolean.TRUE)
-            return true;
+        ListenerList[] lists = getListeners(source, meta);
+        for (int i = 0; i < lists.length; i++)
+            if (lists[i].hasListeners(type))
+                return true;
         ListenerList system = meta.getRepository().getSystemListeners();
-        if (!system.isEmpty() && fireEvent(null, source, null, type, system,
-            true, null) == Boolean.TRUE)
-            return true;
-        if (_classListeners != null) {
-            Class<?> c = source == null ? meta.getDescribedType() : source.getClass();
-            do {
-                if (fireEvent(null, source, null, type, _classListeners.get(c), true, null) == Boolean.TRUE)
-                    return true;
-                c = c.getSuperclass();
-            } while (c != null && c != Object.class);
+        return !system.isEmpty() && system.hasListeners(type);
+    }
+
+    /**
+     * Return the listener lists for the given source in firing order: the
+     * listeners for all classes, followed by the listeners of the class of
+     * the source and of each of its superclasses.
+     */
+    private ListenerList[] getListeners(Object source, ClassMetaData meta) {
+        if (_listeners == null && _classListeners == null)
+            return EMPTY_LISTENERS;
+
+        Class<?> cls = (source == null) ? meta.getDescribedType()
+            : source.getClass();
+        Map<Class<?>, ListenerList[]> dispatch = _dispatch;
+        if (dispatch == null) {
+            dispatch = new ConcurrentHashMap<>();
+            _dispatch = dispatch;
         }
-        return false;
+        ListenerList[] lists = dispatch.get(cls);
+        if (lists == null) {
+            List<ListenerList> chain = new ArrayList<>();
+            ListenerList listeners = _listeners;
+            if (listeners != null && !listeners.isEmpty())
+                chain.add(listeners);
+            Map<Class<?>, ListenerList> classListeners = _classListeners;
+            if (classListeners != null) {
+                Class<?> c = cls;
+                do {
+                    listeners = classListeners.get(c);
+                    if (listeners != null && !listeners.isEmpty())
+                        chain.add(listeners);
+                    c = c.getSuperclass();
+                } while (c != null && c != Object.class);
+            }
+            lists = chain.toArray(new ListenerList[chain.size()]);
+            dispatch.put(cls, lists);
+        }
+        return lists;
     }
 
     /**
@@ -276,98 +309,75 @@ public class LifecycleEventManager
     }
 
     /**
-     * Fire lifecycle event to all registered listeners.
+     * Fire lifecycle event to all registered listeners. Events are fired
+     * without holding a lock, and an event object is only created when a
+     * listener receives it.
      */
-    public synchronized Exception[] fireEvent(Object source, Object related,
+    public Exception[] fireEvent(Object source, Object related,
         ClassMetaData meta, int type) {
-        boolean reentrant = _firing;
-        _firing = true;
-        List<Exception> exceptions = (reentrant) ? new LinkedList<>() : _exceps;
         MetaDataDefaults def = meta.getRepository().getMetaDataFactory().
             getDefaults();
 
+        Firing firing = null;
         boolean callbacks = def.getCallbacksBeforeListeners(type);
         if (callbacks)
-            makeCallbacks(source, related, meta, type, exceptions);
-
-        LifecycleEvent ev = (LifecycleEvent) fireEvent(null, source, related,
-            type, _listeners, false, exceptions);
+            firing = makeCallbacks(source, related, meta, type, firing);
 
-        if (_classListeners != null) {
-            Class<?> c = source == null ? meta.getDescribedType() : source.getClass();
-            do {
-                ev = (LifecycleEvent) fireEvent(ev, source, related, type,
-                    _classListeners.get(c), false, exceptions);
-                c = c.getSuperclass();
-            } while (c != null && c != Object.class);
-        }
+        ListenerList[] lists = getListeners(source, meta);
+        for (int i = 0; i < lists.length; i++)
+            firing = fireEvent(firing, source, related, type, lists[i]);
 
         // make system listeners
         if (!meta.getLifecycleMetaData().getIgnoreSystemListeners()) {
             ListenerList system = meta.getRepository().getSystemListeners();
-            fireEvent(ev, source, related, type, system, false, exceptions);
+            firing = fireEvent(firing, source, related, type, system);
         }
 
         if (!callbacks)
-            makeCallbacks(source, related, meta, type, exceptions);
-
-        // create return array before clearing exceptions
-        Exception[] ret;
-        if (exceptions.isEmpty())
-            ret = EMPTY_EXCEPTIONS;
-        else
-            ret = exceptions.toArray
-                (new Exception[exceptions.size()]);
-
-        // if this wasn't a reentrant call, catch up with calls to add
-        // and remove listeners made while firing
-        if (!reentrant) {
-            _firing = false;
-            _fail = false;
-            if (!_addListeners.isEmpty())
-                for (Iterator<Object> itr = _addListeners.iterator(); itr.hasNext();)
-                    addListener(itr.next(), (Class[]) itr.next());
-            if (!_remListeners.isEmpty())
-                for (Iterator<Object> itr = _remListeners.iterator(); itr.hasNext();)
-                    removeListener(itr.next());
-            _addListeners.clear();
-            _remListeners.clear();
-            _exceps.clear();
-        }
-        return ret;
+            firing = makeCallbacks(source, related, meta, type, firing);
+
+        if (firing == null || firing.exceptions == null)
+            return EMPTY_EXCEPTIONS;
+        return firing.exceptions.toArray(
+            new Exception[firing.exceptions.size()]);
     }
 
     /**
-     * Make callbacks, recording any exceptions in the given collection.
+     * Make callbacks, recording any exceptions in the given firing state.
      */
-    private void makeCallbacks(Object source, Object related,
-        ClassMetaData meta, int type, Collection<Exception> exceptions) {
+    private Firing makeCallbacks(Object source, Object related,
+        ClassMetaData meta, int type, Firing firing) {
         // make lifecycle callbacks
         LifecycleCallbacks[] callbacks = meta.getLifecycleMetaData().
             getCallbacks(type);
-        for (int i = 0; !_fail && i < callbacks.length; i++) {
+        for (int i = 0; (firing == null || !firing.failed)
+            && i < callbacks.length; i++) {
             try {
                 callbacks[i].makeCallback(source, related, type);
             } catch (Exception e) {
-                exceptions.add(e);
-                if (_failFast)
-                    _fail = true;
+                if (firing == null)
+                    firing = new Firing();
+                firing.fail(e, _failFast);
             }
         }
+        return firing;
     }
 
     /**
      * Fire an event with the given source and type to the given list of
      * listeners. The event may have already been constructed.
      */
-    private Object fireEvent(LifecycleEvent ev, Object source, Object rel,
-        int type, ListenerList listeners, boolean mock, List<Exception> exceptions) {
+    private Firing fireEvent(Firing firing, Object source, Object rel,
+        int type, ListenerList listeners) {
         if (listeners == null || !listeners.hasListeners(type))
-            return null;
+            return firing;
+        if (firing == null)
+            firing = new Firing();
 
         Object listener;
         boolean responds;
-        for (int i = 0, size = listeners.size(); !_fail && i < size; i++) {
+        for (int i = 0, size = listeners.size(); !firing.failed && i < size;
+            i++) {
             listener = listeners.get(i);
             if (size == 1)
                 responds = true;
@@ -379,168 +389,167 @@ public class LifecycleEventManager
                 responds = false;
             }
             try {
-                switch (type) {
-                    case LifecycleEvent.BEFORE_CLEAR:
-                    case LifecycleEvent.AFTER_CLEAR:
-                        if (responds || listener instanceof ClearListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            if (type == LifecycleEvent.BEFORE_CLEAR)
-                                ((ClearListener) listener).beforeClear(ev);
-                            else
-                                ((ClearListener) listener).afterClear(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_PERSIST:
-                    case LifecycleEvent.AFTER_PERSIST:
-                        if (responds || listener instanceof PersistListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            if (type == LifecycleEvent.BEFORE_PERSIST)
-                                ((PersistListener) listener).beforePersist(ev);
-                            else
-                                ((PersistListener) listener).afterPersist(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_DELETE:
-                    case LifecycleEvent.AFTER_DELETE:
-                        if (responds || listener instanceof DeleteListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            if (type == LifecycleEvent.BEFORE_DELETE)
-                                ((DeleteListener) listener).beforeDelete(ev);
-                            else
-                                ((DeleteListener) listener).afterDelete(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_DIRTY:
-                    case LifecycleEvent.AFTER_DIRTY:
-                    case LifecycleEvent.BEFORE_DIRTY_FLUSHED:
-                    case LifecycleEvent.AFTER_DIRTY_FLUSHED:
-                        if (responds || listener instanceof DirtyListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            switch (type) {
-                                case LifecycleEvent.BEFORE_DIRTY:
-                                    ((DirtyListener) listener).beforeDirty(ev);
-                                    break;
-                                case LifecycleEvent.AFTER_DIRTY:
-                                    ((DirtyListener) listener).afterDirty(ev);
-                                    break;
-                                case LifecycleEvent.BEFORE_DIRTY_FLUSHED:
-                                    ((DirtyListener) listener)
-                                        .beforeDirtyFlushed(ev);
-                                    break;
-                                case LifecycleEvent.AFTER_DIRTY_FLUSHED:
-                                    ((DirtyListener) listener)
-                                        .afterDirtyFlushed(ev);
-                                    break;
-                            }
-                        }
-                        break;
-                    case LifecycleEvent.AFTER_LOAD:
-                    case LifecycleEvent.AFTER_REFRESH:
-                        if (responds || listener instanceof LoadListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            if (type == LifecycleEvent.AFTER_LOAD)
-                                ((LoadListener) listener).afterLoad(ev);
-                            else
-                                ((LoadListener) listener).afterRefresh(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_STORE:
-                    case LifecycleEvent.AFTER_STORE:
-                        if (responds || listener instanceof StoreListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, type);
-                            if (type == LifecycleEvent.BEFORE_STORE)
-                                ((StoreListener) listener).beforeStore(ev);
-                            else
-                                ((StoreListener) listener).afterStore(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_DETACH:
-                    case LifecycleEvent.AFTER_DETACH:
-                        if (responds || listener instanceof DetachListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, rel, type);
-                            if (type == LifecycleEvent.BEFORE_DETACH)
-                                ((DetachListener) listener).beforeDetach(ev);
-                            else
-                                ((DetachListener) listener).afterDetach(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_ATTACH:
-                    case LifecycleEvent.AFTER_ATTACH:
-                        if (responds || listener instanceof AttachListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, rel, type);
-                            if (type == LifecycleEvent.BEFORE_ATTACH)
-                                ((AttachListener) listener).beforeAttach(ev);
-                            else
-                                ((AttachListener) listener).afterAttach(ev);
-                        }
-                        break;
-
-                    case LifecycleEvent.AFTER_PERSIST_PERFORMED:
-                        if (responds || listener instanceof PostPersistListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, rel, type);
-                            ((PostPersistListener) listener).afterPersistPerformed(ev);
-                        }
-                        break;
-                    case LifecycleEvent.BEFORE_UPDATE:
-                    case LifecycleEvent.AFTER_UPDATE_PERFORMED:
-                        if (responds || listener instanceof UpdateListener) {
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, rel, type);
-                            if (type == LifecycleEvent.BEFORE_UPDATE)
-                                ((UpdateListener) listener).beforeUpdate(ev);
-                            else
-                                ((UpdateListener) listener).afterUpdatePerformed(ev);
-                        }
-                        break;
-                    case LifecycleEvent.AFTER_DELETE_PERFORMED:
-                        if (responds || listener instanceof PostDeleteListener){
-                            if (mock)
-                                return Boolean.TRUE;
-                            if (ev == null)
-                                ev = new LifecycleEvent(source, rel, type);
-                            ((PostDeleteListener) listener).afterDeletePerformed(ev);
-                        }
-                        break;
-                    default:
-                        throw new InvalidStateException(_loc.get("unknown-lifecycle-event", Integer.toString(type)));
-                }
-            }
-            catch (Exception e) {
-                exceptions.add(e);
-                if (_failFast)
-                    _fail = true;
+                dispatch(firing, source, rel, type, listener, responds);
+            } catch (Exception e) {
+                firing.fail(e, _failFast);
             }
         }
-        return ev;
+        return firing;
+    }
+
+    /**
+     * Deliver the event to the given listener if it handles events of
+     * the given type.
+     */
+    private static void dispatch(Firing firing, Object source, Object rel,
+        int type, Object listener, boolean responds) {
+        switch (type) {
+            case LifecycleEvent.BEFORE_CLEAR:
+            case LifecycleEvent.AFTER_CLEAR:
+                if (responds || listener instanceof ClearListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    if (type == LifecycleEvent.BEFORE_CLEAR)
+                        ((ClearListener) listener).beforeClear(ev);
+                    else
+                        ((ClearListener) listener).afterClear(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_PERSIST:
+            case LifecycleEvent.AFTER_PERSIST:
+                if (responds || listener instanceof PersistListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    if (type == LifecycleEvent.BEFORE_PERSIST)
+                        ((PersistListener) listener).beforePersist(ev);
+                    else
+                        ((PersistListener) listener).afterPersist(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_DELETE:
+            case LifecycleEvent.AFTER_DELETE:
+                if (responds || listener instanceof DeleteListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    if (type == LifecycleEvent.BEFORE_DELETE)
+                        ((DeleteListener) listener).beforeDelete(ev);
+                    else
+                        ((DeleteListener) listener).afterDelete(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_DIRTY:
+            case LifecycleEvent.AFTER_DIRTY:
+            case LifecycleEvent.BEFORE_DIRTY_FLUSHED:
+            case LifecycleEvent.AFTER_DIRTY_FLUSHED:
+                if (responds || listener instanceof DirtyListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    switch (type) {
+                        case LifecycleEvent.BEFORE_DIRTY:
+                            ((DirtyListener) listener).beforeDirty(ev);
+                            break;
+                        case LifecycleEvent.AFTER_DIRTY:
+                            ((DirtyListener) listener).afterDirty(ev);
+                            break;
+                        case LifecycleEvent.BEFORE_DIRTY_FLUSHED:
+                            ((DirtyListener) listener)
+                                .beforeDirtyFlushed(ev);
+                            break;
+                        case LifecycleEvent.AFTER_DIRTY_FLUSHED:
+                            ((DirtyListener) listener)
+                                .afterDirtyFlushed(ev);
+                            break;
+                    }
+                }
+                break;
+            case LifecycleEvent.AFTER_LOAD:
+            case LifecycleEvent.AFTER_REFRESH:
+                if (responds || listener instanceof LoadListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    if (type == LifecycleEvent.AFTER_LOAD)
+                        ((LoadListener) listener).afterLoad(ev);
+                    else
+                        ((LoadListener) listener).afterRefresh(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_STORE:
+            case LifecycleEvent.AFTER_STORE:
+                if (responds || listener instanceof StoreListener) {
+                    LifecycleEvent ev = firing.getEvent(source, null, type);
+                    if (type == LifecycleEvent.BEFORE_STORE)
+                        ((StoreListener) listener).beforeStore(ev);
+                    else
+                        ((StoreListener) listener).afterStore(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_DETACH:
+            case LifecycleEvent.AFTER_DETACH:
+                if (responds || listener instanceof DetachListener) {
+                    LifecycleEvent ev = firing.getEvent(source, rel, type);
+                    if (type == LifecycleEvent.BEFORE_DETACH)
+                        ((DetachListener) listener).beforeDetach(ev);
+                    else
+                        ((DetachListener) listener).afterDetach(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_ATTACH:
+            case LifecycleEvent.AFTER_ATTACH:
+                if (responds || listener instanceof AttachListener) {
+                    LifecycleEvent ev = firing.getEvent(source, rel, type);
+                    if (type == LifecycleEvent.BEFORE_ATTACH)
+                        ((AttachListener) listener).beforeAttach(ev);
+                    else
+                        ((AttachListener) listener).afterAttach(ev);
+                }
+                break;
+
+            case LifecycleEvent.AFTER_PERSIST_PERFORMED:
+                if (responds || listener instanceof PostPersistListener) {
+                    LifecycleEvent ev = firing.getEvent(source, rel, type);
+                    ((PostPersistListener) listener).afterPersistPerformed(ev);
+                }
+                break;
+            case LifecycleEvent.BEFORE_UPDATE:
+            case LifecycleEvent.AFTER_UPDATE_PERFORMED:
+                if (responds || listener instanceof UpdateListener) {
+                    LifecycleEvent ev = firing.getEvent(source, rel, type);
+                    if (type == LifecycleEvent.BEFORE_UPDATE)
+                        ((UpdateListener) listener).beforeUpdate(ev);
+                    else
+                        ((UpdateListener) listener).afterUpdatePerformed(ev);
+                }
+                break;
+            case LifecycleEvent.AFTER_DELETE_PERFORMED:
+                if (responds || listener instanceof PostDeleteListener){
+                    LifecycleEvent ev = firing.getEvent(source, rel, type);
+                    ((PostDeleteListener) listener).afterDeletePerformed(ev);
+                }
+                break;
+            default:
+                throw new InvalidStateException(_loc.get("unknown-lifecycle-event", Integer.toString(type)));
+        }
+    }
+
+    /**
+     * State of a single event firing: the event shared by all listeners and
+     * the exceptions raised so far.
+     */
+    private static final class Firing {
+
+        LifecycleEvent event;
+        List<Exception> exceptions;
+        boolean failed;
+
+        LifecycleEvent getEvent(Object source, Object rel, int type) {
+            if (event == null)
+                event = (rel == null) ? new LifecycleEvent(source, type)
+                    : new LifecycleEvent(source, rel, type);
+            return event;
+        }
+
+        void fail(Exception e, boolean failFast) {
+            if (exceptions == null)
+                exceptions = new ArrayList<>(3);
+            exceptions.add(e);
+            if (failFast)
+                failed = true;
+        }
     }
 
     /**
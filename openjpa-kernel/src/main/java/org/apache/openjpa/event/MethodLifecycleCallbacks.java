@@ -22,6 +22,10 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.util.Arrays;
@@ -31,7 +35,9 @@ import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.util.UserException;
 
 /**
- * Callback adapter that invokes a callback method via reflection.
+ * Callback adapter that invokes a callback method via reflection. The
+ * method is bound to a {@link MethodHandle} when the callback is created,
+ * so that making the callback does not go through {@link Method#invoke}.
  *
  * @author Steve Kim
  */
@@ -42,6 +48,7 @@ public class MethodLifecycleCallbacks
         (MethodLifecycleCallbacks.class);
 
     private transient Method _callback;
+    private transient MethodHandle _handle;
     private boolean _arg;
 
     /**
@@ -53,6 +60,7 @@ public class MethodLifecycleCallbacks
         Class[] args = arg ? new Class[]{ Object.class } : null;
         _callback = getMethod(cls, method, args);
         _arg = arg;
+        _handle = getHandle(_callback, null, arg ? 2 : 1);
     }
 
     /**
@@ -61,6 +69,7 @@ public class MethodLifecycleCallbacks
     public MethodLifecycleCallbacks(Method method, boolean arg) {
         _callback = method;
         _arg = arg;
+        _handle = getHandle(method, null, arg ? 2 : 1);
     }
 
     /**
@@ -85,6 +94,18 @@ public class MethodLifecycleCallbacks
     @Override
     public void makeCallback(Object obj, Object arg, int eventType)
         throws Exception {
+        if (_handle != null) {
+            try {
+                if (_arg)
+                    _handle.invokeExact(obj, arg);
+                else
+                    _handle.invokeExact(obj);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+            return;
+        }
+
         if (!_callback.isAccessible())
             AccessController.doPrivileged(J2DoPrivHelper.setAccessibleAction(
                 _callback, true));
@@ -123,6 +144,30 @@ public class MethodLifecycleCallbacks
                 method, args == null ? null : Arrays.asList(args)));
 	}
 
+    /**
+     * Return a handle to the given callback method that takes the given
+     * number of <code>Object</code> arguments and returns nothing, or null
+     * if the method cannot be bound. The handle for an instance method
+     * takes the receiver as its first argument unless a target is given.
+     */
+    protected static MethodHandle getHandle(Method method, Object target,
+        int params) {
+        try {
+            if (!method.isAccessible())
+                AccessController.doPrivileged(J2DoPrivHelper
+                    .setAccessibleAction(method, true));
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (target != null)
+                handle = handle.bindTo(target);
+            Class<?>[] args = new Class<?>[params];
+            Arrays.fill(args, Object.class);
+            return handle.asType(MethodType.methodType(void.class, args));
+        } catch (RuntimeException | IllegalAccessException e) {
+            // fall back to reflection
+            return null;
+        }
+    }
+
     /**
      * Returns true if all parameters in the from array are assignable
      * from the corresponding parameters of the to array.
@@ -153,6 +198,7 @@ public class MethodLifecycleCallbacks
 
         Class[] args = _arg ? new Class[]{ Object.class } : null;
         _callback = getMethod(cls, methName, args);
+        _handle = getHandle(_callback, null, _arg ? 2 : 1);
     }
 
     @Override
@@ -22,8 +22,11 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import org.apache.openjpa.kernel.BrokerFactory;
 import org.apache.openjpa.lib.util.Localizer;
@@ -173,6 +176,55 @@ public class RemoteCommitEvent
         return (_deletes == null) ? Collections.EMPTY_LIST : _deletes;
     }
 
+    /**
+     * Merge the given events into as few events as possible. Consecutive
+     * events with the same payload type are combined into one event holding
+     * the union of their class names and object IDs, without duplicates.
+     * Event order is otherwise preserved.
+     *
+     * @since 3.1.3
+     */
+    public static List<RemoteCommitEvent> coalesce(
+        List<RemoteCommitEvent> events) {
+        List<RemoteCommitEvent> merged = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= events.size(); i++) {
+            if (i < events.size() && events.get(i).getPayloadType()
+                == events.get(start).getPayloadType())
+                continue;
+            if (i - start == 1)
+                merged.add(events.get(start));
+            else
+                merged.add(merge(events.subList(start, i)));
+            start = i;
+        }
+        return merged;
+    }
+
+    /**
+     * Merge events of the same payload type.
+     */
+    private static RemoteCommitEvent merge(List<RemoteCommitEvent> events) {
+        int payload = events.get(0).getPayloadType();
+        Collection addIds = (payload == PAYLOAD_OIDS_WITH_ADDS)
+            ? new LinkedHashSet() : null;
+        Collection addClasses = new LinkedHashSet();
+        Collection updates = new LinkedHashSet();
+        Collection deletes = new LinkedHashSet();
+        for (RemoteCommitEvent event : events) {
+            if (event._addIds != null && addIds != null)
+                addIds.addAll(event._addIds);
+            if (event._addClasses != null)
+                addClasses.addAll(event._addClasses);
+            if (event._updates != null)
+                updates.addAll(event._updates);
+            if (event._deletes != null)
+                deletes.addAll(event._deletes);
+        }
+        return new RemoteCommitEvent(payload, addIds, addClasses, updates,
+            deletes);
+    }
+
     @Override
     public void writeExternal(ObjectOutput out)
         throws IOException {
@@ -18,31 +18,42 @@
  */
 package org.apache.openjpa.event;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.pool2.BasePooledObjectFactory;
@@ -50,13 +61,16 @@ import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.lib.conf.Configurable;
+import org.apache.openjpa.lib.conf.Configuration;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.util.GeneralException;
 import org.apache.openjpa.util.InternalException;
+import org.apache.openjpa.util.ObjectCodec;
 import org.apache.openjpa.util.Serialization;
 
 
@@ -89,6 +103,21 @@ public class TCPRemoteCommitProvider
     private int _maxTotal = 2;
     private int _maxIdle = 2;
     private int _recoveryTimeMillis = 15000;
+    private String _codecName = "java";
+    private int _coalesceMillis = 0;
+    private int _maxBatchEvents = 100;
+    private int _numReceiveThreads = 2;
+    private int _receiveQueueSize = 1000;
+    private int _maxPacketSize = 16 * 1024 * 1024;
+    private final List<RemoteCommitEvent> _batch = new ArrayList<>();
+    private long _batchCreated;
+    private CoalesceThread _coalesceThread;
+    private final AtomicLong _packetCount = new AtomicLong();
+    private final AtomicLong _eventCount = new AtomicLong();
+    private final AtomicLong _latencyNanos = new AtomicLong();
+    private final AtomicLong _maxLatencyNanos = new AtomicLong();
+    private ObjectCodec _codec;
+    private OpenJPAConfiguration _conf;
     private TCPPortListener _listener;
     private final BroadcastQueue _broadcastQueue = new BroadcastQueue();
     private final List<BroadcastWorkerThread> _broadcastThreads = Collections.synchronizedList(new LinkedList<>());
@@ -221,6 +250,171 @@ public class TCPRemoteCommitProvider
         return _broadcastThreads.size();
     }
 
+    /**
+     * Set the codec used to encode events, as accepted by
+     * {@link Serialization#newCodec}. Defaults to <code>java</code>, which
+     * sends events with Java serialization. All peers must use the same
+     * codec, although packets in the Java serialization format are accepted
+     * regardless of this setting.
+     *
+     * @param codec the name of the codec used to encode events
+     * @since 3.1.3
+     */
+    public void setCodec(final String codec) {
+        _codecName = codec;
+    }
+
+    /**
+     * @return the name of the codec used to encode events.
+     */
+    public String getCodec() {
+        return _codecName;
+    }
+
+    /**
+     * Set the number of threads that decode received packets and notify the
+     * listeners of this provider. Incoming connections from all peers are read by a
+     * single selector thread regardless of this setting. Defaults to 2. Only the
+     * setting of the first provider listening on a port is used.
+     *
+     * @param numReceiveThreads the number of threads processing received packets
+     * @since 3.1.3
+     */
+    public void setNumReceiveThreads(final int numReceiveThreads) {
+        _numReceiveThreads = numReceiveThreads;
+    }
+
+    /**
+     * @return the number of threads processing received packets.
+     */
+    public int getNumReceiveThreads() {
+        return _numReceiveThreads;
+    }
+
+    /**
+     * Set the maximum number of received packets waiting to be processed. When
+     * this many packets are waiting, reading from the peer connections is suspended,
+     * slowing down the peers through TCP flow control. Defaults to 1000. Only the
+     * setting of the first provider listening on a port is used.
+     *
+     * @param receiveQueueSize the maximum number of received packets waiting to be processed
+     * @since 3.1.3
+     */
+    public void setReceiveQueueSize(final int receiveQueueSize) {
+        _receiveQueueSize = receiveQueueSize;
+    }
+
+    /**
+     * @return the maximum number of received packets waiting to be processed.
+     */
+    public int getReceiveQueueSize() {
+        return _receiveQueueSize;
+    }
+
+    /**
+     * Set the maximum number of bytes of a packet. A peer sending a longer
+     * packet is considered faulty and its connection is closed. Longer
+     * packets are not sent.
+     * Defaults to 16 MB. Only the setting of the first provider listening on
+     * a port is used.
+     *
+     * @param maxPacketSize the maximum number of bytes of a received packet
+     * @since 3.1.3
+     */
+    public void setMaxPacketSize(final int maxPacketSize) {
+        _maxPacketSize = maxPacketSize;
+    }
+
+    /**
+     * @return the maximum number of bytes of a received packet.
+     */
+    public int getMaxPacketSize() {
+        return _maxPacketSize;
+    }
+
+    /**
+     * Set the number of milliseconds during which committed events are
+     * collected into a single batch. The events of a batch are merged, removing
+     * duplicate object ids, and sent as one packet. A value of 0, the default,
+     * sends one packet per commit.
+     *
+     * @param millis the number of milliseconds to collect events before sending them
+     * @since 3.1.3
+     */
+    public void setCoalesceMillis(final int millis) {
+        _coalesceMillis = millis;
+    }
+
+    /**
+     * @return the number of milliseconds during which committed events are collected into a single batch.
+     */
+    public int getCoalesceMillis() {
+        return _coalesceMillis;
+    }
+
+    /**
+     * Set the maximum number of committed events in a batch. A full batch is sent
+     * without waiting for the end of the {@link #setCoalesceMillis coalescing window}.
+     * Defaults to 100.
+     *
+     * @param maxBatchEvents the maximum number of committed events in a batch
+     * @since 3.1.3
+     */
+    public void setMaxBatchEvents(final int maxBatchEvents) {
+        _maxBatchEvents = maxBatchEvents;
+    }
+
+    /**
+     * @return the maximum number of committed events in a batch.
+     */
+    public int getMaxBatchEvents() {
+        return _maxBatchEvents;
+    }
+
+    /**
+     * @return the number of packets sent to peers.
+     * @since 3.1.3
+     */
+    public long getPacketCount() {
+        return _packetCount.get();
+    }
+
+    /**
+     * @return the number of committed events sent to peers.
+     * @since 3.1.3
+     */
+    public long getEventCount() {
+        return _eventCount.get();
+    }
+
+    /**
+     * @return the average number of committed events per packet sent.
+     * @since 3.1.3
+     */
+    public double getAverageBatchSize() {
+        long packets = _packetCount.get();
+        return (packets == 0) ? 0 : (double) _eventCount.get() / packets;
+    }
+
+    /**
+     * @return the average number of milliseconds between the commit of the first event in a packet and the
+     * completion of its transmission to all peers.
+     * @since 3.1.3
+     */
+    public double getAveragePropagationMillis() {
+        long packets = _packetCount.get();
+        return (packets == 0) ? 0 : _latencyNanos.get() / 1e6 / packets;
+    }
+
+    /**
+     * @return the maximum number of milliseconds between the commit of the first event in a packet and the
+     * completion of its transmission to all peers.
+     * @since 3.1.3
+     */
+    public double getMaxPropagationMillis() {
+        return _maxLatencyNanos.get() / 1e6;
+    }
+
     /**
      * Sets the list of addresses of peers to which this provider will send events to.
      * The peers are semicolon-separated <code>names</code> list in the form of "myhost1:portA;myhost2:portB".
@@ -284,6 +478,12 @@ public class TCPRemoteCommitProvider
 
     // ---------- Configurable implementation ----------
 
+    @Override
+    public void setConfiguration(final Configuration config) {
+        super.setConfiguration(config);
+        _conf = (OpenJPAConfiguration) config;
+    }
+
     /**
      * Subclasses that need to perform actions in
      * {@link Configurable#endConfiguration} must invoke this method.
@@ -291,13 +491,20 @@ public class TCPRemoteCommitProvider
     @Override
     public void endConfiguration() {
         super.endConfiguration();
+        _codec = Serialization.newCodec(_codecName, _conf);
+        if (_coalesceMillis > 0 && _coalesceThread == null) {
+            _coalesceThread = new CoalesceThread();
+            _coalesceThread.setDaemon(true);
+            _coalesceThread.start();
+        }
         synchronized (s_portListenerMap) {
             // see if a listener exists for this port.
             _listener = s_portListenerMap.get(String.valueOf(_port));
 
             if (_listener == null || (!_listener.isRunning() && _listener._port == _port)) {
                 try {
-                    _listener = new TCPPortListener(_port, log);
+                    _listener = new TCPPortListener(_port, log, _numReceiveThreads, _receiveQueueSize,
+                        _maxPacketSize);
                     _listener.listen();
                     s_portListenerMap.put(String.valueOf(_port), _listener);
                 } catch (Exception e) {
@@ -331,46 +538,180 @@ public class TCPRemoteCommitProvider
     // pre 3.3.4	= <no version number transmitted>
     // 3.3 Preview 	= 0x1428acfd;
     // 3.4 			= 0x1428acff;
-    private static final long PROTOCOL_VERSION = 0x1428acff;
+    // 3.1.3		= 0x1428ad01; framed packets
+    private static final long PROTOCOL_VERSION = 0x1428ad01;
+    // 3.1.3 codec	= 0x1428ad00; sent unless the java codec is used
+    private static final long CODEC_PROTOCOL_VERSION = 0x1428ad00;
+    // 3.1.3: every packet starts with a Java serialization stream header and
+    // a block of data holding the protocol version and the length of the rest
+    // of the packet. Prior releases read the version from that block and
+    // report a mismatch rather than a corrupt stream.
+    private static final int FRAME_HEADER_LENGTH = 18;
+    private static final int FRAME_BLOCK_LENGTH = 12;
+    private static final int FRAME_VERSION_OFFSET = 6;
+    private static final int FRAME_LENGTH_OFFSET = 14;
 
     @Override
     public void broadcast(final RemoteCommitEvent event) {
-        // build a packet notifying other JVMs of object changes.
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);) {
+        if (_coalesceMillis > 0) {
+            coalesce(event);
+        } else {
+            broadcast(event, 1, System.nanoTime());
+        }
+    }
 
+    /**
+     * Build a packet notifying other JVMs of the given changes, and send it
+     * or queue it for the broadcast threads.
+     *
+     * @param event the event to send
+     * @param events the number of committed events merged into the event
+     * @param created the {@link System#nanoTime} of the first merged commit
+     */
+    private void broadcast(final RemoteCommitEvent event, final int events, final long created) {
+        try {
+            byte[] bytes = newPacket(event);
+            if (bytes.length - FRAME_HEADER_LENGTH > _maxPacketSize) {
+                if (log.isWarnEnabled()) {
+                    log.warn(s_loc.get("tcp-payload-too-large", String.valueOf(bytes.length - FRAME_HEADER_LENGTH),
+                        String.valueOf(_maxPacketSize)));
+                }
+                return;
+            }
+            Packet packet = new Packet(bytes, events, created);
+            if (_broadcastThreads.isEmpty()) {
+                sendUpdatePacket(packet);
+            } else {
+                _broadcastQueue.addPacket(packet);
+            }
+        } catch (IOException ioe) {
+            if (log.isWarnEnabled()) {
+                log.warn(s_loc.get("tcp-payload-create-error"), ioe);
+            }
+        }
+    }
+
+    private byte[] newPacket(final RemoteCommitEvent event) throws IOException {
+        if (!"java".equals(_codecName)) {
+            return newEncodedPacket(event);
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
             oos.writeLong(PROTOCOL_VERSION);
+            oos.writeInt(0);
+            // end the block holding the frame header
+            oos.flush();
             oos.writeLong(_id);
             oos.writeInt(_port);
             oos.writeObject(_localhost);
             oos.writeObject(event);
             oos.flush();
+        }
+        return frame(baos.toByteArray());
+    }
 
-            byte[] bytes = baos.toByteArray();
-            baos.close();
-            if (_broadcastThreads.isEmpty()) {
-                sendUpdatePacket(bytes);
-            } else {
-                _broadcastQueue.addPacket(bytes);
+    /**
+     * Build a packet holding the event encoded by the configured codec.
+     */
+    private byte[] newEncodedPacket(final RemoteCommitEvent event) throws IOException {
+        byte[] payload = _codec.encode(event);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(payload.length + 32 + _localhost.length);
+        DataOutputStream dos = new DataOutputStream(baos);
+        // the frame header as written by an ObjectOutputStream
+        dos.writeShort(ObjectStreamConstants.STREAM_MAGIC);
+        dos.writeShort(ObjectStreamConstants.STREAM_VERSION);
+        dos.writeByte(ObjectStreamConstants.TC_BLOCKDATA);
+        dos.writeByte(FRAME_BLOCK_LENGTH);
+        dos.writeLong(CODEC_PROTOCOL_VERSION);
+        dos.writeInt(0);
+        dos.writeLong(_id);
+        dos.writeInt(_port);
+        dos.writeShort(_localhost.length);
+        dos.write(_localhost);
+        dos.writeInt(payload.length);
+        dos.write(payload);
+        dos.flush();
+        return frame(baos.toByteArray());
+    }
+
+    /**
+     * Write the length of the packet into the space left for it in the
+     * frame header of the given bytes.
+     */
+    private static byte[] frame(final byte[] bytes) {
+        ByteBuffer.wrap(bytes).putInt(FRAME_LENGTH_OFFSET, bytes.length - FRAME_HEADER_LENGTH);
+        return bytes;
+    }
+
+    /**
+     * Add the given event to the pending batch, sending the batch if it is full.
+     */
+    private void coalesce(final RemoteCommitEvent event) {
+        List<RemoteCommitEvent> full = null;
+        long created;
+        synchronized (_batch) {
+            if (_batch.isEmpty()) {
+                _batchCreated = System.nanoTime();
+                _batch.notifyAll();
             }
-        } catch (IOException ioe) {
-            if (log.isWarnEnabled()) {
-                log.warn(s_loc.get("tcp-payload-create-error"), ioe);
+            created = _batchCreated;
+            _batch.add(event);
+            if (_batch.size() >= _maxBatchEvents) {
+                full = new ArrayList<>(_batch);
+                _batch.clear();
+            }
+        }
+        if (full != null) {
+            broadcastBatch(full, created);
+        }
+    }
+
+    /**
+     * Merge the given events and broadcast the result.
+     */
+    private void broadcastBatch(final List<RemoteCommitEvent> batch, final long created) {
+        List<RemoteCommitEvent> merged = RemoteCommitEvent.coalesce(batch);
+        for (int i = 0; i < merged.size(); i++) {
+            // count all batched commits against the first packet
+            broadcast(merged.get(i), (i == 0) ? batch.size() : 0, created);
+        }
+    }
+
+    /**
+     * Send the pending batch, if any.
+     */
+    private void flushBatch() {
+        List<RemoteCommitEvent> batch;
+        long created;
+        synchronized (_batch) {
+            if (_batch.isEmpty()) {
+                return;
             }
+            batch = new ArrayList<>(_batch);
+            created = _batchCreated;
+            _batch.clear();
         }
+        broadcastBatch(batch, created);
     }
 
     /**
      * Sends a change notification packet to other machines in this
      * provider cluster.
      */
-    private void sendUpdatePacket(final byte[] bytes) {
+    private void sendUpdatePacket(final Packet packet) {
         _addressesLock.lock();
         try {
-            _addresses.forEach(address -> address.sendUpdatePacket(bytes));
+            _addresses.forEach(address -> address.sendUpdatePacket(packet.bytes));
         } finally {
             _addressesLock.unlock();
         }
+
+        long latency = System.nanoTime() - packet.created;
+        _packetCount.incrementAndGet();
+        _eventCount.addAndGet(packet.events);
+        _latencyNanos.addAndGet(latency);
+        _maxLatencyNanos.accumulateAndGet(latency, Math::max);
     }
 
     @Override
@@ -379,6 +720,13 @@ public class TCPRemoteCommitProvider
             _listener.removeProvider(this);
         }
 
+        // Send any pending batch before the broadcast threads stop.
+        if (_coalesceThread != null) {
+            _coalesceThread.interrupt();
+            _coalesceThread = null;
+        }
+        flushBatch();
+
         // Remove Broadcast Threads then close sockets.
         _broadcastQueue.close();
 
@@ -399,6 +747,23 @@ public class TCPRemoteCommitProvider
         }
     }
 
+    /**
+     * A packet to send, with the number of commits it carries and the
+     * {@link System#nanoTime} of the first of them.
+     */
+    private static final class Packet {
+
+        private final byte[] bytes;
+        private final int events;
+        private final long created;
+
+        private Packet(final byte[] bytes, final int events, final long created) {
+            this.bytes = bytes;
+            this.events = events;
+            this.created = created;
+        }
+    }
+
     /**
      * Utility class to hold messages to be sent. This
      * allows calls to broadcast () to return without
@@ -406,7 +771,7 @@ public class TCPRemoteCommitProvider
      */
     private static class BroadcastQueue {
 
-        private final LinkedList<byte[]> _packetQueue = new LinkedList<>();
+        private final LinkedList<Packet> _packetQueue = new LinkedList<>();
         private boolean _closed = false;
 
         public synchronized void close() {
@@ -418,16 +783,16 @@ public class TCPRemoteCommitProvider
             return _closed;
         }
 
-        public synchronized void addPacket(final byte[] bytes) {
-            _packetQueue.addLast(bytes);
+        public synchronized void addPacket(final Packet packet) {
+            _packetQueue.addLast(packet);
             notify();
         }
 
         /**
-         * @return the bytes defining the packet to process, or
+         * @return the packet to process, or
          * <code>null</code> if the queue is empty.
          */
-        public synchronized byte[] removePacket() throws InterruptedException {
+        public synchronized Packet removePacket() throws InterruptedException {
             // only wait if the queue is still open. This allows processing
             // of events in the queue to continue, while avoiding sleeping
             // during shutdown.
@@ -456,9 +821,9 @@ public class TCPRemoteCommitProvider
                 try {
                     // This will block until there is a packet to send, or
                     // until the queue is closed.
-                    byte[] bytes = _broadcastQueue.removePacket();
-                    if (bytes != null) {
-                        sendUpdatePacket(bytes);
+                    Packet packet = _broadcastQueue.removePacket();
+                    if (packet != null) {
+                        sendUpdatePacket(packet);
                     } else if (_broadcastQueue.isClosed()) {
                         _keepRunning = false;
                     }
@@ -479,16 +844,63 @@ public class TCPRemoteCommitProvider
         }
     }
 
+    /**
+     * Thread that sends each pending batch once it is
+     * {@link TCPRemoteCommitProvider#setCoalesceMillis old enough}.
+     */
+    private class CoalesceThread
+        extends Thread {
+
+        @Override
+        public void run() {
+            long window = TimeUnit.MILLISECONDS.toNanos(_coalesceMillis);
+            while (!isInterrupted()) {
+                try {
+                    synchronized (_batch) {
+                        while (_batch.isEmpty()) {
+                            _batch.wait();
+                        }
+                        long wait = _batchCreated + window - System.nanoTime();
+                        if (wait > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(_batch, wait);
+                            continue;
+                        }
+                    }
+                    flushBatch();
+                } catch (InterruptedException e) {
+                    // End the thread.
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Responsible for listening for incoming packets and processing them.
+     * A single selector thread accepts connections from peers and reads from
+     * all of them without blocking. Complete packets are placed on a bounded
+     * queue, from which a fixed number of receiver threads decode them and
+     * notify the providers. When the queue is full the selector stops reading
+     * from the connection that produced the packet until there is room again,
+     * so that TCP flow control slows the sending peer down.
      */
     private static final class TCPPortListener implements Runnable {
 
         private final Log _log;
-        private ServerSocket _receiveSocket;
-        private Thread _acceptThread;
-        private Set<Thread> _receiverThreads = new HashSet<>();
+        private final ServerSocketChannel _receiveChannel;
+        private final Selector _selector;
+        private Thread _selectorThread;
+        private final List<Thread> _receiverThreads = new ArrayList<>();
         private final Set<TCPRemoteCommitProvider> _providers = new HashSet<>();
+        private final BlockingQueue<ReceivedPacket> _queue;
+        private final int _numReceiveThreads;
+        private final int _maxPacketSize;
+
+        /**
+         * Connections waiting for room in the queue. Only used by the selector thread.
+         */
+        private final List<Connection> _paused = new ArrayList<>();
+        private volatile boolean _hasPaused = false;
 
         /**
          * Cache the local IP address
@@ -504,19 +916,31 @@ public class TCPRemoteCommitProvider
         /**
          * Should be set to <code>true</code> once the listener is listening.
          */
-        private boolean _isRunning = false;
+        private volatile boolean _isRunning = false;
 
         /**
          * Construct a new TCPPortListener configured to use the specified port.
          */
-        private TCPPortListener(final int port, final Log log) throws IOException {
+        private TCPPortListener(final int port, final Log log, final int numReceiveThreads, final int queueSize,
+            final int maxPacketSize) throws IOException {
             _port = port;
             _log = log;
+            _numReceiveThreads = Math.max(1, numReceiveThreads);
+            _maxPacketSize = maxPacketSize;
+            _queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
             try {
-                _receiveSocket = AccessController.doPrivileged(J2DoPrivHelper.newServerSocketAction(_port));
+                _receiveChannel = AccessController.doPrivileged((PrivilegedExceptionAction<ServerSocketChannel>) () -> {
+                    ServerSocketChannel channel = ServerSocketChannel.open();
+                    channel.socket().setReuseAddress(true);
+                    channel.socket().bind(new InetSocketAddress(_port));
+                    channel.configureBlocking(false);
+                    return channel;
+                });
             } catch (PrivilegedActionException pae) {
                 throw (IOException) pae.getException();
             }
+            _selector = Selector.open();
+            _receiveChannel.register(_selector, SelectionKey.OP_ACCEPT);
             _localhost = InetAddress.getLocalHost().getAddress();
 
             if (_log.isTraceEnabled()) {
@@ -525,9 +949,16 @@ public class TCPRemoteCommitProvider
         }
 
         private void listen() {
-            _acceptThread = new Thread(this);
-            _acceptThread.setDaemon(true);
-            _acceptThread.start();
+            _isRunning = true;
+            _selectorThread = new Thread(this);
+            _selectorThread.setDaemon(true);
+            _selectorThread.start();
+            for (int i = 0; i < _numReceiveThreads; i++) {
+                Thread receiverThread = new Thread(this::receive);
+                receiverThread.setDaemon(true);
+                receiverThread.start();
+                _receiverThreads.add(receiverThread);
+            }
         }
 
         /**
@@ -549,17 +980,17 @@ public class TCPRemoteCommitProvider
             synchronized (_providers) {
                 _providers.remove(provider);
 
-                // if the provider list is empty, shut down the thread.
+                // if the provider list is empty, shut down the threads.
                 if (_providers.isEmpty()) {
                     _isRunning = false;
+                    _selector.wakeup();
+                    _receiverThreads.forEach(Thread::interrupt);
+                    // wait for the selector thread to release the port
                     try {
-                        _receiveSocket.close();
-                    } catch (IOException ioe) {
-                        if (_log.isWarnEnabled()) {
-                            _log.warn(s_loc.get("tcp-close-error"), ioe);
-                        }
+                        _selectorThread.join(5000);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
                     }
-                    _acceptThread.interrupt();
                 }
             }
         }
@@ -570,175 +1001,324 @@ public class TCPRemoteCommitProvider
             }
         }
 
+        /**
+         * Selector loop: accept connections and read packets from all peers.
+         */
         @Override
         public void run() {
-            synchronized (_providers) {
-                _isRunning = true;
-            }
-
-            Socket s = null;
             while (_isRunning) {
                 try {
-                    s = null;
-                    // Block, waiting to accept new connection from a peer
-                    s = AccessController.doPrivileged(J2DoPrivHelper.acceptAction(_receiveSocket));
-                    if (_log.isTraceEnabled()) {
-                        _log.trace(s_loc.get("tcp-received-connection",
-                            s.getInetAddress().getHostAddress() + ":" + s.getPort()));
-                    }
-                    ReceiveSocketHandler sh = new ReceiveSocketHandler(s);
-                    Thread receiverThread = new Thread(sh);
-                    receiverThread.setDaemon(true);
-                    receiverThread.start();
-                    _receiverThreads.add(receiverThread);
-                } catch (Exception e) {
-                    if (e instanceof PrivilegedActionException) {
-                        e = ((PrivilegedActionException) e).getException();
-                    }
-                    if (!(e instanceof SocketException) || _isRunning) {
-                        if (_log.isWarnEnabled()) {
-                            _log.warn(s_loc.get("tcp-accept-error"), e);
-                        }
+                    resumePaused();
+                    if (_paused.isEmpty()) {
+                        _selector.select();
+                    } else {
+                        _selector.select(100);
                     }
 
-                    // Nominal case (InterruptedException) because close ()
-                    // calls _acceptThread.interrupt ();
-                    try {
-                        if (s != null) {
-                            s.close();
+                    Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
                         }
-                    } catch (Exception ee) {
-                        if (_log.isWarnEnabled()) {
-                            _log.warn(s_loc.get("tcp-close-error"), e);
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read((Connection) key.attachment());
                         }
                     }
+                } catch (Exception e) {
+                    if (_isRunning && _log.isWarnEnabled()) {
+                        _log.warn(s_loc.get("tcp-accept-error"), e);
+                    }
                 }
             }
 
-            // We are done listening. Interrupt any worker threads.
-            _receiverThreads.forEach(Thread::interrupt);
+            // We are done listening. Close all connections.
+            for (SelectionKey key : _selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            try {
+                _selector.close();
+                _receiveChannel.close();
+            } catch (Exception e) {
+                if (_log.isWarnEnabled()) {
+                    _log.warn(s_loc.get("tcp-close-error"), e);
+                }
+            }
+            if (_log.isTraceEnabled()) {
+                _log.trace(s_loc.get("tcp-close-listener", _port + ""));
+            }
+        }
 
-            synchronized (_providers) {
-                try {
-                    if (_isRunning) {
-                        _receiveSocket.close();
-                    }
-                } catch (Exception e) {
-                    if (_log.isWarnEnabled()) {
-                        _log.warn(s_loc.get("tcp-close-error"), e);
-                    }
+        private void accept() throws Exception {
+            SocketChannel channel = AccessController.doPrivileged(
+                (PrivilegedExceptionAction<SocketChannel>) _receiveChannel::accept);
+            if (channel == null) {
+                return;
+            }
+            Connection conn = new Connection(channel);
+            if (_log.isTraceEnabled()) {
+                _log.trace(s_loc.get("tcp-received-connection", conn._peer));
+            }
+            try {
+                // We are the receiving end and we don't send any messages
+                // back to the broadcaster. Turn off Nagle's so that
+                // we will send ack packets without waiting.
+                channel.socket().setTcpNoDelay(true);
+            } catch (IOException ioe) {
+                if (_log.isInfoEnabled()) {
+                    _log.info(s_loc.get("tcp-socket-option-error"), ioe);
                 }
-                _isRunning = false;
-                if (_log.isTraceEnabled()) {
-                    _log.trace(s_loc.get("tcp-close-listener", _port + ""));
+            }
+            channel.configureBlocking(false);
+            conn._key = channel.register(_selector, SelectionKey.OP_READ, conn);
+        }
+
+        private void read(final Connection conn) {
+            try {
+                enqueue(conn);
+            } catch (Exception e) {
+                if (_log.isWarnEnabled()) {
+                    _log.warn(s_loc.get("tcp-receive-error"), e);
                 }
+                conn.close();
             }
         }
 
         /**
-         * Utility class that acts as a worker thread to receive Events
-         * from broadcasters.
+         * Place the complete packets read from the given connection on the queue,
+         * pausing the connection if the queue is full.
          */
-        private final class ReceiveSocketHandler implements Runnable {
-
-            private InputStream _in;
-            private Socket _s;
+        private void enqueue(final Connection conn) throws IOException {
+            while (true) {
+                if (conn._pending == null) {
+                    conn._pending = conn.nextPacket();
+                    if (conn._pending == null) {
+                        if (conn._eof) {
+                            // peer is properly closing its end.
+                            if (_log.isTraceEnabled()) {
+                                _log.trace(s_loc.get("tcp-close-socket", conn._peer));
+                            }
+                            conn.close();
+                        }
+                        return;
+                    }
+                }
+                if (!_queue.offer(conn._pending)) {
+                    conn._key.interestOps(0);
+                    _paused.add(conn);
+                    _hasPaused = true;
+                    return;
+                }
+                conn._pending = null;
+            }
+        }
 
-            private ReceiveSocketHandler(final Socket s) {
-                // We are the receiving end and we don't send any messages
-                // back to the broadcaster. Turn off Nagle's so that
-                // we will send ack packets without waiting.
-                _s = s;
+        /**
+         * Resume reading from paused connections whose packets fit in the queue.
+         */
+        private void resumePaused() {
+            if (_paused.isEmpty()) {
+                return;
+            }
+            List<Connection> paused = new ArrayList<>(_paused);
+            _paused.clear();
+            for (Connection conn : paused) {
+                if (!conn._key.isValid()) {
+                    continue;
+                }
+                if (!_queue.offer(conn._pending)) {
+                    _paused.add(conn);
+                    continue;
+                }
+                conn._pending = null;
+                conn._key.interestOps(SelectionKey.OP_READ);
                 try {
-                    _s.setTcpNoDelay(true);
-                    _in = new BufferedInputStream(s.getInputStream());
-                } catch (IOException ioe) {
-                    if (_log.isInfoEnabled()) {
-                        _log.info(s_loc.get("tcp-socket-option-error"), ioe);
-                    }
-                    _s = null;
+                    enqueue(conn);
                 } catch (Exception e) {
                     if (_log.isWarnEnabled()) {
                         _log.warn(s_loc.get("tcp-receive-error"), e);
                     }
-                    _s = null;
+                    conn.close();
                 }
             }
+            _hasPaused = !_paused.isEmpty();
+        }
 
-            @Override
-            public void run() {
-                if (_s == null) {
-                    return;
+        /**
+         * Receiver thread loop: decode queued packets and notify the providers.
+         */
+        private void receive() {
+            while (_isRunning) {
+                ReceivedPacket packet;
+                try {
+                    packet = _queue.take();
+                } catch (InterruptedException e) {
+                    // End the thread.
+                    break;
                 }
-                while (_isRunning && _s != null) {
-                    try {
-                        // This will block our thread, waiting to read
-                        // the next Event-object-message.
-                        handle(_in);
-                    } catch (EOFException eof) {
-                        // EOFException raised when peer is properly
-                        // closing its end.
-                        if (_log.isTraceEnabled()) {
-                            _log.trace(s_loc.get("tcp-close-socket",
-                                    _s.getInetAddress().getHostAddress() + ":" + _s.getPort()));
-                        }
-                        break;
-                    } catch (Throwable e) {
-                        if (_log.isWarnEnabled()) {
-                            _log.warn(s_loc.get("tcp-receive-error"), e);
-                        }
-                        break;
-                    }
+                if (_hasPaused) {
+                    _selector.wakeup();
                 }
-                // We are done receiving on this socket and this worker
-                // thread is terminating.
                 try {
-                    _in.close();
-                    if (_s != null) {
-                        _s.close();
+                    RemoteCommitEvent rce = decode(packet);
+                    if (rce != null) {
+                        fireEvent(rce, packet);
+                    }
+                } catch (Throwable e) {
+                    if (_log.isWarnEnabled()) {
+                        _log.warn(s_loc.get("tcp-receive-error"), e);
                     }
-                } catch (IOException e) {
-                    _log.warn(s_loc.get("tcp-close-socket-error",
-                        _s.getInetAddress().getHostAddress() + ":" + _s.getPort()), e);
                 }
             }
+        }
+
+        /**
+         * Decode the given packet, filling in its sender. Returns null if there
+         * is no provider left to decode it.
+         */
+        private RemoteCommitEvent decode(final ReceivedPacket packet) throws IOException, ClassNotFoundException {
+            byte[] bytes = packet.bytes;
+            if (ByteBuffer.wrap(bytes).getLong(FRAME_VERSION_OFFSET) == PROTOCOL_VERSION) {
+                try (ObjectInputStream ois = new Serialization.ClassResolvingObjectInputStream(
+                    new ByteArrayInputStream(bytes))) {
+                    // skip the version and length of the frame header
+                    ois.readLong();
+                    ois.readInt();
+                    packet.senderId = ois.readLong();
+                    packet.senderPort = ois.readInt();
+                    packet.senderAddress = (byte[]) ois.readObject();
+                    return (RemoteCommitEvent) ois.readObject();
+                }
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes,
+                FRAME_HEADER_LENGTH, bytes.length - FRAME_HEADER_LENGTH));
+            packet.senderId = in.readLong();
+            packet.senderPort = in.readInt();
+            packet.senderAddress = new byte[in.readUnsignedShort()];
+            in.readFully(packet.senderAddress);
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                throw new IOException(s_loc.get("tcp-malformed-packet", packet.peer).getMessage());
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            ObjectCodec codec = null;
+            synchronized (_providers) {
+                if (!_providers.isEmpty()) {
+                    codec = _providers.iterator().next()._codec;
+                }
+            }
+            return (codec == null) ? null : (RemoteCommitEvent) codec.decode(payload);
+        }
+
+        private void fireEvent(final RemoteCommitEvent rce, final ReceivedPacket packet) {
+            if (_log.isTraceEnabled()) {
+                _log.trace(s_loc.get("tcp-received-event", packet.peer));
+            }
+
+            boolean fromSelf = packet.senderPort == _port && Arrays.equals(packet.senderAddress, _localhost);
+            synchronized (_providers) {
+                // bleair: We're iterating, but currenlty there can really
+                // only be a single provider.
+                _providers.stream().filter(provider -> packet.senderId != provider._id || !fromSelf).
+                        forEach(provider -> provider.eventManager.fireEvent(rce));
+            }
+        }
+
+        /**
+         * A peer connection, buffering the frame being read.
+         */
+        private final class Connection {
+
+            private final SocketChannel _channel;
+            private final String _peer;
+            private SelectionKey _key;
+            private final ByteBuffer _header = ByteBuffer.allocate(FRAME_HEADER_LENGTH);
+            private ByteBuffer _body;
+            private ReceivedPacket _pending;
+            private boolean _eof = false;
+
+            private Connection(final SocketChannel channel) {
+                _channel = channel;
+                Socket s = channel.socket();
+                _peer = s.getInetAddress().getHostAddress() + ":" + s.getPort();
+            }
 
             /**
-             * Process an {@link InputStream} containing objects written
-             * by {@link TCPRemoteCommitProvider#broadcast(RemoteCommitEvent)}.
+             * Read from the channel until a complete packet is buffered. Returns
+             * null if more bytes are needed or the peer closed its end. The
+             * length of a packet is checked before room is made for it.
              */
-            private void handle(final InputStream in) throws IOException, ClassNotFoundException {
-                // This will block waiting for the next
-                ObjectInputStream ois = new Serialization.ClassResolvingObjectInputStream(in);
+            private ReceivedPacket nextPacket() throws IOException {
+                while (true) {
+                    ByteBuffer buf = (_body == null) ? _header : _body;
+                    if (_channel.read(buf) == -1) {
+                        _eof = true;
+                        return null;
+                    }
+                    if (buf.hasRemaining()) {
+                        return null;
+                    }
+                    if (_body != null) {
+                        ReceivedPacket packet = new ReceivedPacket();
+                        packet.peer = _peer;
+                        packet.bytes = _body.array();
+                        _body = null;
+                        _header.clear();
+                        return packet;
+                    }
 
-                long protocolVersion = ois.readLong();
-                if (protocolVersion != PROTOCOL_VERSION) {
-                    if (_log.isWarnEnabled()) {
-                        _log.warn(s_loc.get("tcp-wrong-version-error",
-                            _s.getInetAddress().getHostAddress() + ":" + _s.getPort()));
-                        return;
+                    // a prior release writes its version in a longer first block
+                    long version = _header.getLong(FRAME_VERSION_OFFSET);
+                    if (_header.getShort(0) != ObjectStreamConstants.STREAM_MAGIC
+                        || _header.getShort(2) != ObjectStreamConstants.STREAM_VERSION
+                        || _header.get(4) != ObjectStreamConstants.TC_BLOCKDATA
+                        || _header.get(5) != FRAME_BLOCK_LENGTH
+                        || (version != PROTOCOL_VERSION && version != CODEC_PROTOCOL_VERSION)) {
+                        throw new IOException(s_loc.get("tcp-wrong-version-error", _peer).getMessage());
                     }
+                    int length = _header.getInt(FRAME_LENGTH_OFFSET);
+                    if (length <= 0 || length > _maxPacketSize) {
+                        throw new IOException(s_loc.get("tcp-packet-too-large", _peer,
+                            String.valueOf(length), String.valueOf(_maxPacketSize)).getMessage());
+                    }
+                    _header.flip();
+                    _body = ByteBuffer.allocate(FRAME_HEADER_LENGTH + length);
+                    _body.put(_header);
                 }
+            }
 
-                long senderId = ois.readLong();
-                int senderPort = ois.readInt();
-                byte[] senderAddress = (byte[]) ois.readObject();
-                RemoteCommitEvent rce = (RemoteCommitEvent) ois.readObject();
-                if (_log.isTraceEnabled()) {
-                    _log.trace(s_loc.get("tcp-received-event",
-                        _s.getInetAddress().getHostAddress() + ":"
-                            + _s.getPort()));
+            private void close() {
+                if (_key != null) {
+                    _key.cancel();
                 }
-
-                boolean fromSelf = senderPort == _port && Arrays.equals(senderAddress, _localhost);
-                synchronized (_providers) {
-                    // bleair: We're iterating, but currenlty there can really
-                    // only be a single provider.
-                    _providers.stream().filter(provider -> senderId != provider._id || !fromSelf).
-                            forEach(provider -> provider.eventManager.fireEvent(rce));
+                try {
+                    _channel.close();
+                } catch (IOException e) {
+                    _log.warn(s_loc.get("tcp-close-socket-error", _peer), e);
                 }
             }
         }
+
+        /**
+         * A packet received from a peer. The selector thread only reads its
+         * bytes; the sender is filled in when a receiver thread decodes it.
+         */
+        private static final class ReceivedPacket {
+
+            private String peer;
+            private long senderId;
+            private int senderPort;
+            private byte[] senderAddress;
+            private byte[] bytes;
+        }
     }
 
     /**
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.lib.instrumentation.AbstractInstrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
+import org.apache.openjpa.lib.jdbc.ConnectionPoolStatistics;
+
+/**
+ * Provides a basic instrument implementation wrapper for the connection
+ * pool. This class can be extended to create a provider specific instrument
+ * for the connection pool.
+ *
+ * @since 3.1.3
+ */
+public abstract class AbstractConnectionPoolInstrument extends AbstractInstrument
+    implements ConnectionPoolInstrument {
+
+    public static final long NO_STATS = -1;
+
+    private ConnectionPoolStatistics _stats;
+    private String _configID = null;
+    private String _configRef = null;
+
+    public void setConfigId(String cid) {
+        _configID = cid;
+    }
+
+    public void setContextRef(String cref) {
+        _configRef = cref;
+    }
+
+    public String getConfigId() {
+        return _configID;
+    }
+
+    public String getContextRef() {
+        return _configRef;
+    }
+
+    public void setStatistics(ConnectionPoolStatistics stats) {
+        _stats = stats;
+    }
+
+    @Override
+    public int getActiveCount() {
+        if (_stats != null)
+            return _stats.getActiveCount();
+        return (int) NO_STATS;
+    }
+
+    @Override
+    public int getIdleCount() {
+        if (_stats != null)
+            return _stats.getIdleCount();
+        return (int) NO_STATS;
+    }
+
+    @Override
+    public int getMaxActive() {
+        if (_stats != null)
+            return _stats.getMaxActive();
+        return (int) NO_STATS;
+    }
+
+    @Override
+    public long getBorrowCount() {
+        if (_stats != null)
+            return _stats.getBorrowCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getWaitCount() {
+        if (_stats != null)
+            return _stats.getWaitCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        if (_stats != null)
+            return _stats.getTimeoutCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getCreatedCount() {
+        if (_stats != null)
+            return _stats.getCreatedCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getDestroyedCount() {
+        if (_stats != null)
+            return _stats.getDestroyedCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getInvalidCount() {
+        if (_stats != null)
+            return _stats.getInvalidCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getStatementHitCount() {
+        if (_stats != null)
+            return _stats.getStatementHitCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getStatementMissCount() {
+        if (_stats != null)
+            return _stats.getStatementMissCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getStatementEvictionCount() {
+        if (_stats != null)
+            return _stats.getStatementEvictionCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getMeanWaitTime() {
+        if (_stats != null)
+            return _stats.getWaitTime().getMean(TimeUnit.MICROSECONDS);
+        return NO_STATS;
+    }
+
+    @Override
+    public long getMaxWaitTime() {
+        if (_stats != null)
+            return _stats.getWaitTime().getMax(TimeUnit.MICROSECONDS);
+        return NO_STATS;
+    }
+
+    @Override
+    public void reset() {
+        if (_stats != null)
+            _stats.reset();
+    }
+
+    @Override
+    public Date sinceDate() {
+        if (_stats != null)
+            return _stats.since();
+        return null;
+    }
+
+    @Override
+    public Date startDate() {
+        if (_stats != null)
+            return _stats.start();
+        return null;
+    }
+
+    @Override
+    public InstrumentationLevel getLevel() {
+        return InstrumentationLevel.FACTORY;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openjpa.lib.instrumentation.AbstractInstrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
+import org.apache.openjpa.lib.jdbc.SQLMetrics;
+import org.apache.openjpa.lib.jdbc.StatementMetrics;
+import org.apache.openjpa.lib.util.LatencyHistogram;
+
+/**
+ * Provides a basic instrument implementation wrapper for the SQL metrics.
+ * This class can be extended to create a provider specific instrument for
+ * the SQL metrics.
+ *
+ * @since 3.1.3
+ */
+public abstract class AbstractSQLMetricsInstrument extends AbstractInstrument
+    implements SQLMetricsInstrument {
+
+    public static final long NO_STATS = -1;
+
+    private SQLMetrics _metrics;
+    private String _configID = null;
+    private String _configRef = null;
+
+    public void setConfigId(String cid) {
+        _configID = cid;
+    }
+
+    public void setContextRef(String cref) {
+        _configRef = cref;
+    }
+
+    public String getConfigId() {
+        return _configID;
+    }
+
+    public String getContextRef() {
+        return _configRef;
+    }
+
+    public void setSQLMetrics(SQLMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    private StatementMetrics getStatementMetrics(String sql) {
+        if (_metrics == null)
+            return null;
+        StatementMetrics metrics = _metrics.getMetrics(sql);
+        if (metrics == null)
+            metrics = _metrics.getMetrics(SQLMetrics.normalize(sql));
+        return metrics;
+    }
+
+    private List<StatementMetrics> getAllMetrics() {
+        List<StatementMetrics> all = new ArrayList<>(_metrics.getMetrics());
+        all.add(_metrics.getOtherMetrics());
+        return all;
+    }
+
+    @Override
+    public long getExecutionCount() {
+        if (_metrics == null)
+            return NO_STATS;
+        long count = 0;
+        for (StatementMetrics metrics : getAllMetrics())
+            count += metrics.getExecutionCount();
+        return count;
+    }
+
+    @Override
+    public long getExecutionCount(String sql) {
+        StatementMetrics metrics = getStatementMetrics(sql);
+        if (metrics != null)
+            return metrics.getExecutionCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getErrorCount() {
+        if (_metrics == null)
+            return NO_STATS;
+        long count = 0;
+        for (StatementMetrics metrics : getAllMetrics())
+            count += metrics.getErrorCount();
+        return count;
+    }
+
+    @Override
+    public long getRowCount() {
+        if (_metrics == null)
+            return NO_STATS;
+        long count = 0;
+        for (StatementMetrics metrics : getAllMetrics())
+            count += metrics.getRowCount();
+        return count;
+    }
+
+    @Override
+    public long getRowCount(String sql) {
+        StatementMetrics metrics = getStatementMetrics(sql);
+        if (metrics != null)
+            return metrics.getRowCount();
+        return NO_STATS;
+    }
+
+    @Override
+    public long getBatchCount() {
+        if (_metrics == null)
+            return NO_STATS;
+        long count = 0;
+        for (StatementMetrics metrics : getAllMetrics())
+            count += metrics.getBatchCount();
+        return count;
+    }
+
+    @Override
+    public long getMeanTime(String sql) {
+        StatementMetrics metrics = getStatementMetrics(sql);
+        if (metrics != null)
+            return metrics.getLatency().getMean(TimeUnit.MICROSECONDS);
+        return NO_STATS;
+    }
+
+    @Override
+    public long getMaxTime(String sql) {
+        StatementMetrics metrics = getStatementMetrics(sql);
+        if (metrics != null)
+            return metrics.getLatency().getMax(TimeUnit.MICROSECONDS);
+        return NO_STATS;
+    }
+
+    @Override
+    public long getPercentileTime(String sql, double percentile) {
+        StatementMetrics metrics = getStatementMetrics(sql);
+        if (metrics != null)
+            return metrics.getLatency().getPercentile(percentile,
+                TimeUnit.MICROSECONDS);
+        return NO_STATS;
+    }
+
+    @Override
+    public Map<String, long[]> getStatementStatistics() {
+        Map<String, long[]> stats = new TreeMap<>();
+        if (_metrics == null)
+            return stats;
+        for (StatementMetrics metrics : getAllMetrics()) {
+            if (metrics.getExecutionCount() == 0)
+                continue;
+            LatencyHistogram latency = metrics.getLatency();
+            stats.put(metrics.getSQL(), new long[] {
+                metrics.getExecutionCount(),
+                metrics.getErrorCount(),
+                metrics.getRowCount(),
+                metrics.getUpdateCount(),
+                metrics.getBatchCount(),
+                metrics.getBatchedStatementCount(),
+                latency.getMean(TimeUnit.MICROSECONDS),
+                latency.getPercentile(50, TimeUnit.MICROSECONDS),
+                latency.getPercentile(99, TimeUnit.MICROSECONDS),
+                latency.getMax(TimeUnit.MICROSECONDS),
+            });
+        }
+        return stats;
+    }
+
+    @Override
+    public Set<String> statements() {
+        Set<String> statements = new TreeSet<>();
+        if (_metrics != null)
+            for (StatementMetrics metrics : _metrics.getMetrics())
+                statements.add(metrics.getSQL());
+        return statements;
+    }
+
+    @Override
+    public void reset() {
+        if (_metrics != null)
+            _metrics.reset();
+    }
+
+    @Override
+    public Date sinceDate() {
+        if (_metrics != null)
+            return _metrics.since();
+        return null;
+    }
+
+    @Override
+    public Date startDate() {
+        if (_metrics != null)
+            return _metrics.start();
+        return null;
+    }
+
+    @Override
+    public InstrumentationLevel getLevel() {
+        return InstrumentationLevel.FACTORY;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Date;
+
+/**
+ * Interface for providing instrumented connection pool metrics, such as
+ * those of the {@link org.apache.openjpa.lib.jdbc.ConnectionPoolStatistics}
+ * of the pooled driver data source. Times are in microseconds.
+ *
+ * @since 3.1.3
+ */
+public interface ConnectionPoolInstrument {
+
+    /**
+     * Returns the number of connections currently in use.
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the number of connections currently idle in the pool.
+     */
+    int getIdleCount();
+
+    /**
+     * Returns the maximum number of connections in use at the same time.
+     */
+    int getMaxActive();
+
+    /**
+     * Returns the number of connections handed out since last reset.
+     */
+    long getBorrowCount();
+
+    /**
+     * Returns the number of requests that had to wait for a connection since last reset.
+     */
+    long getWaitCount();
+
+    /**
+     * Returns the number of requests that timed out waiting for a connection since last reset.
+     */
+    long getTimeoutCount();
+
+    /**
+     * Returns the number of physical connections opened since last reset.
+     */
+    long getCreatedCount();
+
+    /**
+     * Returns the number of physical connections closed since last reset.
+     */
+    long getDestroyedCount();
+
+    /**
+     * Returns the number of idle connections that failed validation since last reset.
+     */
+    long getInvalidCount();
+
+    /**
+     * Returns the number of prepared statements served from the statement caches since last reset.
+     */
+    long getStatementHitCount();
+
+    /**
+     * Returns the number of prepared statements not found in the statement caches since last reset.
+     */
+    long getStatementMissCount();
+
+    /**
+     * Returns the number of prepared statements evicted from the statement caches since last reset.
+     */
+    long getStatementEvictionCount();
+
+    /**
+     * Returns the mean time to obtain a connection.
+     */
+    long getMeanWaitTime();
+
+    /**
+     * Returns the longest time to obtain a connection.
+     */
+    long getMaxWaitTime();
+
+    /**
+     * Resets the statistics.
+     */
+    void reset();
+
+    /**
+     * Returns date since the statistics were last reset.
+     */
+    Date sinceDate();
+
+    /**
+     * Returns date the statistics collection started.
+     */
+    Date startDate();
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interface for providing instrumented SQL execution metrics, recorded per
+ * normalized SQL statement by the
+ * {@link org.apache.openjpa.lib.jdbc.MetricsConnectionDecorator}.
+ * Times are in microseconds.
+ *
+ * @since 3.1.3
+ */
+public interface SQLMetricsInstrument {
+
+    /**
+     * Returns the number of executions of all statements since last reset.
+     */
+    long getExecutionCount();
+
+    /**
+     * Returns the number of executions of the given statement since last reset.
+     */
+    long getExecutionCount(String sql);
+
+    /**
+     * Returns the number of failed executions of all statements since last reset.
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the number of rows fetched by all statements since last reset.
+     */
+    long getRowCount();
+
+    /**
+     * Returns the number of rows fetched by the given statement since last reset.
+     */
+    long getRowCount(String sql);
+
+    /**
+     * Returns the number of executed batches since last reset.
+     */
+    long getBatchCount();
+
+    /**
+     * Returns the mean execution time of the given statement.
+     */
+    long getMeanTime(String sql);
+
+    /**
+     * Returns the longest execution time of the given statement.
+     */
+    long getMaxTime(String sql);
+
+    /**
+     * Returns the execution time of the given statement below which the
+     * given percentage, between 0 and 100, of its executions fall.
+     */
+    long getPercentileTime(String sql, double percentile);
+
+    /**
+     * Returns the statistics of each statement as an array of executions,
+     * errors, rows fetched, rows updated, batches, batched statements, mean,
+     * 50th, 99th percentile and maximum time.
+     */
+    Map<String, long[]> getStatementStatistics();
+
+    /**
+     * Returns the normalized statements being tracked.
+     */
+    Set<String> statements();
+
+    /**
+     * Resets the metrics.
+     */
+    void reset();
+
+    /**
+     * Returns date since the metrics were last reset.
+     */
+    Date sinceDate();
+
+    /**
+     * Returns date the metrics collection started.
+     */
+    Date startDate();
+}
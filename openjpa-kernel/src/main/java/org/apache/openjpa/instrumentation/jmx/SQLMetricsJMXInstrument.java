@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation.jmx;
+
+import javax.management.ObjectName;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.instrumentation.AbstractSQLMetricsInstrument;
+import org.apache.openjpa.lib.conf.PluginListValue;
+import org.apache.openjpa.lib.conf.Value;
+import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
+import org.apache.openjpa.lib.jdbc.ConnectionDecorator;
+import org.apache.openjpa.lib.jdbc.MetricsConnectionDecorator;
+import org.apache.openjpa.lib.jdbc.SQLMetrics;
+import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.util.UserException;
+
+/**
+ * A JMX-specific instrument for the SQL metrics recorded by the
+ * {@link MetricsConnectionDecorator} configured in
+ * <code>openjpa.jdbc.ConnectionDecorators</code>.
+ *
+ * @since 3.1.3
+ */
+public class SQLMetricsJMXInstrument extends AbstractSQLMetricsInstrument
+    implements JMXInstrument, SQLMetricsJMXInstrumentMBean {
+
+    private static Localizer _loc = Localizer.forPackage(SQLMetricsJMXInstrument.class);
+
+    private static final String MBEAN_TYPE = "SQLMetrics";
+
+    private static final String DECORATORS = "jdbc.ConnectionDecorators";
+
+    private ObjectName _objName = null;
+
+    @Override
+    public String getName() {
+        return MBEAN_TYPE;
+    }
+
+    @Override
+    public InstrumentationLevel getLevel() {
+        return InstrumentationLevel.FACTORY;
+    }
+
+    @Override
+    public void initialize() {
+
+        OpenJPAConfiguration conf = (OpenJPAConfiguration)getProvider().getConfiguration();
+        SQLMetrics metrics = findSQLMetrics(conf);
+
+        if (metrics == null) {
+            throw new UserException(_loc.get("sql-metrics-not-found"));
+        }
+
+        setSQLMetrics(metrics);
+        setConfigId(conf.getId());
+        setContextRef(Integer.toString(System.identityHashCode(getContext())));
+    }
+
+    /**
+     * Find the metrics of the metrics decorator among the configured
+     * connection decorators, instantiating the decorators if the data source
+     * has not done so yet.
+     */
+    private static SQLMetrics findSQLMetrics(OpenJPAConfiguration conf) {
+        Value value = conf.getValue(DECORATORS);
+        if (!(value instanceof PluginListValue))
+            return null;
+
+        PluginListValue decorators = (PluginListValue) value;
+        if (decorators.get() == null)
+            decorators.instantiate(ConnectionDecorator.class, conf);
+        Object[] instances = (Object[]) decorators.get();
+        if (instances == null)
+            return null;
+        for (Object instance : instances)
+            if (instance instanceof MetricsConnectionDecorator)
+                return ((MetricsConnectionDecorator) instance).getMetrics();
+        return null;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        if (_objName != null) {
+            return _objName;
+        }
+
+        try {
+            _objName = JMXProvider.createObjectName(this, null);
+            return _objName;
+        } catch (Throwable t) {
+            throw new UserException(_loc.get("unable-to-create-object-name", getName()), t);
+        }
+    }
+
+    @Override
+    public void start() {
+        getProvider().startInstrument(this);
+    }
+
+    @Override
+    public void stop() {
+        getProvider().stopInstrument(this);
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -406,6 +407,31 @@ public abstract class AbstractPCData
         return pcdata;
     }
 
+    /**
+     * Return a new list to hold the data of a collection field, with the
+     * given change tracker sequence. Used to restore data written in an
+     * external form.
+     *
+     * @since 3.1.3
+     */
+    public static List<Object> newCollectionData(int size, int nextSequence) {
+        ProxyDataList data = new ProxyDataList(size);
+        data.nextSequence = nextSequence;
+        return data;
+    }
+
+    /**
+     * Return the change tracker sequence of the given collection field
+     * data, or -1 if the value is not collection field data.
+     *
+     * @since 3.1.3
+     */
+    public static int getCollectionDataSequence(Object data) {
+        if (data == null || data.getClass() != ProxyDataList.class)
+            return -1;
+        return ((ProxyDataList) data).nextSequence;
+    }
+
     /**
      * Tracks proxy data along with list elements.
      */
@@ -92,6 +92,7 @@ import org.apache.openjpa.util.ObjectId;
 import org.apache.openjpa.util.ObjectNotFoundException;
 import org.apache.openjpa.util.OpenJPAException;
 import org.apache.openjpa.util.OptimisticException;
+import org.apache.openjpa.util.PrimitiveIdMap;
 import org.apache.openjpa.util.RuntimeExceptionTranslator;
 import org.apache.openjpa.util.StoreException;
 import org.apache.openjpa.util.UnsupportedException;
@@ -241,6 +242,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
     private boolean _cachePreparedQuery = true;
     private boolean _cacheFinderQuery = true;
     private boolean _suppressBatchOLELogging = false;
+    private boolean _primitiveIdCache = false;
     private boolean _allowReferenceToSiblingContext = false;
     private boolean _postLoadOnMerge = false;
 
@@ -429,10 +431,15 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
     /**
      * Create a {@link Map} to be used for the primary managed object cache.
      * Maps oids to state managers. By default, this creates a
-     * {@link ReferenceMap} with soft values.
+     * {@link ReferenceMap} with soft values, wrapped in a
+     * {@link PrimitiveIdMap} when {@link #getPrimitiveIdCache} is set.
      */
     protected Map<?,?> newManagedObjectCache() {
-        return new ReferenceHashMap(ReferenceStrength.HARD, ReferenceStrength.SOFT);
+        Map<Object,Object> map = new ReferenceHashMap(ReferenceStrength.HARD,
+            ReferenceStrength.SOFT);
+        if (_primitiveIdCache)
+            return new PrimitiveIdMap<>(map, true);
+        return map;
     }
 
     //////////////////////////////////
@@ -976,6 +983,29 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
     public boolean getSuppressBatchOLELogging() {
         return _suppressBatchOLELogging;
     }
+
+    /**
+     * Whether managed instances with single-field numeric identities are
+     * cached in primitive tables by the default
+     * {@link #newManagedObjectCache}. The tables hold the instances by soft
+     * references, as the default map does. Subclasses overriding
+     * {@link #newManagedObjectCache} decide on their own. Defaults to false.
+     *
+     * @since 3.1.3
+     */
+    public boolean getPrimitiveIdCache() {
+        return _primitiveIdCache;
+    }
+
+    /**
+     * Whether managed instances with single-field numeric identities are
+     * cached in primitive tables.
+     *
+     * @since 3.1.3
+     */
+    public void setPrimitiveIdCache(boolean primitive) {
+        _primitiveIdCache = primitive;
+    }
     ///////////
     // Lookups
     ///////////
@@ -2616,6 +2646,8 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         List<Exception> exceps = null;
         try {
             assertWriteOperation();
+            if (objs.size() > 1)
+                allocateSequences(objs);
 
             for (Object obj : objs) {
                 try {
@@ -2635,6 +2667,55 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         throwNestedExceptions(exceps, false);
     }
 
+    /**
+     * Reserve sequence values for the new instances among the given objects,
+     * so that the sequences allocate them in one round trip rather than
+     * block by block as the instances are persisted. Failures are ignored;
+     * the values are then generated one by one as usual.
+     */
+    private void allocateSequences(Collection objs) {
+        Map<ClassMetaData, Integer> counts = null;
+        for (Object obj : objs) {
+            if (obj == null || !ImplHelper.isManageable(obj)
+                || getStateManagerImpl(obj, false) != null)
+                continue;
+            ClassMetaData meta = _repo.getMetaData(obj.getClass(), _loader,
+                false);
+            if (meta == null)
+                continue;
+            if (counts == null)
+                counts = new HashMap<>();
+            counts.merge(meta, 1, Integer::sum);
+        }
+        if (counts == null)
+            return;
+
+        for (Map.Entry<ClassMetaData, Integer> entry : counts.entrySet()) {
+            ClassMetaData meta = entry.getKey();
+            int count = entry.getValue();
+            if (count < 2)
+                continue;
+            try {
+                if (meta.getIdentityType() == ClassMetaData.ID_DATASTORE) {
+                    int strategy = meta.getIdentityStrategy();
+                    if (strategy == ValueStrategies.SEQUENCE
+                        || strategy == ValueStrategies.NATIVE)
+                        getIdentitySequence(meta).allocate(count, this, meta);
+                    continue;
+                }
+                for (FieldMetaData pk : meta.getPrimaryKeyFields()) {
+                    if (pk.getValueStrategy() == ValueStrategies.SEQUENCE)
+                        getValueSequence(pk).allocate(count, this,
+                            pk.getDefiningMetaData());
+                }
+            } catch (RuntimeException re) {
+                if (_log.isTraceEnabled())
+                    _log.trace(_loc.get("seq-allocate-failed",
+                        meta.getDescribedType(), count), re);
+            }
+        }
+    }
+
     /**
      * If the given element is not null, add it to the given list,
      * creating the list if necessary.
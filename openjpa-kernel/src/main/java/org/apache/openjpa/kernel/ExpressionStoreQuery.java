@@ -648,6 +648,11 @@ public class ExpressionStoreQuery
                 for (int i = 0; i < _exps[0].grouping.length; i++)
                     _exps[0].grouping[i].acceptVisit(novars);
             }
+
+            // compile once per query compilation and reuse for every execution
+            if (q.getContext().getStoreContext().getConfiguration()
+                .getCompileInMemoryQueries())
+                _factory.compile(_exps[0]);
         }
 
         @Override
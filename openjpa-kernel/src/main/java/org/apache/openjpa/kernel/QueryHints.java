@@ -108,4 +108,22 @@ public interface QueryHints {
      * if possible.
      */
     String HINT_USE_LITERAL_IN_SQL = "openjpa.hint.UseLiteralInSQL";
+
+    /**
+     * A boolean directive to read a large result set in a single forward
+     * pass without retaining the results already read. Set internally when
+     * the results of a query are streamed.
+     *
+     * @since 3.1.3
+     */
+    String HINT_RESULT_STREAM = "openjpa.hint.ResultStream";
+
+    /**
+     * A boolean directive whether the instances of a streamed query result
+     * are detached from the persistence context once the stream moves past
+     * them. Defaults to true.
+     *
+     * @since 3.1.3
+     */
+    String HINT_DETACH_STREAMED_RESULTS = "openjpa.hint.DetachStreamedResults";
 }
@@ -52,6 +52,7 @@ import org.apache.openjpa.lib.rop.MergedResultObjectProvider;
 import org.apache.openjpa.lib.rop.RangeResultObjectProvider;
 import org.apache.openjpa.lib.rop.ResultList;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
+import org.apache.openjpa.lib.rop.StreamingResultList;
 import org.apache.openjpa.lib.util.ClassUtil;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
@@ -1308,7 +1309,11 @@ public class QueryImpl implements Query {
         boolean lrs = range.lrs && !ex.isAggregate(q) && !ex.hasGrouping(q);
         ResultList<?> res;
         try {
-            res = (!detach && lrs) ? _fc.newResultList(rop) : new EagerResultList(rop);
+            boolean stream = Boolean.TRUE.equals(_fc.getHint(QueryHints.HINT_RESULT_STREAM));
+            if (stream && lrs)
+                res = new StreamingResultList(rop);
+            else
+                res = (!detach && lrs) ? _fc.newResultList(rop) : new EagerResultList(rop);
             res.setUserObject(new Object[]{rop,ex});
             _resultLists.add(decorateResultList(res));
         } catch (OpenJPAException e) {
@@ -111,8 +111,6 @@ public class CandidatePath
             return candidate;
 
         Object action;
-        OpenJPAStateManager sm;
-        Broker tmpBroker = null;
         for (Iterator itr = _actions.iterator(); itr.hasNext();) {
             action = itr.next();
 
@@ -130,35 +128,42 @@ public class CandidatePath
                 continue;
             }
 
-            // make sure we can access the instance; even non-pc vals might
-            // be proxyable
-            sm = null;
-            tmpBroker = null;
-            if (ImplHelper.isManageable(candidate))
-                sm = (OpenJPAStateManager) (ImplHelper.toPersistenceCapable(
-                    candidate, ctx.getConfiguration())).
-                    pcGetStateManager();
-            if (sm == null) {
-                tmpBroker = ctx.getBroker();
-                tmpBroker.transactional(candidate, false, null);
-                sm = tmpBroker.getStateManager(candidate);
-            }
-
-            try {
-                // get the specified field value and switch candidate
-                Traversal traversal = (Traversal) action;
-                candidate = sm.fetchField(traversal.field.getIndex(), true);
-            } finally {
-                // transactional does not clear the state, which is
-                // important since tmpCandidate might be also managed by
-                // another broker if it's a proxied non-pc instance
-                if (tmpBroker != null)
-                    tmpBroker.nontransactional(sm.getManagedInstance(), null);
-            }
+            // get the specified field value and switch candidate
+            candidate = fetch(candidate, ((Traversal) action).field.getIndex(),
+                ctx);
         }
         return candidate;
     }
 
+    /**
+     * Return the value of the given field of the given non-null instance.
+     */
+    static Object fetch(Object candidate, int field, StoreContext ctx) {
+        // make sure we can access the instance; even non-pc vals might
+        // be proxyable
+        OpenJPAStateManager sm = null;
+        Broker tmpBroker = null;
+        if (ImplHelper.isManageable(candidate))
+            sm = (OpenJPAStateManager) (ImplHelper.toPersistenceCapable(
+                candidate, ctx.getConfiguration())).
+                pcGetStateManager();
+        if (sm == null) {
+            tmpBroker = ctx.getBroker();
+            tmpBroker.transactional(candidate, false, null);
+            sm = tmpBroker.getStateManager(candidate);
+        }
+
+        try {
+            return sm.fetchField(field, true);
+        } finally {
+            // transactional does not clear the state, which is
+            // important since tmpCandidate might be also managed by
+            // another broker if it's a proxied non-pc instance
+            if (tmpBroker != null)
+                tmpBroker.nontransactional(sm.getManagedInstance(), null);
+        }
+    }
+
     @Override
     public int hashCode() {
         return (_actions == null) ? 0 : _actions.hashCode();
@@ -44,17 +44,20 @@ abstract class CompareExpression
         _val2 = val2;
     }
 
+    public Val getValue1() {
+        return _val1;
+    }
+
+    public Val getValue2() {
+        return _val2;
+    }
+
     @Override
     protected boolean eval(Object candidate, Object orig,
         StoreContext ctx, Object[] params) {
         Object o1 = _val1.eval(candidate, orig, ctx, params);
         Object o2 = _val2.eval(candidate, orig, ctx, params);
-        if (o1 != null && o2 != null) {
-            Class c = Filters.promote(o1.getClass(), o2.getClass());
-            o1 = Filters.convert(o1, c);
-            o2 = Filters.convert(o2, c);
-        }
-        return compare(o1, o2);
+        return compareValues(o1, o2);
     }
 
     @Override
@@ -66,7 +69,13 @@ abstract class CompareExpression
             : c1.iterator().next();
         Object o2 = (c2 == null || c2.isEmpty()) ? null
             : c2.iterator().next();
+        return compareValues(o1, o2);
+    }
 
+    /**
+     * Promote the two values to a common type and compare them.
+     */
+    boolean compareValues(Object o1, Object o2) {
         if (o1 != null && o2 != null) {
             Class c = Filters.promote(o1.getClass(), o2.getClass());
             o1 = Filters.convert(o1, c);
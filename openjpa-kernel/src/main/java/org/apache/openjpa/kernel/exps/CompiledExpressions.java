@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.kernel.exps;
+
+import org.apache.openjpa.enhance.PersistenceCapable;
+import org.apache.openjpa.enhance.StateManager;
+import org.apache.openjpa.kernel.StateManagerImpl;
+import org.apache.openjpa.kernel.StoreContext;
+import org.apache.openjpa.meta.JavaTypes;
+
+/**
+ * The filter and the values of a {@link QueryExpressions} instance compiled
+ * to bytecode by the {@link InMemoryExpressionCompiler}. Subclasses are
+ * generated at runtime and call back into the static helpers of this class
+ * for the parts of the expression tree that are not inlined.
+ *
+ * @since 3.1.3
+ */
+public abstract class CompiledExpressions {
+
+    /**
+     * Objects referenced by the generated code, such as literal values and
+     * the expression nodes it delegates to.
+     */
+    protected final Object[] _refs;
+
+    protected CompiledExpressions(Object[] refs) {
+        _refs = refs;
+    }
+
+    /**
+     * Return true if the given candidate matches the filter. Equivalent to
+     * {@link Exp#evaluate(Object, Object, StoreContext, Object[])}.
+     */
+    public boolean matches(Object candidate, StoreContext ctx,
+        Object[] params) {
+        return filter(candidate, ctx, params);
+    }
+
+    /**
+     * Return the value at the given index for the given candidate.
+     * Projections are indexed first, followed by the ordering and the
+     * grouping values. Equivalent to
+     * {@link Val#evaluate(Object, Object, StoreContext, Object[])}.
+     */
+    public Object evaluate(int index, Object candidate, StoreContext ctx,
+        Object[] params) {
+        return value(index, candidate, ctx, params);
+    }
+
+    protected abstract boolean filter(Object candidate, StoreContext ctx,
+        Object[] params);
+
+    protected abstract Object value(int index, Object candidate,
+        StoreContext ctx, Object[] params);
+
+    /**
+     * Evaluate the given expression, which was not compiled.
+     */
+    protected static boolean evaluateFilter(Object exp, Object candidate,
+        StoreContext ctx, Object[] params) {
+        return ((Exp) exp).evaluate(candidate, candidate, ctx, params);
+    }
+
+    /**
+     * Evaluate the given value, which was not compiled.
+     */
+    protected static Object evaluateValue(Object val, Object candidate,
+        StoreContext ctx, Object[] params) {
+        return ((Val) val).eval(candidate, candidate, ctx, params);
+    }
+
+    /**
+     * Compare two values as the given comparison expression does.
+     */
+    protected static boolean compare(Object exp, Object o1, Object o2) {
+        return ((CompareExpression) exp).compareValues(o1, o2);
+    }
+
+    /**
+     * Return the value of the given field of the given instance.
+     */
+    protected static Object fetch(Object owner, int field, StoreContext ctx) {
+        if (owner == null)
+            throw new NullPointerException();
+        return CandidatePath.fetch(owner, field, ctx);
+    }
+
+    /**
+     * Return the value of the given integral primitive field of the given
+     * instance without boxing it.
+     */
+    protected static long fetchLong(Object owner, int field, int typeCode,
+        boolean pk, StoreContext ctx) {
+        StateManagerImpl sm = getStateManager(owner, field, pk);
+        if (sm == null)
+            return ((Number) fetch(owner, field, ctx)).longValue();
+        switch (typeCode) {
+            case JavaTypes.BYTE:
+                return sm.fetchByteField(field);
+            case JavaTypes.SHORT:
+                return sm.fetchShortField(field);
+            case JavaTypes.INT:
+                return sm.fetchIntField(field);
+            default:
+                return sm.fetchLongField(field);
+        }
+    }
+
+    /**
+     * Return the value of the given primitive field of the given instance
+     * as a double without boxing it.
+     */
+    protected static double fetchDouble(Object owner, int field,
+        int typeCode, boolean pk, StoreContext ctx) {
+        StateManagerImpl sm = getStateManager(owner, field, pk);
+        if (sm == null)
+            return ((Number) fetch(owner, field, ctx)).doubleValue();
+        switch (typeCode) {
+            case JavaTypes.BYTE:
+                return sm.fetchByteField(field);
+            case JavaTypes.SHORT:
+                return sm.fetchShortField(field);
+            case JavaTypes.INT:
+                return sm.fetchIntField(field);
+            case JavaTypes.LONG:
+                return sm.fetchLongField(field);
+            case JavaTypes.FLOAT:
+                return sm.fetchFloatField(field);
+            default:
+                return sm.fetchDoubleField(field);
+        }
+    }
+
+    /**
+     * Return the state manager of the given enhanced instance after giving
+     * it the chance to load the given field, or null if the instance has to
+     * be accessed through the broker.
+     */
+    private static StateManagerImpl getStateManager(Object owner, int field,
+        boolean pk) {
+        if (owner == null)
+            throw new NullPointerException();
+        if (!(owner instanceof PersistenceCapable))
+            return null;
+        StateManager sm = ((PersistenceCapable) owner).pcGetStateManager();
+        if (!(sm instanceof StateManagerImpl))
+            return null;
+        if (!pk)
+            sm.accessingField(field);
+        return (StateManagerImpl) sm;
+    }
+}
@@ -0,0 +1,595 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.kernel.exps;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openjpa.kernel.StoreContext;
+import org.apache.openjpa.meta.FieldMetaData;
+import org.apache.openjpa.meta.JavaTypes;
+import org.apache.openjpa.util.InternalException;
+import org.apache.xbean.asm8.ClassWriter;
+import org.apache.xbean.asm8.Label;
+import org.apache.xbean.asm8.MethodVisitor;
+import org.apache.xbean.asm8.Opcodes;
+import org.apache.xbean.asm8.Type;
+
+/**
+ * Compiles the filter, projections, ordering and grouping values of a
+ * {@link QueryExpressions} instance built by the
+ * {@link InMemoryExpressionFactory} into a generated subclass of
+ * {@link CompiledExpressions}.
+ * Logical operators, comparisons, literals, parameters and field traversals
+ * of the candidate are translated to bytecode; comparisons of a primitive
+ * numeric field with a numeric literal do not box the field value. Any other
+ * node is evaluated by the expression tree itself, so the compiled form
+ * always gives the same results as the tree.
+ *
+ * @since 3.1.3
+ */
+public class InMemoryExpressionCompiler
+    implements Opcodes {
+
+    private static final AtomicInteger _counter = new AtomicInteger();
+
+    private static final String BASE =
+        Type.getInternalName(CompiledExpressions.class);
+    private static final String CTX = Type.getDescriptor(StoreContext.class);
+    private static final String ARGS = "(Ljava/lang/Object;" + CTX
+        + "[Ljava/lang/Object;)";
+    private static final String FILTER_DESC = ARGS + "Z";
+    private static final String VALUE_DESC = ARGS + "Ljava/lang/Object;";
+    private static final String INDEXED_VALUE_DESC = "(ILjava/lang/Object;"
+        + CTX + "[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String REF_FILTER_DESC =
+        "(Ljava/lang/Object;Ljava/lang/Object;" + CTX
+        + "[Ljava/lang/Object;)Z";
+    private static final String REF_VALUE_DESC =
+        "(Ljava/lang/Object;Ljava/lang/Object;" + CTX
+        + "[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String COMPARE_DESC =
+        "(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;)Z";
+    private static final String FETCH_DESC = "(Ljava/lang/Object;I" + CTX
+        + ")Ljava/lang/Object;";
+    private static final String FETCH_LONG_DESC = "(Ljava/lang/Object;IIZ"
+        + CTX + ")J";
+    private static final String FETCH_DOUBLE_DESC = "(Ljava/lang/Object;IIZ"
+        + CTX + ")D";
+
+    // local variable slots of the generated methods
+    private static final int CANDIDATE = 1;
+    private static final int CONTEXT = 2;
+    private static final int PARAMS = 3;
+
+    // comparison operators that can be compiled
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int GT = 4;
+    private static final int GE = 5;
+
+    private final ClassWriter _writer =
+        new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    private final List<Object> _refs = new ArrayList<>();
+    private String _name;
+    private int _methods = 0;
+
+    /**
+     * Compile the given expressions. The values of the returned instance
+     * are indexed as documented in
+     * {@link CompiledExpressions#evaluate(int, Object, StoreContext, Object[])}.
+     * An instance of this class compiles a single set of expressions.
+     */
+    public CompiledExpressions compile(QueryExpressions exps) {
+        if (_name != null)
+            throw new InternalException();
+        _name = BASE + "$" + _counter.incrementAndGet();
+        _writer.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, _name, null,
+            BASE, null);
+
+        List<Value> vals = new ArrayList<>();
+        for (Value val : exps.projections)
+            vals.add(val);
+        for (Value val : exps.ordering)
+            vals.add(val);
+        for (Value val : exps.grouping)
+            vals.add(val);
+
+        String filter = (exps.filter == null) ? null
+            : compileFilter((Exp) exps.filter);
+        String[] values = new String[vals.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = compileValue((Val) vals.get(i));
+
+        writeConstructor();
+        writeFilter(filter);
+        writeValues(values);
+        _writer.visitEnd();
+        return newInstance(_writer.toByteArray());
+    }
+
+    private void writeConstructor() {
+        MethodVisitor mv = _writer.visitMethod(ACC_PUBLIC, "<init>",
+            "([Ljava/lang/Object;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>",
+            "([Ljava/lang/Object;)V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void writeFilter(String method) {
+        MethodVisitor mv = _writer.visitMethod(ACC_PROTECTED, "filter",
+            FILTER_DESC, null, null);
+        mv.visitCode();
+        if (method == null)
+            mv.visitInsn(ICONST_1);
+        else
+            invokeMethod(mv, method, FILTER_DESC);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void writeValues(String[] methods) {
+        MethodVisitor mv = _writer.visitMethod(ACC_PROTECTED, "value",
+            INDEXED_VALUE_DESC, null, null);
+        mv.visitCode();
+        Label dflt = new Label();
+        if (methods.length > 0) {
+            Label[] cases = new Label[methods.length];
+            for (int i = 0; i < cases.length; i++)
+                cases[i] = new Label();
+            mv.visitVarInsn(ILOAD, 1);
+            mv.visitTableSwitchInsn(0, cases.length - 1, dflt, cases);
+            for (int i = 0; i < cases.length; i++) {
+                mv.visitLabel(cases[i]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, CANDIDATE + 1);
+                mv.visitVarInsn(ALOAD, CONTEXT + 1);
+                mv.visitVarInsn(ALOAD, PARAMS + 1);
+                mv.visitMethodInsn(INVOKESPECIAL, _name, methods[i],
+                    VALUE_DESC, false);
+                mv.visitInsn(ARETURN);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitTypeInsn(NEW, "java/lang/IndexOutOfBoundsException");
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IndexOutOfBoundsException",
+            "<init>", "()V", false);
+        mv.visitInsn(ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generate a method evaluating the given expression and return its name.
+     * Like {@link Exp#evaluate}, the method returns false when evaluation
+     * fails with a null pointer or class cast exception.
+     */
+    private String compileFilter(Exp exp) {
+        // generate the methods of nested expressions first
+        String[] nested = null;
+        if (exp instanceof AndExpression) {
+            nested = new String[] {
+                compileFilter(((AndExpression) exp).getExpression1()),
+                compileFilter(((AndExpression) exp).getExpression2()) };
+        } else if (exp instanceof OrExpression) {
+            nested = new String[] {
+                compileFilter(((OrExpression) exp).getExpression1()),
+                compileFilter(((OrExpression) exp).getExpression2()) };
+        } else if (exp instanceof NotExpression) {
+            nested = new String[] {
+                compileFilter(((NotExpression) exp).getExpression()) };
+        }
+
+        String name = "filter$" + _methods++;
+        MethodVisitor mv = _writer.visitMethod(ACC_PRIVATE, name, FILTER_DESC,
+            null, null);
+        mv.visitCode();
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        mv.visitTryCatchBlock(start, end, handler,
+            "java/lang/NullPointerException");
+        mv.visitTryCatchBlock(start, end, handler,
+            "java/lang/ClassCastException");
+        mv.visitLabel(start);
+
+        Label fail = new Label();
+        if (exp.getClass() == Exp.class) {
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IRETURN);
+        } else if (exp instanceof AndExpression) {
+            invokeMethod(mv, nested[0], FILTER_DESC);
+            mv.visitJumpInsn(IFEQ, fail);
+            invokeMethod(mv, nested[1], FILTER_DESC);
+            mv.visitInsn(IRETURN);
+        } else if (exp instanceof OrExpression) {
+            Label pass = new Label();
+            invokeMethod(mv, nested[0], FILTER_DESC);
+            mv.visitJumpInsn(IFNE, pass);
+            invokeMethod(mv, nested[1], FILTER_DESC);
+            mv.visitInsn(IRETURN);
+            mv.visitLabel(pass);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IRETURN);
+        } else if (exp instanceof NotExpression) {
+            invokeMethod(mv, nested[0], FILTER_DESC);
+            mv.visitJumpInsn(IFNE, fail);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IRETURN);
+        } else if (getOperator(exp) != -1) {
+            CompareExpression cmp = (CompareExpression) exp;
+            if (!writePrimitiveCompare(mv, getOperator(exp), cmp.getValue1(),
+                cmp.getValue2(), fail)) {
+                loadRef(mv, cmp);
+                writeValue(mv, cmp.getValue1());
+                writeValue(mv, cmp.getValue2());
+                mv.visitMethodInsn(INVOKESTATIC, BASE, "compare",
+                    COMPARE_DESC, false);
+                mv.visitInsn(IRETURN);
+            }
+        } else {
+            loadRef(mv, exp);
+            loadArguments(mv);
+            mv.visitMethodInsn(INVOKESTATIC, BASE, "evaluateFilter",
+                REF_FILTER_DESC, false);
+            mv.visitInsn(IRETURN);
+        }
+
+        mv.visitLabel(end);
+        mv.visitLabel(fail);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(handler);
+        mv.visitInsn(POP);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return name;
+    }
+
+    /**
+     * Generate a method evaluating the given value and return its name.
+     * Like {@link Val#evaluate}, the method returns null when evaluation
+     * fails with a null pointer or class cast exception.
+     */
+    private String compileValue(Val val) {
+        String name = "value$" + _methods++;
+        MethodVisitor mv = _writer.visitMethod(ACC_PRIVATE, name, VALUE_DESC,
+            null, null);
+        mv.visitCode();
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        mv.visitTryCatchBlock(start, end, handler,
+            "java/lang/NullPointerException");
+        mv.visitTryCatchBlock(start, end, handler,
+            "java/lang/ClassCastException");
+        mv.visitLabel(start);
+        writeValue(mv, val);
+        mv.visitInsn(ARETURN);
+        mv.visitLabel(end);
+        mv.visitLabel(handler);
+        mv.visitInsn(POP);
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return name;
+    }
+
+    /**
+     * Push the given value on the stack.
+     */
+    private void writeValue(MethodVisitor mv, Val val) {
+        if (val instanceof Null) {
+            mv.visitInsn(ACONST_NULL);
+        } else if (val instanceof This) {
+            mv.visitVarInsn(ALOAD, CANDIDATE);
+        } else if (val instanceof Lit) {
+            Object value = ((Lit) val).getValue();
+            if (value == null)
+                mv.visitInsn(ACONST_NULL);
+            else
+                loadRef(mv, value);
+        } else if (val instanceof Param) {
+            mv.visitVarInsn(ALOAD, PARAMS);
+            loadInt(mv, ((Param) val).getIndex());
+            mv.visitInsn(AALOAD);
+        } else if (isCompilablePath(val)) {
+            Label end = new Label();
+            mv.visitVarInsn(ALOAD, CANDIDATE);
+            for (Object action : ((CandidatePath) val)._actions) {
+                CandidatePath.Traversal traversal =
+                    (CandidatePath.Traversal) action;
+                if (traversal.nullTraversal) {
+                    // a null value ends the traversal with a null result
+                    Label notNull = new Label();
+                    mv.visitInsn(DUP);
+                    mv.visitJumpInsn(IFNONNULL, notNull);
+                    mv.visitJumpInsn(GOTO, end);
+                    mv.visitLabel(notNull);
+                }
+                loadInt(mv, traversal.field.getIndex());
+                mv.visitVarInsn(ALOAD, CONTEXT);
+                mv.visitMethodInsn(INVOKESTATIC, BASE, "fetch", FETCH_DESC,
+                    false);
+            }
+            mv.visitLabel(end);
+        } else {
+            loadRef(mv, val);
+            loadArguments(mv);
+            mv.visitMethodInsn(INVOKESTATIC, BASE, "evaluateValue",
+                REF_VALUE_DESC, false);
+        }
+    }
+
+    /**
+     * Compare a primitive numeric field with a numeric literal without
+     * boxing the field value, jumping to the given label if the comparison
+     * fails. Returns false if the values do not qualify.
+     */
+    private boolean writePrimitiveCompare(MethodVisitor mv, int op, Val val1,
+        Val val2, Label fail) {
+        FieldMetaData field1 = getPrimitiveField(val1);
+        FieldMetaData field2 = getPrimitiveField(val2);
+        Number lit1 = getNumericLiteral(val1);
+        Number lit2 = getNumericLiteral(val2);
+        if (!((field1 != null && lit2 != null)
+            || (lit1 != null && field2 != null)))
+            return false;
+
+        // compare the way Filters.promote converts the two values
+        int type1 = (field1 != null) ? field1.getDeclaredTypeCode()
+            : JavaTypes.getTypeCode(lit1.getClass());
+        int type2 = (field2 != null) ? field2.getDeclaredTypeCode()
+            : JavaTypes.getTypeCode(lit2.getClass());
+        boolean dbl = isDouble(type1) || isDouble(type2)
+            || (isFloat(type1) && isFloat(type2));
+        if (!dbl && (isFloat(type1) || isFloat(type2)))
+            return false;
+
+        writeNumber(mv, val1, field1, lit1, dbl);
+        writeNumber(mv, val2, field2, lit2, dbl);
+        if (dbl)
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "compare",
+                "(DD)I", false);
+        else
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "compare",
+                "(JJ)I", false);
+
+        int jump;
+        switch (op) {
+            case EQ:
+                jump = IFNE;
+                break;
+            case NE:
+                jump = IFEQ;
+                break;
+            case LT:
+                jump = IFGE;
+                break;
+            case LE:
+                jump = IFGT;
+                break;
+            case GT:
+                jump = IFLE;
+                break;
+            default:
+                jump = IFLT;
+        }
+        mv.visitJumpInsn(jump, fail);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        return true;
+    }
+
+    /**
+     * Push the given field or literal as a long or double.
+     */
+    private void writeNumber(MethodVisitor mv, Val val, FieldMetaData field,
+        Number lit, boolean dbl) {
+        if (lit != null) {
+            if (dbl)
+                mv.visitLdcInsn(lit.doubleValue());
+            else
+                mv.visitLdcInsn(lit.longValue());
+            return;
+        }
+
+        // traverse to the owner of the field
+        List actions = ((CandidatePath) val)._actions;
+        mv.visitVarInsn(ALOAD, CANDIDATE);
+        for (int i = 0; i < actions.size() - 1; i++) {
+            loadInt(mv, ((CandidatePath.Traversal) actions.get(i)).field
+                .getIndex());
+            mv.visitVarInsn(ALOAD, CONTEXT);
+            mv.visitMethodInsn(INVOKESTATIC, BASE, "fetch", FETCH_DESC,
+                false);
+        }
+        loadInt(mv, field.getIndex());
+        loadInt(mv, field.getDeclaredTypeCode());
+        mv.visitInsn(field.isPrimaryKey() ? ICONST_1 : ICONST_0);
+        mv.visitVarInsn(ALOAD, CONTEXT);
+        mv.visitMethodInsn(INVOKESTATIC, BASE,
+            dbl ? "fetchDouble" : "fetchLong",
+            dbl ? FETCH_DOUBLE_DESC : FETCH_LONG_DESC, false);
+    }
+
+    /**
+     * Return the operator of the given comparison, or -1 if the expression
+     * is not a comparison that can be compiled.
+     */
+    private static int getOperator(Exp exp) {
+        Class<?> cls = exp.getClass();
+        if (cls == EqualExpression.class)
+            return EQ;
+        if (cls == NotEqualExpression.class)
+            return NE;
+        if (cls == LessThanExpression.class)
+            return LT;
+        if (cls == LessThanEqualExpression.class)
+            return LE;
+        if (cls == GreaterThanExpression.class)
+            return GT;
+        if (cls == GreaterThanEqualExpression.class)
+            return GE;
+        return -1;
+    }
+
+    /**
+     * Whether the given value is a path from the candidate that only
+     * traverses fields.
+     */
+    private static boolean isCompilablePath(Val val) {
+        if (val.getClass() != CandidatePath.class)
+            return false;
+        List actions = ((CandidatePath) val)._actions;
+        if (actions == null || actions.isEmpty())
+            return false;
+        for (Object action : actions)
+            if (!(action instanceof CandidatePath.Traversal))
+                return false;
+        return true;
+    }
+
+    /**
+     * Return the last field of the given path if it is a primitive numeric
+     * field and the path never tolerates null values, or null otherwise.
+     */
+    private static FieldMetaData getPrimitiveField(Val val) {
+        if (!isCompilablePath(val))
+            return null;
+        for (Object action : ((CandidatePath) val)._actions)
+            if (((CandidatePath.Traversal) action).nullTraversal)
+                return null;
+        FieldMetaData field = ((CandidatePath) val).last();
+        switch (field.getDeclaredTypeCode()) {
+            case JavaTypes.BYTE:
+            case JavaTypes.SHORT:
+            case JavaTypes.INT:
+            case JavaTypes.LONG:
+            case JavaTypes.FLOAT:
+            case JavaTypes.DOUBLE:
+                return field;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Return the value of the given literal if it is a primitive wrapper
+     * number, or null otherwise.
+     */
+    private static Number getNumericLiteral(Val val) {
+        if (!(val instanceof Lit))
+            return null;
+        Object value = ((Lit) val).getValue();
+        if (value instanceof Byte || value instanceof Short
+            || value instanceof Integer || value instanceof Long
+            || value instanceof Float || value instanceof Double)
+            return (Number) value;
+        return null;
+    }
+
+    private static boolean isDouble(int type) {
+        return type == JavaTypes.DOUBLE || type == JavaTypes.DOUBLE_OBJ;
+    }
+
+    private static boolean isFloat(int type) {
+        return type == JavaTypes.FLOAT || type == JavaTypes.FLOAT_OBJ;
+    }
+
+    private void invokeMethod(MethodVisitor mv, String name, String desc) {
+        mv.visitVarInsn(ALOAD, 0);
+        loadArguments(mv);
+        mv.visitMethodInsn(INVOKESPECIAL, _name, name, desc, false);
+    }
+
+    private static void loadArguments(MethodVisitor mv) {
+        mv.visitVarInsn(ALOAD, CANDIDATE);
+        mv.visitVarInsn(ALOAD, CONTEXT);
+        mv.visitVarInsn(ALOAD, PARAMS);
+    }
+
+    private void loadRef(MethodVisitor mv, Object ref) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, BASE, "_refs", "[Ljava/lang/Object;");
+        loadInt(mv, _refs.size());
+        mv.visitInsn(AALOAD);
+        _refs.add(ref);
+    }
+
+    private static void loadInt(MethodVisitor mv, int i) {
+        if (i >= -1 && i <= 5)
+            mv.visitInsn(ICONST_0 + i);
+        else if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE)
+            mv.visitIntInsn(BIPUSH, i);
+        else if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE)
+            mv.visitIntInsn(SIPUSH, i);
+        else
+            mv.visitLdcInsn(i);
+    }
+
+    private CompiledExpressions newInstance(final byte[] bytes) {
+        final ClassLoader parent = CompiledExpressions.class.getClassLoader();
+        GeneratedClassLoader loader = AccessController.doPrivileged(
+            new PrivilegedAction<GeneratedClassLoader>() {
+                @Override
+                public GeneratedClassLoader run() {
+                    return new GeneratedClassLoader(parent);
+                }
+            });
+        try {
+            Class<?> cls = loader.define(_name.replace('/', '.'), bytes);
+            return (CompiledExpressions) cls.getConstructor(Object[].class)
+                .newInstance(new Object[] { _refs.toArray() });
+        } catch (Exception e) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * Loader of a single generated class, so that the class can be
+     * collected together with the compiled query.
+     */
+    private static class GeneratedClassLoader
+        extends ClassLoader {
+
+        private GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -54,6 +54,32 @@ public class InMemoryExpressionFactory
     // list of unbound variables in this query
     private List<UnboundVariable> _unbounds = null;
 
+    // bytecode compiled form of the expressions of this query, if any
+    private CompiledExpressions _compiled = null;
+    private QueryExpressions _compiledExps = null;
+
+    /**
+     * Compile the given expressions built by this factory to bytecode. Later
+     * evaluations of the same expressions run the generated code instead of
+     * walking the expression tree.
+     *
+     * @since 3.1.3
+     */
+    public void compile(QueryExpressions exps) {
+        _compiled = new InMemoryExpressionCompiler().compile(exps);
+        _compiledExps = exps;
+    }
+
+    /**
+     * Return the compiled form of the given expressions, or null if they
+     * were not compiled.
+     *
+     * @since 3.1.3
+     */
+    public CompiledExpressions getCompiledExpressions(QueryExpressions exps) {
+        return (exps == _compiledExps) ? _compiled : null;
+    }
+
     /**
      * Tests whether the given candidate matches the given type and this
      * expression.
@@ -85,8 +111,11 @@ public class InMemoryExpressionFactory
         Object[] params, int i) {
         // base case: all variables have been aliased; evaluate for current
         // values
-        if (_unbounds == null || i == _unbounds.size())
+        if (_unbounds == null || i == _unbounds.size()) {
+            if (_compiled != null && exp == _compiledExps.filter)
+                return _compiled.matches(candidate, ctx, params);
             return exp.evaluate(candidate, candidate, ctx, params);
+        }
 
         // grab the extent for this variable
         UnboundVariable var = _unbounds.get(i);
@@ -122,7 +151,10 @@ public class InMemoryExpressionFactory
             return matches;
 
         // to form groups we first order on the grouping criteria
-        matches = order(exps, exps.grouping, false, matches, ctx, params);
+        int offset = exps.projections.length + exps.ordering.length;
+        matches = order(exps, exps.grouping, offset, false, matches, ctx,
+            params);
+        CompiledExpressions compiled = getCompiledExpressions(exps);
 
         // now we combine all results whose values for each grouping clause
         // are the same, relying on the fact that these values will already be
@@ -138,8 +170,8 @@ public class InMemoryExpressionFactory
             pc = itr.next();
             eq = true;
             for (int i = 0; i < exps.grouping.length; i++) {
-                curs[i] = ((Val) exps.grouping[i]).evaluate(pc, pc, ctx,
-                    params);
+                curs[i] = evaluate(compiled, offset + i, exps.grouping[i],
+                    pc, ctx, params);
                 eq = eq && Objects.equals(prevs[i], curs[i]);
             }
 
@@ -244,6 +276,7 @@ public class InMemoryExpressionFactory
         boolean agg, StoreContext ctx, Object[] params) {
         Object[] projection = new Object[exps.projections.length
             + exps.ordering.length];
+        CompiledExpressions compiled = getCompiledExpressions(exps);
 
         // calcualte result values
         Object result = null;
@@ -252,8 +285,8 @@ public class InMemoryExpressionFactory
                 result = ((Val) exps.projections[i]).evaluate((Collection)
                     candidate, null, ctx, params);
             else
-                result = ((Val) exps.projections[i]).evaluate(candidate,
-                    candidate, ctx, params);
+                result = evaluate(compiled, i, exps.projections[i], candidate,
+                    ctx, params);
             projection[i] = result;
         }
 
@@ -275,8 +308,8 @@ public class InMemoryExpressionFactory
                     result = ((Val) exps.ordering[i]).evaluate((Collection)
                         candidate, null, ctx, params);
                 else
-                    result = ((Val) exps.ordering[i]).evaluate(candidate,
-                        candidate, ctx, params);
+                    result = evaluate(compiled, exps.projections.length + i,
+                        exps.ordering[i], candidate, ctx, params);
             }
 
             projection[i + exps.projections.length] = result;
@@ -284,20 +317,34 @@ public class InMemoryExpressionFactory
         return projection;
     }
 
+    /**
+     * Evaluate the given non-aggregate value for the given candidate, using
+     * the value at the given index of the compiled expressions if present.
+     */
+    private static Object evaluate(CompiledExpressions compiled, int index,
+        Value val, Object candidate, StoreContext ctx, Object[] params) {
+        if (compiled != null)
+            return compiled.evaluate(index, candidate, ctx, params);
+        return ((Val) val).evaluate(candidate, candidate, ctx, params);
+    }
+
     /**
      * Order the given list of matches on the given value.
      */
     public List order(QueryExpressions exps, List matches,
         StoreContext ctx, Object[] params) {
-        return order(exps, exps.ordering, true, matches, ctx, params);
+        return order(exps, exps.ordering, exps.projections.length, true,
+            matches, ctx, params);
     }
 
     /**
      * Order the given list of matches on the given value.
      *
+     * @param offset the index of the first order value in the compiled
+     * expressions
      * @param projected whether projections have been applied to the matches yet
      */
-    private List order(QueryExpressions exps, Value[] orderValues,
+    private List order(QueryExpressions exps, Value[] orderValues, int offset,
         boolean projected, List matches, StoreContext ctx, Object[] params) {
         if (matches == null || matches.isEmpty()
             || orderValues == null || orderValues.length == 0)
@@ -305,6 +352,7 @@ public class InMemoryExpressionFactory
 
         int results = (projected) ? exps.projections.length : 0;
         boolean[] asc = (projected) ? exps.ascending : null;
+        CompiledExpressions compiled = getCompiledExpressions(exps);
         int idx;
         for (int i = orderValues.length - 1; i >= 0; i--) {
             // if this is a projection, then in project() we must have selected
@@ -312,7 +360,8 @@ public class InMemoryExpressionFactory
             idx = (results > 0) ? results + i : -1;
             Collections.sort(matches,
                 new OrderValueComparator((Val) orderValues[i],
-                    asc == null || asc[i], idx, ctx, params));
+                    asc == null || asc[i], idx, compiled, offset + i, ctx,
+                    params));
         }
         return matches;
     }
@@ -788,14 +837,19 @@ public class InMemoryExpressionFactory
         private final Val _val;
         private final boolean _asc;
         private final int _idx;
+        private final CompiledExpressions _compiled;
+        private final int _compiledIdx;
         private final Object[] _params;
 
         private OrderValueComparator(Val val, boolean asc, int idx,
-            StoreContext ctx, Object[] params) {
+            CompiledExpressions compiled, int compiledIdx, StoreContext ctx,
+            Object[] params) {
             _ctx = ctx;
             _val = val;
             _asc = asc;
             _idx = idx;
+            _compiled = compiled;
+            _compiledIdx = compiledIdx;
             _params = params;
         }
 
@@ -805,8 +859,10 @@ public class InMemoryExpressionFactory
                 o1 = ((Object[]) o1)[_idx];
                 o2 = ((Object[]) o2)[_idx];
             } else {
-                o1 = _val.evaluate(o1, o1, _ctx, _params);
-                o2 = _val.evaluate(o2, o2, _ctx, _params);
+                o1 = evaluate(_compiled, _compiledIdx, _val, o1, _ctx,
+                    _params);
+                o2 = evaluate(_compiled, _compiledIdx, _val, o2, _ctx,
+                    _params);
             }
 
             if (o1 == null && o2 == null)
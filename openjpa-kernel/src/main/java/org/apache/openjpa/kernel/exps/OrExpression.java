@@ -43,6 +43,14 @@ class OrExpression
         _exp2 = exp2;
     }
 
+    public Exp getExpression1() {
+        return _exp1;
+    }
+
+    public Exp getExpression2() {
+        return _exp2;
+    }
+
     @Override
     protected boolean eval(Object candidate, Object orig,
         StoreContext ctx, Object[] params) {
@@ -63,6 +63,13 @@ class Param
         _index = index;
     }
 
+    /**
+     * Return the position of this parameter in the parameter array.
+     */
+    int getIndex() {
+        return _index;
+    }
+
     @Override
     public Object getValue(Object[] params) {
         return params[_index];
@@ -52,7 +52,9 @@ public class LifecycleMetaData
     private LifecycleCallbacks[][] _all = null;
     private int[] _high = null;
     private int[] _superHigh = null;
-    private boolean _resolved = false;
+    // volatile so that the combined callbacks resolved with the metadata
+    // are visible to threads firing events
+    private volatile boolean _resolved = false;
     private boolean _ignoreSystem = false;
     private int _ignoreSups = 0;
     private boolean _activated = false;
@@ -19,6 +19,8 @@
 package org.apache.openjpa.meta;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.util.ArrayList;
@@ -27,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +37,13 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.enhance.DynamicPersistenceCapable;
@@ -160,6 +170,20 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     protected boolean _locking = true;
     private static final String PRELOAD_STR = "Preload";
 
+    // fully resolved metadata that is read without locking
+    protected boolean _lockFreeReads = false;
+    private final Map<Class<?>, ClassMetaData> _published = new ConcurrentHashMap<>();
+    private final Map<String, SequenceMetaData> _publishedSeqs = new ConcurrentHashMap<>();
+    private int _lookupDepth = 0;
+
+    // threads that load and introspect classes during preload, and the time
+    // spent in each preload phase
+    private int _preloadParallelism = 1;
+    private final Map<String, Long> _preloadTimes = new LinkedHashMap<>();
+
+    // persistent type names recorded when this repository is stored
+    private Set<String> _typeNames = null;
+
     // A boolean used to decide whether or not we need to call to PCEnhancer to check whether we have any down level
     // Entities.
     private boolean _logEnhancementLevel = true;
@@ -308,6 +332,63 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
         _preload = l;
     }
 
+    /**
+     * The number of threads that load the persistent classes and introspect
+     * their annotations during {@link #preload}. Parsing and resolution
+     * of the metadata remain sequential. Defaults to 1.
+     *
+     * @since 3.1.3
+     */
+    public int getPreloadParallelism() {
+        return _preloadParallelism;
+    }
+
+    /**
+     * The number of threads that load the persistent classes and introspect
+     * their annotations during {@link #preload}. A value of 0 or less uses
+     * one thread per available processor.
+     *
+     * @since 3.1.3
+     */
+    public void setPreloadParallelism(int parallelism) {
+        _preloadParallelism = (parallelism > 0) ? parallelism
+            : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The milliseconds spent in each phase of {@link #preload}, in the order
+     * the phases ran. Empty if the repository was not preloaded.
+     *
+     * @since 3.1.3
+     */
+    public Map<String, Long> getPreloadTimes() {
+        synchronized (_preloadTimes) {
+            return new LinkedHashMap<>(_preloadTimes);
+        }
+    }
+
+    /**
+     * Whether metadata that is fully resolved is read without locking this
+     * repository. Resolution of new metadata is still serialized.
+     * Defaults to false.
+     *
+     * @since 3.1.3
+     */
+    public boolean getLockFreeReads() {
+        return _lockFreeReads;
+    }
+
+    /**
+     * Whether metadata that is fully resolved is read without locking this
+     * repository. Resolution of new metadata is still serialized.
+     * Defaults to false.
+     *
+     * @since 3.1.3
+     */
+    public void setLockFreeReads(boolean lockFreeReads) {
+        _lockFreeReads = lockFreeReads;
+    }
+
 
      /**
      * If the openjpa.MetaDataRepository plugin value Preload=true is set, this method will load all
@@ -337,6 +418,8 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             }
         }
 
+        long start = System.nanoTime();
+        long phase = start;
         Set<String> classes = getPersistentTypeNames(false, multi);
         if (classes == null || classes.size() == 0) {
             throw new MetaDataException(_loc.get("repos-initializeEager-none"));
@@ -344,19 +427,22 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
         if (_log.isTraceEnabled() == true) {
             _log.trace(_loc.get("repos-initializeEager-found", classes));
         }
+        phase = recordPreloadTime("scan", phase);
 
-        List<Class<?>> loaded = new ArrayList<>();
-        for (String c : classes) {
-            try {
-                Class<?> cls = AccessController.doPrivileged((J2DoPrivHelper.getForNameAction(c, true, multi)));
-                loaded.add(cls);
-                // This call may be unnecessary?
-                _factory.load(cls, MODE_ALL, multi);
-            } catch (PrivilegedActionException pae) {
-                throw new MetaDataException(_loc.get("repos-initializeEager-error"), pae);
-            }
+        List<Class<?>> loaded = loadClasses(classes, multi);
+        phase = recordPreloadTime("load", phase);
+
+        for (Class<?> cls : loaded) {
+            // metadata restored from a stored repository is not parsed again
+            if (_typeNames != null && _metas.get(cls) != null)
+                continue;
+            // This call may be unnecessary?
+            _factory.load(cls, MODE_ALL, multi);
         }
+        phase = recordPreloadTime("parse", phase);
+
         resolveAll(multi);
+        phase = recordPreloadTime("resolve", phase);
 
         // Preload XML MetaData
         for (Class<?> cls : loaded) {
@@ -371,10 +457,112 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
 
         // Hook in this class as a listener and process registered classes list to populate _aliases
         // list.
+        phase = recordPreloadTime("xml", phase);
         PCRegistry.addRegisterClassListener(this);
         processRegisteredClasses(multi);
+        recordPreloadTime("register", phase);
         _locking = false;
         _preloadComplete = true;
+
+        if (_log.isInfoEnabled())
+            _log.info(_loc.get("repos-preload-times", loaded.size(),
+                (System.nanoTime() - start) / 1000000, getPreloadTimes()));
+    }
+
+    /**
+     * Load the given persistent classes, in order. With a preload parallelism
+     * above 1, the classes are loaded and their annotations introspected on a
+     * fork-join pool, so that the JVM's reflection caches are warm when the
+     * classes are parsed. The threads of the pool carry the context class
+     * loader of the calling thread, as static initializers may depend on it.
+     */
+    private List<Class<?>> loadClasses(Set<String> classes, final ClassLoader loader) {
+        final String[] names = classes.toArray(new String[classes.size()]);
+        final Class<?>[] loaded = new Class<?>[names.length];
+        if (_preloadParallelism <= 1 || names.length < 2) {
+            for (int i = 0; i < names.length; i++)
+                loaded[i] = loadClass(names[i], loader, false);
+            return Arrays.asList(loaded);
+        }
+
+        final ClassLoader context = AccessController.doPrivileged(J2DoPrivHelper.getContextClassLoaderAction());
+        final AtomicInteger threads = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(_preloadParallelism, new ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool p) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("openjpa-preload-" + threads.incrementAndGet());
+                thread.setContextClassLoader(context);
+                return thread;
+            }
+        }, null, false);
+        try {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    IntStream.range(0, names.length).parallel().forEach(new IntConsumer() {
+                        @Override
+                        public void accept(int i) {
+                            loaded[i] = loadClass(names[i], loader, true);
+                        }
+                    });
+                }
+            }).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), cause);
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(loaded);
+    }
+
+    /**
+     * Load and initialize the given class, optionally touching the
+     * reflective data and annotations that the metadata parsers read.
+     * A class that fails to link or initialize is reported by name.
+     */
+    private static Class<?> loadClass(String name, ClassLoader loader, boolean introspect) {
+        Class<?> cls;
+        try {
+            cls = AccessController.doPrivileged(J2DoPrivHelper.getForNameAction(name, true, loader));
+        } catch (PrivilegedActionException pae) {
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), pae);
+        } catch (LinkageError le) {
+            throw new MetaDataException(_loc.get("repos-preload-class-error", name), le);
+        }
+        if (introspect) {
+            try {
+                for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+                    c.getDeclaredAnnotations();
+                    for (Field f : AccessController.doPrivileged(J2DoPrivHelper.getDeclaredFieldsAction(c)))
+                        f.getDeclaredAnnotations();
+                    for (Method m : AccessController.doPrivileged(J2DoPrivHelper.getDeclaredMethodsAction(c)))
+                        m.getDeclaredAnnotations();
+                }
+            } catch (RuntimeException | LinkageError e) {
+                // only warms the reflection caches; the parser reports the
+                // unresolvable member or annotation when it reads the class
+            }
+        }
+        return cls;
+    }
+
+    /**
+     * Record the time of the given preload phase, which started at the given
+     * nano time, and return the current nano time.
+     */
+    private long recordPreloadTime(String name, long start) {
+        long now = System.nanoTime();
+        synchronized (_preloadTimes) {
+            _preloadTimes.put(name, (now - start) / 1000000);
+        }
+        return now;
     }
 
 
@@ -390,14 +578,45 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
      */
     public ClassMetaData getMetaData(Class<?> cls, ClassLoader envLoader, boolean mustExist) {
         if (_locking) {
+            if (_lockFreeReads && cls != null) {
+                ClassMetaData meta = _published.get(cls);
+                if (meta != null)
+                    return meta;
+            }
             synchronized(this){
-                return getMetaDataInternal(cls, envLoader, mustExist);
+                if (!_lockFreeReads)
+                    return getMetaDataInternal(cls, envLoader, mustExist);
+
+                ClassMetaData meta;
+                _lookupDepth++;
+                try {
+                    meta = getMetaDataInternal(cls, envLoader, mustExist);
+                } finally {
+                    _lookupDepth--;
+                }
+                publish(cls, meta);
+                return meta;
             }
         } else {
             return getMetaDataInternal(cls, envLoader, mustExist);
         }
     }
 
+    /**
+     * Make the given metadata readable without locking if it is fully
+     * resolved. Only the outermost lookup publishes, because metadata
+     * returned to reentrant lookups may still be in the middle of being
+     * resolved.
+     */
+    private void publish(Class<?> cls, ClassMetaData meta) {
+        if (meta == null || cls == null || _lookupDepth != 0
+            || !_resolving.isEmpty() || !_mapping.isEmpty())
+            return;
+        int mode = _resMode & (MODE_META | MODE_MAPPING | MODE_MAPPING_INIT);
+        if ((meta.getResolve() & mode) == mode)
+            _published.put(cls, meta);
+    }
+
     private ClassMetaData getMetaDataInternal(Class<?> cls, ClassLoader envLoader, boolean mustExist) {
         ClassMetaData meta = getMetaDataInternal(cls, envLoader);
         if (meta == null) {
@@ -941,6 +1160,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             if (_pawares.containsKey(cls))
                 throw new MetaDataException(_loc.get("pc-and-aware", cls));
             _metas.put(cls, meta);
+            _published.clear();
         return meta;
     }
 
@@ -1086,6 +1306,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     private boolean removeMetaDataInternal(Class<?> cls) {
             if (cls == null)
                 return false;
+            _published.clear();
             if (_metas.remove(cls) != null) {
                 Class<?> impl = _ifaces.remove(cls);
                 if (impl != null)
@@ -1458,6 +1679,8 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     private void clearInternal(){
         // Recreating these datastructures is probably faster than calling clear. Future change?
             _metas.clear();
+            _published.clear();
+            _publishedSeqs.clear();
             _oids.clear();
             _subs.clear();
             _impls.clear();
@@ -1490,8 +1713,40 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     }
 
     private Set<String> getPersistentTypeNamesInternal(boolean devpath, ClassLoader envLoader) {
+        if (_typeNames != null)
+            return new HashSet<>(_typeNames);
         return _factory.getPersistentTypeNames(devpath, envLoader);
     }
+
+    /**
+     * Record the persistent type names of this repository, so that they are
+     * not searched for again. Used before this repository is stored with
+     * a {@link org.apache.openjpa.conf.CacheMarshaller}, so that a copy
+     * restored at startup skips scanning the classpath.
+     *
+     * @param devpath if true, search for metadata files in directories
+     * in the classpath if the no classes are configured explicitly
+     * @param envLoader the class loader to use, or null for default
+     * @return the recorded type names
+     * @since 3.1.3
+     */
+    public Set<String> recordPersistentTypeNames(boolean devpath, ClassLoader envLoader) {
+        if (_locking) {
+            synchronized (this) {
+                return recordPersistentTypeNamesInternal(devpath, envLoader);
+            }
+        } else {
+            return recordPersistentTypeNamesInternal(devpath, envLoader);
+        }
+    }
+
+    private Set<String> recordPersistentTypeNamesInternal(boolean devpath, ClassLoader envLoader) {
+        _typeNames = null;
+        Set<String> names = getPersistentTypeNamesInternal(devpath, envLoader);
+        if (names != null)
+            _typeNames = new HashSet<>(names);
+        return names;
+    }
     /**
      * Load the persistent classes named in configuration.
      * This ensures that all subclasses and application identity classes of
@@ -2190,8 +2445,16 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
      */
     public SequenceMetaData getSequenceMetaData(String name, ClassLoader envLoader, boolean mustExist) {
         if (_locking) {
+            if (_lockFreeReads && name != null) {
+                SequenceMetaData meta = _publishedSeqs.get(name);
+                if (meta != null)
+                    return meta;
+            }
             synchronized (this) {
-                return getSequenceMetaDataInternal(name, envLoader, mustExist);
+                SequenceMetaData meta = getSequenceMetaDataInternal(name, envLoader, mustExist);
+                if (_lockFreeReads && meta != null)
+                    _publishedSeqs.put(name, meta);
+                return meta;
             }
         } else {
             return getSequenceMetaDataInternal(name, envLoader, mustExist);
@@ -2296,6 +2559,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             synchronized (this) {
                 SequenceMetaData meta = newSequenceMetaData(name);
                 _seqs.put(name, meta);
+                _publishedSeqs.remove(name);
                 return meta;
             }
         } else {
@@ -2320,6 +2584,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             return false;
         if (_locking) {
             synchronized (this) {
+                _publishedSeqs.remove(meta.getName());
                 return _seqs.remove(meta.getName()) != null;
             }
         } else {
@@ -2335,6 +2600,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             return false;
         if (_locking) {
             synchronized (this) {
+                _publishedSeqs.remove(name);
                 return _seqs.remove(name) != null;
             }
         } else {
@@ -0,0 +1,908 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.datacache.DataCachePCDataImpl;
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.apache.openjpa.kernel.AbstractPCData;
+import org.apache.openjpa.kernel.PCDataImpl;
+import org.apache.openjpa.lib.util.J2DoPrivHelper;
+import org.apache.openjpa.lib.util.MultiClassLoader;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.meta.MetaDataRepository;
+
+/**
+ * {@link ObjectCodec} with a compact binary format for cached
+ * {@link PCDataImpl} state and {@link RemoteCommitEvent}s. Integers are
+ * written as variable length quantities, each class name is written once
+ * per encoded object and referenced by number afterwards, and the field
+ * data of a {@link PCDataImpl} is written by field index, skipping fields
+ * that hold no data. Built-in identity types, wrappers, strings, dates,
+ * big numbers, enums and the common collection, map and array types have
+ * dedicated encodings; any other value is embedded in Java serialized
+ * form. Bytes written by Java serialization are decoded as well, so data
+ * written by {@link JavaObjectCodec} remains readable.
+ *
+ * @since 3.1.3
+ */
+public class CompactObjectCodec
+    implements ObjectCodec {
+
+    private static final byte MAGIC = (byte) 0xC5;
+    private static final byte VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int SHORT = 4;
+    private static final int CHAR = 5;
+    private static final int INT = 6;
+    private static final int LONG = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int DATE = 11;
+    private static final int SQL_DATE = 12;
+    private static final int SQL_TIME = 13;
+    private static final int TIMESTAMP = 14;
+    private static final int BIG_DECIMAL = 15;
+    private static final int BIG_INTEGER = 16;
+    private static final int ENUM = 17;
+    private static final int BYTES = 18;
+    private static final int CHARS = 19;
+    private static final int ARRAY = 20;
+    private static final int COLLECTION = 21;
+    private static final int MAP = 22;
+    private static final int EMPTY_MAP = 23;
+    private static final int COLLECTION_DATA = 24;
+    private static final int INT_ID = 25;
+    private static final int LONG_ID = 26;
+    private static final int ID = 27;
+    private static final int STRING_ID = 28;
+    private static final int SHORT_ID = 29;
+    private static final int BYTE_ID = 30;
+    private static final int CHAR_ID = 31;
+    private static final int OBJECT_ID = 32;
+    private static final int PC_DATA = 33;
+    private static final int EVENT = 34;
+    private static final int SERIALIZED = 35;
+
+    // collection and map kinds
+    private static final Class<?>[] COLLECTIONS = { ArrayList.class,
+        LinkedList.class, HashSet.class, LinkedHashSet.class, TreeSet.class };
+    private static final Class<?>[] MAPS = { HashMap.class,
+        LinkedHashMap.class, TreeMap.class };
+
+    // pcdata flags
+    private static final int DATACACHE = 1;
+    private static final int LOADED = 1;
+    private static final int INTERMEDIATE = 2;
+    private static final int IMPL = 4;
+
+    private final OpenJPAConfiguration _conf;
+    private final Map<String, Class<?>> _classes = new ConcurrentHashMap<>();
+    private volatile MetaDataRepository _repos = null;
+
+    /**
+     * Constructor for a codec that does not use metadata. Persistent
+     * data is embedded in Java serialized form.
+     */
+    public CompactObjectCodec() {
+        this(null);
+    }
+
+    /**
+     * Constructor. The metadata of the given configuration is used to
+     * encode persistent data.
+     */
+    public CompactObjectCodec(OpenJPAConfiguration conf) {
+        _conf = conf;
+    }
+
+    @Override
+    public byte[] encode(Object o)
+        throws IOException {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeObject(o);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes)
+        throws IOException, ClassNotFoundException {
+        if (bytes.length > 1 && bytes[0] == (byte) 0xAC
+            && bytes[1] == (byte) 0xED)
+            return new Serialization.ClassResolvingObjectInputStream
+                (new ByteArrayInputStream(bytes)).readObject();
+
+        Reader in = new Reader(bytes);
+        if (in.readByte() != MAGIC || in.readByte() != VERSION)
+            throw new StreamCorruptedException();
+        return in.readObject();
+    }
+
+    /**
+     * Return the metadata repository used to encode persistent data, or
+     * null if none.
+     */
+    protected MetaDataRepository getRepository() {
+        if (_repos == null && _conf != null)
+            _repos = _conf.getMetaDataRepositoryInstance();
+        return _repos;
+    }
+
+    /**
+     * Return the class with the given name. The class is not initialized,
+     * so that naming a class does not run its static initializers.
+     */
+    protected Class<?> resolveClass(String name)
+        throws ClassNotFoundException {
+        Class<?> cls = _classes.get(name);
+        if (cls != null)
+            return cls;
+
+        BlacklistClassResolver.DEFAULT.check(name);
+        MultiClassLoader loader = AccessController
+            .doPrivileged(J2DoPrivHelper.newMultiClassLoaderAction());
+        loader.addClassLoader(AccessController.doPrivileged(
+            J2DoPrivHelper.getContextClassLoaderAction()));
+        loader.addClassLoader(getClass().getClassLoader());
+        loader.addClassLoader(MultiClassLoader.SYSTEM_LOADER);
+        cls = Class.forName(name, false, loader);
+        _classes.put(name, cls);
+        return cls;
+    }
+
+    private static int indexOf(Class<?>[] types, Class<?> type) {
+        for (int i = 0; i < types.length; i++)
+            if (types[i] == type)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Encodes a single object graph.
+     */
+    private class Writer {
+
+        private byte[] _buf = new byte[256];
+        private int _pos = 0;
+        private Map<Class<?>, Integer> _types = null;
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(_buf, _pos);
+        }
+
+        private void ensure(int len) {
+            if (_pos + len > _buf.length)
+                _buf = Arrays.copyOf(_buf, Math.max(_pos + len,
+                    _buf.length * 2));
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            _buf[_pos++] = (byte) b;
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, _buf, _pos, bytes.length);
+            _pos += bytes.length;
+        }
+
+        void writeVarInt(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                _buf[_pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            _buf[_pos++] = (byte) v;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                _buf[_pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            _buf[_pos++] = (byte) v;
+        }
+
+        void writeInt(int v) {
+            writeVarInt((v << 1) ^ (v >> 31));
+        }
+
+        void writeLong(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        void writeString(String s) {
+            // ascii strings are written directly
+            int len = s.length();
+            ensure(len + 5);
+            int start = _pos;
+            writeVarInt(len);
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    _pos = start;
+                    writeBytes(s.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                _buf[_pos++] = (byte) c;
+            }
+        }
+
+        /**
+         * Write a class by name the first time it is seen, and by number
+         * after that.
+         */
+        void writeClass(Class<?> cls) {
+            if (_types == null)
+                _types = new IdentityHashMap<>();
+            Integer id = _types.get(cls);
+            if (id != null)
+                writeVarInt(id + 1);
+            else {
+                _types.put(cls, _types.size());
+                writeVarInt(0);
+                writeString(cls.getName());
+            }
+        }
+
+        void writeObject(Object o)
+            throws IOException {
+            if (o == null) {
+                writeByte(NULL);
+                return;
+            }
+
+            Class<?> cls = o.getClass();
+            if (cls == String.class) {
+                writeByte(STRING);
+                writeString((String) o);
+            } else if (cls == Integer.class) {
+                writeByte(INT);
+                writeInt((Integer) o);
+            } else if (cls == Long.class) {
+                writeByte(LONG);
+                writeLong((Long) o);
+            } else if (cls == Boolean.class)
+                writeByte(((Boolean) o) ? TRUE : FALSE);
+            else if (cls == Short.class) {
+                writeByte(SHORT);
+                writeInt((Short) o);
+            } else if (cls == Byte.class) {
+                writeByte(BYTE);
+                writeByte((Byte) o);
+            } else if (cls == Character.class) {
+                writeByte(CHAR);
+                writeVarInt((Character) o);
+            } else if (cls == Double.class) {
+                writeByte(DOUBLE);
+                writeLong(Long.reverseBytes(Double.doubleToLongBits
+                    ((Double) o)));
+            } else if (cls == Float.class) {
+                writeByte(FLOAT);
+                writeInt(Integer.reverseBytes(Float.floatToIntBits
+                    ((Float) o)));
+            } else if (o instanceof OpenJPAId && writeId((OpenJPAId) o))
+                return;
+            else if (cls == Date.class) {
+                writeByte(DATE);
+                writeLong(((Date) o).getTime());
+            } else if (cls == java.sql.Date.class) {
+                writeByte(SQL_DATE);
+                writeLong(((Date) o).getTime());
+            } else if (cls == Time.class) {
+                writeByte(SQL_TIME);
+                writeLong(((Date) o).getTime());
+            } else if (cls == Timestamp.class) {
+                writeByte(TIMESTAMP);
+                writeLong(((Timestamp) o).getTime());
+                writeVarInt(((Timestamp) o).getNanos());
+            } else if (cls == BigDecimal.class) {
+                writeByte(BIG_DECIMAL);
+                writeInt(((BigDecimal) o).scale());
+                writeBytes(((BigDecimal) o).unscaledValue().toByteArray());
+            } else if (cls == BigInteger.class) {
+                writeByte(BIG_INTEGER);
+                writeBytes(((BigInteger) o).toByteArray());
+            } else if (o instanceof Enum) {
+                writeByte(ENUM);
+                writeClass(((Enum<?>) o).getDeclaringClass());
+                writeString(((Enum<?>) o).name());
+            } else if (cls == byte[].class) {
+                writeByte(BYTES);
+                writeBytes((byte[]) o);
+            } else if (cls == char[].class) {
+                writeByte(CHARS);
+                writeString(new String((char[]) o));
+            } else if (cls.isArray() && !cls.getComponentType().isPrimitive())
+                writeArray((Object[]) o);
+            else if ((cls == PCDataImpl.class
+                || cls == DataCachePCDataImpl.class)
+                && writePCData((PCDataImpl) o))
+                return;
+            else if (cls == RemoteCommitEvent.class)
+                writeEvent((RemoteCommitEvent) o);
+            else if (AbstractPCData.getCollectionDataSequence(o) != -1) {
+                writeByte(COLLECTION_DATA);
+                writeVarInt(AbstractPCData.getCollectionDataSequence(o));
+                writeElements((Collection<?>) o);
+            } else if (indexOf(COLLECTIONS, cls) != -1
+                && (cls != TreeSet.class
+                || ((TreeSet<?>) o).comparator() == null)) {
+                writeByte(COLLECTION);
+                writeByte(indexOf(COLLECTIONS, cls));
+                writeElements((Collection<?>) o);
+            } else if (o == Collections.EMPTY_MAP)
+                writeByte(EMPTY_MAP);
+            else if (indexOf(MAPS, cls) != -1
+                && (cls != TreeMap.class
+                || ((TreeMap<?, ?>) o).comparator() == null)) {
+                writeByte(MAP);
+                writeByte(indexOf(MAPS, cls));
+                writeMap((Map<?, ?>) o);
+            } else
+                writeSerialized(o);
+        }
+
+        private boolean writeId(OpenJPAId oid)
+            throws IOException {
+            Class<?> cls = oid.getClass();
+            if (cls == IntId.class) {
+                writeByte(INT_ID);
+                writeIdType(oid);
+                writeInt(((IntId) oid).getId());
+            } else if (cls == LongId.class) {
+                writeByte(LONG_ID);
+                writeIdType(oid);
+                writeLong(((LongId) oid).getId());
+            } else if (cls == Id.class) {
+                writeByte(ID);
+                writeIdType(oid);
+                writeLong(((Id) oid).getId());
+            } else if (cls == StringId.class) {
+                writeByte(STRING_ID);
+                writeIdType(oid);
+                writeString(((StringId) oid).getId());
+            } else if (cls == ShortId.class) {
+                writeByte(SHORT_ID);
+                writeIdType(oid);
+                writeInt(((ShortId) oid).getId());
+            } else if (cls == ByteId.class) {
+                writeByte(BYTE_ID);
+                writeIdType(oid);
+                writeByte(((ByteId) oid).getId());
+            } else if (cls == CharId.class) {
+                writeByte(CHAR_ID);
+                writeIdType(oid);
+                writeVarInt(((CharId) oid).getId());
+            } else if (cls == ObjectId.class) {
+                writeByte(OBJECT_ID);
+                writeIdType(oid);
+                writeObject(((ObjectId) oid).getId());
+            } else
+                return false;
+            return true;
+        }
+
+        private void writeIdType(OpenJPAId oid) {
+            writeClass(oid.getType());
+            writeByte(oid.hasSubclasses() ? 1 : 0);
+        }
+
+        private void writeArray(Object[] arr)
+            throws IOException {
+            writeByte(ARRAY);
+            writeClass(arr.getClass().getComponentType());
+            writeVarInt(arr.length);
+            for (Object o : arr)
+                writeObject(o);
+        }
+
+        private void writeElements(Collection<?> c)
+            throws IOException {
+            writeVarInt(c.size());
+            for (Object o : c)
+                writeObject(o);
+        }
+
+        private void writeMap(Map<?, ?> m)
+            throws IOException {
+            writeVarInt(m.size());
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                writeObject(e.getKey());
+                writeObject(e.getValue());
+            }
+        }
+
+        /**
+         * Write the given data by field index, or return false if its
+         * metadata is not available.
+         */
+        private boolean writePCData(PCDataImpl pc)
+            throws IOException {
+            MetaDataRepository repos = getRepository();
+            ClassMetaData meta = (repos == null) ? null
+                : repos.getCachedMetaData(pc.getType());
+            if (meta == null)
+                return false;
+
+            synchronized (pc) {
+                writeByte(PC_DATA);
+                boolean dc = pc instanceof DataCachePCDataImpl;
+                writeByte(dc ? DATACACHE : 0);
+                writeClass(pc.getType());
+                writeObject(pc.getId());
+                writeObject(pc.getCache());
+                if (dc)
+                    writeLong(((DataCachePCDataImpl) pc).getTimeOut());
+                writeObject(pc.getVersion());
+                writeObject(pc.getImplData());
+
+                // write each field holding data as the gap from the
+                // previous field index, flags and values; 0 ends the list
+                int fields = meta.getFields().length;
+                int prev = -1;
+                for (int i = 0; i < fields; i++) {
+                    boolean loaded = pc.isLoaded(i);
+                    Object val = (loaded) ? pc.getData(i)
+                        : pc.getIntermediate(i);
+                    Object impl = pc.getImplData(i);
+                    if (!loaded && val == null && impl == null)
+                        continue;
+
+                    writeVarInt(i - prev);
+                    prev = i;
+                    int flags = (loaded) ? LOADED : 0;
+                    if (!loaded && val != null)
+                        flags |= INTERMEDIATE;
+                    if (impl != null)
+                        flags |= IMPL;
+                    writeByte(flags);
+                    if ((flags & (LOADED | INTERMEDIATE)) != 0)
+                        writeObject(val);
+                    if (impl != null)
+                        writeObject(impl);
+                }
+                writeVarInt(0);
+            }
+            return true;
+        }
+
+        private void writeEvent(RemoteCommitEvent event)
+            throws IOException {
+            writeByte(EVENT);
+            int payload = event.getPayloadType();
+            writeVarInt(payload);
+            writeElements(event.getPersistedTypeNames());
+            if (payload == RemoteCommitEvent.PAYLOAD_OIDS_WITH_ADDS)
+                writeElements(event.getPersistedObjectIds());
+            if (payload == RemoteCommitEvent.PAYLOAD_EXTENTS) {
+                writeElements(event.getUpdatedTypeNames());
+                writeElements(event.getDeletedTypeNames());
+            } else {
+                writeElements(event.getUpdatedObjectIds());
+                writeElements(event.getDeletedObjectIds());
+            }
+        }
+
+        private void writeSerialized(Object o)
+            throws IOException {
+            if (!(o instanceof Serializable))
+                throw new NotSerializableException(o.getClass().getName());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(o);
+            }
+            writeByte(SERIALIZED);
+            writeBytes(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Decodes a single object graph.
+     */
+    private class Reader {
+
+        private final byte[] _buf;
+        private int _pos = 0;
+        private List<Class<?>> _types = null;
+
+        Reader(byte[] buf) {
+            _buf = buf;
+        }
+
+        int readByte()
+            throws IOException {
+            if (_pos >= _buf.length)
+                throw new EOFException();
+            return _buf[_pos++];
+        }
+
+        byte[] readBytes()
+            throws IOException {
+            int len = readVarInt();
+            if (len < 0 || _pos + len > _buf.length)
+                throw new EOFException();
+            byte[] bytes = Arrays.copyOfRange(_buf, _pos, _pos + len);
+            _pos += len;
+            return bytes;
+        }
+
+        int readVarInt()
+            throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return v;
+            }
+            throw new StreamCorruptedException();
+        }
+
+        /**
+         * Read the number of elements that follow. Every element takes at
+         * least one byte, so a count beyond the remaining bytes is rejected
+         * before anything is allocated for it.
+         */
+        int readCount()
+            throws IOException {
+            int count = readVarInt();
+            if (count < 0 || count > _buf.length - _pos)
+                throw new StreamCorruptedException(String.valueOf(count));
+            return count;
+        }
+
+        long readVarLong()
+            throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return v;
+            }
+            throw new StreamCorruptedException();
+        }
+
+        int readInt()
+            throws IOException {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        long readLong()
+            throws IOException {
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString()
+            throws IOException {
+            int start = _pos;
+            int len = readVarInt();
+            if (len < 0 || _pos + len > _buf.length)
+                throw new EOFException();
+            for (int i = 0; i < len; i++) {
+                if (_buf[_pos + i] < 0) {
+                    // multi-byte characters; length is in bytes
+                    _pos = start;
+                    return new String(readBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            String s = new String(_buf, _pos, len,
+                StandardCharsets.ISO_8859_1);
+            _pos += len;
+            return s;
+        }
+
+        Class<?> readClass()
+            throws IOException, ClassNotFoundException {
+            if (_types == null)
+                _types = new ArrayList<>();
+            int id = readVarInt();
+            if (id > 0) {
+                if (id > _types.size())
+                    throw new StreamCorruptedException();
+                return _types.get(id - 1);
+            }
+            Class<?> cls = resolveClass(readString());
+            _types.add(cls);
+            return cls;
+        }
+
+        Object readObject()
+            throws IOException, ClassNotFoundException {
+            int tag = readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case BYTE:
+                    return (byte) readByte();
+                case SHORT:
+                    return (short) readInt();
+                case CHAR:
+                    return (char) readVarInt();
+                case INT:
+                    return readInt();
+                case LONG:
+                    return readLong();
+                case FLOAT:
+                    return Float.intBitsToFloat(Integer.reverseBytes
+                        (readInt()));
+                case DOUBLE:
+                    return Double.longBitsToDouble(Long.reverseBytes
+                        (readLong()));
+                case STRING:
+                    return readString();
+                case DATE:
+                    return new Date(readLong());
+                case SQL_DATE:
+                    return new java.sql.Date(readLong());
+                case SQL_TIME:
+                    return new Time(readLong());
+                case TIMESTAMP:
+                    Timestamp ts = new Timestamp(readLong());
+                    ts.setNanos(readVarInt());
+                    return ts;
+                case BIG_DECIMAL:
+                    int scale = readInt();
+                    return new BigDecimal(new BigInteger(readBytes()), scale);
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case ENUM:
+                    return readEnum();
+                case BYTES:
+                    return readBytes();
+                case CHARS:
+                    return readString().toCharArray();
+                case ARRAY:
+                    return readArray();
+                case COLLECTION:
+                    return readCollection();
+                case MAP:
+                    return readMap();
+                case EMPTY_MAP:
+                    return Collections.EMPTY_MAP;
+                case COLLECTION_DATA:
+                    int seq = readVarInt();
+                    int size = readCount();
+                    List<Object> data = AbstractPCData.newCollectionData
+                        (size, seq);
+                    for (int i = 0; i < size; i++)
+                        data.add(readObject());
+                    return data;
+                case INT_ID:
+                case LONG_ID:
+                case ID:
+                case STRING_ID:
+                case SHORT_ID:
+                case BYTE_ID:
+                case CHAR_ID:
+                case OBJECT_ID:
+                    return readId(tag);
+                case PC_DATA:
+                    return readPCData();
+                case EVENT:
+                    return readEvent();
+                case SERIALIZED:
+                    return new Serialization.ClassResolvingObjectInputStream
+                        (new ByteArrayInputStream(readBytes())).readObject();
+                default:
+                    throw new StreamCorruptedException(String.valueOf(tag));
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnum()
+            throws IOException, ClassNotFoundException {
+            Class cls = readClass();
+            return Enum.valueOf(cls, readString());
+        }
+
+        private Object readArray()
+            throws IOException, ClassNotFoundException {
+            Class<?> type = readClass();
+            int len = readCount();
+            Object[] arr = (Object[]) java.lang.reflect.Array.newInstance
+                (type, len);
+            for (int i = 0; i < len; i++)
+                arr[i] = readObject();
+            return arr;
+        }
+
+        private Collection<Object> readCollection()
+            throws IOException, ClassNotFoundException {
+            int kind = readByte();
+            int size = readCount();
+            Collection<Object> c;
+            switch (kind) {
+                case 0:
+                    c = new ArrayList<>(size);
+                    break;
+                case 1:
+                    c = new LinkedList<>();
+                    break;
+                case 2:
+                    c = new HashSet<>();
+                    break;
+                case 3:
+                    c = new LinkedHashSet<>();
+                    break;
+                case 4:
+                    c = new TreeSet<>();
+                    break;
+                default:
+                    throw new StreamCorruptedException();
+            }
+            for (int i = 0; i < size; i++)
+                c.add(readObject());
+            return c;
+        }
+
+        private Map<Object, Object> readMap()
+            throws IOException, ClassNotFoundException {
+            int kind = readByte();
+            int size = readCount();
+            Map<Object, Object> m;
+            switch (kind) {
+                case 0:
+                    m = new HashMap<>();
+                    break;
+                case 1:
+                    m = new LinkedHashMap<>();
+                    break;
+                case 2:
+                    m = new TreeMap<>();
+                    break;
+                default:
+                    throw new StreamCorruptedException();
+            }
+            for (int i = 0; i < size; i++)
+                m.put(readObject(), readObject());
+            return m;
+        }
+
+        private List<Object> readElements()
+            throws IOException, ClassNotFoundException {
+            int size = readCount();
+            List<Object> c = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                c.add(readObject());
+            return c;
+        }
+
+        private OpenJPAId readId(int tag)
+            throws IOException, ClassNotFoundException {
+            Class<?> type = readClass();
+            boolean subs = readByte() != 0;
+            switch (tag) {
+                case INT_ID:
+                    return new IntId(type, readInt(), subs);
+                case LONG_ID:
+                    return new LongId(type, readLong(), subs);
+                case ID:
+                    return new Id(type, readLong(), subs);
+                case STRING_ID:
+                    return new StringId(type, readString(), subs);
+                case SHORT_ID:
+                    return new ShortId(type, (short) readInt(), subs);
+                case BYTE_ID:
+                    return new ByteId(type, (byte) readByte(), subs);
+                case CHAR_ID:
+                    return new CharId(type, (char) readVarInt(), subs);
+                default:
+                    return new ObjectId(type, readObject(), subs);
+            }
+        }
+
+        private PCDataImpl readPCData()
+            throws IOException, ClassNotFoundException {
+            boolean dc = (readByte() & DATACACHE) != 0;
+            Class<?> type = readClass();
+            Object oid = readObject();
+            String cache = (String) readObject();
+            long timeout = (dc) ? readLong() : -1;
+
+            MetaDataRepository repos = getRepository();
+            if (repos == null)
+                throw new StreamCorruptedException(type.getName());
+            ClassMetaData meta = repos.getMetaData(type,
+                type.getClassLoader(), true);
+            PCDataImpl pc = (dc)
+                ? new DataCachePCDataImpl(oid, meta, cache, timeout)
+                : new PCDataImpl(oid, meta, cache);
+            pc.setVersion(readObject());
+            pc.setImplData(readObject());
+
+            int fields = meta.getFields().length;
+            int index = -1;
+            for (int gap; (gap = readVarInt()) != 0;) {
+                index += gap;
+                if (gap < 0 || index >= fields)
+                    throw new StreamCorruptedException(type.getName());
+                int flags = readByte();
+                if ((flags & LOADED) != 0)
+                    pc.setData(index, readObject());
+                else if ((flags & INTERMEDIATE) != 0)
+                    pc.setIntermediate(index, readObject());
+                if ((flags & IMPL) != 0)
+                    pc.setImplData(index, readObject());
+            }
+            return pc;
+        }
+
+        private RemoteCommitEvent readEvent()
+            throws IOException, ClassNotFoundException {
+            int payload = readVarInt();
+            List<Object> addClasses = readElements();
+            List<Object> addIds = null;
+            if (payload == RemoteCommitEvent.PAYLOAD_OIDS_WITH_ADDS)
+                addIds = readElements();
+            List<Object> updates = readElements();
+            List<Object> deletes = readElements();
+            return new RemoteCommitEvent(payload, addIds, addClasses,
+                updates, deletes);
+        }
+    }
+}
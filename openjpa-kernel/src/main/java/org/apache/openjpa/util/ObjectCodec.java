@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.io.IOException;
+
+/**
+ * Converts objects to and from bytes for caches and remote commit
+ * providers that keep or transmit data outside the Java heap.
+ * Implementations must be thread safe.
+ *
+ * @see Serialization#newCodec
+ * @since 3.1.3
+ */
+public interface ObjectCodec {
+
+    /**
+     * Return the encoded form of the given object.
+     */
+    byte[] encode(Object o)
+        throws IOException;
+
+    /**
+     * Return the object encoded in the given bytes.
+     */
+    Object decode(byte[] bytes)
+        throws IOException, ClassNotFoundException;
+}
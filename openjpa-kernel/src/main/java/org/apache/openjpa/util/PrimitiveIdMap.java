@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map keyed by {@link OpenJPAId}s. Values for single-field numeric
+ * identities ({@link LongId}, {@link IntId}, {@link ShortId},
+ * {@link ByteId} and datastore {@link Id}s) are kept in open-addressing
+ * tables of primitive keys, one per persistent class hierarchy, so that
+ * entries neither hold the key objects nor allocate per-entry nodes. All
+ * other keys are stored in a delegate map. Keys match as
+ * {@link OpenJPAId#equals} does, including the matching of subclass ids.
+ * Not thread safe.
+ *
+ * @since 3.1.3
+ */
+public class PrimitiveIdMap<V>
+    extends AbstractMap<Object, V>
+    implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // least-derived non-object class of each type, as used by the id hash
+    private static final ClassValue<Class<?>> BASE = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            Class<?> base = type;
+            while (base.getSuperclass() != null
+                && base.getSuperclass() != Object.class)
+                base = base.getSuperclass();
+            return base;
+        }
+    };
+
+    private final Map<Object, V> _map;
+    private final boolean _soft;
+    private transient Map<Class<?>, Table> _tables = new HashMap<>();
+    // occupied slots of all tables
+    private transient int _size = 0;
+
+    /**
+     * Constructor; values for other keys are kept in a hash map.
+     */
+    public PrimitiveIdMap() {
+        this(new HashMap<>(), false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param map the map holding values for keys that are not single-field
+     * numeric identities
+     * @param softValues whether the primitive tables hold their values by
+     * soft references, which should match the value strength of the
+     * given map
+     */
+    public PrimitiveIdMap(Map<Object, V> map, boolean softValues) {
+        _map = map;
+        _soft = softValues;
+    }
+
+    /**
+     * Whether the given key is stored in a primitive table.
+     */
+    public static boolean isPrimitiveId(Object key) {
+        if (key == null)
+            return false;
+        Class<?> cls = key.getClass();
+        return cls == LongId.class || cls == IntId.class || cls == Id.class
+            || cls == ShortId.class || cls == ByteId.class;
+    }
+
+    private static long toLong(Object key) {
+        Class<?> cls = key.getClass();
+        if (cls == LongId.class)
+            return ((LongId) key).getId();
+        if (cls == IntId.class)
+            return ((IntId) key).getId();
+        if (cls == Id.class)
+            return ((Id) key).getId();
+        if (cls == ShortId.class)
+            return ((ShortId) key).getId();
+        return ((ByteId) key).getId();
+    }
+
+    private static OpenJPAId toId(Class<?> idClass, Class<?> type, long key,
+        boolean subs) {
+        if (idClass == LongId.class)
+            return new LongId(type, key, subs);
+        if (idClass == IntId.class)
+            return new IntId(type, (int) key, subs);
+        if (idClass == Id.class)
+            return new Id(type, key, subs);
+        if (idClass == ShortId.class)
+            return new ShortId(type, (short) key, subs);
+        return new ByteId(type, (byte) key, subs);
+    }
+
+    /**
+     * Whether the given id equals a stored id of the same class and value
+     * whose type is <code>stored</code>. As in {@link OpenJPAId#equals},
+     * the id matches stored ids of its own type and of its superclasses,
+     * and of its subclasses only if the id {@link OpenJPAId#hasSubclasses}.
+     */
+    private static boolean matches(Class<?> stored, OpenJPAId id) {
+        Class<?> type = id.getType();
+        if (stored == type || stored.isAssignableFrom(type))
+            return true;
+        return id.hasSubclasses() && type.isAssignableFrom(stored);
+    }
+
+    /**
+     * Whether the given id is the key of the given slot. Several stored ids
+     * of a hierarchy may match an id; the slot only matches with another
+     * type than the id's if the delegate map holds no id of the id's type
+     * or one of its superclasses, which is the closer match.
+     */
+    private boolean isTableMatch(Table table, int i, OpenJPAId id) {
+        Class<?> stored = table.types[i];
+        if (stored == id.getType())
+            return true;
+        if (!matches(stored, id))
+            return false;
+        return _map.isEmpty() || !_map.containsKey(toId(id.getClass(),
+            id.getType(), table.keys[i], false));
+    }
+
+    /**
+     * Return the table for the given key, or null if the key is kept in
+     * the delegate map.
+     */
+    private Table getTable(Object key, boolean create) {
+        if (!isPrimitiveId(key))
+            return null;
+        Class<?> type = ((OpenJPAId) key).getType();
+        if (type == null)
+            return null;
+        Class<?> base = BASE.get(type);
+        Table table = _tables.get(base);
+        if (table == null) {
+            if (!create)
+                return null;
+            table = new Table(key.getClass());
+            _tables.put(base, table);
+        } else if (table.idClass != key.getClass())
+            return null;
+        return table;
+    }
+
+    @Override
+    public V get(Object key) {
+        Table table = getTable(key, false);
+        if (table != null) {
+            int i = table.find(toLong(key));
+            if (i != -1 && isTableMatch(table, i, (OpenJPAId) key)) {
+                V val = table.value(i);
+                if (val != null)
+                    return val;
+            }
+        }
+        return (_map.isEmpty()) ? null : _map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null || (!_map.isEmpty() && _map.containsKey(key));
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        Table table = getTable(key, true);
+        if (table == null)
+            return _map.put(key, value);
+
+        OpenJPAId id = (OpenJPAId) key;
+        long k = toLong(key);
+        int i = table.find(k);
+        if (i != -1) {
+            V prev = table.value(i);
+            if (prev != null && isTableMatch(table, i, id)) {
+                table.set(i, table.types[i], value);
+                return prev;
+            }
+            // the slot holds an id of an unrelated type in the hierarchy
+            if (prev != null || (!_map.isEmpty() && _map.containsKey(key)))
+                return _map.put(key, value);
+            table.set(i, id.getType(), value);
+            return null;
+        }
+        if (!_map.isEmpty() && _map.containsKey(key))
+            return _map.put(key, value);
+        table.add(k, id.getType(), value);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Table table = getTable(key, false);
+        if (table != null) {
+            int i = table.find(toLong(key));
+            if (i != -1) {
+                V prev = table.value(i);
+                if (prev == null)
+                    table.remove(i);
+                else if (isTableMatch(table, i, (OpenJPAId) key)) {
+                    table.remove(i);
+                    return prev;
+                }
+            }
+        }
+        return (_map.isEmpty()) ? null : _map.remove(key);
+    }
+
+    /**
+     * Return the number of entries. With soft values, entries whose values
+     * have been cleared are counted until their slots are reused or the
+     * table is rehashed.
+     */
+    @Override
+    public int size() {
+        return _map.size() + _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0 && _map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        _map.clear();
+        _tables.clear();
+        _size = 0;
+    }
+
+    @Override
+    public Collection<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (Table table : _tables.values()) {
+            for (int i = 0; i < table.vals.length; i++) {
+                V val = table.value(i);
+                if (val != null)
+                    values.add(val);
+            }
+        }
+        values.addAll(_map.values());
+        return values;
+    }
+
+    /**
+     * Return a snapshot of the entries. Keys of entries kept in the
+     * primitive tables are recreated.
+     */
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        Set<Entry<Object, V>> entries = new LinkedHashSet<>();
+        for (Table table : _tables.values()) {
+            for (int i = 0; i < table.vals.length; i++) {
+                V val = table.value(i);
+                if (val != null)
+                    entries.add(new SimpleImmutableEntry<>(toId(table.idClass,
+                        table.types[i], table.keys[i], true), val));
+            }
+        }
+        entries.addAll(_map.entrySet());
+        return entries;
+    }
+
+    private void writeObject(ObjectOutputStream out)
+        throws IOException {
+        out.defaultWriteObject();
+        List<Object> entries = new ArrayList<>();
+        for (Table table : _tables.values()) {
+            for (int i = 0; i < table.vals.length; i++) {
+                V val = table.value(i);
+                if (val != null) {
+                    entries.add(toId(table.idClass, table.types[i],
+                        table.keys[i], true));
+                    entries.add(val);
+                }
+            }
+        }
+        out.writeObject(entries);
+    }
+
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        _tables = new HashMap<>();
+        _size = 0;
+        List<?> entries = (List<?>) in.readObject();
+        for (int i = 0; i < entries.size(); i += 2)
+            put(entries.get(i), (V) entries.get(i + 1));
+    }
+
+    /**
+     * Open-addressing table with linear probing. A slot is empty when its
+     * value is null; soft values that have been cleared stay in their slot
+     * until removed or rehashed.
+     */
+    private class Table {
+
+        final Class<?> idClass;
+        long[] keys = new long[16];
+        Class<?>[] types = new Class<?>[16];
+        Object[] vals = new Object[16];
+        int used = 0;
+
+        Table(Class<?> idClass) {
+            this.idClass = idClass;
+        }
+
+        private int slot(long key, int mask) {
+            int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        /**
+         * Return the slot of the given key, or -1.
+         */
+        int find(long key) {
+            int mask = vals.length - 1;
+            for (int i = slot(key, mask); vals[i] != null; i = (i + 1) & mask)
+                if (keys[i] == key)
+                    return i;
+            return -1;
+        }
+
+        V value(int i) {
+            Object val = vals[i];
+            if (val == null || !_soft)
+                return (V) val;
+            return ((SoftReference<V>) val).get();
+        }
+
+        void set(int i, Class<?> type, V value) {
+            types[i] = type;
+            vals[i] = (_soft) ? new SoftReference<>(value) : value;
+        }
+
+        void add(long key, Class<?> type, V value) {
+            if ((used + 1) * 4 > vals.length * 3)
+                rehash();
+            int mask = vals.length - 1;
+            int i = slot(key, mask);
+            while (vals[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            set(i, type, value);
+            used++;
+            _size++;
+        }
+
+        /**
+         * Empty the given slot, shifting back later entries of its probe
+         * sequence.
+         */
+        void remove(int i) {
+            int mask = vals.length - 1;
+            for (int j = (i + 1) & mask; vals[j] != null; j = (j + 1) & mask) {
+                int k = slot(keys[j], mask);
+                // leave entries whose home slot lies cyclically in (i, j]
+                if ((i <= j) ? (i < k && k <= j) : (i < k || k <= j))
+                    continue;
+                keys[i] = keys[j];
+                types[i] = types[j];
+                vals[i] = vals[j];
+                i = j;
+            }
+            keys[i] = 0;
+            types[i] = null;
+            vals[i] = null;
+            used--;
+            _size--;
+        }
+
+        /**
+         * Return the number of slots whose values have not been cleared.
+         */
+        private int live() {
+            if (!_soft)
+                return used;
+            int live = 0;
+            for (int i = 0; i < vals.length; i++)
+                if (value(i) != null)
+                    live++;
+            return live;
+        }
+
+        /**
+         * Drop cleared values and grow the table if it is still half full.
+         */
+        private void rehash() {
+            long[] oldKeys = keys;
+            Class<?>[] oldTypes = types;
+            Object[] oldVals = vals;
+            int oldUsed = used;
+            int live = live();
+            int capacity = oldVals.length;
+            if (live * 2 >= capacity)
+                capacity *= 2;
+
+            keys = new long[capacity];
+            types = new Class<?>[capacity];
+            vals = new Object[capacity];
+            used = 0;
+            int mask = capacity - 1;
+            for (int j = 0; j < oldVals.length; j++) {
+                if (oldVals[j] == null || (_soft
+                    && ((SoftReference<?>) oldVals[j]).get() == null))
+                    continue;
+                int i = slot(oldKeys[j], mask);
+                while (vals[i] != null)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                types[i] = oldTypes[j];
+                vals[i] = oldVals[j];
+                used++;
+            }
+            _size -= oldUsed - used;
+        }
+    }
+}
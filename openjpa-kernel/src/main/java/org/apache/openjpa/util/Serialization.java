@@ -32,6 +32,7 @@ import java.security.PrivilegedAction;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.kernel.StoreContext;
+import org.apache.openjpa.lib.conf.Configurations;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
@@ -88,6 +89,26 @@ public class Serialization {
         }
     }
 
+    /**
+     * Return the {@link ObjectCodec} with the given name: <code>java</code>
+     * for Java serialization, <code>compact</code> for a
+     * {@link CompactObjectCodec}, or a plugin string naming an
+     * {@link ObjectCodec} class. A null or empty name returns a codec for
+     * Java serialization.
+     *
+     * @since 3.1.3
+     */
+    public static ObjectCodec newCodec(String name, OpenJPAConfiguration conf) {
+        if (name == null || name.length() == 0 || "java".equals(name))
+            return new JavaObjectCodec();
+        if ("compact".equals(name))
+            return new CompactObjectCodec(conf);
+        return (ObjectCodec) Configurations.newInstance
+            (Configurations.getClassName(name), conf,
+            Configurations.getProperties(name), ObjectCodec.class
+            .getClassLoader());
+    }
+
     /**
      * Object output stream that replaces persistent objects with their oids.
      */
@@ -137,7 +158,13 @@ public class Serialization {
             addContextClassLoaders(loader);
             loader.addClassLoader(getClass().getClassLoader());
             loader.addClassLoader(MultiClassLoader.SYSTEM_LOADER);
-            return Class.forName(name, true, loader);
+            try {
+                return Class.forName(name, true, loader);
+            } catch (ClassNotFoundException cnfe) {
+                // primitive types such as int.class are only resolved
+                // by the default implementation
+                return super.resolveClass(desc);
+            }
         }
 
         protected void addContextClassLoaders(MultiClassLoader loader) {
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.iterators.IteratorChain;
+
+/**
+ * {@link CacheMap} that partitions its entries over a fixed number of
+ * independently locked segments. Each segment is a complete cache map with
+ * its own pinned, hard and soft reference maps, so readers and writers of
+ * keys in different segments never contend for the same lock. The configured
+ * cache and soft reference sizes are divided evenly among the segments, which
+ * makes eviction (and LRU ordering, if enabled) approximate across the map as
+ * a whole.
+ *
+ * @since 3.1.3
+ */
+public class StripedCacheMap
+    extends CacheMap {
+
+    private static final int ENTRY = 0;
+    private static final int KEY = 1;
+    private static final int VALUE = 2;
+
+    private final CacheMap[] _segments;
+    private final int _mask;
+    private final boolean _lru;
+
+    private int _cacheSize;
+    private int _softRefSize = Integer.MAX_VALUE;
+
+    /**
+     * Create a non-LRU cache map with a size of 1000 and 16 segments.
+     */
+    public StripedCacheMap() {
+        this(false, 1000, 16);
+    }
+
+    /**
+     * Create a cache map with the given properties.
+     *
+     * @param lru whether each segment evicts in LRU order
+     * @param max the maximum number of unpinned hard references across
+     * all segments, or -1 for no limit
+     * @param segments the number of segments; rounded up to a power of two
+     */
+    public StripedCacheMap(boolean lru, int max, int segments) {
+        // the maps of the superclass are never used
+        super(lru, 0, 1, .75F, 1);
+
+        int count = 1;
+        while (count < segments)
+            count <<= 1;
+
+        _lru = lru;
+        _mask = count - 1;
+        _cacheSize = (max < 0) ? Integer.MAX_VALUE : max;
+        _segments = new CacheMap[count];
+        int segmentMax = perSegment(max);
+        for (int i = 0; i < count; i++)
+            _segments[i] = new Segment(lru, segmentMax);
+    }
+
+    /**
+     * The number of segments in this map.
+     */
+    public int getSegmentCount() {
+        return _segments.length;
+    }
+
+    /**
+     * Return the segment responsible for the given key.
+     */
+    protected CacheMap segmentFor(Object key) {
+        if (key == null)
+            return _segments[0];
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return _segments[h & _mask];
+    }
+
+    /**
+     * Divide the given total size among the segments.
+     */
+    private int perSegment(int size) {
+        if (size < 0 || size == Integer.MAX_VALUE)
+            return -1;
+        if (size == 0)
+            return 0;
+        return Math.max(1, (size + _segments.length - 1) / _segments.length);
+    }
+
+    /**
+     * Acquire the read lock of every segment.
+     */
+    @Override
+    public void readLock() {
+        for (CacheMap segment : _segments)
+            segment.readLock();
+    }
+
+    /**
+     * Release the read lock of every segment.
+     */
+    @Override
+    public void readUnlock() {
+        for (int i = _segments.length - 1; i >= 0; i--)
+            _segments[i].readUnlock();
+    }
+
+    /**
+     * Acquire the write lock of every segment.
+     */
+    @Override
+    public void writeLock() {
+        for (CacheMap segment : _segments)
+            segment.writeLock();
+    }
+
+    /**
+     * Release the write lock of every segment.
+     */
+    @Override
+    public void writeUnlock() {
+        for (int i = _segments.length - 1; i >= 0; i--)
+            _segments[i].writeUnlock();
+    }
+
+    @Override
+    public boolean isLRU() {
+        return _lru;
+    }
+
+    @Override
+    public void setCacheSize(int size) {
+        _cacheSize = (size < 0) ? Integer.MAX_VALUE : size;
+        int segmentSize = perSegment(size);
+        for (CacheMap segment : _segments)
+            segment.setCacheSize(segmentSize);
+    }
+
+    @Override
+    public int getCacheSize() {
+        return (_cacheSize == Integer.MAX_VALUE) ? -1 : _cacheSize;
+    }
+
+    @Override
+    public void setSoftReferenceSize(int size) {
+        _softRefSize = (size < 0) ? Integer.MAX_VALUE : size;
+        int segmentSize = perSegment(size);
+        for (CacheMap segment : _segments)
+            segment.setSoftReferenceSize(segmentSize);
+    }
+
+    @Override
+    public int getSoftReferenceSize() {
+        return (_softRefSize == Integer.MAX_VALUE) ? -1 : _softRefSize;
+    }
+
+    @Override
+    public Set getPinnedKeys() {
+        Set keys = new HashSet();
+        for (CacheMap segment : _segments)
+            keys.addAll(segment.getPinnedKeys());
+        return Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public boolean pin(Object key) {
+        return segmentFor(key).pin(key);
+    }
+
+    @Override
+    public boolean unpin(Object key) {
+        return segmentFor(key).unpin(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        return segmentFor(key).put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return segmentFor(key).remove(key);
+    }
+
+    @Override
+    public void clear() {
+        for (CacheMap segment : _segments)
+            segment.clear();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (CacheMap segment : _segments)
+            size += segment.size();
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return segmentFor(key).containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object val) {
+        for (CacheMap segment : _segments)
+            if (segment.containsValue(val))
+                return true;
+        return false;
+    }
+
+    @Override
+    public Set keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("StripedCacheMap:");
+        for (int i = 0; i < _segments.length; i++) {
+            if (i > 0)
+                buf.append("::");
+            buf.append(_segments[i]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Chain the given view of every segment.
+     */
+    private Iterator chain(int type) {
+        IteratorChain itr = new IteratorChain();
+        for (CacheMap segment : _segments) {
+            switch (type) {
+                case KEY:
+                    itr.addIterator(segment.keySet().iterator());
+                    break;
+                case VALUE:
+                    itr.addIterator(segment.values().iterator());
+                    break;
+                default:
+                    itr.addIterator(segment.entrySet().iterator());
+            }
+        }
+        return itr;
+    }
+
+    /**
+     * A single segment. Eviction callbacks and map hooks are routed back
+     * through the enclosing map so that subclasses only need to override
+     * them once.
+     */
+    private class Segment
+        extends CacheMap {
+
+        Segment(boolean lru, int max) {
+            super(lru, max, (max < 0) ? -1 : max / 2, .75F, 1);
+        }
+
+        @Override
+        protected Object put(Map map, Object key, Object value) {
+            return StripedCacheMap.this.put(map, key, value);
+        }
+
+        @Override
+        protected Object remove(Map map, Object key) {
+            return StripedCacheMap.this.remove(map, key);
+        }
+
+        @Override
+        protected void entryRemoved(Object key, Object value,
+            boolean expired) {
+            StripedCacheMap.this.entryRemoved(key, value, expired);
+        }
+
+        @Override
+        protected void entryAdded(Object key, Object value) {
+            StripedCacheMap.this.entryAdded(key, value);
+        }
+    }
+
+    /**
+     * View of the entry set.
+     */
+    private class EntrySet
+        extends AbstractSet {
+
+        @Override
+        public int size() {
+            return StripedCacheMap.this.size();
+        }
+
+        @Override
+        public boolean add(Object o) {
+            Map.Entry entry = (Map.Entry) o;
+            put(entry.getKey(), entry.getValue());
+            return true;
+        }
+
+        @Override
+        public Iterator iterator() {
+            return chain(ENTRY);
+        }
+    }
+
+    /**
+     * View of the key set.
+     */
+    private class KeySet
+        extends AbstractSet {
+
+        @Override
+        public int size() {
+            return StripedCacheMap.this.size();
+        }
+
+        @Override
+        public Iterator iterator() {
+            return chain(KEY);
+        }
+    }
+
+    /**
+     * View of the value collection.
+     */
+    private class ValueCollection
+        extends AbstractCollection {
+
+        @Override
+        public int size() {
+            return StripedCacheMap.this.size();
+        }
+
+        @Override
+        public Iterator iterator() {
+            return chain(VALUE);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.openjpa.util.LongId;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestRemoteCommitEvent {
+
+    private static RemoteCommitEvent event(int payload, Object... updates) {
+        return new RemoteCommitEvent(payload, null,
+            Collections.singletonList("a.B"), Arrays.asList(updates), null);
+    }
+
+    @Test
+    public void testCoalesceMergesAndRemovesDuplicates() {
+        LongId id1 = new LongId(String.class, 1);
+        LongId id2 = new LongId(String.class, 2);
+        List<RemoteCommitEvent> events = Arrays.asList(
+            event(RemoteCommitEvent.PAYLOAD_OIDS, id1),
+            event(RemoteCommitEvent.PAYLOAD_OIDS, id2, id1),
+            new RemoteCommitEvent(RemoteCommitEvent.PAYLOAD_OIDS, null, null,
+                null, Collections.singletonList(id2)));
+
+        List<RemoteCommitEvent> merged = RemoteCommitEvent.coalesce(events);
+        assertEquals(1, merged.size());
+        RemoteCommitEvent event = merged.get(0);
+        assertEquals(RemoteCommitEvent.PAYLOAD_OIDS, event.getPayloadType());
+        assertEquals(Arrays.asList(id1, id2),
+            new ArrayList<>(event.getUpdatedObjectIds()));
+        assertEquals(Collections.singletonList(id2),
+            new ArrayList<>(event.getDeletedObjectIds()));
+        assertEquals(Collections.singletonList("a.B"),
+            new ArrayList<>(event.getPersistedTypeNames()));
+    }
+
+    @Test
+    public void testCoalesceKeepsPayloadTypesApart() {
+        RemoteCommitEvent extents = event(RemoteCommitEvent.PAYLOAD_EXTENTS,
+            "a.B");
+        List<RemoteCommitEvent> events = Arrays.asList(
+            event(RemoteCommitEvent.PAYLOAD_OIDS, new LongId(String.class, 1)),
+            event(RemoteCommitEvent.PAYLOAD_OIDS, new LongId(String.class, 2)),
+            extents,
+            event(RemoteCommitEvent.PAYLOAD_OIDS, new LongId(String.class, 3)));
+
+        List<RemoteCommitEvent> merged = RemoteCommitEvent.coalesce(events);
+        assertEquals(3, merged.size());
+        assertEquals(2, merged.get(0).getUpdatedObjectIds().size());
+        assertSame(extents, merged.get(1));
+        assertSame(events.get(3), merged.get(2));
+        assertTrue(RemoteCommitEvent.coalesce(
+            Collections.<RemoteCommitEvent> emptyList()).isEmpty());
+    }
+}
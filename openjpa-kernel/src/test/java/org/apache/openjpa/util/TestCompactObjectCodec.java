@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.apache.openjpa.kernel.AbstractPCData;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCompactObjectCodec {
+
+    private final CompactObjectCodec _codec = new CompactObjectCodec();
+
+    private Object roundTrip(Object o) throws Exception {
+        return _codec.decode(_codec.encode(o));
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        Timestamp ts = new Timestamp(1234567890123L);
+        ts.setNanos(123456789);
+        Object[] values = { null, Boolean.TRUE, Boolean.FALSE, (byte) -3,
+            (short) 300, 'x', 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            Long.MIN_VALUE, 42L, 1.5f, -2.25d, Double.NaN, "", "ascii",
+            "été 中", new Date(5L), new java.sql.Date(86400000L),
+            new java.sql.Time(3600000L), ts, new BigDecimal("-123.4500"),
+            new BigInteger("123456789012345678901234567890"),
+            Thread.State.BLOCKED, Locale.FRANCE };
+        for (Object value : values)
+            assertEquals(value, roundTrip(value));
+
+        assertArrayEquals(new byte[]{ 1, -2, 3 },
+            (byte[]) roundTrip(new byte[]{ 1, -2, 3 }));
+        assertArrayEquals("chars".toCharArray(),
+            (char[]) roundTrip("chars".toCharArray()));
+        assertArrayEquals(new Integer[]{ 1, null, 3 },
+            (Integer[]) roundTrip(new Integer[]{ 1, null, 3 }));
+        assertArrayEquals(new int[]{ 1, 2 }, (int[]) roundTrip(new int[]{ 1, 2 }));
+    }
+
+    @Test
+    public void testContainers() throws Exception {
+        List<Object> list = new ArrayList<>(Arrays.asList("a", 1, null, 2L));
+        assertEquals(list, roundTrip(list));
+
+        LinkedHashSet<String> set = new LinkedHashSet<>(Arrays.asList("z", "a"));
+        Object set2 = roundTrip(set);
+        assertEquals(LinkedHashSet.class, set2.getClass());
+        assertEquals(new ArrayList<>(set), new ArrayList<>((LinkedHashSet<?>) set2));
+
+        Map<Object, Object> map = new HashMap<>();
+        map.put("k", Arrays.asList(1, 2));
+        map.put(3, new TreeMap<>(Collections.singletonMap("x", "y")));
+        assertEquals(map, roundTrip(map));
+        assertSame(Collections.EMPTY_MAP, roundTrip(Collections.EMPTY_MAP));
+
+        List<Object> data = AbstractPCData.newCollectionData(2, 7);
+        data.add("a");
+        data.add("b");
+        Object data2 = roundTrip(data);
+        assertEquals(7, AbstractPCData.getCollectionDataSequence(data2));
+        assertEquals(data, data2);
+    }
+
+    @Test
+    public void testIds() throws Exception {
+        Object[] ids = { new IntId(String.class, 5),
+            new LongId(String.class, -5L, false), new Id(String.class, 7L),
+            new StringId(String.class, "key"), new ShortId(String.class, (short) 2),
+            new ByteId(String.class, (byte) 1), new CharId(String.class, 'c'),
+            new ObjectId(String.class, new BigDecimal("1.5")),
+            new BigDecimalId(String.class, new BigDecimal("2.5")) };
+        for (Object id : ids) {
+            OpenJPAId id2 = (OpenJPAId) roundTrip(id);
+            assertEquals(id, id2);
+            assertEquals(id.getClass(), id2.getClass());
+            assertEquals(((OpenJPAId) id).hasSubclasses(), id2.hasSubclasses());
+        }
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        List<Object> updates = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            updates.add(new LongId(String.class, i));
+        RemoteCommitEvent event = new RemoteCommitEvent(
+            RemoteCommitEvent.PAYLOAD_OIDS_WITH_ADDS,
+            Collections.singletonList(new IntId(Integer.class, 1)),
+            Collections.singletonList(Integer.class.getName()), updates, null);
+
+        byte[] bytes = _codec.encode(event);
+        RemoteCommitEvent event2 = (RemoteCommitEvent) _codec.decode(bytes);
+        assertEquals(event.getPayloadType(), event2.getPayloadType());
+        assertEquals(new ArrayList<>(event.getPersistedObjectIds()),
+            new ArrayList<>(event2.getPersistedObjectIds()));
+        assertEquals(new ArrayList<>(event.getPersistedTypeNames()),
+            new ArrayList<>(event2.getPersistedTypeNames()));
+        assertEquals(updates, new ArrayList<>(event2.getUpdatedObjectIds()));
+        assertTrue(event2.getDeletedObjectIds().isEmpty());
+
+        // class names are written once, ids take a few bytes each
+        assertTrue(bytes.length < 600);
+        assertTrue(bytes.length * 4 < new JavaObjectCodec().encode(event).length);
+
+        RemoteCommitEvent extents = new RemoteCommitEvent(
+            RemoteCommitEvent.PAYLOAD_EXTENTS, null, null,
+            Collections.singletonList("a.B"), Collections.singletonList("c.D"));
+        RemoteCommitEvent extents2 = (RemoteCommitEvent) roundTrip(extents);
+        assertEquals(Collections.singletonList("a.B"),
+            new ArrayList<>(extents2.getUpdatedTypeNames()));
+        assertEquals(Collections.singletonList("c.D"),
+            new ArrayList<>(extents2.getDeletedTypeNames()));
+    }
+
+    @Test
+    public void testJavaSerializedData() throws Exception {
+        Payload payload = new Payload("p");
+        assertEquals(payload, roundTrip(payload));
+        assertEquals(Arrays.asList(payload),
+            roundTrip(new ArrayList<>(Arrays.asList(payload))));
+        assertEquals(payload, _codec.decode(new JavaObjectCodec().encode(payload)));
+    }
+
+    @Test(expected = java.io.NotSerializableException.class)
+    public void testNotSerializable() throws Exception {
+        _codec.encode(new Object());
+    }
+
+    @Test(expected = java.io.StreamCorruptedException.class)
+    public void testBadMagic() throws Exception {
+        _codec.decode(new byte[]{ 1, 2, 3 });
+    }
+
+    @Test
+    public void testCountBeyondPayloadIsRejected() throws Exception {
+        Object[] values = {
+            new ArrayList<>(), new String[0], new HashMap<>(),
+            AbstractPCData.newCollectionData(0, 1),
+            new RemoteCommitEvent(RemoteCommitEvent.PAYLOAD_OIDS,
+                null, null, Collections.emptyList(), Collections.emptyList()),
+        };
+        for (Object value : values) {
+            // each value ends with an element count of 0
+            byte[] bytes = _codec.encode(value);
+            assertEquals(0, bytes[bytes.length - 1]);
+            byte[] huge = Arrays.copyOf(bytes, bytes.length + 4);
+            System.arraycopy(new byte[]{ -1, -1, -1, -1, 7 }, 0, huge,
+                bytes.length - 1, 5);
+            try {
+                _codec.decode(huge);
+                fail(value.getClass().getName());
+            } catch (java.io.StreamCorruptedException sce) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testDecodingDoesNotInitializeClasses() throws Exception {
+        byte[] bytes = _codec.encode(new Uninitialized[0]);
+        Object arr = new CompactObjectCodec().decode(bytes);
+        assertEquals(Uninitialized[].class, arr.getClass());
+        assertFalse(_initialized);
+    }
+
+    private static boolean _initialized = false;
+
+    public static class Uninitialized
+        implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static {
+            _initialized = true;
+        }
+    }
+
+    public static class Payload
+        implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final String _name;
+
+        public Payload(String name) {
+            _name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Payload && _name.equals(((Payload) o)._name);
+        }
+
+        @Override
+        public int hashCode() {
+            return _name.hashCode();
+        }
+    }
+}
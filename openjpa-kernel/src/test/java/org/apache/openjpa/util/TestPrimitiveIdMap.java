@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestPrimitiveIdMap {
+
+    @Test
+    public void testMatchesHashMap() {
+        Class<?>[] types = { Base.class, Sub.class, Sub2.class, Other.class };
+        Map<Object, String> expected = new HashMap<>();
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            Class<?> type = types[random.nextInt(types.length)];
+            long key = random.nextInt(500) - 50;
+            boolean subs = random.nextBoolean();
+            OpenJPAId id = (random.nextBoolean()) ? new LongId(type, key, subs)
+                : new IntId(type, (int) key, subs);
+            // which of several equal keys a hash map picks depends on the
+            // insertion order, so only unambiguous keys are compared
+            if (countEqualKeys(expected, id) > 1)
+                continue;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(id, "v" + i), map.put(id, "v" + i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(id), map.remove(id));
+                    break;
+                default:
+                    assertEquals(expected.get(id), map.get(id));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        List<String> values = new ArrayList<>(map.values());
+        List<String> expectedValues = new ArrayList<>(expected.values());
+        Collections.sort(values);
+        Collections.sort(expectedValues);
+        assertEquals(expectedValues, values);
+        assertEquals(expected.size(), map.entrySet().size());
+        for (Map.Entry<Object, String> e : expected.entrySet())
+            if (countEqualKeys(expected, e.getKey()) == 1)
+                assertEquals(e.getValue(), map.get(e.getKey()));
+    }
+
+    private static int countEqualKeys(Map<Object, String> map, Object key) {
+        int count = 0;
+        for (Object k : map.keySet())
+            if (key.equals(k))
+                count++;
+        return count;
+    }
+
+    @Test
+    public void testExactTypeIsPreferred() {
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>();
+        map.put(new LongId(Sub.class, 1, false), "sub");
+        // does not match the subclass id, so both are kept
+        map.put(new LongId(Base.class, 1, false), "base");
+        assertEquals(2, map.size());
+        assertEquals("base", map.get(new LongId(Base.class, 1)));
+        assertEquals("sub", map.get(new LongId(Sub.class, 1)));
+        assertEquals("sub", map.remove(new LongId(Sub.class, 1)));
+        assertEquals("base", map.get(new LongId(Sub.class, 1)));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testSubclassIds() {
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>();
+        map.put(new LongId(Sub.class, 1), "sub");
+        assertEquals("sub", map.get(new LongId(Base.class, 1)));
+        assertNull(map.get(new LongId(Base.class, 1, false)));
+        assertNull(map.get(new LongId(Sub2.class, 1)));
+        assertNull(map.get(new IntId(Sub.class, 1)));
+
+        // same number for a sibling type is kept apart
+        map.put(new LongId(Sub2.class, 1), "sub2");
+        assertEquals(2, map.size());
+        assertEquals("sub", map.get(new LongId(Sub.class, 1)));
+        assertEquals("sub2", map.get(new LongId(Sub2.class, 1)));
+        assertEquals("sub", map.remove(new LongId(Sub.class, 1)));
+        assertEquals("sub2", map.get(new LongId(Sub2.class, 1)));
+        assertEquals("sub2", map.put(new LongId(Sub2.class, 1), "sub2b"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testOtherIds() {
+        Map<Object, String> delegate = new HashMap<>();
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>(delegate, true);
+        map.put(new StringId(Base.class, "a"), "a");
+        map.put(new Id(Base.class, 2L), "id");
+        map.put(new ShortId(Other.class, (short) 3), "short");
+        assertEquals(1, delegate.size());
+        assertEquals(3, map.size());
+        assertEquals("a", map.get(new StringId(Sub.class, "a")));
+        assertEquals("id", map.get(new Id(Sub.class, 2L)));
+        assertEquals("short", map.get(new ShortId(Other.class, (short) 3)));
+        assertTrue(map.containsKey(new Id(Base.class, 2L)));
+        assertEquals(3, map.entrySet().size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        PrimitiveIdMap<String> map = new PrimitiveIdMap<>(
+            new HashMap<>(), true);
+        for (int i = 0; i < 100; i++)
+            map.put(new LongId(Base.class, i), "v" + i);
+        map.put(new StringId(Base.class, "s"), "s");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        PrimitiveIdMap<String> copy = (PrimitiveIdMap<String>)
+            new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+            .readObject();
+        assertEquals(101, copy.size());
+        assertEquals("v42", copy.get(new LongId(Sub.class, 42)));
+        assertEquals("s", copy.get(new StringId(Base.class, "s")));
+    }
+
+    public static class Base {
+    }
+
+    public static class Sub extends Base {
+    }
+
+    public static class Sub2 extends Base {
+    }
+
+    public static class Other {
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestStripedCacheMap {
+
+    @Test
+    public void testSegmentCountIsPowerOfTwo() {
+        assertEquals(1, new StripedCacheMap(false, 100, 1).getSegmentCount());
+        assertEquals(8, new StripedCacheMap(false, 100, 5).getSegmentCount());
+        assertEquals(16, new StripedCacheMap(false, 100, 16).getSegmentCount());
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        StripedCacheMap map = new StripedCacheMap(false, 1000, 8);
+        for (int i = 0; i < 100; i++)
+            assertNull(map.put(i, "v" + i));
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(map.containsKey(i));
+            assertEquals("v" + i, map.get(i));
+        }
+        assertTrue(map.containsValue("v42"));
+        assertEquals("v42", map.remove(42));
+        assertNull(map.get(42));
+        assertEquals(99, map.size());
+
+        Set<Object> keys = new HashSet<>(map.keySet());
+        assertEquals(99, keys.size());
+        assertFalse(keys.contains(42));
+        assertEquals(99, map.values().size());
+        assertEquals(99, map.entrySet().size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testCacheSizeIsBounded() {
+        StripedCacheMap map = new StripedCacheMap(true, 64, 4);
+        map.setSoftReferenceSize(0);
+        assertEquals(64, map.getCacheSize());
+        for (int i = 0; i < 1000; i++)
+            map.put(i, i);
+        assertTrue(map.size() <= 64);
+
+        map.setCacheSize(-1);
+        assertEquals(-1, map.getCacheSize());
+        for (int i = 0; i < 1000; i++)
+            map.put(i, i);
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    public void testPinnedEntriesAreNotEvicted() {
+        StripedCacheMap map = new StripedCacheMap(false, 8, 4);
+        map.setSoftReferenceSize(0);
+        map.put("pinned", "value");
+        assertTrue(map.pin("pinned"));
+        assertFalse(map.pin("absent"));
+        assertEquals(2, map.getPinnedKeys().size());
+
+        for (int i = 0; i < 100; i++)
+            map.put(i, i);
+        assertEquals("value", map.get("pinned"));
+
+        // removing a pinned key keeps the key pinned
+        assertEquals("value", map.remove("pinned"));
+        assertTrue(map.getPinnedKeys().contains("pinned"));
+        map.put("pinned", "other");
+        assertTrue(map.unpin("pinned"));
+        assertFalse(map.getPinnedKeys().contains("pinned"));
+    }
+
+    @Test
+    public void testEntryCallbacks() {
+        final List<Object> added = new ArrayList<>();
+        final List<Object> expired = new ArrayList<>();
+        StripedCacheMap map = new StripedCacheMap(false, 4, 2) {
+            @Override
+            protected void entryAdded(Object key, Object value) {
+                added.add(key);
+            }
+
+            @Override
+            protected void entryRemoved(Object key, Object value,
+                boolean exp) {
+                if (exp)
+                    expired.add(key);
+            }
+        };
+        map.setSoftReferenceSize(0);
+        for (int i = 0; i < 20; i++)
+            map.put(i, i);
+        assertEquals(20, added.size());
+        assertEquals(20 - map.size(), expired.size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final StripedCacheMap map = new StripedCacheMap(true, 500, 16);
+        Thread[] threads = new Thread[8];
+        final Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1000;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 1000; i++) {
+                            map.put(offset + i, i);
+                            map.get(offset + (i / 2));
+                            if (i % 10 == 0)
+                                map.remove(offset + i);
+                        }
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertNull(failure[0]);
+        assertTrue(map.size() > 0);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.openjpa.lib.util.LatencyHistogram;
+
+/**
+ * Statistics of a connection pool and of the prepared statement caches of
+ * its connections. A pooling data source exposes its statistics through
+ * {@link java.sql.Wrapper#unwrap}, which is how the
+ * <code>ConnectionPool</code> instrument finds them.
+ *
+ * @since 3.1.3
+ */
+public class ConnectionPoolStatistics {
+    private final AtomicInteger _active = new AtomicInteger();
+    private final AtomicInteger _idle = new AtomicInteger();
+    private volatile int _maxActive;
+    private final LongAdder _created = new LongAdder();
+    private final LongAdder _destroyed = new LongAdder();
+    private final LongAdder _borrowed = new LongAdder();
+    private final LongAdder _waited = new LongAdder();
+    private final LongAdder _timeouts = new LongAdder();
+    private final LongAdder _invalid = new LongAdder();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LatencyHistogram _wait = new LatencyHistogram();
+    private final Date _start = new Date();
+    private volatile Date _since = _start;
+
+    /**
+     * Record a connection handed out after waiting the given nanoseconds
+     * for it.
+     */
+    public void connectionBorrowed(long nanos) {
+        _borrowed.increment();
+        _wait.record(nanos);
+        _active.incrementAndGet();
+    }
+
+    /**
+     * Record a request that found the pool exhausted.
+     */
+    public void connectionWaited() {
+        _waited.increment();
+    }
+
+    /**
+     * Record a borrowed connection given back to the pool.
+     */
+    public void connectionReturned() {
+        _active.decrementAndGet();
+    }
+
+    public void connectionCreated() {
+        _created.increment();
+    }
+
+    public void connectionDestroyed() {
+        _destroyed.increment();
+    }
+
+    /**
+     * Record an idle connection that failed validation.
+     */
+    public void connectionInvalid() {
+        _invalid.increment();
+    }
+
+    /**
+     * Record a request that timed out waiting for a connection.
+     */
+    public void connectionTimeout() {
+        _timeouts.increment();
+    }
+
+    /**
+     * Add the given, possibly negative, number of idle connections.
+     */
+    public void addIdle(int count) {
+        _idle.addAndGet(count);
+    }
+
+    public void setMaxActive(int maxActive) {
+        _maxActive = maxActive;
+    }
+
+    public void statementHit() {
+        _hits.increment();
+    }
+
+    public void statementMiss() {
+        _misses.increment();
+    }
+
+    public void statementEvicted() {
+        _evictions.increment();
+    }
+
+    /**
+     * Number of connections currently handed out.
+     */
+    public int getActiveCount() {
+        return _active.get();
+    }
+
+    /**
+     * Number of connections currently idle in the pool.
+     */
+    public int getIdleCount() {
+        return _idle.get();
+    }
+
+    /**
+     * Maximum number of connections handed out at the same time.
+     */
+    public int getMaxActive() {
+        return _maxActive;
+    }
+
+    /**
+     * Number of physical connections opened.
+     */
+    public long getCreatedCount() {
+        return _created.sum();
+    }
+
+    /**
+     * Number of physical connections closed.
+     */
+    public long getDestroyedCount() {
+        return _destroyed.sum();
+    }
+
+    /**
+     * Number of connections handed out.
+     */
+    public long getBorrowCount() {
+        return _borrowed.sum();
+    }
+
+    /**
+     * Number of requests that found the pool exhausted and had to wait.
+     */
+    public long getWaitCount() {
+        return _waited.sum();
+    }
+
+    /**
+     * Number of requests that timed out waiting for a connection.
+     */
+    public long getTimeoutCount() {
+        return _timeouts.sum();
+    }
+
+    /**
+     * Number of idle connections that failed validation.
+     */
+    public long getInvalidCount() {
+        return _invalid.sum();
+    }
+
+    /**
+     * Number of prepared statements served from a statement cache.
+     */
+    public long getStatementHitCount() {
+        return _hits.sum();
+    }
+
+    /**
+     * Number of prepared statements that were not found in a statement
+     * cache.
+     */
+    public long getStatementMissCount() {
+        return _misses.sum();
+    }
+
+    /**
+     * Number of prepared statements evicted from a statement cache.
+     */
+    public long getStatementEvictionCount() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Times spent obtaining a connection from the pool.
+     */
+    public LatencyHistogram getWaitTime() {
+        return _wait;
+    }
+
+    /**
+     * Date the statistics were first collected.
+     */
+    public Date start() {
+        return _start;
+    }
+
+    /**
+     * Date the statistics were last reset.
+     */
+    public Date since() {
+        return _since;
+    }
+
+    /**
+     * Clear the counters. The number of active and idle connections is kept.
+     */
+    public void reset() {
+        _created.reset();
+        _destroyed.reset();
+        _borrowed.reset();
+        _waited.reset();
+        _timeouts.reset();
+        _invalid.reset();
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _wait.reset();
+        _since = new Date();
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + getActiveCount()
+            + " idle=" + getIdleCount()
+            + " borrowed=" + getBorrowCount()
+            + " waited=" + getWaitCount()
+            + " created=" + getCreatedCount()
+            + " statementHits=" + getStatementHitCount()
+            + " statementMisses=" + getStatementMissCount()
+            + " wait(us)=" + _wait.getMean(TimeUnit.MICROSECONDS);
+    }
+}
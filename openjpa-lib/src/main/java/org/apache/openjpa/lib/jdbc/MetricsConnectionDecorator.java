@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A {@link ConnectionDecorator} that records the latency of every SQL
+ * execution in nanoseconds, together with the rows fetched, the update
+ * counts and the batch sizes, into {@link SQLMetrics} keyed by the
+ * normalized SQL. The shape of a prepared statement is resolved once when
+ * it is prepared, so recording an execution costs two calls to
+ * {@link System#nanoTime} and a few atomic increments.
+ * The metrics are exposed through the <code>SQLMetrics</code> JMX
+ * instrument.
+ *
+ * @since 3.1.3
+ */
+public class MetricsConnectionDecorator implements ConnectionDecorator {
+
+    private final SQLMetrics _metrics = new SQLMetrics();
+
+    /**
+     * The metrics recorded by the decorated connections.
+     */
+    public SQLMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * The maximum number of distinct SQL shapes to record.
+     */
+    public int getMaxShapes() {
+        return _metrics.getMaxShapes();
+    }
+
+    /**
+     * The maximum number of distinct SQL shapes to record. Defaults to 500.
+     */
+    public void setMaxShapes(int maxShapes) {
+        _metrics.setMaxShapes(maxShapes);
+    }
+
+    @Override
+    public Connection decorate(Connection conn) throws SQLException {
+        return new MetricsConnection(conn);
+    }
+
+    /**
+     * Connection whose statements record their executions.
+     */
+    protected class MetricsConnection extends DelegatingConnection {
+
+        public MetricsConnection(Connection conn) {
+            super(conn);
+        }
+
+        @Override
+        protected Statement createStatement(boolean wrap)
+            throws SQLException {
+            return new MetricsStatement(super.createStatement(false), this);
+        }
+
+        @Override
+        protected Statement createStatement(int type, int concur,
+            boolean wrap) throws SQLException {
+            return new MetricsStatement(super.createStatement
+                (type, concur, false), this);
+        }
+
+        @Override
+        protected Statement createStatement(int type, int concur,
+            int holdability, boolean wrap) throws SQLException {
+            return new MetricsStatement(super.createStatement
+                (type, concur, holdability, false), this);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, boolean wrap)
+            throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, false), this, sql);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, int type,
+            int concur, boolean wrap) throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, type, concur, false), this, sql);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql, int type,
+            int concur, int holdability, boolean wrap) throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, type, concur, holdability, false), this, sql);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            int autoGeneratedKeys, boolean wrap) throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, autoGeneratedKeys, false), this, sql);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            int[] columnIndexes, boolean wrap) throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, columnIndexes, false), this, sql);
+        }
+
+        @Override
+        protected PreparedStatement prepareStatement(String sql,
+            String[] columnNames, boolean wrap) throws SQLException {
+            return new MetricsPreparedStatement(super.prepareStatement
+                (sql, columnNames, false), this, sql);
+        }
+    }
+
+    /**
+     * Statement that records each execution under the shape of its SQL.
+     */
+    protected class MetricsStatement extends DelegatingStatement {
+
+        private StatementMetrics _current = null;
+        private StatementMetrics _batch = null;
+        private int _batchSize = 0;
+
+        public MetricsStatement(Statement stmnt, Connection conn) {
+            super(stmnt, conn);
+        }
+
+        @Override
+        protected ResultSet wrapResult(ResultSet rs, boolean wrap) {
+            if (rs == null || _current == null)
+                return super.wrapResult(rs, wrap);
+            return new MetricsResultSet(rs, this, _current);
+        }
+
+        @Override
+        protected ResultSet executeQuery(String sql, boolean wrap)
+            throws SQLException {
+            _current = _metrics.getStatementMetrics(sql);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                ResultSet rs = super.executeQuery(sql, wrap);
+                failed = false;
+                return rs;
+            } finally {
+                _current.recordExecution(System.nanoTime() - start, -1,
+                    failed);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql) throws SQLException {
+            _current = _metrics.getStatementMetrics(sql);
+            long start = System.nanoTime();
+            int updates = -1;
+            boolean failed = true;
+            try {
+                updates = super.executeUpdate(sql);
+                failed = false;
+                return updates;
+            } finally {
+                _current.recordExecution(System.nanoTime() - start, updates,
+                    failed);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql) throws SQLException {
+            _current = _metrics.getStatementMetrics(sql);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                boolean result = super.execute(sql);
+                failed = false;
+                return result;
+            } finally {
+                _current.recordExecution(System.nanoTime() - start, -1,
+                    failed);
+            }
+        }
+
+        @Override
+        public void addBatch(String sql) throws SQLException {
+            super.addBatch(sql);
+            // a batch of different statements is recorded under the first
+            if (_batch == null)
+                _batch = _metrics.getStatementMetrics(sql);
+            _batchSize++;
+        }
+
+        @Override
+        public void clearBatch() throws SQLException {
+            super.clearBatch();
+            _batch = null;
+            _batchSize = 0;
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            StatementMetrics metrics = (_batch == null)
+                ? _metrics.getOtherMetrics() : _batch;
+            int size = _batchSize;
+            _batch = null;
+            _batchSize = 0;
+            long start = System.nanoTime();
+            int[] updates = null;
+            boolean failed = true;
+            try {
+                updates = super.executeBatch();
+                failed = false;
+                return updates;
+            } finally {
+                metrics.recordBatch(System.nanoTime() - start, size, updates,
+                    failed);
+            }
+        }
+    }
+
+    /**
+     * Prepared statement that records each execution under the shape of
+     * the SQL it was prepared with.
+     */
+    protected class MetricsPreparedStatement
+        extends DelegatingPreparedStatement {
+
+        private final StatementMetrics _stmntMetrics;
+        private int _batchSize = 0;
+
+        public MetricsPreparedStatement(PreparedStatement stmnt,
+            Connection conn, String sql) {
+            super(stmnt, conn);
+            _stmntMetrics = _metrics.getStatementMetrics(sql);
+        }
+
+        @Override
+        protected ResultSet wrapResult(ResultSet rs, boolean wrap) {
+            if (rs == null)
+                return rs;
+            return new MetricsResultSet(rs, this, _stmntMetrics);
+        }
+
+        @Override
+        protected ResultSet executeQuery(boolean wrap) throws SQLException {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                ResultSet rs = super.executeQuery(wrap);
+                failed = false;
+                return rs;
+            } finally {
+                _stmntMetrics.recordExecution(System.nanoTime() - start, -1,
+                    failed);
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            int updates = -1;
+            boolean failed = true;
+            try {
+                updates = super.executeUpdate();
+                failed = false;
+                return updates;
+            } finally {
+                _stmntMetrics.recordExecution(System.nanoTime() - start,
+                    updates, failed);
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                boolean result = super.execute();
+                failed = false;
+                return result;
+            } finally {
+                _stmntMetrics.recordExecution(System.nanoTime() - start, -1,
+                    failed);
+            }
+        }
+
+        @Override
+        public void addBatch() throws SQLException {
+            super.addBatch();
+            _batchSize++;
+        }
+
+        @Override
+        public void clearBatch() throws SQLException {
+            super.clearBatch();
+            _batchSize = 0;
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            int size = _batchSize;
+            _batchSize = 0;
+            long start = System.nanoTime();
+            int[] updates = null;
+            boolean failed = true;
+            try {
+                updates = super.executeBatch();
+                failed = false;
+                return updates;
+            } finally {
+                _stmntMetrics.recordBatch(System.nanoTime() - start, size,
+                    updates, failed);
+            }
+        }
+    }
+
+    /**
+     * Result set that counts the fetched rows.
+     */
+    protected static class MetricsResultSet extends DelegatingResultSet {
+
+        private final StatementMetrics _stmntMetrics;
+
+        public MetricsResultSet(ResultSet rs, Statement stmnt,
+            StatementMetrics metrics) {
+            super(rs, stmnt);
+            _stmntMetrics = metrics;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            boolean next = super.next();
+            if (next)
+                _stmntMetrics.recordRow();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of {@link StatementMetrics} keyed by the normalized shape of the
+ * SQL. Literals are replaced by parameter markers and lists of parameters
+ * are collapsed, so that statements differing only in their values or in
+ * the length of an <code>IN</code> list or a multi-row <code>VALUES</code>
+ * clause share their metrics. Once the configured number of shapes is
+ * reached, further shapes are recorded under {@link #OTHER}.
+ *
+ * @see MetricsConnectionDecorator
+ * @since 3.1.3
+ */
+public class SQLMetrics {
+
+    /**
+     * Shape of the statements that did not fit in the registry.
+     */
+    public static final String OTHER = "<other>";
+
+    private static final Pattern PARAMETER_LIST =
+        Pattern.compile("\\( ?\\?(?: ?, ?\\?)+ ?\\)");
+    private static final Pattern ROW_LIST =
+        Pattern.compile("\\(\\?, \\.\\.\\.\\)(?: ?, ?\\(\\?, \\.\\.\\.\\))+");
+
+    private final Map<String, StatementMetrics> _metrics =
+        new ConcurrentHashMap<>();
+    private final Map<String, StatementMetrics> _bySQL =
+        new ConcurrentHashMap<>();
+    private final StatementMetrics _other = new StatementMetrics(OTHER);
+    private int _maxShapes = 500;
+    private final Date _start = new Date();
+    private volatile Date _since = _start;
+
+    /**
+     * The maximum number of distinct shapes to record. Defaults to 500.
+     */
+    public int getMaxShapes() {
+        return _maxShapes;
+    }
+
+    /**
+     * The maximum number of distinct shapes to record. Defaults to 500.
+     */
+    public void setMaxShapes(int maxShapes) {
+        _maxShapes = maxShapes;
+    }
+
+    /**
+     * Return the metrics to record executions of the given SQL in.
+     */
+    public StatementMetrics getStatementMetrics(String sql) {
+        if (sql == null)
+            return _other;
+        StatementMetrics metrics = _bySQL.get(sql);
+        if (metrics != null)
+            return metrics;
+
+        String shape = normalize(sql);
+        metrics = _metrics.get(shape);
+        if (metrics == null) {
+            if (_metrics.size() >= _maxShapes)
+                metrics = _other;
+            else
+                metrics = _metrics.computeIfAbsent(shape,
+                    StatementMetrics::new);
+        }
+        // bound the raw SQL lookup so that unparameterized SQL can not grow
+        // it without limit
+        if (_bySQL.size() >= 4 * _maxShapes)
+            _bySQL.clear();
+        _bySQL.put(sql, metrics);
+        return metrics;
+    }
+
+    /**
+     * Return the metrics of the given normalized SQL, or null if none.
+     */
+    public StatementMetrics getMetrics(String shape) {
+        if (OTHER.equals(shape))
+            return _other;
+        return _metrics.get(shape);
+    }
+
+    /**
+     * Metrics of every recorded shape, not including {@link #OTHER}.
+     */
+    public Collection<StatementMetrics> getMetrics() {
+        return Collections.unmodifiableCollection(_metrics.values());
+    }
+
+    /**
+     * Metrics of the statements that did not fit in the registry.
+     */
+    public StatementMetrics getOtherMetrics() {
+        return _other;
+    }
+
+    /**
+     * Date the metrics were first collected.
+     */
+    public Date start() {
+        return _start;
+    }
+
+    /**
+     * Date the metrics were last reset.
+     */
+    public Date since() {
+        return _since;
+    }
+
+    /**
+     * Clear the recorded metrics. The shapes are kept, because open
+     * statements keep recording in the metrics they were prepared with.
+     */
+    public void reset() {
+        for (StatementMetrics metrics : _metrics.values())
+            metrics.reset();
+        _other.reset();
+        _since = new Date();
+    }
+
+    /**
+     * Normalize the given SQL to its shape: literals are replaced by
+     * <code>?</code>, whitespace is collapsed, a parenthesized list of two
+     * or more parameters becomes <code>(?, ...)</code> and a list of such
+     * rows becomes <code>(?, ...), ...</code>.
+     */
+    public static String normalize(String sql) {
+        int len = sql.length();
+        StringBuilder buf = new StringBuilder(len);
+        boolean space = false;
+        for (int i = 0; i < len; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = buf.length() > 0;
+                continue;
+            }
+            if (space) {
+                buf.append(' ');
+                space = false;
+            }
+
+            if (c == '\'') {
+                // skip the string literal, including escaped quotes
+                for (i++; i < len; i++) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < len && sql.charAt(i + 1) == '\'')
+                            i++;
+                        else
+                            break;
+                    }
+                }
+                buf.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierEnd(buf)) {
+                // skip the numeric literal, including a fraction or exponent
+                while (i + 1 < len && isNumberPart(sql.charAt(i + 1),
+                    sql.charAt(i)))
+                    i++;
+                buf.append('?');
+            } else
+                buf.append(c);
+        }
+
+        String shape = buf.toString();
+        if (shape.indexOf('?') == -1)
+            return shape;
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?, ...)");
+        return ROW_LIST.matcher(shape).replaceAll("(?, ...), ...");
+    }
+
+    private static boolean isIdentifierEnd(StringBuilder buf) {
+        if (buf.length() == 0)
+            return false;
+        char c = buf.charAt(buf.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$'
+            || c == '"' || c == '.';
+    }
+
+    private static boolean isNumberPart(char c, char prev) {
+        if (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E')
+            return true;
+        return (c == '+' || c == '-') && (prev == 'e' || prev == 'E');
+    }
+}
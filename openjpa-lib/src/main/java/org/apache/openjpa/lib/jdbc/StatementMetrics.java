@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.openjpa.lib.util.LatencyHistogram;
+
+/**
+ * Execution metrics of all the SQL statements of one normalized shape.
+ * Recording never locks, so the metrics can be shared by every connection
+ * of a data source.
+ *
+ * @see SQLMetrics
+ * @since 3.1.3
+ */
+public class StatementMetrics {
+    private final String _sql;
+    private final LatencyHistogram _latency = new LatencyHistogram();
+    private final LongAdder _errors = new LongAdder();
+    private final LongAdder _rows = new LongAdder();
+    private final LongAdder _updates = new LongAdder();
+    private final LongAdder _batches = new LongAdder();
+    private final LongAdder _batched = new LongAdder();
+    private final AtomicLong _maxBatch = new AtomicLong();
+
+    public StatementMetrics(String sql) {
+        _sql = sql;
+    }
+
+    /**
+     * The normalized SQL these metrics are recorded for.
+     */
+    public String getSQL() {
+        return _sql;
+    }
+
+    /**
+     * Record a single execution that took the given nanoseconds.
+     *
+     * @param updates the update count of the execution, or -1
+     */
+    public void recordExecution(long nanos, int updates, boolean failed) {
+        _latency.record(nanos);
+        if (failed)
+            _errors.increment();
+        else if (updates > 0)
+            _updates.add(updates);
+    }
+
+    /**
+     * Record the execution of a batch of the given size.
+     */
+    public void recordBatch(long nanos, int size, int[] updates,
+        boolean failed) {
+        recordExecution(nanos, -1, failed);
+        _batches.increment();
+        _batched.add(size);
+        long max;
+        while (size > (max = _maxBatch.get())
+            && !_maxBatch.compareAndSet(max, size));
+        if (updates != null)
+            for (int i = 0; i < updates.length; i++)
+                if (updates[i] > 0)
+                    _updates.add(updates[i]);
+    }
+
+    /**
+     * Record a row fetched from a result of this statement.
+     */
+    public void recordRow() {
+        _rows.increment();
+    }
+
+    /**
+     * Latencies of the executions, each batch counting once.
+     */
+    public LatencyHistogram getLatency() {
+        return _latency;
+    }
+
+    /**
+     * Number of executions, each batch counting once.
+     */
+    public long getExecutionCount() {
+        return _latency.getCount();
+    }
+
+    /**
+     * Number of executions that failed with an exception.
+     */
+    public long getErrorCount() {
+        return _errors.sum();
+    }
+
+    /**
+     * Number of rows fetched from the results.
+     */
+    public long getRowCount() {
+        return _rows.sum();
+    }
+
+    /**
+     * Number of rows reported as inserted, updated or deleted.
+     */
+    public long getUpdateCount() {
+        return _updates.sum();
+    }
+
+    /**
+     * Number of executed batches.
+     */
+    public long getBatchCount() {
+        return _batches.sum();
+    }
+
+    /**
+     * Number of statements executed as part of a batch.
+     */
+    public long getBatchedStatementCount() {
+        return _batched.sum();
+    }
+
+    /**
+     * Size of the largest executed batch.
+     */
+    public long getMaxBatchSize() {
+        return _maxBatch.get();
+    }
+
+    public void reset() {
+        _latency.reset();
+        _errors.reset();
+        _rows.reset();
+        _updates.reset();
+        _batches.reset();
+        _batched.reset();
+        _maxBatch.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return _sql + ": executions=" + getExecutionCount()
+            + " errors=" + getErrorCount()
+            + " rows=" + getRowCount()
+            + " batches=" + getBatchCount()
+            + " p50(us)=" + _latency.getPercentile(50, TimeUnit.MICROSECONDS)
+            + " p99(us)=" + _latency.getPercentile(99, TimeUnit.MICROSECONDS)
+            + " max(us)=" + _latency.getMax(TimeUnit.MICROSECONDS);
+    }
+}
@@ -25,6 +25,9 @@ import java.util.Comparator;
  * A result object provider that merges multiple result object provider
  * delegates. Support exists for maintaining ordering of the internally held
  * results, provided that each of the individual results is itself ordered.
+ * Ordered results are merged with a binary heap of the delegates' current
+ * values, so each result costs a logarithmic number of comparisons in the
+ * number of delegates.
  *
  * @author Abe White
  * @author Marc Prud'hommeaux
@@ -41,6 +44,8 @@ public class MergedResultObjectProvider implements ResultObjectProvider {
     private final byte[] _status;
     private Object[] _values;
     private Object[] _orderValues;
+    private int[] _heap;
+    private int _heapSize = -1;
     private Object _cur = null;
     private int _size = -1;
 
@@ -61,6 +66,7 @@ public class MergedResultObjectProvider implements ResultObjectProvider {
         _status = new byte[rops.length];
         _values = (comp == null) ? null : new Object[rops.length];
         _orderValues = (comp == null) ? null : new Object[rops.length];
+        _heap = (comp == null) ? null : new int[rops.length];
     }
 
     @Override
@@ -138,6 +144,7 @@ public class MergedResultObjectProvider implements ResultObjectProvider {
 
     private void clear() {
         _cur = null;
+        _heapSize = -1;
         for (int i = 0; i < _rops.length; i++) {
             _status[i] = OPENED;
             if (_values != null)
@@ -156,60 +163,52 @@ public class MergedResultObjectProvider implements ResultObjectProvider {
 
     @Override
     public boolean next() throws Exception {
-        // initialize all rops with the latest values
-        boolean hasValue = false;
+        if (_comp != null)
+            return nextOrdered();
+
+        // return the next value of the first rop that has one
         for (int i = 0; i < _status.length; i++) {
-            switch (_status[i]) {
-                case UNOPENED:
-                    // this will only ever be the case if we aren't ordering
-                    _rops[i].open();
-                    _status[i] = OPENED;
-                    // no break
-                case OPENED:
-                    // if this rop has a value, cache it; if we're not ordering,
-                    // then that's the value to return
-                    if (_rops[i].next()) {
-                        if (_comp == null) {
-                            _cur = _rops[i].getResultObject();
-                            return true;
-                        } else {
-                            hasValue = true;
-                            _status[i] = VALUE;
-                            _values[i] = _rops[i].getResultObject();
-                            _orderValues[i] = getOrderingValue(_values[i],
-                                i, _rops[i]);
-                        }
-                    } else
-                        _status[i] = DONE;
-                    break;
-                case VALUE:
-                    // we only use this state when ordering
-                    hasValue = true;
-                    break;
+            if (_status[i] == DONE)
+                continue;
+            if (_status[i] == UNOPENED) {
+                _rops[i].open();
+                _status[i] = OPENED;
+            }
+            if (_rops[i].next()) {
+                _cur = _rops[i].getResultObject();
+                return true;
             }
+            _status[i] = DONE;
         }
+        return false;
+    }
 
-        // if we get to this point without a comparator, it means none
-        // of our rops have any more values
-        if (_comp == null || !hasValue)
-            return false;
-
-        // for all the rops with values, find the 'least' one according to
-        // the comparator
-        int least = -1;
-        Object orderVal = null;
-        for (int i = 0; i < _orderValues.length; i++) {
-            if (_status[i] != VALUE)
-                continue;
-            if (least == -1 || _comp.compare(_orderValues[i], orderVal) < 0) {
-                least = i;
-                orderVal = _orderValues[i];
-            }
+    /**
+     * Return the least of the current values of all rops. The rops are kept
+     * in a heap ordered by their current value; the rop whose value was
+     * returned last stays at the top of the heap until it is advanced on
+     * the following call.
+     */
+    private boolean nextOrdered() throws Exception {
+        if (_heapSize == -1) {
+            _heapSize = 0;
+            for (int i = 0; i < _rops.length; i++)
+                if (advance(i))
+                    _heap[_heapSize++] = i;
+            for (int i = _heapSize / 2 - 1; i >= 0; i--)
+                siftDown(i);
+        } else if (_heapSize > 0 && _status[_heap[0]] == OPENED) {
+            if (!advance(_heap[0]))
+                _heap[0] = _heap[--_heapSize];
+            siftDown(0);
         }
+        if (_heapSize == 0)
+            return false;
 
         // assign the least value to the current one, and clear the cached
-        // value for that rop so that we know to get the next value for
+        // value for that rop so that we know to get its next value for
         // the next comparison
+        int least = _heap[0];
         _cur = _values[least];
         _values[least] = null;
         _orderValues[least] = null;
@@ -217,6 +216,45 @@ public class MergedResultObjectProvider implements ResultObjectProvider {
         return true;
     }
 
+    /**
+     * Cache the next value of the given rop, returning false if it has
+     * no more values.
+     */
+    private boolean advance(int idx) throws Exception {
+        if (_rops[idx].next()) {
+            _values[idx] = _rops[idx].getResultObject();
+            _orderValues[idx] = getOrderingValue(_values[idx], idx,
+                _rops[idx]);
+            _status[idx] = VALUE;
+            return true;
+        }
+        _status[idx] = DONE;
+        return false;
+    }
+
+    private void siftDown(int pos) {
+        int idx = _heap[pos];
+        int child;
+        while ((child = 2 * pos + 1) < _heapSize) {
+            if (child + 1 < _heapSize && less(_heap[child + 1], _heap[child]))
+                child++;
+            if (!less(_heap[child], idx))
+                break;
+            _heap[pos] = _heap[child];
+            pos = child;
+        }
+        _heap[pos] = idx;
+    }
+
+    /**
+     * Whether the current value of rop <code>i</code> orders before that
+     * of rop <code>j</code>. Equal values are returned in rop order.
+     */
+    private boolean less(int i, int j) {
+        int cmp = _comp.compare(_orderValues[i], _orderValues[j]);
+        return cmp < 0 || (cmp == 0 && i < j);
+    }
+
     @Override
     public Object getResultObject() throws Exception {
         return _cur;
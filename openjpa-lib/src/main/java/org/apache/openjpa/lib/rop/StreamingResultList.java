@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.rop;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.apache.openjpa.lib.util.Localizer;
+
+/**
+ * Forward-only result list that does not retain the results it returns, so
+ * that a result of any size is read in constant memory. The results can be
+ * iterated once, starting from the current position of the underlying
+ * provider.
+ *
+ * @since 3.1.3
+ */
+public class StreamingResultList extends AbstractSequentialResultList {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Localizer _loc = Localizer.forPackage
+        (StreamingResultList.class);
+
+    private static final int OPEN = 0;
+    private static final int CLOSED = 1;
+    private static final int FREED = 2;
+
+    private transient ResultObjectProvider _rop = null;
+    private int _state = OPEN;
+    private int _idx = 0;
+    private int _size = -1;
+
+    // whether the provider is positioned on a result that was not returned
+    private transient Boolean _hasNext = null;
+
+    public StreamingResultList(ResultObjectProvider rop) {
+        _rop = rop;
+        try {
+            _rop.open();
+        } catch (RuntimeException re) {
+            close();
+            throw re;
+        } catch (Exception e) {
+            close();
+            _rop.handleCheckedException(e);
+        }
+    }
+
+    @Override
+    public boolean isProviderOpen() {
+        return _state == OPEN;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return _state == CLOSED;
+    }
+
+    @Override
+    public void close() {
+        if (_state != CLOSED) {
+            free();
+            _state = CLOSED;
+        }
+    }
+
+    /**
+     * The number of results returned so far.
+     */
+    public int getPosition() {
+        return _idx;
+    }
+
+    @Override
+    protected ListIterator itr(int index) {
+        if (index < _idx)
+            throw new UnsupportedOperationException(_loc.get("forward-only",
+                String.valueOf(index), String.valueOf(_idx)).getMessage());
+        ListIterator itr = new Itr();
+        while (_idx < index && itr.hasNext())
+            itr.next();
+        return itr;
+    }
+
+    @Override
+    public int size() {
+        assertOpen();
+        if (_size != -1)
+            return _size;
+        if (_state != OPEN)
+            return _idx;
+        try {
+            _size = _rop.size();
+            return _size;
+        } catch (RuntimeException re) {
+            close();
+            throw re;
+        } catch (Exception e) {
+            close();
+            _rop.handleCheckedException(e);
+            return -1;
+        }
+    }
+
+    private void free() {
+        if (_state == OPEN) {
+            try {
+                _rop.close();
+            } catch (Exception e) {
+            }
+            _state = FREED;
+        }
+    }
+
+    public Object writeReplace() throws ObjectStreamException {
+        // the remaining results
+        List list = new ArrayList();
+        for (ListIterator itr = itr(_idx); itr.hasNext();)
+            list.add(itr.next());
+        return list;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other == this;
+    }
+
+    @Override
+    public List subList(int fromIndex, int toIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    private class Itr extends AbstractListIterator {
+
+        @Override
+        public int nextIndex() {
+            return _idx;
+        }
+
+        @Override
+        public int previousIndex() {
+            return _idx - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (_hasNext != null)
+                return _hasNext;
+            if (_state != OPEN)
+                return false;
+            try {
+                _hasNext = _rop.next();
+            } catch (RuntimeException re) {
+                close();
+                throw re;
+            } catch (Exception e) {
+                close();
+                _rop.handleCheckedException(e);
+                return false;
+            }
+            if (!_hasNext)
+                free();
+            return _hasNext;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return false;
+        }
+
+        @Override
+        public Object previous() {
+            throw new UnsupportedOperationException(_loc.get("forward-only",
+                String.valueOf(_idx - 1), String.valueOf(_idx)).getMessage());
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            try {
+                Object ret = _rop.getResultObject();
+                _hasNext = null;
+                _idx++;
+                return ret;
+            } catch (RuntimeException re) {
+                close();
+                throw re;
+            } catch (Exception e) {
+                close();
+                _rop.handleCheckedException(e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies recorded in nanoseconds. Values below
+ * 32ns are counted exactly; larger values fall into log-linear buckets of
+ * 16 sub-buckets per power of two, so a percentile is reported within
+ * 6.25% of the recorded value, as in an HDR histogram. Recording is a
+ * single atomic increment on a fixed array and never allocates, which
+ * keeps the histogram cheap enough to be always on.
+ * Values larger than about 19 hours are counted in the last bucket.
+ *
+ * @since 3.1.3
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int EXACT = SUB_COUNT << 1;
+    private static final int MIN_EXPONENT = SUB_BITS + 1;
+    private static final int MAX_EXPONENT = 45;
+    private static final int BUCKETS =
+        EXACT + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_COUNT;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _total = new LongAdder();
+    private final AtomicLong _max = new AtomicLong();
+
+    /**
+     * Record a single latency of the given nanoseconds. Negative values
+     * are recorded as zero.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        _counts.incrementAndGet(indexOf(nanos));
+        _count.increment();
+        _total.add(nanos);
+        long max;
+        while (nanos > (max = _max.get())
+            && !_max.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Number of recorded values.
+     */
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Sum of the recorded values.
+     */
+    public long getTotal(TimeUnit unit) {
+        return unit.convert(_total.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mean of the recorded values, or 0 if nothing was recorded.
+     */
+    public long getMean(TimeUnit unit) {
+        long count = _count.sum();
+        return (count == 0) ? 0
+            : unit.convert(_total.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Largest recorded value.
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(_max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The value below which the given percentage of the recorded values
+     * fall, or 0 if nothing was recorded. The value is the upper bound of
+     * the bucket holding the percentile, capped by the largest recorded
+     * value.
+     *
+     * @param percentile between 0 and 100
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = _counts.get(i);
+            count += counts[i];
+        }
+        if (count == 0)
+            return 0;
+
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        int i = 0;
+        for (; i < BUCKETS - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                break;
+        }
+        return unit.convert(Math.min(highestValueOf(i), _max.get()),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Clear the recorded values. Values recorded concurrently with the
+     * reset may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            _counts.set(i, 0);
+        _count.reset();
+        _total.reset();
+        _max.set(0);
+    }
+
+    /**
+     * Bucket of the given non-negative value.
+     */
+    static int indexOf(long value) {
+        if (value < EXACT)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) - SUB_COUNT;
+        return EXACT + (exponent - MIN_EXPONENT) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Largest value counted in the given bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < EXACT)
+            return index;
+        int exponent = MIN_EXPONENT + (index - EXACT) / SUB_COUNT;
+        int sub = (index - EXACT) % SUB_COUNT;
+        int shift = exponent - SUB_BITS;
+        return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+            + " mean(us)=" + getMean(TimeUnit.MICROSECONDS)
+            + " p50(us)=" + getPercentile(50, TimeUnit.MICROSECONDS)
+            + " p99(us)=" + getPercentile(99, TimeUnit.MICROSECONDS)
+            + " max(us)=" + getMax(TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the normalization of SQL and the bound on the recorded shapes.
+ */
+public class TestSQLMetrics {
+
+    @Test
+    public void testLiteralsAreReplaced() {
+        assertEquals("SELECT t0.ID FROM T0 t0 WHERE t0.NAME = ? AND t0.AGE > ?",
+            SQLMetrics.normalize("SELECT  t0.ID\n FROM T0 t0 "
+                + "WHERE t0.NAME = 'it''s' AND t0.AGE > 42 "));
+        assertEquals("UPDATE T1 SET C2 = ? WHERE ID = ?",
+            SQLMetrics.normalize("UPDATE T1 SET C2 = 1.5e-3 WHERE ID = ?"));
+    }
+
+    @Test
+    public void testListsAreCollapsed() {
+        assertEquals("SELECT ID FROM T WHERE ID IN (?, ...)",
+            SQLMetrics.normalize("SELECT ID FROM T WHERE ID IN (?, ?, ?)"));
+        assertEquals("SELECT ID FROM T WHERE ID IN (?, ...)",
+            SQLMetrics.normalize("SELECT ID FROM T WHERE ID IN (1,2)"));
+        assertEquals("INSERT INTO T (A, B) VALUES (?, ...), ...",
+            SQLMetrics.normalize("INSERT INTO T (A, B) VALUES (?, ?), (?, ?), (?, ?)"));
+        assertEquals("SELECT ABS(?) FROM T",
+            SQLMetrics.normalize("SELECT ABS(?) FROM T"));
+    }
+
+    @Test
+    public void testShapesAreShared() {
+        SQLMetrics metrics = new SQLMetrics();
+        StatementMetrics stmnt = metrics.getStatementMetrics
+            ("SELECT ID FROM T WHERE ID = 1");
+        assertSame(stmnt, metrics.getStatementMetrics
+            ("SELECT ID FROM T WHERE ID = 2"));
+        assertSame(stmnt, metrics.getMetrics("SELECT ID FROM T WHERE ID = ?"));
+        assertEquals(1, metrics.getMetrics().size());
+    }
+
+    @Test
+    public void testShapesAreBounded() {
+        SQLMetrics metrics = new SQLMetrics();
+        metrics.setMaxShapes(2);
+        metrics.getStatementMetrics("SELECT A FROM T");
+        metrics.getStatementMetrics("SELECT B FROM T");
+        assertSame(metrics.getOtherMetrics(),
+            metrics.getStatementMetrics("SELECT C FROM T"));
+        assertNull(metrics.getMetrics("SELECT C FROM T"));
+        assertEquals(2, metrics.getMetrics().size());
+    }
+
+    @Test
+    public void testReset() {
+        SQLMetrics metrics = new SQLMetrics();
+        StatementMetrics stmnt = metrics.getStatementMetrics("SELECT A FROM T");
+        stmnt.recordExecution(1000, -1, false);
+        stmnt.recordBatch(2000, 5, new int[] { 1, 1, 1, 1, 1 }, false);
+        stmnt.recordRow();
+        assertEquals(2, stmnt.getExecutionCount());
+        assertEquals(1, stmnt.getBatchCount());
+        assertEquals(5, stmnt.getBatchedStatementCount());
+        assertEquals(5, stmnt.getMaxBatchSize());
+        assertEquals(5, stmnt.getUpdateCount());
+        assertEquals(1, stmnt.getRowCount());
+
+        metrics.reset();
+        assertEquals(0, stmnt.getExecutionCount());
+        assertEquals(0, stmnt.getRowCount());
+        assertSame(stmnt, metrics.getStatementMetrics("SELECT A FROM T"));
+    }
+}
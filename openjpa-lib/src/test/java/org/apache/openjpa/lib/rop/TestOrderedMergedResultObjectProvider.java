@@ -23,6 +23,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
 /**
  * Tests the {@link MergedResultObjectProvider}.
  *
@@ -60,6 +64,46 @@ public class TestOrderedMergedResultObjectProvider extends ResultListTest {
         };
     }
 
+    @Test
+    public void testManyProvidersWithEqualValues() throws Exception {
+        // each of 33 providers holds values i, i + 33, ... tagged with
+        // the provider index; every value occurs in two providers
+        ResultObjectProvider[] rops = new ResultObjectProvider[33];
+        for (int i = 0; i < rops.length; i++) {
+            List list = new ArrayList();
+            for (int v = i / 2; v < 200; v += 17)
+                list.add(v + "." + i);
+            rops[i] = new ListResultObjectProvider(list);
+        }
+        Comparator comp = new Comparator() {
+            @Override
+            public int compare(Object o1, Object o2) {
+                return Integer.compare(intValue(o1), intValue(o2));
+            }
+        };
+        MergedResultObjectProvider rop = new MergedResultObjectProvider(rops,
+            comp);
+        rop.open();
+        for (int pass = 0; pass < 2; pass++) {
+            List<String> expected = new ArrayList<>();
+            for (int v = 0; v < 200; v++)
+                for (int i = 0; i < rops.length; i++)
+                    if (v >= i / 2 && (v - i / 2) % 17 == 0)
+                        expected.add(v + "." + i);
+            List<String> merged = new ArrayList<>();
+            while (rop.next())
+                merged.add((String) rop.getResultObject());
+            assertEquals(expected, merged);
+            rop.reset();
+        }
+        rop.close();
+    }
+
+    private static int intValue(Object o) {
+        String str = o.toString();
+        return Integer.parseInt(str.substring(0, str.indexOf('.')));
+    }
+
     private static class IntValueComparator implements Comparator {
 
         @Override
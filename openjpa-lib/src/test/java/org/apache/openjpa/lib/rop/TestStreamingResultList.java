@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.rop;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.openjpa.lib.test.AbstractTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link StreamingResultList}.
+ */
+public class TestStreamingResultList extends AbstractTestCase {
+
+    private static List<String> results(int n) {
+        List<String> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            results.add(String.valueOf(i));
+        return results;
+    }
+
+    @Test
+    public void testIterator() {
+        StreamingResultList list = new StreamingResultList
+            (new ListResultObjectProvider(results(100)));
+        assertEquals(100, list.size());
+        assertFalse(list.isEmpty());
+
+        Iterator itr = list.iterator();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(itr.hasNext());
+            assertEquals(String.valueOf(i), itr.next());
+            assertEquals(i + 1, list.getPosition());
+        }
+        assertFalse(itr.hasNext());
+        assertFalse(list.isProviderOpen());
+        try {
+            itr.next();
+            fail("Should not be able to read past the end");
+        } catch (NoSuchElementException nsee) {
+        }
+        list.close();
+        assertTrue(list.isClosed());
+    }
+
+    @Test
+    public void testForwardOnly() {
+        StreamingResultList list = new StreamingResultList
+            (new ListResultObjectProvider(results(10)));
+        assertEquals("3", list.get(3));
+        assertEquals("4", list.get(4));
+        assertEquals("5", list.listIterator(5).next());
+        try {
+            list.get(0);
+            fail("Should not be able to read backwards");
+        } catch (UnsupportedOperationException uoe) {
+        }
+        try {
+            list.iterator();
+            fail("Should not be able to iterate again from the start");
+        } catch (UnsupportedOperationException uoe) {
+        }
+        Iterator itr = list.listIterator(6);
+        assertEquals("6", itr.next());
+        list.close();
+    }
+
+    @Test
+    public void testEmpty() {
+        StreamingResultList list = new StreamingResultList
+            (new ListResultObjectProvider(new ArrayList()));
+        assertTrue(list.isEmpty());
+        assertFalse(list.iterator().hasNext());
+        list.close();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.lib.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bucketing and percentiles of the latency histogram.
+ */
+public class TestLatencyHistogram {
+
+    @Test
+    public void testBucketsBoundTheirValues() {
+        for (long value = 0; value < 1L << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(index));
+            if (index > 0)
+                assertTrue(value > LatencyHistogram.highestValueOf(index - 1));
+        }
+    }
+
+    @Test
+    public void testBucketPrecision() {
+        for (long value = 32; value < 1L << 40; value = value * 3 / 2) {
+            long high = LatencyHistogram.highestValueOf
+                (LatencyHistogram.indexOf(value));
+            assertTrue((high - value) * 16 <= value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50, TimeUnit.NANOSECONDS));
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax(TimeUnit.MICROSECONDS));
+        assertEquals(500, histogram.getMean(TimeUnit.MICROSECONDS));
+        assertWithin(500, histogram.getPercentile(50, TimeUnit.MICROSECONDS));
+        assertWithin(990, histogram.getPercentile(99, TimeUnit.MICROSECONDS));
+        assertEquals(1000, histogram.getPercentile(100,
+            TimeUnit.MICROSECONDS));
+        assertWithin(1, histogram.getPercentile(0, TimeUnit.MICROSECONDS));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++)
+                    histogram.record(i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9999, histogram.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " != " + actual,
+            actual >= expected && actual <= expected + expected / 16 + 1);
+    }
+}
@@ -20,12 +20,18 @@ package org.apache.openjpa.conf;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.conf.JDBCConfigurationImpl;
+import org.apache.openjpa.lib.conf.ObjectValue;
 import org.apache.openjpa.lib.log.Log;
+import org.apache.openjpa.meta.MetaDataRepository;
 import org.apache.openjpa.persistence.JPAFacadeHelper;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
 import org.apache.openjpa.persistence.query.NamedQueryEntity;
@@ -98,6 +104,106 @@ public class TestCacheMarshallerEndToEnd
         closeEMF(emf);
     }
 
+    public void testSnapshotIsValidatedByPersistenceUnitHash() {
+        String file = "target/" + MetaDataCacheMaintenance.class.getName()
+            + "-hash.ser";
+        String marshaller = "default(Id=" + MetaDataCacheMaintenance.class.getName()
+            + ", ConsumeSerializationErrors=false"
+            + ", ValidationPolicy="
+            + PersistenceUnitHashValidationPolicy.class.getName();
+
+        OpenJPAEntityManagerFactorySPI emf = createEMF(
+            "openjpa.CacheMarshallers", marshaller + ", OutputFile=" + file + ")",
+            AllFieldTypes.class, NamedQueryEntity.class, CLEAR_TABLES);
+        new MetaDataCacheMaintenance(JPAFacadeHelper.toBrokerFactory(emf),
+            false).store();
+        clear(emf);
+        closeEMF(emf);
+
+        // the stored metadata is used without loading it again
+        emf = createEMF("openjpa.CacheMarshallers",
+            marshaller + ", InputURL=file:" + file + ")",
+            "openjpa.MetaDataRepository", "Preload=true",
+            AllFieldTypes.class, NamedQueryEntity.class);
+        MetaDataRepository repos = emf.getConfiguration()
+            .getMetaDataRepositoryInstance();
+        assertNotNull(repos.getCachedMetaData(AllFieldTypes.class));
+        assertTrue(repos.getPersistentTypeNames(false, null)
+            .contains(NamedQueryEntity.class.getName()));
+        EntityManager em = emf.createEntityManager();
+        assertEquals(0, em.createNamedQuery("NamedQueryEntity.namedQuery")
+            .getResultList().size());
+        em.close();
+        closeEMF(emf);
+
+        // a different mapping configuration invalidates the snapshot
+        emf = createEMF("openjpa.CacheMarshallers",
+            marshaller + ", InputURL=file:" + file + ")",
+            "openjpa.jdbc.MappingDefaults", "ForeignKeyDeleteAction=restrict",
+            AllFieldTypes.class, NamedQueryEntity.class);
+        repos = emf.getConfiguration().getMetaDataRepositoryInstance();
+        assertNull(repos.getCachedMetaData(AllFieldTypes.class));
+        closeEMF(emf);
+    }
+
+    public void testSnapshotIsValidatedAgainstScannedTypes() {
+        OpenJPAEntityManagerFactorySPI emf = createEMF(
+            AllFieldTypes.class, NamedQueryEntity.class);
+        try {
+            PersistenceUnitHashValidationPolicy policy =
+                new PersistenceUnitHashValidationPolicy();
+            policy.setConfiguration(emf.getConfiguration());
+            assertTrue(policy.getPersistentTypeNames()
+                .contains(AllFieldTypes.class.getName()));
+            Object data = policy.getCacheableData("snapshot");
+            assertEquals("snapshot", policy.getValidData(data));
+
+            // a type that only a scan finds invalidates the snapshot
+            PersistenceUnitHashValidationPolicy scanned =
+                new PersistenceUnitHashValidationPolicy() {
+                    @Override
+                    protected Collection<String> getPersistentTypeNames() {
+                        Collection<String> names = super.getPersistentTypeNames();
+                        names.add("org.example.Scanned");
+                        return names;
+                    }
+                };
+            scanned.setConfiguration(emf.getConfiguration());
+            assertNull(scanned.getValidData(data));
+        } finally {
+            closeEMF(emf);
+        }
+    }
+
+    public void testPersistenceUnitHashCoversDictionaryNotConnection() {
+        String url = "jdbc:derby:memory:snapshot;create=true";
+        String hash = hash("derby", url);
+        assertEquals(hash, hash("derby", url));
+        assertEquals(hash, hash("derby", "jdbc:derby:memory:other;create=true"));
+        assertFalse(hash.equals(hash("hsql", url)));
+    }
+
+    /**
+     * Return the persistence unit hash of a configuration with the given
+     * dictionary and connection URL, and check that the dictionary in use
+     * was resolved to compute it.
+     */
+    private String hash(String dict, String url) {
+        JDBCConfiguration conf = new JDBCConfigurationImpl();
+        try {
+            conf.setConnectionURL(url);
+            conf.setDBDictionary(dict);
+            PersistenceUnitHashValidationPolicy policy =
+                new PersistenceUnitHashValidationPolicy();
+            policy.setConfiguration(conf);
+            String hash = policy.hash(Collections.<String> emptySet());
+            assertNotNull(((ObjectValue) conf.getValue("jdbc.DBDictionary")).get());
+            return hash;
+        } finally {
+            conf.close();
+        }
+    }
+
     private void assertContains(List<String> lines, String prefix) {
         for (String line : lines)
             if (line.startsWith(prefix))
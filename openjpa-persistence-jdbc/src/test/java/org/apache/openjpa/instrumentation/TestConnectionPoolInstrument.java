@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.openjpa.lib.instrumentation.Instrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationProvider;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Verifies the pooled driver data source serves the persistence unit and
+ * that its statistics are exposed through the JMX instrument.
+ */
+public class TestConnectionPoolInstrument extends SingleEMFTestCase {
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp(CacheableEntity.class, CLEAR_TABLES,
+            "openjpa.ConnectionRetainMode", "on-demand",
+            "openjpa.jdbc.DriverDataSource", "pooled(MaxActive=4,MaxStatements=20)",
+            "openjpa.Instrumentation", "jmx(Instrument=ConnectionPool)");
+    }
+
+    private ConnectionPoolInstrument getInstrument() {
+        InstrumentationManager mgr = emf.getConfiguration().getInstrumentationManagerInstance();
+        Set<InstrumentationProvider> providers = mgr.getProviders();
+        assertEquals(1, providers.size());
+        Instrument inst = providers.iterator().next().getInstrumentByName("ConnectionPool");
+        assertNotNull(inst);
+        assertTrue(inst instanceof ConnectionPoolInstrument);
+        return (ConnectionPoolInstrument) inst;
+    }
+
+    public void testConnectionsAndStatementsAreReused() {
+        ConnectionPoolInstrument inst = getInstrument();
+        assertEquals(4, inst.getMaxActive());
+        inst.reset();
+
+        for (int i = 0; i < 5; i++) {
+            OpenJPAEntityManagerSPI em = emf.createEntityManager();
+            em.getTransaction().begin();
+            CacheableEntity ce = new CacheableEntity();
+            ce.setId(i);
+            ce.setName("name" + i);
+            em.persist(ce);
+            em.getTransaction().commit();
+            em.clear();
+            assertEquals("name" + i, em.find(CacheableEntity.class, i).getName());
+            em.close();
+        }
+
+        assertEquals(0, inst.getActiveCount());
+        assertTrue(inst.getIdleCount() > 0);
+        assertTrue(inst.getBorrowCount() >= 5);
+        assertTrue(inst.getCreatedCount() <= inst.getMaxActive());
+        assertTrue(inst.getBorrowCount() > inst.getCreatedCount());
+        assertEquals(0, inst.getTimeoutCount());
+        assertTrue(inst.getStatementHitCount() > 0);
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Set<ObjectName> names = mbs.queryNames(new ObjectName("org.apache.openjpa:type=ConnectionPool,cfgid="
+                + emf.getConfiguration().getId() + ",*"), null);
+            assertEquals(1, names.size());
+            assertEquals(inst.getBorrowCount(), mbs.getAttribute(names.iterator().next(), "BorrowCount"));
+        } catch (Exception e) {
+            fail("Unexpected exception: " + e);
+        }
+    }
+}
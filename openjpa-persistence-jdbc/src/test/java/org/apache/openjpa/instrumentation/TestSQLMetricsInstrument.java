@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.openjpa.instrumentation.jmx.JMXProvider;
+import org.apache.openjpa.lib.instrumentation.Instrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationProvider;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Verifies the SQL metrics recorded by the metrics connection decorator
+ * are exposed through the JMX instrument.
+ */
+public class TestSQLMetricsInstrument extends SingleEMFTestCase {
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp(CacheableEntity.class, CLEAR_TABLES,
+            "openjpa.Instrumentation", "jmx(Instrument=SQLMetrics)",
+            "openjpa.jdbc.ConnectionDecorators",
+            "org.apache.openjpa.lib.jdbc.MetricsConnectionDecorator(MaxShapes=100)");
+    }
+
+    private SQLMetricsInstrument getInstrument() {
+        InstrumentationManager mgr = emf.getConfiguration().getInstrumentationManagerInstance();
+        Set<InstrumentationProvider> providers = mgr.getProviders();
+        assertEquals(1, providers.size());
+        InstrumentationProvider provider = providers.iterator().next();
+        assertEquals(JMXProvider.class, provider.getClass());
+        Instrument inst = provider.getInstrumentByName("SQLMetrics");
+        assertNotNull(inst);
+        assertTrue(inst instanceof SQLMetricsInstrument);
+        return (SQLMetricsInstrument) inst;
+    }
+
+    private String findStatement(SQLMetricsInstrument inst, String prefix) {
+        for (String sql : inst.statements())
+            if (sql.startsWith(prefix) && sql.contains("INST_CACHE_ENT"))
+                return sql;
+        fail("No " + prefix + " statement in " + inst.statements());
+        return null;
+    }
+
+    public void testStatementMetrics() {
+        SQLMetricsInstrument inst = getInstrument();
+        inst.reset();
+
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 10; i++) {
+            CacheableEntity ce = new CacheableEntity();
+            ce.setId(i);
+            ce.setName("name" + i);
+            em.persist(ce);
+        }
+        em.getTransaction().commit();
+        em.clear();
+        assertEquals(10, em.createQuery("SELECT ce FROM CacheableEntity ce WHERE ce.id < 100")
+            .getResultList().size());
+        em.close();
+
+        String insert = findStatement(inst, "INSERT");
+        assertTrue(inst.getExecutionCount(insert) > 0);
+        long[] stats = inst.getStatementStatistics().get(insert);
+        assertNotNull(stats);
+        // the rows updated by the inserts, batched or not
+        assertEquals(10, stats[3]);
+
+        String select = findStatement(inst, "SELECT");
+        assertFalse(select, select.contains("100"));
+        assertEquals(1, inst.getExecutionCount(select));
+        assertEquals(10, inst.getRowCount(select));
+        assertTrue(inst.getMaxTime(select) >= inst.getPercentileTime(select, 50));
+        assertTrue(inst.getExecutionCount() >= 2);
+        assertEquals(0, inst.getErrorCount());
+
+        inst.reset();
+        assertEquals(0, inst.getExecutionCount(select));
+        assertEquals(0, inst.getRowCount());
+    }
+
+    public void testMBeanIsRegistered() throws Exception {
+        SQLMetricsInstrument inst = getInstrument();
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.find(CacheableEntity.class, 1);
+        em.close();
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = mbs.queryNames(new ObjectName("org.apache.openjpa:type=SQLMetrics,cfgid="
+            + emf.getConfiguration().getId() + ",*"), null);
+        assertEquals(1, names.size());
+        ObjectName name = names.iterator().next();
+        assertEquals(inst.getExecutionCount(), mbs.getAttribute(name, "ExecutionCount"));
+        @SuppressWarnings("unchecked")
+        Map<String, long[]> stats = (Map<String, long[]>) mbs.getAttribute(name, "StatementStatistics");
+        assertFalse(stats.isEmpty());
+    }
+}
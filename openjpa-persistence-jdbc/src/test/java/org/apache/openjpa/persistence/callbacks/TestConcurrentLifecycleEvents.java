@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.callbacks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openjpa.event.LifecycleCallbacks;
+import org.apache.openjpa.event.LifecycleEvent;
+import org.apache.openjpa.event.LifecycleEventManager;
+import org.apache.openjpa.event.LoadListener;
+import org.apache.openjpa.event.MethodLifecycleCallbacks;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests firing lifecycle events from several threads through a shared
+ * {@link LifecycleEventManager}.
+ */
+public class TestConcurrentLifecycleEvents extends SingleEMFTestCase {
+
+    private static final int THREADS = 8;
+    private static final int EVENTS = 1000;
+
+    @Override
+    public void setUp() {
+        setUp(ListenerInEntity.class);
+    }
+
+    private ClassMetaData getMetaData() {
+        return emf.getConfiguration().getMetaDataRepositoryInstance()
+            .getMetaData(ListenerInEntity.class, null, true);
+    }
+
+    public void testCallbacksAreResolvedWithMetaData() {
+        ClassMetaData meta = getMetaData();
+        LifecycleCallbacks[] callbacks = meta.getLifecycleMetaData()
+            .getCallbacks(LifecycleEvent.AFTER_LOAD);
+        assertEquals(1, callbacks.length);
+        assertEquals("postLoad", ((MethodLifecycleCallbacks) callbacks[0])
+            .getCallbackMethod().getName());
+
+        LifecycleEventManager mgr = new LifecycleEventManager();
+        ListenerInEntity pc = new ListenerInEntity();
+        for (int i = 0; i < EVENTS; i++)
+            assertEquals(0, mgr.fireEvent(pc, meta,
+                LifecycleEvent.AFTER_LOAD).length);
+        assertEquals(EVENTS, pc.postLoadCount);
+        assertEquals(0, pc.prePersistCount);
+    }
+
+    public void testConcurrentFiring() throws Exception {
+        final ClassMetaData meta = getMetaData();
+        final LifecycleEventManager mgr = new LifecycleEventManager();
+        final Listener listener = new Listener();
+        mgr.addListener(listener, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ListenerInEntity>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(new Callable<ListenerInEntity>() {
+                    @Override
+                    public ListenerInEntity call() {
+                        ListenerInEntity pc = new ListenerInEntity();
+                        for (int j = 0; j < EVENTS; j++)
+                            assertEquals(0, mgr.fireEvent(pc, meta,
+                                LifecycleEvent.AFTER_LOAD).length);
+                        return pc;
+                    }
+                }));
+            }
+
+            // listeners can be changed while events are being fired
+            Listener other = new Listener();
+            for (int i = 0; i < 100; i++) {
+                mgr.addListener(other, new Class[]{ ListenerInEntity.class });
+                mgr.removeListener(other);
+            }
+
+            for (Future<ListenerInEntity> future : futures)
+                assertEquals(EVENTS, future.get().postLoadCount);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * EVENTS, listener.loads.get());
+        assertTrue(mgr.hasLoadListeners(new ListenerInEntity(), meta));
+        assertFalse(mgr.hasStoreListeners(new ListenerInEntity(), meta));
+
+        mgr.removeListener(listener);
+        mgr.fireEvent(new ListenerInEntity(), meta, LifecycleEvent.AFTER_LOAD);
+        assertEquals(THREADS * EVENTS, listener.loads.get());
+    }
+
+    private static class Listener implements LoadListener {
+
+        final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public void afterLoad(LifecycleEvent event) {
+            assertTrue(event.getSource() instanceof ListenerInEntity);
+            loads.incrementAndGet();
+        }
+
+        @Override
+        public void afterRefresh(LifecycleEvent event) {
+        }
+    }
+}
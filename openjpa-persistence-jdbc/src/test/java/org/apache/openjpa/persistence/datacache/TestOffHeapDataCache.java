@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.datacache;
+
+import org.apache.openjpa.datacache.DataCache;
+import org.apache.openjpa.datacache.DataCachePCData;
+import org.apache.openjpa.datacache.OffHeapCacheStatistics;
+import org.apache.openjpa.datacache.OffHeapDataCache;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.StoreCacheImpl;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+import org.apache.openjpa.util.CompactObjectCodec;
+import org.apache.openjpa.util.IntId;
+import org.apache.openjpa.util.JavaObjectCodec;
+
+public class TestOffHeapDataCache extends SingleEMFTestCase {
+    private static final int SLAB_SIZE = 4096;
+
+    @Override
+    protected void setUp(Object... props) {
+        super.setUp(CLEAR_TABLES,
+            CachedPerson.class,
+            "openjpa.RemoteCommitProvider", "sjvm",
+            "openjpa.DataCache", "offheap(MaxBytes=" + (4 * SLAB_SIZE)
+                + ",SlabSize=" + SLAB_SIZE + ")");
+    }
+
+    private OffHeapDataCache getCache() {
+        StoreCacheImpl storeCache = (StoreCacheImpl) emf.getCache();
+        DataCache cache = storeCache.getDelegate();
+        assertTrue(cache instanceof OffHeapDataCache);
+        return (OffHeapDataCache) cache;
+    }
+
+    private void persist(int from, int to) {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = from; i < to; i++) {
+            CachedPerson person = new CachedPerson();
+            person.setId(i);
+            person.setFirstName("first" + i);
+            person.setLastName("last" + i);
+            em.persist(person);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testFindIsServedFromCache() {
+        OffHeapDataCache cache = getCache();
+        persist(0, 5);
+        assertEquals(5, cache.getEntryCount());
+        assertTrue(cache.getUsedBytes() > 0);
+
+        DataCachePCData data = cache.get(new IntId(CachedPerson.class, 3));
+        assertNotNull(data);
+        assertEquals(CachedPerson.class, data.getType());
+
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        CachedPerson person = em.find(CachedPerson.class, 3);
+        assertEquals("first3", person.getFirstName());
+        assertEquals("last3", person.getLastName());
+        em.close();
+
+        assertNotNull(cache.remove(new IntId(CachedPerson.class, 3)));
+        assertNull(cache.get(new IntId(CachedPerson.class, 3)));
+        assertEquals(4, cache.getEntryCount());
+
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    public void testCompactCodecKeepsState() throws Exception {
+        assertEquals("compact", getCache().getCodec());
+        persist(0, 1);
+        DataCachePCData data = getCache().get(new IntId(CachedPerson.class, 0));
+        assertNotNull(data);
+
+        CompactObjectCodec codec = new CompactObjectCodec(emf.getConfiguration());
+        byte[] bytes = codec.encode(data);
+        assertTrue(bytes.length < new JavaObjectCodec().encode(data).length);
+
+        DataCachePCData copy = (DataCachePCData) codec.decode(bytes);
+        assertEquals(data.getClass(), copy.getClass());
+        assertEquals(data.getId(), copy.getId());
+        assertEquals(data.getVersion(), copy.getVersion());
+        assertEquals(data.getTimeOut(), copy.getTimeOut());
+        assertEquals(data.getCache(), copy.getCache());
+        int fields = emf.getConfiguration().getMetaDataRepositoryInstance()
+            .getMetaData(CachedPerson.class, null, true).getFields().length;
+        for (int i = 0; i < fields; i++) {
+            assertEquals(data.isLoaded(i), copy.isLoaded(i));
+            assertEquals(data.getData(i), copy.getData(i));
+        }
+    }
+
+    public void testMemoryIsBounded() {
+        OffHeapDataCache cache = getCache();
+        persist(0, 500);
+
+        assertTrue(cache.getReservedBytes() <= 4 * SLAB_SIZE);
+        assertTrue(cache.getEntryCount() < 500);
+        assertTrue(cache.getEvictionCount() > 0);
+
+        // the most recent entity is still cached
+        persist(500, 501);
+        assertNotNull(cache.get(new IntId(CachedPerson.class, 500)));
+
+        OffHeapCacheStatistics stats =
+            (OffHeapCacheStatistics) cache.getStatistics();
+        assertEquals(4 * SLAB_SIZE, stats.getMaxBytes());
+        assertEquals(cache.getEntryCount(), stats.getEntryCount());
+        assertEquals(cache.getEvictionCount(), stats.getEvictionCount());
+    }
+
+    public void testPinnedEntriesAreNotEvicted() {
+        OffHeapDataCache cache = getCache();
+        persist(0, 1);
+        IntId pinned = new IntId(CachedPerson.class, 0);
+        assertTrue(cache.pin(pinned));
+
+        persist(1, 500);
+        assertNotNull(cache.get(pinned));
+        assertTrue(cache.unpin(pinned));
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.event;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.apache.openjpa.event.RemoteCommitListener;
+import org.apache.openjpa.event.TCPRemoteCommitProvider;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.test.AbstractPersistenceTestCase;
+
+/**
+ * Runs several TCP remote commit providers on loopback ports in one JVM and
+ * checks that commits on one node reach all other nodes, including when the
+ * receive queue is small enough to make the listeners push back on senders.
+ */
+public class TestTCPRemoteMultiNode
+    extends AbstractPersistenceTestCase {
+
+    private static final int NODES = 4;
+    private static final int BASE_PORT = 5736;
+    private static final int COMMITS = 50;
+    private static final long PROTOCOL_VERSION = 0x1428ad01;
+    private static final long PRIOR_PROTOCOL_VERSION = 0x1428acff;
+
+    private static final int ADDED = 0;
+    private static final int UPDATED = 1;
+    private static final int DELETED = 2;
+
+    private OpenJPAEntityManagerFactorySPI[] _emfs;
+    private CountingListener[] _listeners;
+
+    private void startNodes(String options) {
+        StringBuilder addresses = new StringBuilder();
+        for (int i = 0; i < NODES; i++) {
+            if (i > 0)
+                addresses.append(';');
+            addresses.append("127.0.0.1:").append(BASE_PORT + i);
+        }
+
+        _emfs = new OpenJPAEntityManagerFactorySPI[NODES];
+        _listeners = new CountingListener[NODES];
+        for (int i = 0; i < NODES; i++) {
+            _emfs[i] = createEMF(AnEntity.class, CLEAR_TABLES,
+                "openjpa.DataCache", "true",
+                "openjpa.RemoteCommitProvider", "tcp(Port=" + (BASE_PORT + i)
+                    + ", Addresses=" + addresses + ", " + options
+                    + ", TransmitPersistedObjectIds=true)");
+            _listeners[i] = new CountingListener();
+            _emfs[i].getConfiguration().getRemoteCommitEventManager()
+                .addListener(_listeners[i]);
+        }
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        if (_emfs != null)
+            for (OpenJPAEntityManagerFactorySPI emf : _emfs)
+                closeEMF(emf);
+        super.tearDown();
+    }
+
+    private void commitOnFirstNode() {
+        EntityManager em = _emfs[0].createEntityManager();
+        for (int i = 0; i < COMMITS; i++) {
+            em.getTransaction().begin();
+            AnEntity e = new AnEntity();
+            e.setId(i);
+            e.setName("name" + i);
+            em.persist(e);
+            em.getTransaction().commit();
+        }
+        em.close();
+    }
+
+    private void updateAndDeleteOnFirstNode() throws InterruptedException {
+        EntityManager em = _emfs[0].createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < COMMITS; i++)
+            em.find(AnEntity.class, i).setName("updated" + i);
+        em.getTransaction().commit();
+        assertAllNodesReceived(UPDATED);
+
+        em.getTransaction().begin();
+        for (int i = 0; i < COMMITS; i++)
+            em.remove(em.find(AnEntity.class, i));
+        em.getTransaction().commit();
+        em.close();
+        assertAllNodesReceived(DELETED);
+    }
+
+    private void assertAllNodesReceived() throws InterruptedException {
+        assertAllNodesReceived(ADDED);
+    }
+
+    /**
+     * Wait for the other nodes to receive the ids of all entities with the
+     * given kind of change, and check that the committing node did not.
+     */
+    private void assertAllNodesReceived(int kind)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        for (int i = 1; i < NODES; i++)
+            while (_listeners[i].ids[kind].size() < COMMITS
+                && System.currentTimeMillis() < deadline)
+                Thread.sleep(50);
+
+        assertEquals(0, _listeners[0].ids[kind].size());
+        for (int i = 1; i < NODES; i++)
+            assertEquals("node " + i, COMMITS, _listeners[i].ids[kind].size());
+    }
+
+    /**
+     * Check that the receiving node closed the given connection. Bytes it
+     * did not read make it reset the connection instead of ending it.
+     */
+    private static void assertClosed(Socket socket) throws IOException {
+        try {
+            assertEquals(-1, socket.getInputStream().read());
+        } catch (SocketException se) {
+            // reset by the receiving node
+        }
+    }
+
+    public void testEventsReachAllNodes() throws Exception {
+        startNodes("Codec=java");
+        commitOnFirstNode();
+        assertAllNodesReceived();
+        updateAndDeleteOnFirstNode();
+    }
+
+    public void testEventsWithCompactCodec() throws Exception {
+        startNodes("Codec=compact");
+        commitOnFirstNode();
+        assertAllNodesReceived();
+        updateAndDeleteOnFirstNode();
+    }
+
+    public void testEventsWithCoalescing() throws Exception {
+        startNodes("CoalesceMillis=20");
+        commitOnFirstNode();
+        assertAllNodesReceived();
+        updateAndDeleteOnFirstNode();
+
+        // commits within the coalescing window share a packet
+        TCPRemoteCommitProvider provider = (TCPRemoteCommitProvider) _emfs[0]
+            .getConfiguration().getRemoteCommitEventManager()
+            .getRemoteCommitProvider();
+        assertEquals(COMMITS + 2, provider.getEventCount());
+        assertTrue(String.valueOf(provider.getPacketCount()),
+            provider.getPacketCount() < provider.getEventCount());
+    }
+
+    public void testEventsReachAllNodesWithBackPressure() throws Exception {
+        startNodes("NumReceiveThreads=1, ReceiveQueueSize=1");
+        commitOnFirstNode();
+        assertAllNodesReceived();
+    }
+
+    public void testOversizedPacketClosesConnection() throws Exception {
+        startNodes("MaxPacketSize=65536");
+        try (Socket socket = new Socket("127.0.0.1", BASE_PORT + 1)) {
+            socket.setSoTimeout(10000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            // the frame header, as written by an ObjectOutputStream
+            out.writeShort(ObjectStreamConstants.STREAM_MAGIC);
+            out.writeShort(ObjectStreamConstants.STREAM_VERSION);
+            out.writeByte(ObjectStreamConstants.TC_BLOCKDATA);
+            out.writeByte(12);
+            out.writeLong(PROTOCOL_VERSION);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            assertClosed(socket);
+        }
+        commitOnFirstNode();
+        assertAllNodesReceived();
+    }
+
+    public void testPacketOfPriorReleaseClosesConnection() throws Exception {
+        startNodes("Codec=java");
+        try (Socket socket = new Socket("127.0.0.1", BASE_PORT + 1)) {
+            socket.setSoTimeout(10000);
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.writeLong(PRIOR_PROTOCOL_VERSION);
+            out.writeLong(1);
+            out.writeInt(BASE_PORT + NODES);
+            out.writeObject(new byte[]{ 127, 0, 0, 1 });
+            out.writeObject(new RemoteCommitEvent());
+            out.flush();
+            assertClosed(socket);
+        }
+        commitOnFirstNode();
+        assertAllNodesReceived();
+    }
+
+    /**
+     * A prior release reads the protocol version of a packet from a Java
+     * serialization stream, so it must find a version it does not know.
+     */
+    public void testPriorReleaseReadsProtocolVersion() throws Exception {
+        for (String codec : new String[]{ "java", "compact" }) {
+            try (ServerSocket server = new ServerSocket(BASE_PORT + NODES)) {
+                server.setSoTimeout(10000);
+                OpenJPAEntityManagerFactorySPI emf = createEMF(AnEntity.class,
+                    CLEAR_TABLES, "openjpa.DataCache", "true",
+                    "openjpa.RemoteCommitProvider", "tcp(Port=" + BASE_PORT
+                        + ", Addresses=127.0.0.1:" + (BASE_PORT + NODES)
+                        + ", NumBroadcastThreads=0, Codec=" + codec + ")");
+                try {
+                    EntityManager em = emf.createEntityManager();
+                    em.getTransaction().begin();
+                    em.persist(new AnEntity());
+                    em.getTransaction().commit();
+                    em.close();
+                    try (Socket socket = server.accept()) {
+                        socket.setSoTimeout(10000);
+                        ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+                        long version = in.readLong();
+                        assertTrue(codec, version != PRIOR_PROTOCOL_VERSION);
+                    }
+                } finally {
+                    closeEMF(emf);
+                }
+            }
+        }
+    }
+
+    private static class CountingListener
+        implements RemoteCommitListener {
+
+        @SuppressWarnings("unchecked")
+        final Set<Object>[] ids = new Set[]{ ConcurrentHashMap.newKeySet(),
+            ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet() };
+
+        @Override
+        public void afterCommit(RemoteCommitEvent event) {
+            add(ADDED, event.getPersistedObjectIds());
+            add(UPDATED, event.getUpdatedObjectIds());
+            add(DELETED, event.getDeletedObjectIds());
+        }
+
+        private void add(int kind, Collection<?> oids) {
+            for (Object oid : oids)
+                ids[kind].add(oid.toString());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
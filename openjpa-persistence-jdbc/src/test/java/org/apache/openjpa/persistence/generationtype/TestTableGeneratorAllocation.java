@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.generationtype;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.openjpa.jdbc.kernel.TableJDBCSeq;
+import org.apache.openjpa.kernel.StoreContext;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.meta.MetaDataRepository;
+import org.apache.openjpa.meta.SequenceMetaData;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests block allocation of table sequence values: reserving values for a
+ * whole <code>persistAll</code> and the adaptive allocation size.
+ */
+public class TestTableGeneratorAllocation extends SQLListenerTestCase {
+
+    @Override
+    public void setUp() {
+        setUp(Dog.class, CLEAR_TABLES);
+    }
+
+    private int countSequenceUpdates() {
+        int count = 0;
+        for (String s : sql)
+            if (s.toUpperCase().startsWith("UPDATE ")
+                && s.toUpperCase().contains("ID_GEN"))
+                count++;
+        return count;
+    }
+
+    private TableJDBCSeq getSequence() {
+        MetaDataRepository repo = emf.getConfiguration()
+            .getMetaDataRepositoryInstance();
+        repo.getMetaData(Dog.class, null, true);
+        SequenceMetaData smd = repo.getSequenceMetaData("Dog_Gen", null, true);
+        return (TableJDBCSeq) smd.getInstance(null);
+    }
+
+    public void testPersistAllReservesValuesAtOnce() {
+        List<Dog> dogs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Dog dog = new Dog();
+            dog.setName("dog" + i);
+            dogs.add(dog);
+        }
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        resetSQL();
+        em.persistAll(dogs);
+        em.flush();
+        // the generator allocates 10 values at a time, but one update
+        // reserves values for all the dogs
+        assertEquals(1, countSequenceUpdates());
+        em.getTransaction().commit();
+
+        Set<Integer> ids = new HashSet<>();
+        for (Dog dog : dogs)
+            ids.add(dog.getId());
+        assertEquals(100, ids.size());
+        assertTrue(ids.contains(20));
+        assertTrue(ids.contains(119));
+        closeEM(em);
+    }
+
+    public void testAdaptiveAllocation() {
+        TableJDBCSeq seq = getSequence();
+        seq.setAdaptiveAllocate(true);
+        seq.setAllocateMillis(60000);
+        seq.setMaxAllocate(200);
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        StoreContext ctx = JPAFacadeHelper.toBroker(em);
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(em, Dog.class);
+        resetSQL();
+        long prev = -1;
+        for (int i = 0; i < 1000; i++) {
+            long next = ((Number) seq.next(ctx, meta)).longValue();
+            if (prev != -1)
+                assertEquals(prev + 1, next);
+            prev = next;
+        }
+        // blocks of 10, 20, 40, 80, 160, then 200 rather than 100 blocks
+        // of 10
+        assertEquals(9, countSequenceUpdates());
+        closeEM(em);
+    }
+
+    public void testConcurrentValuesAreUnique() throws Exception {
+        final TableJDBCSeq seq = getSequence();
+        final Set<Object> values = ConcurrentHashMap.newKeySet();
+        final int threads = 5;
+        final int loops = 2000;
+        List<Thread> workers = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread() {
+                @Override
+                public void run() {
+                    OpenJPAEntityManager em = emf.createEntityManager();
+                    try {
+                        StoreContext ctx = JPAFacadeHelper.toBroker(em);
+                        ClassMetaData meta = JPAFacadeHelper.getMetaData(em,
+                            Dog.class);
+                        for (int j = 0; j < loops; j++)
+                            values.add(seq.next(ctx, meta));
+                    } catch (Throwable t) {
+                        synchronized (errors) {
+                            errors.add(t);
+                        }
+                    } finally {
+                        em.close();
+                    }
+                }
+            });
+        }
+        for (Thread t : workers)
+            t.start();
+        for (Thread t : workers)
+            t.join();
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(threads * loops, values.size());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.jdbc.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.batch.exception.Ent1;
+import org.apache.openjpa.persistence.jdbc.query.cache.Invoice;
+import org.apache.openjpa.persistence.jdbc.query.cache.InvoiceKey;
+import org.apache.openjpa.persistence.jdbc.query.cache.LineItem;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests loading many instances by primary key with batched selects.
+ */
+public class TestBatchedLoadAll extends SQLListenerTestCase {
+
+    private static final int LIMIT = 100;
+
+    @Override
+    public void setUp() {
+        super.setUp(CLEAR_TABLES, Ent1.class, Invoice.class, LineItem.class,
+            "openjpa.jdbc.DBDictionary", "batchLoadLimit=" + LIMIT);
+    }
+
+    private int countSelects(String table) {
+        int count = 0;
+        for (String s : sql)
+            if (s.startsWith("SELECT ") && s.contains(" FROM " + table))
+                count++;
+        return count;
+    }
+
+    private void persistEnt1(int count) {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < count; i++)
+            em.persist(new Ent1(i, "name" + i));
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testFindAllSelectsInBatches() {
+        persistEnt1(250);
+        List<Object> ids = new ArrayList<>();
+        for (int i = 0; i < 252; i++)
+            ids.add(i);
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        resetSQL();
+        Object[] found = em.findAll(Ent1.class, ids.toArray());
+        int limit = getDBDictionary().getBatchLoadLimit(1);
+        assertEquals((252 + limit - 1) / limit, countSelects("Ent1"));
+        assertEquals(252, found.length);
+        for (int i = 0; i < 250; i++)
+            assertEquals("name" + i, ((Ent1) found[i]).getName());
+        assertNull(found[250]);
+        assertNull(found[251]);
+        em.close();
+    }
+
+    public void testRefreshAllHollowInstances() {
+        persistEnt1(20);
+        OpenJPAEntityManager em = emf.createEntityManager();
+        List<Ent1> ents = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            ents.add(em.find(Ent1.class, i));
+
+        OpenJPAEntityManager em2 = emf.createEntityManager();
+        em2.getTransaction().begin();
+        em2.find(Ent1.class, 7).setName("changed");
+        em2.getTransaction().commit();
+        em2.close();
+
+        em.evictAll(ents);
+        resetSQL();
+        em.retrieveAll(ents);
+        assertEquals(1, countSelects("Ent1"));
+        assertEquals("changed", ents.get(7).getName());
+        assertEquals("name8", ents.get(8).getName());
+        em.close();
+    }
+
+    public void testCompoundKeys() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Invoice(i, "a", i));
+            em.persist(new Invoice(i, "b", i * 2));
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        Object[] ids = new Object[] { new InvoiceKey(1, "a"),
+            new InvoiceKey(1, "b"), new InvoiceKey(9, "b"),
+            new InvoiceKey(10, "a") };
+        em = emf.createEntityManager();
+        resetSQL();
+        Object[] found = em.findAll(Invoice.class, ids);
+        assertEquals(1, countSelects("Invoice"));
+        assertEquals(1d, ((Invoice) found[0]).getPrice());
+        assertEquals(2d, ((Invoice) found[1]).getPrice());
+        assertEquals(18d, ((Invoice) found[2]).getPrice());
+        assertNull(found[3]);
+        em.close();
+    }
+
+    public void testBatchingCanBeDisabled() {
+        persistEnt1(5);
+        getDBDictionary().batchLoadLimit = 0;
+        try {
+            OpenJPAEntityManager em = emf.createEntityManager();
+            resetSQL();
+            em.findAll(Ent1.class, new Object[] { 0, 1, 2, 3, 4 });
+            assertEquals(5, countSelects("Ent1"));
+            em.close();
+        } finally {
+            getDBDictionary().batchLoadLimit = LIMIT;
+        }
+    }
+
+    public void testChunksAreBoundedByStatementParameters() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 6; i++)
+            em.persist(new Invoice(i, "a", i));
+        em.getTransaction().commit();
+        em.close();
+
+        Object[] ids = new Object[6];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = new InvoiceKey(i, "a");
+        int max = getDBDictionary().maxStatementParameters;
+        // two key columns per instance, so at most two instances per select
+        getDBDictionary().maxStatementParameters = 5;
+        try {
+            em = emf.createEntityManager();
+            resetSQL();
+            Object[] found = em.findAll(Invoice.class, ids);
+            assertEquals(3, countSelects("Invoice"));
+            for (int i = 0; i < found.length; i++)
+                assertEquals((double) i, ((Invoice) found[i]).getPrice());
+            em.close();
+        } finally {
+            getDBDictionary().maxStatementParameters = max;
+        }
+    }
+}
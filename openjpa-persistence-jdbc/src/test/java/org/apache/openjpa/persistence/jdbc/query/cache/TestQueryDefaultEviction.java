@@ -18,6 +18,8 @@
  */
 package org.apache.openjpa.persistence.jdbc.query.cache;
 
+import javax.persistence.EntityManager;
+
 import org.apache.openjpa.datacache.AbstractQueryCache.EvictPolicy;
 import org.apache.openjpa.datacache.ConcurrentQueryCache;
 
@@ -57,4 +59,30 @@ public class TestQueryDefaultEviction extends AbstractQueryCacheTest {
 
         this.recreateData = false;
     }
+
+    /**
+     * Verify that a commit only evicts the queries whose access path
+     * includes a changed type.
+     */
+    public void testUnrelatedQueriesAreRetained() {
+        // Not all databases support GenerationType.IDENTITY column(s)
+        if (!checkSupportsIdentityGenerationType()) {
+            return;
+        }
+
+        loadQueryCache();
+        EntityManager em = emf.createEntityManager();
+        em.createQuery("select s from Supplier s where s.name = ?1")
+            .setParameter(1, "S1").getResultList();
+        em.close();
+        int cacheSizeBeforeUpdate = queryCacheGet();
+        assertTrue(cacheSizeBeforeUpdate > 1);
+
+        updateAnEntity();
+
+        // only the Supplier query survives the PartBase update
+        assertEquals(1, queryCacheGet());
+
+        this.recreateData = false;
+    }
 }
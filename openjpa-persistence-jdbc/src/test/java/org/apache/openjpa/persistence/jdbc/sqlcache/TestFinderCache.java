@@ -21,12 +21,18 @@ package org.apache.openjpa.persistence.jdbc.sqlcache;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.kernel.FinderCacheImpl;
 import org.apache.openjpa.kernel.FinderCache;
+import org.apache.openjpa.kernel.QueryStatistics;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
 import org.apache.openjpa.persistence.test.SQLListenerTestCase;
 
 /**
@@ -97,6 +103,131 @@ public class TestFinderCache extends SQLListenerTestCase {
         em.close();
     }
 
+    public void testFinderIsCachedPerFetchPlan() {
+        FinderCacheImpl cache = (FinderCacheImpl) getCache(emf);
+        cache.setEnableStats(true);
+        long[] ids = createAddresses(3);
+        OpenJPAEntityManager em = OpenJPAPersistence.cast(
+            emf.createEntityManager());
+        assertNotNull(em.find(Address.class, ids[0]));
+        em.clear();
+
+        em.getFetchPlan().setMaxFetchDepth(1);
+        for (long id : ids) {
+            assertNotNull(em.find(Address.class, id));
+            em.clear();
+        }
+        em.close();
+
+        Map<String, String> view = cache.getMapView();
+        String name = Address.class.getName();
+        String variant = name + " [depth=1]";
+        assertTrue(view.toString(), view.containsKey(name));
+        assertTrue(view.toString(), view.containsKey(variant));
+
+        QueryStatistics<String> stats = cache.getVariantStatistics();
+        assertEquals(ids.length, stats.getExecutionCount(variant));
+        assertEquals(ids.length - 1, stats.getHitCount(variant));
+    }
+
+    public void testFinderIsCachedPerLockLevel() {
+        FinderCache cache = getCache(emf);
+        long[] ids = createAddresses(2);
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        sql.clear();
+        assertNotNull(em.find(Address.class, ids[0],
+            LockModeType.PESSIMISTIC_READ));
+        List<String> first = new ArrayList<>(sql);
+        em.clear();
+
+        // the cached finder locks as the original select did, so no
+        // additional statement is needed to lock the instance
+        sql.clear();
+        Address address = em.find(Address.class, ids[1],
+            LockModeType.PESSIMISTIC_READ);
+        assertEquals("street1", address.getStreet());
+        assertEquals(first, sql);
+        assertEquals(LockModeType.PESSIMISTIC_READ, em.getLockMode(address));
+        em.getTransaction().rollback();
+        em.close();
+
+        boolean locked = false;
+        for (Object key : cache.getMapView().keySet())
+            locked |= key.toString().startsWith(Address.class.getName() + " [lock=");
+        assertTrue(cache.getMapView().toString(), locked);
+    }
+
+    public void testFinderCacheIsBounded() {
+        FinderCacheImpl cache = (FinderCacheImpl) getCache(emf);
+        cache.setEnableStats(true);
+        long[] ids = createAddresses(1);
+        int max = cache.getMaxSize();
+        cache.setMaxSize(1);
+        try {
+            OpenJPAEntityManager em = OpenJPAPersistence.cast(
+                emf.createEntityManager());
+            assertNotNull(em.find(Address.class, ids[0]));
+            em.clear();
+            em.getFetchPlan().setMaxFetchDepth(1);
+            assertNotNull(em.find(Address.class, ids[0]));
+            em.close();
+
+            assertEquals(Collections.singleton(Address.class.getName() + " [depth=1]"),
+                cache.getMapView().keySet());
+            assertEquals(1, cache.getStatistics().getEvictionCount());
+            assertEquals(1, cache.getVariantStatistics().getEvictionCount());
+        } finally {
+            cache.setMaxSize(max);
+        }
+    }
+
+    public void testFinderIsCachedPerFetchGroup() {
+        FinderCacheImpl cache = (FinderCacheImpl) getCache(emf);
+        long[] ids = createAddresses(1);
+        OpenJPAEntityManager em = OpenJPAPersistence.cast(
+            emf.createEntityManager());
+        em.getFetchPlan().addFetchGroup("detail");
+        assertNotNull(em.find(Address.class, ids[0]));
+        em.close();
+
+        String variant = Address.class.getName() + " [groups=[default, detail]]";
+        assertTrue(cache.getMapView().toString(),
+            cache.getMapView().containsKey(variant));
+    }
+
+    public void testCompatibilityOptionDisablesCache() {
+        OpenJPAEntityManagerFactorySPI emf1 = createEMF(
+            "openjpa.Compatibility", "CacheNonDefaultFetchPlanQueries=true",
+            Merchandise.class, Book.class, CD.class,
+            Author.class, Person.class, Singer.class, Address.class);
+        try {
+            EntityManager em = emf1.createEntityManager();
+            assertNotNull(em.find(Book.class, BOOK_IDS[0]));
+            em.close();
+            assertTrue(getCache(emf1).getMapView().isEmpty());
+        } finally {
+            closeEMF(emf1);
+        }
+    }
+
+    long[] createAddresses(int n) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Address[] addresses = new Address[n];
+        for (int i = 0; i < n; i++) {
+            addresses[i] = new Address("street" + i, "city", "CA", i);
+            em.persist(addresses[i]);
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++)
+            ids[i] = addresses[i].getId();
+        return ids;
+    }
+
     /**
      * Run a finder query for each identifiers N times and report the median
      * execution time.
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.jdbc.update;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.persistence.batch.exception.Ent1;
+import org.apache.openjpa.persistence.jdbc.auto.AutoIncrementEntity;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests combining batched inserts into multi-row INSERT statements.
+ */
+public class TestMultiRowInsert extends SQLListenerTestCase {
+
+    @Override
+    public void setUp() {
+        super.setUp(CLEAR_TABLES, Parent.class, Child.class, Ent1.class,
+            AutoIncrementEntity.class,
+            "openjpa.jdbc.SchemaFactory", "native(ForeignKeys=true)",
+            "openjpa.jdbc.MappingDefaults",
+            "ForeignKeyDeleteAction=restrict, "
+                + "JoinForeignKeyDeleteAction=restrict",
+            "openjpa.jdbc.DBDictionary", "batchLimit=-1",
+            "openjpa.jdbc.UpdateManager",
+            "batching-constraint(MultiRowInsert=true)");
+    }
+
+    private boolean supportsMultiRowInsert() {
+        return getDBDictionary().supportsMultiRowInsert;
+    }
+
+    private int countMultiRowInserts(String table) {
+        int count = 0;
+        for (String s : sql)
+            if (s.startsWith("INSERT INTO ") && s.contains(table + " (")
+                && s.contains("), ("))
+                count++;
+        return count;
+    }
+
+    public void testInsertsAreCombined() {
+        if (!supportsMultiRowInsert())
+            return;
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 250; i++)
+            em.persist(new Ent1(i, "name" + i));
+        resetSQL();
+        em.getTransaction().commit();
+
+        int rows = getDBDictionary().getMultiRowInsertLimit(2);
+        int statements = (250 + rows - 1) / rows;
+        assertEquals(statements, countMultiRowInserts("Ent1"));
+        assertEquals(statements, getSQLCount());
+
+        em.clear();
+        assertEquals(250L, em.createQuery("select count(e) from Ent1 e")
+            .getSingleResult());
+        assertEquals("name123", em.find(Ent1.class, 123).getName());
+        em.close();
+    }
+
+    public void testForeignKeyOrderIsKept() {
+        if (!supportsMultiRowInsert())
+            return;
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 10; i++) {
+            Parent parent = new Parent();
+            parent.setName("parent" + i);
+            for (int j = 0; j < 3; j++)
+                parent.newChild("child" + i + "-" + j);
+            em.persist(parent);
+        }
+        resetSQL();
+        em.getTransaction().commit();
+        assertEquals(1, countMultiRowInserts("Parent"));
+        assertEquals(1, countMultiRowInserts("Child"));
+
+        em.clear();
+        assertEquals(30L, em.createQuery("select count(c) from Child c "
+            + "where c.parent.name like 'parent%'").getSingleResult());
+        em.close();
+    }
+
+    public void testGeneratedKeysAreAssigned() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AutoIncrementEntity[] entities = new AutoIncrementEntity[5];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new AutoIncrementEntity();
+            entities[i].somethingElse = "value" + i;
+            em.persist(entities[i]);
+        }
+        resetSQL();
+        em.getTransaction().commit();
+        // the order of generated keys is only relied on when declared
+        if (!getDBDictionary().supportsMultiRowGeneratedKeys)
+            assertEquals(0, countMultiRowInserts("AutoIncrementEntity"));
+        em.clear();
+
+        for (int i = 0; i < entities.length; i++) {
+            assertNotNull(entities[i].getId());
+            assertEquals("value" + i, em.find(AutoIncrementEntity.class,
+                entities[i].getId()).somethingElse);
+        }
+        em.close();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.jdbc.update;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.RollbackException;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.kernel.AdaptiveBatchLimit;
+import org.apache.openjpa.jdbc.kernel.BatchingConstraintUpdateManager;
+import org.apache.openjpa.jdbc.kernel.BatchingOptions;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.batch.exception.Ent1;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+import org.apache.openjpa.util.ExceptionInfo;
+
+/**
+ * Tests flushing with pipelined batches and an adaptive batch limit against
+ * a schema with physical foreign keys.
+ */
+public class TestPipelinedBatching extends SingleEMFTestCase {
+
+    @Override
+    public void setUp() {
+        super.setUp(CLEAR_TABLES, Parent.class, Child.class, Ent1.class,
+            "openjpa.jdbc.SchemaFactory", "native(ForeignKeys=true)",
+            "openjpa.jdbc.MappingDefaults",
+            "ForeignKeyDeleteAction=restrict, "
+                + "JoinForeignKeyDeleteAction=restrict",
+            "openjpa.jdbc.DBDictionary", "batchLimit=-1",
+            "openjpa.ConnectionFactoryProperties", "PrintParameters=true",
+            "openjpa.jdbc.UpdateManager", "batching-constraint(Pipelined=true,"
+                + "AdaptiveBatchLimit=true,MinBatchLimit=2,MaxBatchLimit=16,"
+                + "TargetBatchMillis=1000)");
+    }
+
+    private BatchingConstraintUpdateManager getUpdateManager() {
+        return (BatchingConstraintUpdateManager) ((JDBCConfiguration) emf
+            .getConfiguration()).getUpdateManagerInstance();
+    }
+
+    public void testConfiguration() {
+        BatchingOptions options = getUpdateManager().getBatchingOptions();
+        assertEquals(getDBDictionary().supportsConcurrentConnectionUse,
+            options.getPipelined());
+        AdaptiveBatchLimit limit = options.getAdaptiveBatchLimitInstance();
+        assertNotNull(limit);
+        assertEquals(2, limit.getMinBatchLimit());
+        assertEquals(16, limit.getMaxBatchLimit());
+        assertEquals(1000, limit.getTargetBatchMillis());
+    }
+
+    public void testPipeliningRequiresConcurrentConnectionUse() {
+        OpenJPAEntityManagerFactorySPI other = createEMF(Ent1.class,
+            "openjpa.jdbc.DBDictionary",
+            "batchLimit=-1,SupportsConcurrentConnectionUse=false",
+            "openjpa.jdbc.UpdateManager", "batching-constraint(Pipelined=true)");
+        try {
+            BatchingConstraintUpdateManager updateManager =
+                (BatchingConstraintUpdateManager) ((JDBCConfiguration) other
+                .getConfiguration()).getUpdateManagerInstance();
+            assertFalse(updateManager.getBatchingOptions().getPipelined());
+        } finally {
+            closeEMF(other);
+        }
+    }
+
+    public void testExecutorStopsWhenFactoryCloses() {
+        OpenJPAEntityManagerFactorySPI other = createEMF(Ent1.class);
+        ExecutorService executor = ((JDBCConfiguration) other
+            .getConfiguration()).getExecutorService();
+        assertFalse(executor.isShutdown());
+        closeEMF(other);
+        assertTrue(executor.isShutdown());
+    }
+
+    public void testInsertAndDeleteRespectForeignKeys() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 20; i++) {
+            Parent parent = new Parent();
+            parent.setName("parent" + i);
+            for (int j = 0; j < 5; j++)
+                parent.newChild("child" + i + "-" + j);
+            em.persist(parent);
+        }
+        em.getTransaction().commit();
+        em.clear();
+
+        assertEquals(20L, em.createQuery("select count(p) from Parent p")
+            .getSingleResult());
+        assertEquals(100L, em.createQuery("select count(c) from Child c")
+            .getSingleResult());
+        assertEquals(0L, em.createQuery("select count(c) from Child c "
+            + "where c.parent is null").getSingleResult());
+        // full batches well within the target latency raise the limit
+        assertTrue(getUpdateManager().getBatchingOptions()
+            .getAdaptiveBatchLimitInstance().getBatchLimit() > 2);
+
+        em.getTransaction().begin();
+        for (Object parent : em.createQuery("select p from Parent p")
+            .getResultList())
+            em.remove(parent);
+        em.getTransaction().commit();
+        assertEquals(0L, em.createQuery("select count(c) from Child c")
+            .getSingleResult());
+        em.close();
+    }
+
+    public void testFailedObjectIsReported() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.persist(new Ent1(7, "seven"));
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 10; i++)
+            em.persist(new Ent1(100 + i, "name" + i));
+        Ent1 duplicate = new Ent1(7, "seven");
+        em.persist(duplicate);
+        try {
+            em.getTransaction().commit();
+            fail("Expected a duplicate key failure");
+        } catch (RollbackException e) {
+            Throwable cause = e.getCause();
+            assertTrue(cause instanceof ExceptionInfo);
+            Object failed = ((ExceptionInfo) cause).getFailedObject();
+            if (failed == null && cause.getCause() instanceof ExceptionInfo)
+                failed = ((ExceptionInfo) cause.getCause()).getFailedObject();
+            assertSame(duplicate, failed);
+        } finally {
+            if (em.getTransaction().isActive())
+                em.getTransaction().rollback();
+            em.close();
+        }
+    }
+}
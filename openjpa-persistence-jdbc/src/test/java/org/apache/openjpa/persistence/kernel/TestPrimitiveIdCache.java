@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.kernel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.kernel.BrokerImpl;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.batch.exception.Ent1;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests the managed object cache with primitive id tables.
+ */
+public class TestPrimitiveIdCache extends SingleEMFTestCase {
+
+    @Override
+    public void setUp() {
+        setUp(CLEAR_TABLES, Ent1.class,
+            "openjpa.BrokerImpl", "PrimitiveIdCache=true");
+    }
+
+    public void testFindReturnsManagedInstances() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 50; i++)
+            em.persist(new Ent1(i, "name" + i));
+        em.getTransaction().commit();
+        em.clear();
+
+        for (int i = 0; i < 50; i++) {
+            Ent1 ent = em.find(Ent1.class, i);
+            assertEquals("name" + i, ent.getName());
+            assertSame(ent, em.find(Ent1.class, i));
+        }
+        em.close();
+    }
+
+    public void testOverriddenCacheIsUsed() {
+        OpenJPAEntityManagerFactorySPI other = createEMF(Ent1.class,
+            "openjpa.BrokerImpl", HashMapBroker.class.getName()
+                + "(PrimitiveIdCache=true)");
+        try {
+            EntityManager em = other.createEntityManager();
+            em.getTransaction().begin();
+            Ent1 ent = new Ent1(100, "name");
+            em.persist(ent);
+            em.getTransaction().commit();
+            assertSame(ent, em.find(Ent1.class, 100));
+            assertTrue(HashMapBroker.caches > 0);
+            em.close();
+        } finally {
+            closeEMF(other);
+        }
+    }
+
+    public static class HashMapBroker extends BrokerImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        static volatile int caches = 0;
+
+        @Override
+        protected Map<?,?> newManagedObjectCache() {
+            caches++;
+            return new HashMap<>();
+        }
+    }
+}
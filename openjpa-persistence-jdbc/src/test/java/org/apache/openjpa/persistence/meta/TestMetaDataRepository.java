@@ -18,7 +18,12 @@
  */
 package org.apache.openjpa.persistence.meta;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.openjpa.enhance.PCRegistry;
 import org.apache.openjpa.meta.ClassMetaData;
@@ -98,6 +103,24 @@ public class TestMetaDataRepository extends AbstractPersistenceTestCase {
         }
     }
 
+    public void testParallelPreload() {
+        OpenJPAEntityManagerFactorySPI emf = null;
+        try {
+            emf = createNamedEMF(PU_NAME, "openjpa.MetaDataRepository", "Preload=true,PreloadParallelism=4");
+            MetaDataRepository mdr = emf.getConfiguration().getMetaDataRepositoryInstance();
+            assertEquals(4, mdr.getPreloadParallelism());
+            assertNotNull(mdr.getCachedMetaData(MdrTestEntity.class));
+            assertTrue(mdr.getAliasNames().contains("MdrTestEntity"));
+            assertNotNull(mdr.getCachedQueryMetaData("query"));
+
+            Map<String, Long> times = mdr.getPreloadTimes();
+            assertEquals(Arrays.asList("scan", "load", "parse", "resolve", "xml", "register"),
+                new ArrayList<>(times.keySet()));
+        } finally {
+            closeEMF(emf);
+        }
+    }
+
     public void testPreloadConfiguration() {
         OpenJPAEntityManagerFactorySPI emf = createNamedEMF(PU_NAME, "openjpa.MetaDataRepository", "preload=true");
         assertTrue(MetaDataRepository.needsPreload(emf.getConfiguration()));
@@ -107,4 +130,36 @@ public class TestMetaDataRepository extends AbstractPersistenceTestCase {
         assertTrue(MetaDataRepository.needsPreload(emf.getConfiguration()));
         emf.close();
     }
+
+    public void testLockFreeReads() throws Exception {
+        OpenJPAEntityManagerFactorySPI emf = createNamedEMF(PU_NAME, "openjpa.MetaDataRepository",
+            "LockFreeReads=true");
+        try {
+            final MetaDataRepository mdr = emf.getConfiguration().getMetaDataRepositoryInstance();
+            assertTrue(mdr.getLockFreeReads());
+            final ClassMetaData meta = mdr.getMetaData(MdrTestEntity.class, null, true);
+            assertNotNull(meta);
+
+            // resolved metadata is returned while another thread holds the repository lock
+            final CountDownLatch read = new CountDownLatch(1);
+            Thread reader = new Thread() {
+                @Override
+                public void run() {
+                    if (mdr.getMetaData(MdrTestEntity.class, null, true) == meta)
+                        read.countDown();
+                }
+            };
+            synchronized (mdr) {
+                reader.start();
+                assertTrue(read.await(10, TimeUnit.SECONDS));
+            }
+            reader.join();
+
+            // removed metadata is no longer read without locking
+            mdr.removeMetaData(meta);
+            assertNotSame(meta, mdr.getMetaData(MdrTestEntity.class, null, true));
+        } finally {
+            closeEMF(emf);
+        }
+    }
 }
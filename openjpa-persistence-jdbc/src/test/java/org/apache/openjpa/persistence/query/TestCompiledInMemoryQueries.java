@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.apache.openjpa.persistence.simple.AllFieldTypes;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Compares the results of queries executed in memory with bytecode compiled
+ * expressions to the results of the same queries executed in the database.
+ */
+public class TestCompiledInMemoryQueries
+    extends SingleEMFTestCase {
+
+    private static final int COUNT = 20;
+
+    private OpenJPAEntityManager em;
+    private List<AllFieldTypes> all;
+
+    @Override
+    public void setUp() {
+        setUp(CLEAR_TABLES, AllFieldTypes.class,
+            "openjpa.CompileInMemoryQueries", "true",
+            "openjpa.jdbc.QuerySQLCache", "false");
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AllFieldTypes prev = null;
+        for (int i = 0; i < COUNT; i++) {
+            AllFieldTypes aft = new AllFieldTypes();
+            aft.setIntField(i);
+            aft.setLongField(i * 10L);
+            aft.setShortField((short) (i + 10));
+            aft.setByteField((byte) (i % 5));
+            aft.setDoubleField(i / 2.0);
+            aft.setStringField("s" + i);
+            aft.setWIntegerField(i % 3 == 0 ? null : i);
+            aft.setSelfOneOne(prev);
+            em.persist(aft);
+            prev = aft;
+        }
+        em.getTransaction().commit();
+        all = em.createQuery("select e from AllFieldTypes e",
+            AllFieldTypes.class).getResultList();
+        assertEquals(COUNT, all.size());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        em.close();
+        super.tearDown();
+    }
+
+    public void testComparisonsOfPrimitiveFields() {
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.intField > 5 and e.intField <= 12", 7);
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.longField = 40 or not (e.shortField < 25)", 6);
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.doubleField >= 3.5", 13);
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.byteField <> 3 and e.intField < 10", 8);
+        assertSameResults("select e from AllFieldTypes e "
+            + "where 7 > e.intField", 7);
+    }
+
+    public void testParametersAndWrappers() {
+        OpenJPAQuery<?> q = em.createQuery(
+            "select e from AllFieldTypes e where e.intField >= :min "
+            + "and e.stringField <> :s");
+        q.setParameter("min", 15);
+        q.setParameter("s", "s17");
+        List<?> expected = q.getResultList();
+        assertEquals(4, expected.size());
+        q.setCandidateCollection(all);
+        assertEquals(new HashSet<>(expected), new HashSet<>(q.getResultList()));
+
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.wIntegerField > 10", 6);
+    }
+
+    public void testRelationTraversal() {
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.selfOneOne.intField = 4", 1);
+        assertSameResults("select e from AllFieldTypes e "
+            + "where e.selfOneOne.selfOneOne.stringField = 's2'", 1);
+    }
+
+    public void testUncompiledNodes() {
+        assertSameResults("select e from AllFieldTypes e "
+            + "where upper(e.stringField) = 'S7' or e.intField + 1 = 3", 2);
+    }
+
+    public void testProjectionsAndOrdering() {
+        assertSameResults("select e.stringField, e.intField, e.longField "
+            + "from AllFieldTypes e where e.intField < 5 "
+            + "order by e.intField desc", 5);
+        assertSameResults("select e from AllFieldTypes e "
+            + "order by e.byteField, e.doubleField desc", COUNT);
+    }
+
+    /**
+     * Execute the given query in the database and in memory and compare
+     * the results.
+     */
+    private void assertSameResults(String jpql, int count) {
+        List<?> expected = em.createQuery(jpql).getResultList();
+        assertEquals(jpql, count, expected.size());
+
+        OpenJPAQuery<?> q = em.createQuery(jpql);
+        q.setCandidateCollection(all);
+        List<?> actual = q.getResultList();
+
+        if (jpql.contains("order by")) {
+            assertEquals(jpql, normalize(expected), normalize(actual));
+        } else {
+            assertEquals(jpql, new HashSet<>(normalize(expected)),
+                new HashSet<>(normalize(actual)));
+        }
+    }
+
+    private static List<Object> normalize(List<?> results) {
+        List<Object> list = new ArrayList<>(results.size());
+        for (Object o : results)
+            list.add(o instanceof Object[] ? Arrays.asList((Object[]) o) : o);
+        return list;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.apache.openjpa.kernel.QueryHints;
+import org.apache.openjpa.lib.jdbc.ConnectionDecorator;
+import org.apache.openjpa.lib.jdbc.DelegatingConnection;
+import org.apache.openjpa.lib.jdbc.DelegatingPreparedStatement;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.apache.openjpa.persistence.detach.Entity4;
+import org.apache.openjpa.persistence.detach.Entity5;
+import org.apache.openjpa.persistence.detach.Entity6;
+import org.apache.openjpa.persistence.detach.Entity7;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests streaming the results of a query with
+ * {@link OpenJPAQuery#getResultStream()}.
+ */
+public class TestQueryResultStream
+    extends SingleEMFTestCase {
+
+    private static final int COUNT = 250;
+    private static final String QUERY =
+        "SELECT s FROM simple s ORDER BY s.name";
+
+    @Override
+    public void setUp() {
+        setUp(CLEAR_TABLES, SimpleEntity.class, Entity4.class, Entity5.class,
+            Entity6.class, Entity7.class,
+            "openjpa.Compatibility", "CopyOnDetach=false",
+            "openjpa.jdbc.ConnectionDecorators",
+            FetchSizeDecorator.class.getName());
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < COUNT; i++)
+            em.persist(new SimpleEntity(String.format("name%03d", i), "v" + i));
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testStreamReadsAllResultsInOrder() {
+        EntityManager em = emf.createEntityManager();
+        TypedQuery<SimpleEntity> q = em.createQuery(QUERY, SimpleEntity.class);
+        List<String> names;
+        try (Stream<SimpleEntity> stream = q.getResultStream()) {
+            names = stream.map(SimpleEntity::getName)
+                .collect(Collectors.toList());
+        }
+        assertEquals(COUNT, names.size());
+        for (int i = 0; i < COUNT; i++)
+            assertEquals(String.format("name%03d", i), names.get(i));
+
+        // the query is still usable for eager results afterwards
+        assertEquals(COUNT, q.getResultList().size());
+        em.close();
+    }
+
+    public void testFetchBatchSizeIsHonored() {
+        assertEquals(Collections.singletonList(20), streamFetchSizes(20));
+        // a batch size of 0 leaves the fetch size to the driver
+        assertEquals(Collections.emptyList(), streamFetchSizes(0));
+        // reading all results at once would defeat streaming
+        assertEquals(Collections.singletonList(100), streamFetchSizes(-1));
+    }
+
+    /**
+     * Stream the query with the given fetch batch size and return the JDBC
+     * fetch sizes set on its statement.
+     */
+    private List<Integer> streamFetchSizes(int batch) {
+        EntityManager em = emf.createEntityManager();
+        OpenJPAQuery<SimpleEntity> q = OpenJPAPersistence.cast(
+            em.createQuery(QUERY, SimpleEntity.class));
+        q.getFetchPlan().setFetchBatchSize(batch);
+        FetchSizeDecorator.FETCH_SIZES.clear();
+        try (Stream<SimpleEntity> stream = q.getResultStream()) {
+            assertEquals(COUNT, stream.count());
+        }
+        assertEquals(batch, q.getFetchPlan().getFetchBatchSize());
+        em.close();
+        return new ArrayList<>(FetchSizeDecorator.FETCH_SIZES);
+    }
+
+    public void testConsumedResultsAreDetached() {
+        EntityManager em = emf.createEntityManager();
+        List<SimpleEntity> seen = new ArrayList<>();
+        Iterator<SimpleEntity> itr = em.createQuery(QUERY, SimpleEntity.class)
+            .getResultStream().iterator();
+        while (itr.hasNext()) {
+            SimpleEntity e = itr.next();
+            assertTrue(em.contains(e));
+            seen.add(e);
+            if (seen.size() > 1)
+                assertFalse(em.contains(seen.get(seen.size() - 2)));
+        }
+        assertEquals(COUNT, seen.size());
+        for (SimpleEntity e : seen)
+            assertFalse(em.contains(e));
+        em.close();
+    }
+
+    public void testDetachCanBeDisabled() {
+        EntityManager em = emf.createEntityManager();
+        List<SimpleEntity> results;
+        try (Stream<SimpleEntity> stream = em.createQuery(QUERY,
+            SimpleEntity.class)
+            .setHint(QueryHints.HINT_DETACH_STREAMED_RESULTS, false)
+            .getResultStream()) {
+            results = stream.collect(Collectors.toList());
+        }
+        assertEquals(COUNT, results.size());
+        for (SimpleEntity e : results)
+            assertTrue(em.contains(e));
+        em.close();
+    }
+
+    public void testModifiedResultsStayManaged() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<SimpleEntity> results = new ArrayList<>();
+        try (Stream<SimpleEntity> stream = em.createQuery(QUERY,
+            SimpleEntity.class).getResultStream()) {
+            stream.limit(10).forEach(e -> {
+                if (results.size() % 2 == 0)
+                    e.setValue("changed");
+                results.add(e);
+            });
+        }
+        for (int i = 0; i < results.size() - 1; i++)
+            assertEquals(i % 2 == 0, em.contains(results.get(i)));
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(5L, em.createQuery("SELECT COUNT(s) FROM simple s "
+            + "WHERE s.value = 'changed'").getSingleResult());
+        em.close();
+    }
+
+    public void testModifiedRelationsStayManaged() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 3; i++) {
+            Entity4 e4 = new Entity4(i, "e4-" + i);
+            e4.setE5(new Entity5(i, "e5-" + i));
+            em.persist(e4);
+            em.persist(e4.getE5());
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        // detaching a result cascades to its Entity5, which must not take
+        // the change to the first one out of the transaction
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Entity4> results = new ArrayList<>();
+        try (Stream<Entity4> stream = em.createQuery(
+            "SELECT e FROM Entity4 e ORDER BY e.id", Entity4.class)
+            .getResultStream()) {
+            stream.forEach(e -> {
+                if (results.isEmpty())
+                    e.getE5().setName("changed");
+                results.add(e);
+            });
+        }
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertFalse(em.contains(results.get(i)));
+            assertEquals(i == 0, em.contains(results.get(i).getE5()));
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals("changed", em.find(Entity5.class, 0L).getName());
+        em.close();
+    }
+
+    public void testStreamOfProjections() {
+        EntityManager em = emf.createEntityManager();
+        try (Stream<Object[]> stream = em.createQuery(
+            "SELECT s.name, s.value FROM simple s ORDER BY s.name",
+            Object[].class).getResultStream()) {
+            assertEquals(COUNT, stream.filter(r -> r[1] != null).count());
+        }
+        em.close();
+    }
+
+    /**
+     * Records the fetch sizes set on prepared statements.
+     */
+    public static class FetchSizeDecorator implements ConnectionDecorator {
+        static final List<Integer> FETCH_SIZES =
+            Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public Connection decorate(Connection conn) {
+            return new DelegatingConnection(conn) {
+                @Override
+                protected PreparedStatement prepareStatement(String sql,
+                    boolean wrap) throws SQLException {
+                    return new DelegatingPreparedStatement(
+                        super.prepareStatement(sql, wrap), this) {
+                        @Override
+                        public void setFetchSize(int size) throws SQLException {
+                            FETCH_SIZES.add(size);
+                            super.setFetchSize(size);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
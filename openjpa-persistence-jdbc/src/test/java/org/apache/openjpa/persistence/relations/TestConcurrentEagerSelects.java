@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.persistence.relations;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.lib.jdbc.AbstractJDBCListener;
+import org.apache.openjpa.lib.jdbc.JDBCEvent;
+import org.apache.openjpa.lib.jdbc.JDBCListener;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that the parallel eager selects of a query are executed on their own
+ * connections when an eager fetch parallelism is configured.
+ */
+public class TestConcurrentEagerSelects
+    extends SingleEMFTestCase {
+
+    private final List<Execution> _executions =
+        Collections.synchronizedList(new ArrayList<Execution>());
+
+    @Override
+    public void setUp() {
+        setUp(CLEAR_TABLES, OneManyEagerParent.class, OneManyEagerChild.class,
+            OneManyLazyChild.class,
+            "openjpa.jdbc.EagerFetchMode", "parallel",
+            "openjpa.jdbc.EagerFetchParallelism", "4",
+            "openjpa.jdbc.JDBCListeners",
+            new JDBCListener[] { new Listener() });
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int j = 0; j < 3; j++) {
+            OneManyEagerParent parent = new OneManyEagerParent();
+            parent.setName("parent" + j);
+            for (int i = 0; i < 2; i++) {
+                OneManyEagerChild child = new OneManyEagerChild();
+                child.setName("eagerchild" + i);
+                parent.addEagerChild(child);
+                em.persist(child);
+                OneManyLazyChild lazychild = new OneManyLazyChild();
+                lazychild.setName("lazychild" + i);
+                parent.addLazyChild(lazychild);
+                em.persist(lazychild);
+            }
+            em.persist(parent);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testSelectsUseOwnConnectionsOutsideTransaction() {
+        assertEquals(4, getConfiguration().getEagerFetchParallelism());
+        EntityManager em = emf.createEntityManager();
+        _executions.clear();
+        List<OneManyEagerParent> parents = em.createQuery(
+            "select p from OneManyEagerParent p order by p.name",
+            OneManyEagerParent.class).getResultList();
+        assertParents(parents);
+
+        Connection parentConn = getConnection("FROM OneManyEagerParent t0 ");
+        Connection eagerConn = getConnection("JOIN OneManyEagerChild ");
+        Connection lazyConn = getConnection("JOIN OneManyLazyChild ");
+        assertNotSame(parentConn, eagerConn);
+        assertNotSame(parentConn, lazyConn);
+        assertNotSame(eagerConn, lazyConn);
+
+        // the children were stitched into their parents
+        _executions.clear();
+        assertParents(parents);
+        assertTrue(_executions.isEmpty());
+        em.close();
+    }
+
+    public void testSelectsUseContextConnectionInTransaction() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        _executions.clear();
+        List<OneManyEagerParent> parents = em.createQuery(
+            "select p from OneManyEagerParent p order by p.name",
+            OneManyEagerParent.class).getResultList();
+        assertParents(parents);
+
+        Connection parentConn = getConnection("FROM OneManyEagerParent t0 ");
+        assertSame(parentConn, getConnection("JOIN OneManyEagerChild "));
+        assertSame(parentConn, getConnection("JOIN OneManyLazyChild "));
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    private JDBCConfiguration getConfiguration() {
+        return (JDBCConfiguration) emf.getConfiguration();
+    }
+
+    private void assertParents(List<OneManyEagerParent> parents) {
+        assertEquals(3, parents.size());
+        for (int j = 0; j < parents.size(); j++) {
+            OneManyEagerParent parent = parents.get(j);
+            assertEquals("parent" + j, parent.getName());
+            assertEquals(2, parent.getEagerChildren().size());
+            assertEquals(2, parent.getLazyChildren().size());
+            for (OneManyEagerChild child : parent.getEagerChildren())
+                assertSame(parent, child.getParent());
+        }
+    }
+
+    /**
+     * Return the connection of the single select with the given fragment.
+     * The select of the parents has no joins.
+     */
+    private Connection getConnection(String fragment) {
+        boolean join = fragment.startsWith("JOIN");
+        Connection conn = null;
+        synchronized (_executions) {
+            for (Execution exec : _executions) {
+                if (exec.sql.startsWith("SELECT")
+                    && exec.sql.contains(fragment)
+                    && (join || !exec.sql.contains(" JOIN "))) {
+                    assertNull(exec.sql, conn);
+                    conn = exec.conn;
+                }
+            }
+        }
+        assertNotNull(fragment, conn);
+        return conn;
+    }
+
+    private static class Execution {
+        final String sql;
+        final Connection conn;
+
+        Execution(String sql, Connection conn) {
+            this.sql = sql;
+            this.conn = conn;
+        }
+    }
+
+    public class Listener
+        extends AbstractJDBCListener {
+
+        @Override
+        public void beforeExecuteStatement(JDBCEvent event) {
+            if (event.getSQL() != null)
+                _executions.add(new Execution(event.getSQL(),
+                    event.getConnection()));
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.Query;
@@ -125,6 +126,16 @@ public interface OpenJPAQuery<X> extends TypedQuery<X> {
      */
     @Override int getMaxResults();
 
+    /**
+     * Stream the query results from a forward-only cursor without retaining
+     * them. Instances the stream has moved past are detached unless the
+     * {@link QueryHints#HINT_DETACH_STREAMED_RESULTS} hint is false.
+     * Close the stream to release the cursor before it is exhausted.
+     *
+     * @since 3.1.3
+     */
+    @Override Stream<X> getResultStream();
+
     /**
      * Compile the query.
      */
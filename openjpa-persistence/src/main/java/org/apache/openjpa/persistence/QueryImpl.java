@@ -23,10 +23,15 @@ import static org.apache.openjpa.kernel.QueryLanguages.LANG_PREPARED_SQL;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
@@ -42,6 +47,8 @@ import org.apache.openjpa.kernel.DelegatingQuery;
 import org.apache.openjpa.kernel.DelegatingResultList;
 import org.apache.openjpa.kernel.DistinctResultList;
 import org.apache.openjpa.kernel.FetchConfiguration;
+import org.apache.openjpa.kernel.OpCallbacks;
+import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.PreparedQuery;
 import org.apache.openjpa.kernel.PreparedQueryCache;
 import org.apache.openjpa.kernel.QueryHints;
@@ -71,6 +78,12 @@ import org.apache.openjpa.util.UserException;
 public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final Localizer _loc = Localizer.forPackage(QueryImpl.class);
+
+    /**
+     * Batch size used to stream a query whose fetch batch size asks for all
+     * results to be read at once.
+     */
+    private static final int STREAM_FETCH_BATCH_SIZE = 100;
 	private transient FetchPlan _fetch;
 
 	private String _id;
@@ -331,6 +344,62 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
 		}
 	}
 
+    /**
+     * Stream the results of the query from a forward-only cursor. The results
+     * are not retained by the query and, unless the
+     * {@link QueryHints#HINT_DETACH_STREAMED_RESULTS} hint is false, the
+     * instances the stream has moved past are detached from the persistence
+     * context, so that scanning a very large result keeps a constant memory
+     * footprint. Close the stream to release the underlying cursor early.
+     *
+     * @since 3.1.3
+     */
+    @Override
+    public Stream<X> getResultStream() {
+        _em.assertNotCloseInvoked();
+        boolean queryFetchPlanUsed = pushQueryFetchPlan();
+        FetchConfiguration fetch = _query.getFetchConfiguration();
+        int batch = fetch.getFetchBatchSize();
+        try {
+            // a batch size of -1 reads all results on execution; any other
+            // size makes the kernel treat an unbounded result as large, and a
+            // batch size of 0 leaves the fetch size to the driver
+            if (batch < 0)
+                fetch.setFetchBatchSize(STREAM_FETCH_BATCH_SIZE);
+            fetch.setHint(QueryHints.HINT_RESULT_STREAM, Boolean.TRUE);
+            Object ob = execute();
+            if (!(ob instanceof List))
+                return Stream.of((X) ob);
+            if (!(ob instanceof ResultList))
+                return ((List<X>) ob).stream();
+
+            ResultList<X> res = new DelegatingResultList<>((ResultList<X>) ob,
+                PersistenceExceptions.getRollbackTranslator(_em));
+            Iterator<X> itr = res.iterator();
+            if (isDetachStreamedResults(fetch))
+                itr = new DetachingIterator<>(itr, _em);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(itr,
+                Spliterator.ORDERED), false).onClose(res::close);
+        } finally {
+            fetch.setHint(QueryHints.HINT_RESULT_STREAM, null);
+            fetch.setFetchBatchSize(batch);
+            popQueryFetchPlan(queryFetchPlanUsed);
+        }
+    }
+
+    /**
+     * Whether streamed results should be detached. Detaching copies would
+     * leave the streamed instances managed, so it is skipped when the
+     * compatibility options ask for detached copies.
+     */
+    private boolean isDetachStreamedResults(FetchConfiguration fetch) {
+        Object hint = fetch.getHint(QueryHints.HINT_DETACH_STREAMED_RESULTS);
+        if (hint != null && !Boolean.valueOf(hint.toString()))
+            return false;
+        return !_em.getConfiguration().getCompatibilityInstance()
+            .getCopyOnDetach();
+    }
+
 	/**
 	 * Execute a query that returns a single result.
 	 */
@@ -688,4 +757,61 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
         String result = _query.getQueryString();
         return result != null ? result : _id;
     }
+
+    /**
+     * Iterator over streamed results that detaches each instance once the
+     * iteration has moved past it. Dirty and new instances are left managed
+     * so that their changes can still be flushed, whether they are streamed
+     * results themselves or are reached by cascading the detach.
+     */
+    private static class DetachingIterator<T>
+        implements Iterator<T>, OpCallbacks {
+
+        private final Iterator<T> _itr;
+        private final EntityManagerImpl _em;
+        private T _prev;
+
+        DetachingIterator(Iterator<T> itr, EntityManagerImpl em) {
+            _itr = itr;
+            _em = em;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean next = _itr.hasNext();
+            if (!next)
+                detachPrevious();
+            return next;
+        }
+
+        @Override
+        public T next() {
+            detachPrevious();
+            _prev = _itr.next();
+            return _prev;
+        }
+
+        private void detachPrevious() {
+            if (_prev instanceof Object[]) {
+                for (Object o : (Object[]) _prev)
+                    detach(o);
+            } else if (_prev != null) {
+                detach(_prev);
+            }
+            _prev = null;
+        }
+
+        private void detach(Object o) {
+            Broker broker = _em.getBroker();
+            if (o != null && !broker.isClosed() && broker.isPersistent(o))
+                broker.detach(o, this);
+        }
+
+        @Override
+        public int processArgument(int op, Object arg, OpenJPAStateManager sm) {
+            if (sm != null && (sm.isDirty() || sm.isNew()))
+                return ACT_NONE;
+            return _em.processArgument(op, arg, sm);
+        }
+    }
 }
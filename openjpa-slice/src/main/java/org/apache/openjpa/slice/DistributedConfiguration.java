@@ -19,6 +19,7 @@
 package org.apache.openjpa.slice;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 
@@ -176,4 +177,44 @@ public interface DistributedConfiguration extends OpenJPAConfiguration {
      */
     void setFinderTargetPolicy(String policy);
 
+    /**
+     * Gets the pool that executes database operations, such as query or
+     * flush, on individual slices.
+     *
+     * @since 3.1.3
+     */
+    ExecutorService getThreadingPolicyInstance();
+
+    /**
+     * Gets the pool, as a plugin string, that executes database operations
+     * on individual slices.
+     *
+     * @since 3.1.3
+     */
+    String getThreadingPolicy();
+
+    /**
+     * Sets the pool, from the given plugin string, that executes database
+     * operations on individual slices.
+     *
+     * @since 3.1.3
+     */
+    void setThreadingPolicy(String policy);
+
+    /**
+     * Gets the maximum number of database operations of a single broker
+     * that are executed on the slices at the same time. A non-positive
+     * value means no limit.
+     *
+     * @since 3.1.3
+     */
+    int getMaxConcurrency();
+
+    /**
+     * Sets the maximum number of database operations of a single broker
+     * that are executed on the slices at the same time.
+     *
+     * @since 3.1.3
+     */
+    void setMaxConcurrency(int max);
 }
@@ -42,6 +42,7 @@ public class Slice implements Comparable<Slice>,Serializable {
     private final String name;
     private transient final OpenJPAConfiguration conf;
     private transient Status status;
+    private transient SliceStatistics statistics;
 
     /**
      * Supply the logical name and configuration.
@@ -50,6 +51,7 @@ public class Slice implements Comparable<Slice>,Serializable {
         this.name = name;
         this.conf = conf;
         this.status = Status.NOT_INITIALIZED;
+        this.statistics = new SliceStatistics();
     }
 
     /**
@@ -71,6 +73,18 @@ public class Slice implements Comparable<Slice>,Serializable {
         this.status = status;
     }
 
+    /**
+     * Gets the latency statistics of the operations executed on this slice.
+     * A deserialized slice starts new statistics.
+     *
+     * @since 3.1.3
+     */
+    public SliceStatistics getStatistics() {
+        if (statistics == null)
+            statistics = new SliceStatistics();
+        return statistics;
+    }
+
     public boolean isActive() {
         return status == Status.ACTIVE;
     }
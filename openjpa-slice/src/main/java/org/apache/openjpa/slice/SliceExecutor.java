@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.slice;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executes database operations on individual slices in the thread pool
+ * configured by <code>openjpa.slice.ThreadingPolicy</code>.
+ * Each store manager owns an executor, so the number of operations of a
+ * single broker that run at the same time can be bounded by
+ * <code>openjpa.slice.MaxConcurrency</code>. The latency of every operation
+ * is recorded in the {@link SliceStatistics} of its slice.
+ *
+ * @since 3.1.3
+ */
+public class SliceExecutor {
+    private final ExecutorService _pool;
+    private final Semaphore _permits;
+
+    /**
+     * Supply the shared pool and the maximum number of operations to run
+     * at the same time. A non-positive maximum means no limit.
+     */
+    public SliceExecutor(ExecutorService pool, int maxConcurrency) {
+        _pool = pool;
+        _permits = (maxConcurrency > 0) ? new Semaphore(maxConcurrency) : null;
+    }
+
+    /**
+     * Submit the given operation on the given slice. Blocks while the
+     * maximum number of operations are running.
+     */
+    public <T> Future<T> submit(final Slice slice, final Callable<T> task) {
+        if (_permits != null)
+            _permits.acquireUninterruptibly();
+        final Thread parent = Thread.currentThread();
+        try {
+            return _pool.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return execute(slice, task, parent);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (_permits != null)
+                _permits.release();
+            throw e;
+        }
+    }
+
+    private <T> T execute(Slice slice, Callable<T> task, Thread parent)
+        throws Exception {
+        SliceThread.enter(parent);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = task.call();
+            failed = false;
+            return result;
+        } finally {
+            slice.getStatistics().record(System.nanoTime() - start, failed);
+            SliceThread.exit();
+            if (_permits != null)
+                _permits.release();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.slice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency statistics of the database operations, such as query, flush or
+ * extent scan, executed on a single slice. Comparing the statistics of the
+ * slices reveals a slow slice, which bounds the latency of every operation
+ * that spans all the slices.
+ *
+ * @since 3.1.3
+ */
+public class SliceStatistics {
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _nanos = new LongAdder();
+    private final AtomicLong _maxNanos = new AtomicLong();
+    private volatile long _lastNanos;
+
+    /**
+     * Record an operation that took the given nanoseconds.
+     */
+    public void record(long nanos, boolean failed) {
+        _count.increment();
+        if (failed)
+            _failures.increment();
+        _nanos.add(nanos);
+        _lastNanos = nanos;
+        long max;
+        while (nanos > (max = _maxNanos.get())
+            && !_maxNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Number of operations executed on the slice.
+     */
+    public long getExecutionCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Number of operations that failed with an exception.
+     */
+    public long getFailureCount() {
+        return _failures.sum();
+    }
+
+    /**
+     * Total time spent in operations on the slice.
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(_nanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Average time of an operation on the slice, or 0 if there was none.
+     */
+    public long getAverageTime(TimeUnit unit) {
+        long count = _count.sum();
+        return (count == 0) ? 0
+            : unit.convert(_nanos.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time of the slowest operation on the slice.
+     */
+    public long getMaxTime(TimeUnit unit) {
+        return unit.convert(_maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time of the latest operation on the slice.
+     */
+    public long getLastTime(TimeUnit unit) {
+        return unit.convert(_lastNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void reset() {
+        _count.reset();
+        _failures.reset();
+        _nanos.reset();
+        _maxNanos.set(0);
+        _lastNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "executions=" + getExecutionCount()
+            + " failures=" + getFailureCount()
+            + " avg(ms)=" + getAverageTime(TimeUnit.MILLISECONDS)
+            + " max(ms)=" + getMaxTime(TimeUnit.MILLISECONDS);
+    }
+}
@@ -18,9 +18,17 @@
  */
 package org.apache.openjpa.slice;
 
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A thread to execute operation against each database slice.
@@ -31,6 +39,7 @@ import java.util.concurrent.ThreadFactory;
 public class SliceThread extends Thread {
     private final Thread _parent;
     private static ExecutorService _pool;
+    private static final ThreadLocal<Thread> _task = new ThreadLocal<>();
 
     public SliceThread(String name, Thread parent, Runnable r) {
         super(r, name);
@@ -50,13 +59,35 @@ public class SliceThread extends Thread {
         return _parent;
     }
 
+    /**
+     * Affirms if the current thread executes an operation on behalf of a
+     * parent thread, either as a <em>slice</em> thread or as a thread of
+     * any other pool running a task submitted by {@link SliceExecutor}.
+     *
+     * @since 3.1.3
+     */
+    public static boolean isSliceThread() {
+        return Thread.currentThread() instanceof SliceThread
+            || _task.get() != null;
+    }
+
+    static void enter(Thread parent) {
+        _task.set(parent);
+    }
+
+    static void exit() {
+        _task.remove();
+    }
+
     /**
      * Create a cached pool of <em>slice</em> threads.
      * The thread factory creates specialized threads for preferential locking treatment.
      *
+     * @deprecated use the pool configured by
+     * <code>openjpa.slice.ThreadingPolicy</code>
      */
-
-    public static ExecutorService getPool() {
+    @Deprecated
+    public static synchronized ExecutorService getPool() {
         if (_pool == null) {
             _pool = Executors.newCachedThreadPool(new SliceThreadFactory());
         }
@@ -64,11 +95,125 @@ public class SliceThread extends Thread {
     }
 
     private static class SliceThreadFactory implements ThreadFactory {
-        int n = 0;
+        private final AtomicInteger n = new AtomicInteger();
         @Override
         public Thread newThread(Runnable r) {
             Thread parent = Thread.currentThread();
-            return new SliceThread(parent.getName()+"-slice-"+n++, parent, r);
+            return new SliceThread(parent.getName() + "-slice-"
+                + n.getAndIncrement(), parent, r);
+        }
+    }
+
+    /**
+     * A pool that creates new <em>slice</em> threads as needed and reuses
+     * idle ones. Registered as the <code>cached</code> threading policy.
+     *
+     * @since 3.1.3
+     */
+    public static class CachedPool extends ThreadPoolExecutor {
+
+        public CachedPool() {
+            super(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new SliceThreadFactory());
+        }
+    }
+
+    /**
+     * A pool of a bounded number of <em>slice</em> threads. Registered as
+     * the <code>fixed</code> threading policy; both pool sizes default to
+     * 10 and idle threads above the core size are kept for 60 seconds.
+     *
+     * @since 3.1.3
+     */
+    public static class FixedPool extends ThreadPoolExecutor {
+
+        public FixedPool() {
+            super(10, 10, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new SliceThreadFactory());
+        }
+
+        @Override
+        public void setCorePoolSize(int size) {
+            if (size > getMaximumPoolSize())
+                super.setMaximumPoolSize(size);
+            super.setCorePoolSize(size);
+        }
+
+        @Override
+        public void setMaximumPoolSize(int size) {
+            if (size < getCorePoolSize())
+                super.setCorePoolSize(size);
+            super.setMaximumPoolSize(size);
+        }
+
+        /**
+         * Time in seconds an idle thread above the core size is kept.
+         */
+        public void setKeepAliveTime(long seconds) {
+            setKeepAliveTime(seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A pool that runs every task in a new virtual thread. Registered as
+     * the <code>virtual</code> threading policy. Virtual threads need a
+     * Java 21 runtime; on an older runtime the pool behaves as the
+     * {@link CachedPool}.
+     *
+     * @since 3.1.3
+     */
+    public static class VirtualPool extends AbstractExecutorService {
+        private final ExecutorService _delegate;
+
+        public VirtualPool() {
+            ExecutorService delegate;
+            try {
+                Method m = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+                delegate = (ExecutorService) m.invoke(null);
+            } catch (Exception e) {
+                delegate = new CachedPool();
+            }
+            _delegate = delegate;
+        }
+
+        /**
+         * Affirms if tasks run in virtual threads.
+         */
+        public boolean isVirtual() {
+            return !(_delegate instanceof CachedPool);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            _delegate.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            _delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return _delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return _delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return _delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            return _delegate.awaitTermination(timeout, unit);
         }
     }
 }
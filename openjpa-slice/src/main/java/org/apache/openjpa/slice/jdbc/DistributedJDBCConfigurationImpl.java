@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.sql.DataSource;
 import javax.sql.XADataSource;
@@ -40,6 +41,7 @@ import org.apache.openjpa.jdbc.conf.JDBCConfigurationImpl;
 import org.apache.openjpa.jdbc.schema.DataSourceFactory;
 import org.apache.openjpa.lib.conf.BooleanValue;
 import org.apache.openjpa.lib.conf.ConfigurationProvider;
+import org.apache.openjpa.lib.conf.IntValue;
 import org.apache.openjpa.lib.conf.PluginValue;
 import org.apache.openjpa.lib.conf.StringListValue;
 import org.apache.openjpa.lib.conf.StringValue;
@@ -58,6 +60,7 @@ import org.apache.openjpa.slice.ProductDerivation;
 import org.apache.openjpa.slice.QueryTargetPolicy;
 import org.apache.openjpa.slice.ReplicationPolicy;
 import org.apache.openjpa.slice.Slice;
+import org.apache.openjpa.slice.SliceThread;
 import org.apache.openjpa.util.UserException;
 
 /**
@@ -84,6 +87,8 @@ public class DistributedJDBCConfigurationImpl extends JDBCConfigurationImpl
     public PluginValue queryTargetPolicyPlugin;
     public PluginValue finderTargetPolicyPlugin;
     public StringListValue replicatedTypesPlugin;
+    public PluginValue threadingPolicyPlugin;
+    public IntValue maxConcurrencyPlugin;
 
     private ReplicatedTypeRepository _replicationRepos;
 
@@ -125,6 +130,17 @@ public class DistributedJDBCConfigurationImpl extends JDBCConfigurationImpl
         lenientPlugin = addBoolean(PREFIX_SLICE + "Lenient");
         lenientPlugin.setDefault("true");
 
+        threadingPolicyPlugin = addPlugin(PREFIX_SLICE + "ThreadingPolicy", true);
+        threadingPolicyPlugin.setAlias("cached", SliceThread.CachedPool.class.getName());
+        threadingPolicyPlugin.setAlias("fixed", SliceThread.FixedPool.class.getName());
+        threadingPolicyPlugin.setAlias("virtual", SliceThread.VirtualPool.class.getName());
+        threadingPolicyPlugin.setDefault("cached");
+        threadingPolicyPlugin.setString("cached");
+
+        maxConcurrencyPlugin = addInt(PREFIX_SLICE + "MaxConcurrency");
+        maxConcurrencyPlugin.setDefault("0");
+        maxConcurrencyPlugin.set(0);
+
         masterPlugin  = addString(PREFIX_SLICE + "Master");
         namesPlugin   = addStringList(PREFIX_SLICE + "Names");
     }
@@ -344,6 +360,46 @@ public class DistributedJDBCConfigurationImpl extends JDBCConfigurationImpl
         lenientPlugin.set(lenient);
     }
 
+    @Override
+    public synchronized ExecutorService getThreadingPolicyInstance() {
+        if (threadingPolicyPlugin.get() == null) {
+            threadingPolicyPlugin.instantiate(ExecutorService.class, this,
+                true);
+        }
+        return (ExecutorService) threadingPolicyPlugin.get();
+    }
+
+    @Override
+    public String getThreadingPolicy() {
+        return threadingPolicyPlugin.getString();
+    }
+
+    @Override
+    public void setThreadingPolicy(String policy) {
+        threadingPolicyPlugin.setString(policy);
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrencyPlugin.get();
+    }
+
+    @Override
+    public void setMaxConcurrency(int max) {
+        maxConcurrencyPlugin.set(max);
+    }
+
+    /**
+     * Shuts down the pool of slice threads.
+     */
+    @Override
+    protected void preClose() {
+        ExecutorService pool = (ExecutorService) threadingPolicyPlugin.get();
+        if (pool != null)
+            pool.shutdown();
+        super.preClose();
+    }
+
     public void setMaster(String master) {
         masterPlugin.set(master);
     }
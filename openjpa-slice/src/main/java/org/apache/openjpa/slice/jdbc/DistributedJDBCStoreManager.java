@@ -29,7 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.apache.openjpa.enhance.PersistenceCapable;
@@ -56,10 +55,10 @@ import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.slice.DistributedConfiguration;
 import org.apache.openjpa.slice.DistributedStoreManager;
 import org.apache.openjpa.slice.Slice;
+import org.apache.openjpa.slice.SliceExecutor;
 import org.apache.openjpa.slice.SliceImplHelper;
 import org.apache.openjpa.slice.SliceInfo;
 import org.apache.openjpa.slice.SlicePersistence;
-import org.apache.openjpa.slice.SliceThread;
 import org.apache.openjpa.util.InternalException;
 import org.apache.openjpa.util.StoreException;
 
@@ -78,6 +77,7 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
     private final List<SliceStoreManager> _slices;
     private JDBCStoreManager _master;
     private final DistributedJDBCConfiguration _conf;
+    private SliceExecutor _executor;
     private static final Localizer _loc = Localizer.forPackage(DistributedJDBCStoreManager.class);
 
     /**
@@ -108,6 +108,17 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
         return _conf;
     }
 
+    /**
+     * Gets the executor of the database operations on individual slices.
+     */
+    public SliceExecutor getExecutor() {
+        if (_executor == null) {
+            _executor = new SliceExecutor(_conf.getThreadingPolicyInstance(),
+                _conf.getMaxConcurrency());
+        }
+        return _executor;
+    }
+
     public SliceStoreManager getSlice(int i) {
     	return _slices.get(i);
     }
@@ -235,11 +246,42 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
     @Override
     public ResultObjectProvider executeExtent(ClassMetaData meta,
             boolean subclasses, FetchConfiguration fetch) {
-        int i = 0;
         List<SliceStoreManager> targets = getTargets(fetch);
         ResultObjectProvider[] tmp = new ResultObjectProvider[targets.size()];
+        if (tmp.length == 1) {
+            tmp[0] = targets.get(0).executeExtent(meta, subclasses, fetch);
+            return new MergedResultObjectProvider(tmp);
+        }
+
+        // open the extents of all the slices in parallel
+        List<Future<ResultObjectProvider>> futures = new ArrayList<>();
+        SliceExecutor threadPool = getExecutor();
         for (SliceStoreManager slice : targets) {
-            tmp[i++] = slice.executeExtent(meta, subclasses, fetch);
+            futures.add(threadPool.submit(slice.getSlice(),
+                new ExtentOpener(slice.executeExtent(meta, subclasses,
+                    fetch))));
+        }
+        StoreException err = null;
+        for (int i = 0; i < tmp.length; i++) {
+            try {
+                tmp[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                if (err == null)
+                    err = new StoreException(e);
+            } catch (ExecutionException e) {
+                if (err == null)
+                    err = new StoreException(e.getCause());
+            }
+        }
+        if (err != null) {
+            for (ResultObjectProvider rop : tmp) {
+                try {
+                    if (rop != null)
+                        rop.close();
+                } catch (Exception e) {
+                }
+            }
+            throw err;
         }
         return new MergedResultObjectProvider(tmp);
     }
@@ -270,7 +312,7 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
         Map<String, StateManagerSet> subsets = bin(sms, null);
         Collection<StateManagerSet> remaining =
             new ArrayList<>(subsets.values());
-        ExecutorService threadPool = SliceThread.getPool();
+        SliceExecutor threadPool = getExecutor();
         for (int i = 0; i < _slices.size(); i++) {
             SliceStoreManager slice = _slices.get(i);
             StateManagerSet subset = subsets.get(slice.getName());
@@ -283,7 +325,8 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
                 remaining.remove(subset);
             	rollbackVersion(subset.getReplicated(), oldVersions, remaining);
             } else {
-            	futures.add(threadPool.submit(new Flusher(slice, subset)));
+            	futures.add(threadPool.submit(slice.getSlice(),
+            	    new Flusher(slice, subset)));
             }
         }
         for (Future<Collection> future : futures) {
@@ -562,6 +605,81 @@ class DistributedJDBCStoreManager extends JDBCStoreManager
         }
     }
 
+    /**
+     * Opens the extent of a slice and returns it as an already opened
+     * result.
+     */
+    private static class ExtentOpener
+        implements Callable<ResultObjectProvider> {
+        final ResultObjectProvider rop;
+
+        ExtentOpener(ResultObjectProvider rop) {
+            this.rop = rop;
+        }
+
+        @Override
+        public ResultObjectProvider call() throws Exception {
+            rop.open();
+            return new OpenedResultObjectProvider(rop);
+        }
+    }
+
+    /**
+     * A result whose delegate has already been opened.
+     */
+    private static class OpenedResultObjectProvider
+        implements ResultObjectProvider {
+        private final ResultObjectProvider _rop;
+
+        OpenedResultObjectProvider(ResultObjectProvider rop) {
+            _rop = rop;
+        }
+
+        @Override
+        public boolean supportsRandomAccess() {
+            return _rop.supportsRandomAccess();
+        }
+
+        @Override
+        public void open() throws Exception {
+        }
+
+        @Override
+        public Object getResultObject() throws Exception {
+            return _rop.getResultObject();
+        }
+
+        @Override
+        public boolean next() throws Exception {
+            return _rop.next();
+        }
+
+        @Override
+        public boolean absolute(int pos) throws Exception {
+            return _rop.absolute(pos);
+        }
+
+        @Override
+        public int size() throws Exception {
+            return _rop.size();
+        }
+
+        @Override
+        public void reset() throws Exception {
+            _rop.reset();
+        }
+
+        @Override
+        public void close() throws Exception {
+            _rop.close();
+        }
+
+        @Override
+        public void handleCheckedException(Exception e) {
+            _rop.handleCheckedException(e);
+        }
+    }
+
     /**
      * A specialized, insert-only collection of StateManagers that notes
      * if any of its member is replicated.
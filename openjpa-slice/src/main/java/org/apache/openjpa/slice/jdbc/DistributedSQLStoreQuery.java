@@ -23,7 +23,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.apache.openjpa.jdbc.kernel.JDBCStore;
@@ -31,14 +30,13 @@ import org.apache.openjpa.jdbc.kernel.SQLStoreQuery;
 import org.apache.openjpa.kernel.FetchConfiguration;
 import org.apache.openjpa.kernel.OrderingMergedResultObjectProvider;
 import org.apache.openjpa.kernel.QueryContext;
-import org.apache.openjpa.kernel.StoreManager;
 import org.apache.openjpa.kernel.StoreQuery;
 import org.apache.openjpa.lib.rop.MergedResultObjectProvider;
 import org.apache.openjpa.lib.rop.RangeResultObjectProvider;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.slice.DistributedConfiguration;
-import org.apache.openjpa.slice.SliceThread;
+import org.apache.openjpa.slice.SliceExecutor;
 import org.apache.openjpa.util.StoreException;
 
 /**
@@ -116,13 +114,14 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
 			List<SliceStoreManager> targets = findTargets();
 			QueryContext ctx = q.getContext();
 			boolean isReplicated = containsReplicated(ctx);
-            ExecutorService threadPool = SliceThread.getPool();
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
+            Range sliceRange = DistributedStoreQuery.getSliceRange(ctx, range);
 			for (int i = 0; i < owner._queries.size(); i++) {
                 // if replicated, then execute only on single slice
 				if (isReplicated && !usedExecutors.isEmpty()) {
 					break;
 				}
-                StoreManager sm = owner.getDistributedStore().getSlice(i);
+                SliceStoreManager sm = owner.getDistributedStore().getSlice(i);
 				if (!targets.contains(sm))
 					continue;
 				StoreQuery query = owner._queries.get(i);
@@ -134,8 +133,8 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
                 call.executor = executor;
                 call.query = query;
                 call.params = params;
-                call.range = range;
-                futures.add(threadPool.submit(call));
+                call.range = sliceRange;
+                futures.add(threadPool.submit(sm.getSlice(), call));
 			}
 			for (Future<ResultObjectProvider> future : futures) {
 				try {
@@ -153,7 +152,7 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
 			boolean[] ascending = getAscending(q);
 			boolean isAscending = ascending.length > 0;
 			boolean isAggregate = ctx.isAggregate();
-			boolean hasRange = ctx.getEndRange() != Long.MAX_VALUE;
+			boolean hasRange = range.start != 0 || range.end != Long.MAX_VALUE;
 			if (isAggregate) {
 				result = new UniqueResultObjectProvider(tmp, q,
 						getQueryExpressions());
@@ -166,7 +165,7 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
 			}
 			if (hasRange) {
                 result = new RangeResultObjectProvider(result,
-                        ctx.getStartRange(), ctx.getEndRange());
+                        range.start, range.end);
 			}
 			return result;
 		}
@@ -195,15 +194,16 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
 			Iterator<StoreQuery> qs = owner._queries.iterator();
 			List<Future<Number>> futures = null;
 			int result = 0;
-            ExecutorService threadPool = SliceThread.getPool();
-			for (Executor ex : executors) {
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
+			for (int i = 0; i < executors.size(); i++) {
 				if (futures == null)
                     futures = new ArrayList<>();
 				DeleteExecutor call = new DeleteExecutor();
-				call.executor = ex;
+				call.executor = executors.get(i);
 				call.query = qs.next();
 				call.params = params;
-				futures.add(threadPool.submit(call));
+				futures.add(threadPool.submit(
+                    owner.getDistributedStore().getSlice(i).getSlice(), call));
 			}
 			for (Future<Number> future : futures) {
 				try {
@@ -224,15 +224,16 @@ class DistributedSQLStoreQuery extends SQLStoreQuery {
 			Iterator<StoreQuery> qs = owner._queries.iterator();
 			List<Future<Number>> futures = null;
 			int result = 0;
-            ExecutorService threadPool = SliceThread.getPool();
-			for (Executor ex : executors) {
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
+			for (int i = 0; i < executors.size(); i++) {
 				if (futures == null)
                     futures = new ArrayList<>();
 				UpdateExecutor call = new UpdateExecutor();
-				call.executor = ex;
+				call.executor = executors.get(i);
 				call.query = qs.next();
 				call.params = params;
-				futures.add(threadPool.submit(call));
+				futures.add(threadPool.submit(
+                    owner.getDistributedStore().getSlice(i).getSlice(), call));
 			}
 			for (Future<Number> future : futures) {
 				try {
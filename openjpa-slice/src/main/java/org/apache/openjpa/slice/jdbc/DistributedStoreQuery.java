@@ -23,7 +23,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.apache.openjpa.jdbc.kernel.JDBCStore;
@@ -32,7 +31,6 @@ import org.apache.openjpa.kernel.ExpressionStoreQuery;
 import org.apache.openjpa.kernel.FetchConfiguration;
 import org.apache.openjpa.kernel.OrderingMergedResultObjectProvider;
 import org.apache.openjpa.kernel.QueryContext;
-import org.apache.openjpa.kernel.StoreManager;
 import org.apache.openjpa.kernel.StoreQuery;
 import org.apache.openjpa.kernel.exps.ExpressionParser;
 import org.apache.openjpa.lib.rop.MergedResultObjectProvider;
@@ -40,7 +38,7 @@ import org.apache.openjpa.lib.rop.RangeResultObjectProvider;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.slice.DistributedConfiguration;
-import org.apache.openjpa.slice.SliceThread;
+import org.apache.openjpa.slice.SliceExecutor;
 import org.apache.openjpa.util.StoreException;
 
 /**
@@ -122,23 +120,24 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 			List<SliceStoreManager> targets = findTargets();
 			QueryContext ctx = q.getContext();
 			boolean isReplicated = containsReplicated(ctx);
-            ExecutorService threadPool = SliceThread.getPool();
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
+            Range sliceRange = getSliceRange(ctx, range);
 
 			for (int i = 0; i < owner._queries.size(); i++) {
                 // if replicated, then execute only on single slice
 				if (isReplicated && !usedExecutors.isEmpty()) {
 					break;
 				}
-                StoreManager sm = owner.getDistributedStore().getSlice(i);
+                SliceStoreManager sm = owner.getDistributedStore().getSlice(i);
 				if (!targets.contains(sm))
 					continue;
                 QueryExecutor call = new QueryExecutor();
                 call.executor = executors.get(i);
                 call.query = owner._queries.get(i);
                 call.params = params;
-                call.range = range;
+                call.range = sliceRange;
 				usedExecutors.add(call.executor);
-                futures.add(threadPool.submit(call));
+                futures.add(threadPool.submit(sm.getSlice(), call));
 			}
 			for (Future<ResultObjectProvider> future : futures) {
 				try {
@@ -155,7 +154,7 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 			boolean[] ascending = getAscending(q);
 			boolean isAscending = ascending.length > 0;
 			boolean isAggregate = ctx.isAggregate();
-			boolean hasRange = ctx.getEndRange() != Long.MAX_VALUE;
+			boolean hasRange = range.start != 0 || range.end != Long.MAX_VALUE;
 			if (isAggregate) {
 				result = new UniqueResultObjectProvider(tmp, q,	getQueryExpressions());
 			} else if (isAscending) {
@@ -166,7 +165,7 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 				result = new MergedResultObjectProvider(tmp);
 			}
 			if (hasRange) {
-                result = new RangeResultObjectProvider(result, ctx.getStartRange(), ctx.getEndRange());
+                result = new RangeResultObjectProvider(result, range.start, range.end);
 			}
 			return result;
 		}
@@ -194,10 +193,10 @@ class DistributedStoreQuery extends JDBCStoreQuery {
         public Number executeDelete(StoreQuery q, Object[] params) {
 			List<Future<Number>> futures = new ArrayList<>();
 			int result = 0;
-            ExecutorService threadPool = SliceThread.getPool();
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
 			List<SliceStoreManager> targets = findTargets();
 			for (int i = 0; i < owner._queries.size(); i++) {
-                StoreManager sm = owner.getDistributedStore().getSlice(i);
+                SliceStoreManager sm = owner.getDistributedStore().getSlice(i);
 				if (!targets.contains(sm))
 					continue;
 
@@ -205,7 +204,7 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 				call.executor = executors.get(i);
 				call.query = owner._queries.get(i);
 				call.params = params;
-				futures.add(threadPool.submit(call));
+				futures.add(threadPool.submit(sm.getSlice(), call));
 			}
 			for (Future<Number> future : futures) {
 				try {
@@ -226,15 +225,16 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 			Iterator<StoreQuery> qs = owner._queries.iterator();
 			List<Future<Number>> futures = null;
 			int result = 0;
-            ExecutorService threadPool = SliceThread.getPool();
-			for (Executor ex : executors) {
+            SliceExecutor threadPool = owner.getDistributedStore().getExecutor();
+			for (int i = 0; i < executors.size(); i++) {
 				if (futures == null)
                     futures = new ArrayList<>();
 				UpdateExecutor call = new UpdateExecutor();
-				call.executor = ex;
+				call.executor = executors.get(i);
 				call.query = qs.next();
 				call.params = params;
-				futures.add(threadPool.submit(call));
+				futures.add(threadPool.submit(
+                    owner.getDistributedStore().getSlice(i).getSlice(), call));
 			}
 			for (Future<Number> future : futures) {
 				try {
@@ -256,6 +256,21 @@ class DistributedStoreQuery extends JDBCStoreQuery {
 
 	}
 
+	/**
+	 * Return the range each slice is queried with. Any row up to the end of
+	 * the requested range may come from a single slice, so every slice
+	 * returns the rows up to that end and the range is applied to the
+	 * merged result. Aggregates and groups are computed across slices and
+	 * cannot be limited per slice.
+	 */
+	static Range getSliceRange(QueryContext ctx, Range range) {
+		Range sliceRange = new Range();
+		if (!ctx.isAggregate() && !ctx.hasGrouping())
+			sliceRange.end = range.end;
+		sliceRange.lrs = range.lrs;
+		return sliceRange;
+	}
+
 	static class QueryExecutor implements Callable<ResultObjectProvider> {
 		StoreQuery query;
 		Executor executor;
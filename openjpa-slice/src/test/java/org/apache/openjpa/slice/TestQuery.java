@@ -192,6 +192,25 @@ public class TestQuery extends SliceTestCase {
         em.getTransaction().rollback();
     }
 
+    public void testSetFirstResult() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<PObject> result =
+            em.createQuery("SELECT p FROM PObject p ORDER BY p.value DESC",
+                PObject.class).setFirstResult(5).setMaxResults(4)
+                .getResultList();
+        assertEquals(4, result.size());
+        for (int i = 0; i < result.size(); i++)
+            assertEquals(VALUE_MAX - 5 - i, result.get(i).getValue());
+
+        assertEquals(POBJECT_COUNT - 20, em.createQuery(
+            "SELECT p FROM PObject p").setFirstResult(20).getResultList()
+            .size());
+        assertEquals(3, em.createQuery("SELECT p FROM PObject p")
+            .setFirstResult(20).setMaxResults(3).getResultList().size());
+        em.getTransaction().rollback();
+    }
+
     public void testHint() {
         List<String> targets = new ArrayList<>();
         targets.add("Even");
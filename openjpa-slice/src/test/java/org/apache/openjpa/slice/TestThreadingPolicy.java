@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.slice;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Tests the configured pool and concurrency limit of slice operations and
+ * the per-slice statistics.
+ */
+public class TestThreadingPolicy extends SliceTestCase {
+
+    @Override
+    protected String getPersistenceUnitName() {
+        return "ordering";
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp(PObject.class, Person.class, Address.class, Country.class,
+            Car.class, Manufacturer.class, CLEAR_TABLES,
+            "openjpa.slice.ThreadingPolicy", "fixed(CorePoolSize=2)",
+            "openjpa.slice.MaxConcurrency", "1");
+    }
+
+    public void testConfiguredPool() {
+        DistributedConfiguration conf =
+            (DistributedConfiguration) emf.getConfiguration();
+        assertEquals(1, conf.getMaxConcurrency());
+        SliceThread.FixedPool pool =
+            (SliceThread.FixedPool) conf.getThreadingPolicyInstance();
+        assertEquals(2, pool.getCorePoolSize());
+        assertEquals(10, pool.getMaximumPoolSize());
+        assertSame(pool, conf.getThreadingPolicyInstance());
+    }
+
+    public void testStatisticsAreRecordedPerSlice() {
+        DistributedConfiguration conf =
+            (DistributedConfiguration) emf.getConfiguration();
+        EntityManager em = emf.createEntityManager();
+        // slices are activated when the first broker connects to them
+        List<Slice> slices = conf.getSlices(Slice.Status.ACTIVE);
+        assertEquals(2, slices.size());
+        for (Slice slice : slices)
+            slice.getStatistics().reset();
+
+        em.getTransaction().begin();
+        for (int i = 0; i < 10; i++) {
+            PObject pc = new PObject();
+            pc.setValue(i);
+            em.persist(pc);
+        }
+        em.getTransaction().commit();
+        assertEquals(10, em.createQuery("SELECT p FROM PObject p")
+            .getResultList().size());
+        em.close();
+
+        for (Slice slice : slices) {
+            SliceStatistics stats = slice.getStatistics();
+            assertTrue(stats.getExecutionCount() >= 2);
+            assertEquals(0, stats.getFailureCount());
+            assertTrue(stats.getMaxTime(TimeUnit.NANOSECONDS) > 0);
+            assertTrue(stats.getTotalTime(TimeUnit.NANOSECONDS)
+                >= stats.getMaxTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    public void testVirtualPoolRunsTasks() throws Exception {
+        SliceThread.VirtualPool pool = new SliceThread.VirtualPool();
+        try {
+            SliceExecutor executor = new SliceExecutor(pool, 2);
+            Slice slice = new Slice("test", null);
+            assertTrue(executor.submit(slice, () -> SliceThread.isSliceThread())
+                .get());
+            assertFalse(SliceThread.isSliceThread());
+            assertEquals(1, slice.getStatistics().getExecutionCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.tools.maven;
+
+
+import java.io.File;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.openjpa.conf.MetaDataCacheMaintenance;
+import org.apache.openjpa.conf.PersistenceUnitHashValidationPolicy;
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.conf.JDBCConfigurationImpl;
+import org.apache.openjpa.kernel.Bootstrap;
+import org.apache.openjpa.kernel.BrokerFactory;
+import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.lib.conf.MapConfigurationProvider;
+import org.apache.openjpa.lib.util.Options;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Stores the fully resolved metadata and mappings of a persistence unit in
+ * a snapshot file. At runtime the snapshot is loaded through the
+ * <code>openjpa.CacheMarshallers</code> property, which skips scanning,
+ * parsing and resolving the metadata as long as the hash of the persistence
+ * unit matches the one recorded in the snapshot.
+ *
+ * @since 3.1.3
+ */
+@Mojo(name="metadata-snapshot", defaultPhase=LifecyclePhase.PROCESS_CLASSES,
+      requiresDependencyResolution=ResolutionScope.COMPILE)
+public class OpenJpaMetaDataSnapshotMojo extends AbstractOpenJpaMojo {
+
+    /**
+     * The file the snapshot is written to. Package it as a resource of the
+     * application and name it in the <code>InputResource</code> of the
+     * runtime cache marshaller.
+     */
+    @Parameter(defaultValue="${project.build.outputDirectory}/META-INF/openjpa-metadata.ser")
+    protected File snapshotFile;
+
+    /**
+     * The codec used to write the snapshot, <code>java</code> or
+     * <code>compact</code>. The runtime cache marshaller must use the same
+     * codec.
+     */
+    @Parameter(defaultValue="java")
+    protected String codec;
+
+    /**
+     * used for passing the cache marshaller that writes the snapshot
+     */
+    protected static final String OPTION_CACHE_MARSHALLERS = "CacheMarshallers";
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.apache.maven.plugin.Mojo#execute()
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skipMojo()) {
+            return;
+        }
+
+        if (!getEntityClasses().exists()) {
+            FileUtils.mkdir(getEntityClasses().getAbsolutePath());
+        }
+        if (!snapshotFile.getParentFile().exists()) {
+            FileUtils.mkdir(snapshotFile.getParentFile().getAbsolutePath());
+        }
+
+        extendRealmClasspath();
+
+        Options opts = getOptions();
+
+        boolean ok = Configurations.runAgainstAllAnchors(opts,
+                new Configurations.Runnable() {
+                    @Override
+                    public boolean run(Options opts) {
+                        Map props;
+                        JDBCConfiguration conf = new JDBCConfigurationImpl();
+                        try {
+                            Configurations.populateConfiguration(conf, opts);
+                            // include the defaults, the broker factory below
+                            // does not know the unit was loaded as a JPA unit
+                            props = conf.toProperties(true);
+                        } finally {
+                            conf.close();
+                        }
+
+                        BrokerFactory factory = Bootstrap.newBrokerFactory(
+                            new MapConfigurationProvider(props),
+                            Thread.currentThread().getContextClassLoader());
+                        try {
+                            new MetaDataCacheMaintenance(factory, false).store();
+                        } finally {
+                            factory.close();
+                        }
+                        return true;
+                    }
+                }
+        );
+
+        if (!ok) {
+            throw new MojoExecutionException("The OpenJPA metadata snapshot could not be stored!");
+        }
+        getLog().info("Stored OpenJPA metadata snapshot in " + snapshotFile);
+    }
+
+    /**
+     * @return Options filled with all necessary plugin parameters
+     */
+    @Override
+    protected Options getOptions() throws MojoExecutionException {
+        Options opts = createOptions();
+        opts.put(OPTION_CACHE_MARSHALLERS, "default("
+            + "Id=" + MetaDataCacheMaintenance.class.getName()
+            + ", OutputFile=" + snapshotFile.getAbsolutePath()
+            + ", Codec=" + codec
+            + ", ConsumeSerializationErrors=false"
+            + ", ValidationPolicy=" + PersistenceUnitHashValidationPolicy.class.getName()
+            + ")");
+        return opts;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openjpa.tools.maven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.openjpa.conf.MetaDataCacheMaintenance;
+import org.apache.openjpa.conf.PersistenceUnitHashValidationPolicy;
+import org.apache.openjpa.meta.MetaDataRepository;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openjpa.tools.maven.testentity.SampleEntity;
+
+/**
+ * @since 3.1.3
+ */
+public class OpenJpaMetaDataSnapshotMojoTest extends AbstractMojoTestCase {
+
+    public void testExecution() throws Exception {
+      File testPom = new File( getBasedir(), "target/test-classes/projects/project-01/plugin-config.xml" );
+
+      OpenJpaMetaDataSnapshotMojo mojo = (OpenJpaMetaDataSnapshotMojo) lookupMojo( "metadata-snapshot", testPom );
+      assertNotNull( mojo );
+
+      mojo.classes = new File( getBasedir(), "target/test-classes/" );
+      mojo.compileClasspathElements = new ArrayList<>();
+      mojo.compileClasspathElements.add( mojo.classes.getAbsolutePath() );
+      mojo.snapshotFile = new File( getBasedir(), "target/openjpa-metadata.ser" );
+      mojo.codec = "java";
+      mojo.snapshotFile.delete();
+
+      // the test entities may not have been enhanced yet
+      Properties toolProperties = new Properties();
+      toolProperties.setProperty( "RuntimeUnenhancedClasses", "supported" );
+      setVariableValueToObject( mojo, "toolProperties", toolProperties );
+
+      mojo.execute();
+      assertTrue( mojo.snapshotFile.exists() );
+
+      // the persistence unit loads the snapshot instead of its annotations
+      Map<String, Object> props = new HashMap<>();
+      props.put( "openjpa.RuntimeUnenhancedClasses", "supported" );
+      props.put( "openjpa.CacheMarshallers", "default(Id=" + MetaDataCacheMaintenance.class.getName()
+          + ", InputURL=" + mojo.snapshotFile.toURI()
+          + ", ConsumeSerializationErrors=false"
+          + ", ValidationPolicy=" + PersistenceUnitHashValidationPolicy.class.getName() + ")" );
+      OpenJPAEntityManagerFactorySPI emf = (OpenJPAEntityManagerFactorySPI)
+          OpenJPAPersistence.createEntityManagerFactory( "TestUnit", "META-INF/persistence.xml", props );
+      try {
+          MetaDataRepository repos = emf.getConfiguration().getMetaDataRepositoryInstance();
+          assertNotNull( repos.getCachedMetaData( SampleEntity.class ) );
+      } finally {
+          emf.close();
+      }
+    }
+
+}